@@ -1149,6 +1149,10 @@ public enum BrowserVersionFeatures {
     @BrowserFeature({CHROME, EDGE})
     JS_OUTER_HTML_THROWS_FOR_DETACHED,
 
+    /** Indicates that {@code performance.getEntries()} has no navigation entry (no Navigation Timing 2). */
+    @BrowserFeature(IE)
+    JS_PERFORMANCE_NO_NAVIGATION_ENTRY,
+
     /** Indicates that HTMLPhraseElements returning 'HTMLElement'
      * as class name. */
     @BrowserFeature({FF, FF68})
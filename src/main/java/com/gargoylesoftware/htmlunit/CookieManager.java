@@ -17,11 +17,18 @@ package com.gargoylesoftware.htmlunit;
 import java.io.Serializable;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
-import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.cookie.CookieOrigin;
@@ -36,6 +43,10 @@ import com.gargoylesoftware.htmlunit.util.UrlUtils;
  * CookieManager itself takes care of this and ignores all cookie request if
  * disabled. If you override this your methods have to do the same.
  *
+ * <p>The cookies are indexed by their domain, the lookup of the cookies for a host
+ * ({@link #getCookiesForHost(String)}) and {@link #getCookies()} don't need any lock.
+ * Expired cookies are found using an index ordered by the expiration date.</p>
+ *
  * @author Daniel Gredler
  * @author Ahmed Ashour
  * @author Nicolas Belisle
@@ -43,24 +54,60 @@ import com.gargoylesoftware.htmlunit.util.UrlUtils;
  */
 public class CookieManager implements Serializable {
 
+    private static final CookieEntry[] NO_ENTRIES = new CookieEntry[0];
+
+    private static final Comparator<CookieEntry> SEQUENCE_COMPARATOR = new Comparator<CookieEntry>() {
+        @Override
+        public int compare(final CookieEntry entry1, final CookieEntry entry2) {
+            return Long.compare(entry1.sequence_, entry2.sequence_);
+        }
+    };
+
     /** Whether or not cookies are enabled. */
-    private boolean cookiesEnabled_;
+    private volatile boolean cookiesEnabled_;
+
+    /**
+     * The cookies added to this cookie manager, keyed by the lower case domain without leading dot.
+     * The arrays are never modified (copy on write) and ordered by the sequence.
+     */
+    private final Map<String, CookieEntry[]> cookiesByDomain_ = new ConcurrentHashMap<>();
+
+    /** The cookies having an expiration date, ordered by this date. */
+    private final TreeSet<CookieEntry> cookiesByExpiration_ = new TreeSet<>();
+
+    /** The earliest expiration date of all cookies, allows {@link #clearExpired(Date)} to return without lock. */
+    private volatile long nextExpiration_ = Long.MAX_VALUE;
+
+    /** Keeps the cookies in the order they were added. */
+    private long nextSequence_;
+
+    /** The result of {@link #getCookies()}, reset by every modification. */
+    private transient volatile Set<Cookie> cookies_;
 
-    /** The cookies added to this cookie manager. */
-    private final Set<Cookie> cookies_ = new LinkedHashSet<>();
+    /** Whether a subclass overrides {@link #getCookies()}; the domain index is bypassed in this case. */
+    private final boolean getCookiesOverridden_;
 
     /**
      * Creates a new instance.
      */
     public CookieManager() {
         cookiesEnabled_ = true;
+
+        boolean overridden;
+        try {
+            overridden = getClass().getMethod("getCookies").getDeclaringClass() != CookieManager.class;
+        }
+        catch (final NoSuchMethodException e) {
+            overridden = false;
+        }
+        getCookiesOverridden_ = overridden;
     }
 
     /**
      * Enables/disables cookie support. Cookies are enabled by default.
      * @param enabled {@code true} to enable cookie support, {@code false} otherwise
      */
-    public synchronized void setCookiesEnabled(final boolean enabled) {
+    public void setCookiesEnabled(final boolean enabled) {
         cookiesEnabled_ = enabled;
     }
 
@@ -68,7 +115,7 @@ public class CookieManager implements Serializable {
      * Returns {@code true} if cookies are enabled. Cookies are enabled by default.
      * @return {@code true} if cookies are enabled, {@code false} otherwise
      */
-    public synchronized boolean isCookiesEnabled() {
+    public boolean isCookiesEnabled() {
         return cookiesEnabled_;
     }
 
@@ -77,14 +124,104 @@ public class CookieManager implements Serializable {
      * If disabled, this returns an empty set.
      * @return the currently configured cookies, in an unmodifiable set
      */
-    public synchronized Set<Cookie> getCookies() {
+    public Set<Cookie> getCookies() {
         if (!isCookiesEnabled()) {
             return Collections.<Cookie>emptySet();
         }
 
-        final Set<Cookie> copy = new LinkedHashSet<>();
-        copy.addAll(cookies_);
-        return Collections.unmodifiableSet(copy);
+        final Set<Cookie> cookies = cookies_;
+        if (cookies != null) {
+            return cookies;
+        }
+        return buildCookies();
+    }
+
+    private synchronized Set<Cookie> buildCookies() {
+        if (cookies_ == null) {
+            final List<CookieEntry> entries = new ArrayList<>();
+            for (final CookieEntry[] bucket : cookiesByDomain_.values()) {
+                entries.addAll(Arrays.asList(bucket));
+            }
+            Collections.sort(entries, SEQUENCE_COMPARATOR);
+
+            final Set<Cookie> cookies = new LinkedHashSet<>(entries.size() * 4 / 3 + 1);
+            for (final CookieEntry entry : entries) {
+                cookies.add(entry.cookie_);
+            }
+            cookies_ = Collections.unmodifiableSet(cookies);
+        }
+        return cookies_;
+    }
+
+    /**
+     * Returns the cookies whose domain is the given host or one of its parent domains
+     * (and the cookies without domain), in the order they were added. Only the domain is used
+     * for this preselection, the cookie spec has to check whether the cookies really match the request.
+     * If a subclass overrides {@link #getCookies()}, the cookies are taken from there.
+     * If disabled, this returns an empty list.
+     * @param host the host
+     * @return the cookies, in an unmodifiable list
+     */
+    public List<Cookie> getCookiesForHost(final String host) {
+        if (!isCookiesEnabled() || host == null) {
+            return Collections.emptyList();
+        }
+
+        final String hostLC = host.toLowerCase(Locale.ROOT);
+        if (getCookiesOverridden_) {
+            final List<Cookie> cookies = new ArrayList<>();
+            for (final Cookie cookie : getCookies()) {
+                final String key = getDomainKey(cookie);
+                if (key.isEmpty() || hostLC.equals(key) || hostLC.endsWith("." + key)) {
+                    cookies.add(cookie);
+                }
+            }
+            return Collections.unmodifiableList(cookies);
+        }
+
+        if (cookiesByDomain_.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<CookieEntry> entries = null;
+        boolean sort = false;
+        String domain = hostLC;
+        while (true) {
+            final CookieEntry[] bucket = cookiesByDomain_.get(domain);
+            if (bucket != null) {
+                if (entries == null) {
+                    entries = new ArrayList<>(bucket.length);
+                }
+                else {
+                    sort = true;
+                }
+                entries.addAll(Arrays.asList(bucket));
+            }
+
+            if (domain.isEmpty()) {
+                break;
+            }
+            final int dotIndex = domain.indexOf('.');
+            if (dotIndex == -1) {
+                // finally the cookies without domain
+                domain = "";
+            }
+            else {
+                domain = domain.substring(dotIndex + 1);
+            }
+        }
+
+        if (entries == null) {
+            return Collections.emptyList();
+        }
+        if (sort) {
+            Collections.sort(entries, SEQUENCE_COMPARATOR);
+        }
+        final List<Cookie> cookies = new ArrayList<>(entries.size());
+        for (final CookieEntry entry : entries) {
+            cookies.add(entry.cookie_);
+        }
+        return Collections.unmodifiableList(cookies);
     }
 
     /**
@@ -108,7 +245,7 @@ public class CookieManager implements Serializable {
      * @param date the date to use for comparison when clearing expired cookies
      * @return whether any cookies were found expired, and were cleared
      */
-    public synchronized boolean clearExpired(final Date date) {
+    public boolean clearExpired(final Date date) {
         if (!isCookiesEnabled()) {
             return false;
         }
@@ -117,13 +254,23 @@ public class CookieManager implements Serializable {
             return false;
         }
 
+        final long time = date.getTime();
+        if (time <= nextExpiration_) {
+            return false;
+        }
+        return removeExpired(time);
+    }
+
+    private synchronized boolean removeExpired(final long time) {
         boolean foundExpired = false;
-        for (final Iterator<Cookie> iter = cookies_.iterator(); iter.hasNext();) {
-            final Cookie cookie = iter.next();
-            if (cookie.getExpires() != null && date.after(cookie.getExpires())) {
-                iter.remove();
-                foundExpired = true;
-            }
+        while (!cookiesByExpiration_.isEmpty() && cookiesByExpiration_.first().expires_ < time) {
+            removeFromDomainIndex(cookiesByExpiration_.pollFirst());
+            foundExpired = true;
+        }
+
+        if (foundExpired) {
+            updateNextExpiration();
+            cookies_ = null;
         }
         return foundExpired;
     }
@@ -172,12 +319,12 @@ public class CookieManager implements Serializable {
      * @param name the name of the cookie to return
      * @return the currently configured cookie with the specified name, or {@code null} if one does not exist
      */
-    public synchronized Cookie getCookie(final String name) {
+    public Cookie getCookie(final String name) {
         if (!isCookiesEnabled()) {
             return null;
         }
 
-        for (final Cookie cookie : cookies_) {
+        for (final Cookie cookie : getCookies()) {
             if (StringUtils.equals(cookie.getName(), name)) {
                 return cookie;
             }
@@ -195,12 +342,31 @@ public class CookieManager implements Serializable {
             return;
         }
 
-        cookies_.remove(cookie);
+        remove(cookie);
 
         // don't add expired cookie
-        if (cookie.getExpires() == null || cookie.getExpires().after(new Date())) {
-            cookies_.add(cookie);
+        final Date expires = cookie.getExpires();
+        if (expires == null || expires.after(new Date())) {
+            final CookieEntry entry = new CookieEntry(cookie, nextSequence_++);
+
+            final String key = getDomainKey(cookie);
+            final CookieEntry[] bucket = cookiesByDomain_.get(key);
+            final CookieEntry[] newBucket;
+            if (bucket == null) {
+                newBucket = new CookieEntry[] {entry};
+            }
+            else {
+                newBucket = Arrays.copyOf(bucket, bucket.length + 1);
+                newBucket[bucket.length] = entry;
+            }
+            cookiesByDomain_.put(key, newBucket);
+
+            if (expires != null) {
+                cookiesByExpiration_.add(entry);
+                updateNextExpiration();
+            }
         }
+        cookies_ = null;
     }
 
     /**
@@ -213,7 +379,9 @@ public class CookieManager implements Serializable {
             return;
         }
 
-        cookies_.remove(cookie);
+        if (remove(cookie)) {
+            cookies_ = null;
+        }
     }
 
     /**
@@ -225,6 +393,93 @@ public class CookieManager implements Serializable {
             return;
         }
 
-        cookies_.clear();
+        cookiesByDomain_.clear();
+        cookiesByExpiration_.clear();
+        nextExpiration_ = Long.MAX_VALUE;
+        cookies_ = null;
+    }
+
+    private boolean remove(final Cookie cookie) {
+        final CookieEntry[] bucket = cookiesByDomain_.get(getDomainKey(cookie));
+        if (bucket == null) {
+            return false;
+        }
+
+        for (final CookieEntry entry : bucket) {
+            if (entry.cookie_.equals(cookie)) {
+                removeFromDomainIndex(entry);
+                if (entry.expires_ != Long.MAX_VALUE) {
+                    cookiesByExpiration_.remove(entry);
+                    updateNextExpiration();
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void removeFromDomainIndex(final CookieEntry entry) {
+        final String key = getDomainKey(entry.cookie_);
+        final CookieEntry[] bucket = cookiesByDomain_.get(key);
+        if (bucket == null) {
+            return;
+        }
+
+        final List<CookieEntry> newBucket = new ArrayList<>(Arrays.asList(bucket));
+        newBucket.remove(entry);
+        if (newBucket.isEmpty()) {
+            cookiesByDomain_.remove(key);
+        }
+        else {
+            cookiesByDomain_.put(key, newBucket.toArray(NO_ENTRIES));
+        }
+    }
+
+    private void updateNextExpiration() {
+        if (cookiesByExpiration_.isEmpty()) {
+            nextExpiration_ = Long.MAX_VALUE;
+        }
+        else {
+            nextExpiration_ = cookiesByExpiration_.first().expires_;
+        }
+    }
+
+    private static String getDomainKey(final Cookie cookie) {
+        final String domain = cookie.getDomain();
+        if (domain == null) {
+            return "";
+        }
+        if (domain.startsWith(".")) {
+            return domain.substring(1).toLowerCase(Locale.ROOT);
+        }
+        return domain.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A cookie together with the data needed for the indexes.
+     */
+    private static final class CookieEntry implements Comparable<CookieEntry>, Serializable {
+        private final Cookie cookie_;
+        private final long sequence_;
+        private final long expires_;
+
+        CookieEntry(final Cookie cookie, final long sequence) {
+            cookie_ = cookie;
+            sequence_ = sequence;
+            final Date expires = cookie.getExpires();
+            expires_ = expires == null ? Long.MAX_VALUE : expires.getTime();
+        }
+
+        /**
+         * Orders by expiration date.
+         */
+        @Override
+        public int compareTo(final CookieEntry other) {
+            final int result = Long.compare(expires_, other.expires_);
+            if (result != 0) {
+                return result;
+            }
+            return Long.compare(sequence_, other.sequence_);
+        }
     }
 }
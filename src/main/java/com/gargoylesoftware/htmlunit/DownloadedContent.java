@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
 import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.ArrayUtils;
@@ -72,8 +73,13 @@ public interface DownloadedContent extends Serializable {
      * Implementation keeping content on the file system.
      */
     class OnFile implements DownloadedContent {
+        private static final AtomicLong TEMPORARY_FILE_COUNT = new AtomicLong();
+        private static final AtomicLong TEMPORARY_FILE_BYTES = new AtomicLong();
+
         private final File file_;
         private final boolean temporary_;
+        private transient boolean counted_;
+        private transient long countedBytes_;
 
         /**
          * @param file the file
@@ -82,6 +88,26 @@ public interface DownloadedContent extends Serializable {
         OnFile(final File file, final boolean temporary) {
             file_ = file;
             temporary_ = temporary;
+            if (temporary) {
+                counted_ = true;
+                countedBytes_ = file.length();
+                TEMPORARY_FILE_COUNT.incrementAndGet();
+                TEMPORARY_FILE_BYTES.addAndGet(countedBytes_);
+            }
+        }
+
+        /**
+         * @return the number of temporary files currently holding downloaded content in this JVM
+         */
+        public static long getTemporaryFileCount() {
+            return TEMPORARY_FILE_COUNT.get();
+        }
+
+        /**
+         * @return the size of the temporary files currently holding downloaded content in this JVM
+         */
+        public static long getTemporaryFileBytes() {
+            return TEMPORARY_FILE_BYTES.get();
         }
 
         @Override
@@ -93,6 +119,14 @@ public interface DownloadedContent extends Serializable {
         public void cleanUp() {
             if (temporary_) {
                 FileUtils.deleteQuietly(file_);
+                synchronized (this) {
+                    // cleanUp() is called again by finalize()
+                    if (counted_) {
+                        counted_ = false;
+                        TEMPORARY_FILE_COUNT.decrementAndGet();
+                        TEMPORARY_FILE_BYTES.addAndGet(-countedBytes_);
+                    }
+                }
             }
         }
 
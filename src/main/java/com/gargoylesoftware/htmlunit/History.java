@@ -14,18 +14,31 @@
  */
 package com.gargoylesoftware.htmlunit;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.lang.ref.SoftReference;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.gargoylesoftware.htmlunit.html.FormControlState;
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
 import com.gargoylesoftware.htmlunit.javascript.host.Window;
 import com.gargoylesoftware.htmlunit.javascript.host.event.Event;
 import com.gargoylesoftware.htmlunit.javascript.host.event.PopStateEvent;
 import com.gargoylesoftware.htmlunit.util.HeaderUtils;
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
 import com.gargoylesoftware.htmlunit.util.UrlUtils;
 
 /**
@@ -39,6 +52,8 @@ import com.gargoylesoftware.htmlunit.util.UrlUtils;
  */
 public class History implements Serializable {
 
+    private static final Log LOG = LogFactory.getLog(History.class);
+
     /** The window to which this navigation history belongs. */
     private final WebWindow window_;
 
@@ -57,6 +72,9 @@ public class History implements Serializable {
     /** The current index within the list of pages which make up this navigation history. */
     private int index_ = -1;
 
+    /** The number of bytes used by the responses kept in the entries. */
+    private long storedResponsesSize_;
+
     /**
      * The single entry in the history.
      */
@@ -64,6 +82,7 @@ public class History implements Serializable {
         private transient SoftReference<Page> page_;
         private final WebRequest webRequest_;
         private Object state_;
+        private StoredResponse storedResponse_;
 
         HistoryEntry(final Page page) {
 
@@ -91,6 +110,27 @@ public class History implements Serializable {
             page_ = null;
         }
 
+        StoredResponse getStoredResponse() {
+            return storedResponse_;
+        }
+
+        void setStoredResponse(final StoredResponse storedResponse) {
+            storedResponse_ = storedResponse;
+        }
+
+        /**
+         * Drops the stored response.
+         * @return the size of the dropped response
+         */
+        long clearStoredResponse() {
+            if (storedResponse_ == null) {
+                return 0;
+            }
+            final long size = storedResponse_.getSize();
+            storedResponse_ = null;
+            return size;
+        }
+
         WebRequest getWebRequest() {
             return webRequest_;
         }
@@ -125,6 +165,75 @@ public class History implements Serializable {
         }
     }
 
+    /**
+     * The compressed response of a page no longer kept alive, together with the values
+     * of its form controls.
+     */
+    private static final class StoredResponse implements Serializable {
+        private final byte[] content_;
+        private final int statusCode_;
+        private final String statusMessage_;
+        private final List<NameValuePair> responseHeaders_;
+        private final long loadTime_;
+        private final FormControlState formControlState_;
+
+        private StoredResponse(final WebResponse webResponse, final byte[] content,
+                final FormControlState formControlState) {
+            content_ = content;
+            statusCode_ = webResponse.getStatusCode();
+            statusMessage_ = webResponse.getStatusMessage();
+            responseHeaders_ = new ArrayList<>(webResponse.getResponseHeaders());
+            loadTime_ = webResponse.getLoadTime();
+            formControlState_ = formControlState;
+        }
+
+        /**
+         * Creates the stored response of the specified page.
+         * @param page the page
+         * @return the stored response or {@code null} if the content is no longer available
+         */
+        static StoredResponse create(final Page page) {
+            final WebResponse webResponse = page.getWebResponse();
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (InputStream in = webResponse.getContentAsStream();
+                    OutputStream out = new DeflaterOutputStream(bytes)) {
+                IOUtils.copy(in, out);
+            }
+            catch (final IOException e) {
+                // e.g. the temporary file of a large response was already deleted
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Content of " + page.getUrl() + " not available for the history", e);
+                }
+                return null;
+            }
+
+            FormControlState formControlState = null;
+            if (page instanceof HtmlPage) {
+                formControlState = FormControlState.capture((HtmlPage) page);
+            }
+            return new StoredResponse(webResponse, bytes.toByteArray(), formControlState);
+        }
+
+        long getSize() {
+            return content_.length;
+        }
+
+        WebResponse toWebResponse(final WebRequest webRequest) throws IOException {
+            final byte[] content;
+            try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(content_))) {
+                content = IOUtils.toByteArray(in);
+            }
+            final WebResponseData data = new WebResponseData(content, statusCode_, statusMessage_, responseHeaders_);
+            return new WebResponse(data, webRequest, loadTime_);
+        }
+
+        void restoreFormControlState(final Page page) {
+            if (formControlState_ != null && page instanceof HtmlPage) {
+                formControlState_.restore((HtmlPage) page);
+            }
+        }
+    }
+
     /**
      * Creates a new navigation history for the specified window.
      * @param window the window which owns the new navigation history
@@ -224,7 +333,7 @@ public class History implements Serializable {
      */
     public void removeCurrent() {
         if (index_ >= 0 && index_ < entries_.size()) {
-            entries_.remove(index_);
+            removeEntry(index_);
             if (index_ > 0) {
                 index_--;
             }
@@ -246,15 +355,16 @@ public class History implements Serializable {
         if (sizeLimit <= 0) {
             entries_.clear();
             index_ = -1;
+            storedResponsesSize_ = 0;
             return null;
         }
 
         index_++;
         while (entries_.size() > index_) {
-            entries_.remove(index_);
+            removeEntry(index_);
         }
         while (entries_.size() >= sizeLimit) {
-            entries_.remove(0);
+            removeEntry(0);
             index_--;
         }
 
@@ -263,12 +373,44 @@ public class History implements Serializable {
 
         final int cacheLimit = Math.max(window_.getWebClient().getOptions().getHistoryPageCacheLimit(), 0);
         if (entries_.size() > cacheLimit) {
-            entries_.get(entries_.size() - cacheLimit - 1).clearPage();
+            final HistoryEntry oldEntry = entries_.get(entries_.size() - cacheLimit - 1);
+            storeResponse(oldEntry);
+            oldEntry.clearPage();
         }
 
         return entry;
     }
 
+    private void removeEntry(final int index) {
+        storedResponsesSize_ -= entries_.remove(index).clearStoredResponse();
+    }
+
+    /**
+     * Keeps the response of the entry's page (if still available) before the page is released,
+     * as long as {@link WebClientOptions#getHistoryResponseCacheLimit()} allows it.
+     * @param entry the entry
+     */
+    private void storeResponse(final HistoryEntry entry) {
+        final long limit = window_.getWebClient().getOptions().getHistoryResponseCacheLimit();
+        final Page page = entry.getPage();
+        if (limit <= 0 || page == null || entry.getStoredResponse() != null) {
+            return;
+        }
+
+        final StoredResponse storedResponse = StoredResponse.create(page);
+        if (storedResponse == null || storedResponse.getSize() > limit) {
+            return;
+        }
+
+        entry.setStoredResponse(storedResponse);
+        storedResponsesSize_ += storedResponse.getSize();
+
+        // drop the oldest responses first
+        for (int i = 0; storedResponsesSize_ > limit && i < entries_.size(); i++) {
+            storedResponsesSize_ -= entries_.get(i).clearStoredResponse();
+        }
+    }
+
     /**
      * Loads the URL at the current index into the window to which this navigation history belongs.
      * @throws IOException if an IO error occurs
@@ -281,7 +423,13 @@ public class History implements Serializable {
             final HistoryEntry entry = entries_.get(index_);
 
             final Page page = entry.getPage();
-            if (page == null) {
+            final StoredResponse storedResponse = entry.getStoredResponse();
+            if (page == null && storedResponse != null) {
+                final WebClient webClient = window_.getWebClient();
+                webClient.loadHistoryWebResponse(window_, storedResponse.toWebResponse(entry.getWebRequest()));
+                storedResponse.restoreFormControlState(window_.getEnclosedPage());
+            }
+            else if (page == null) {
                 window_.getWebClient().getPage(window_, entry.getWebRequest(), false);
             }
             else {
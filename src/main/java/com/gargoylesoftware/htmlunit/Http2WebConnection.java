@@ -0,0 +1,614 @@
+/*
+ * Copyright (c) 2002-2020 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.net.ssl.SSLException;
+
+import org.apache.commons.lang3.JavaVersion;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.SystemUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.Credentials;
+import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.protocol.RequestAddCookies;
+import org.apache.http.client.protocol.RequestClientConnControl;
+import org.apache.http.cookie.ClientCookie;
+import org.apache.http.cookie.CookieOrigin;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.cookie.MalformedCookieException;
+import org.apache.http.message.BasicHeader;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.util.BytesContentProvider;
+import org.eclipse.jetty.client.util.InputStreamResponseListener;
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http2.client.HTTP2Client;
+import org.eclipse.jetty.http2.client.http.HttpClientTransportOverHTTP2;
+import org.eclipse.jetty.io.EofException;
+import org.eclipse.jetty.util.HttpCookieStore;
+import org.eclipse.jetty.util.Promise;
+import org.eclipse.jetty.util.SocketAddressResolver;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+
+import com.gargoylesoftware.htmlunit.httpclient.HtmlUnitBrowserCompatCookieSpec;
+import com.gargoylesoftware.htmlunit.util.Cookie;
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+
+/**
+ * An {@link HttpWebConnection} talking HTTP/2 to the servers supporting it.
+ *
+ * <p>For {@code https} URLs the protocol is negotiated via ALPN; all requests to the same origin
+ * are multiplexed as streams over a single connection, using HPACK header compression.
+ * Cookies, redirects (which are handled by the {@link WebClient}) and Basic authentication
+ * behave exactly like for {@link HttpWebConnection}. Everything else is passed to the
+ * HTTP/1.1 implementation of the superclass:</p>
+ * <ul>
+ *   <li>plain {@code http} requests (browsers do not use cleartext HTTP/2 either)</li>
+ *   <li>requests using a proxy or a virtual host</li>
+ *   <li>authentication schemes other than Basic</li>
+ *   <li>origins not able to negotiate {@code h2}; these are remembered
+ *       and the HTTP/2 transport is not tried again</li>
+ *   <li>all requests when running on Java 8</li>
+ * </ul>
+ *
+ * <p>This needs Java 9+, the Jetty HTTP/2 client ({@code org.eclipse.jetty.http2:http2-http-client-transport})
+ * and the ALPN implementation {@code org.eclipse.jetty:jetty-alpn-java-client} in the classpath.
+ * On Java 8 this connection silently behaves like {@link HttpWebConnection}.</p>
+ *
+ * <pre>
+ * webClient.setWebConnection(new Http2WebConnection(webClient));
+ * </pre>
+ *
+ * @author agent (agent@local)
+ */
+public class Http2WebConnection extends HttpWebConnection {
+
+    private static final Log LOG = LogFactory.getLog(Http2WebConnection.class);
+
+    /** Connection specific headers are not allowed in HTTP/2 (RFC 7540, 8.1.2.2). */
+    private static final Set<String> CONNECTION_SPECIFIC_HEADERS = new HashSet<>(Arrays.asList(
+            HttpHeader.CONNECTION_LC, HttpHeader.HOST_LC, HttpHeader.CONTENT_LENGTH_LC,
+            "keep-alive", "proxy-connection", "transfer-encoding", "upgrade"));
+
+    private static final String BASIC = "basic";
+
+    /** The ALPN support of jetty-alpn-java-client is based on the SSLEngine API of Java 9. */
+    private static final boolean ALPN_SUPPORTED = SystemUtils.isJavaVersionAtLeast(JavaVersion.JAVA_9);
+
+    private final WebClient webClient_;
+    private final HtmlUnitBrowserCompatCookieSpec cookieSpec_;
+    private final WebClientOptions usedOptions_ = new WebClientOptions();
+    private HttpClient httpClient_;
+
+    /** The origins (scheme://host:port) that did not negotiate HTTP/2. */
+    private final Set<String> http11Origins_ = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /** Basic credentials already accepted by an origin; sent preemptively like the HttpClient AuthCache does. */
+    private final Map<String, Credentials> basicAuthCache_ = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new HTTP/2 web connection instance.
+     * @param webClient the WebClient that is using this connection
+     */
+    public Http2WebConnection(final WebClient webClient) {
+        super(webClient);
+        webClient_ = webClient;
+        cookieSpec_ = new HtmlUnitBrowserCompatCookieSpec(webClient.getBrowserVersion());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public WebResponse getResponse(final WebRequest webRequest) throws IOException {
+        if (!isHttp2Candidate(webRequest)) {
+            return super.getResponse(webRequest);
+        }
+
+        final String origin = getOrigin(webRequest.getUrl());
+        if (http11Origins_.contains(origin)) {
+            return super.getResponse(webRequest);
+        }
+
+        final HttpUriRequest httpMethod;
+        try {
+            httpMethod = makeHttpMethod(webRequest, getHttpClientBuilder());
+        }
+        catch (final URISyntaxException e) {
+            throw new IOException("Unable to create URI from URL: " + webRequest.getUrl().toExternalForm()
+                    + " (reason: " + e.getMessage() + ")", e);
+        }
+        addRequestHeaders(httpMethod, webRequest);
+        final byte[] body = getRequestBody(httpMethod);
+
+        final long startTime = System.currentTimeMillis();
+        final AtomicBoolean committed = new AtomicBoolean();
+        Credentials credentials = basicAuthCache_.get(origin);
+        Exchange exchange;
+        try {
+            exchange = send(httpMethod, body, credentials, committed);
+        }
+        catch (final ExecutionException e) {
+            if (committed.get() || !isProtocolNegotiationFailure(e.getCause())) {
+                throw toIOException(e.getCause());
+            }
+
+            // the request never left because the server does not speak h2
+            final WebResponse response = super.getResponse(webRequest);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Origin '" + origin + "' does not support HTTP/2, using HTTP/1.1", e.getCause());
+            }
+            http11Origins_.add(origin);
+            return response;
+        }
+
+        if (exchange.response_.getStatus() == HttpStatus.UNAUTHORIZED_401) {
+            final String challenge = exchange.response_.getHeaders().get(HttpHeader.WWW_AUTHENTICATE);
+            if (challenge == null) {
+                return makeWebResponse(exchange, webRequest, startTime);
+            }
+            final String scheme = StringUtils.substringBefore(StringUtils.trim(challenge), " ")
+                    .toLowerCase(Locale.ROOT);
+            final CredentialsProvider credentialsProvider = webClient_.getCredentialsProvider();
+            final URL url = webRequest.getUrl();
+
+            if (BASIC.equals(scheme)) {
+                final Credentials challenged = credentialsProvider.getCredentials(
+                        new AuthScope(url.getHost(), getPort(url), getRealm(challenge), BASIC));
+                if (challenged != null && challenged != credentials) {
+                    exchange.close();
+                    credentials = challenged;
+                    try {
+                        exchange = send(httpMethod, body, credentials, committed);
+                    }
+                    catch (final ExecutionException e) {
+                        throw toIOException(e.getCause());
+                    }
+                    if (exchange.response_.getStatus() != HttpStatus.UNAUTHORIZED_401) {
+                        basicAuthCache_.put(origin, credentials);
+                    }
+                }
+            }
+            else if (StringUtils.isNotEmpty(scheme) && credentialsProvider.getCredentials(
+                        new AuthScope(url.getHost(), getPort(url), AuthScope.ANY_REALM, scheme)) != null) {
+                // Digest, NTLM... are handled by the HttpClient based implementation
+                exchange.close();
+                return super.getResponse(webRequest);
+            }
+        }
+
+        return makeWebResponse(exchange, webRequest, startTime);
+    }
+
+    private boolean isHttp2Candidate(final WebRequest webRequest) {
+        return ALPN_SUPPORTED
+                && "https".equals(webRequest.getUrl().getProtocol())
+                && webRequest.getProxyHost() == null
+                && getVirtualHost() == null;
+    }
+
+    private static String getOrigin(final URL url) {
+        return url.getProtocol() + "://" + url.getHost() + ':' + getPort(url);
+    }
+
+    private static int getPort(final URL url) {
+        final int port = url.getPort();
+        if (port == -1) {
+            return url.getDefaultPort();
+        }
+        return port;
+    }
+
+    private static String getRealm(final String challenge) {
+        final String realm = StringUtils.substringAfter(challenge, "realm=");
+        if (realm.startsWith("\"")) {
+            return StringUtils.substringBetween(realm, "\"", "\"");
+        }
+        return StringUtils.substringBefore(realm, ",").trim();
+    }
+
+    /**
+     * Applies the same header interceptors as the HttpClient based implementation
+     * and adds the cookies.
+     */
+    private void addRequestHeaders(final HttpUriRequest httpMethod, final WebRequest webRequest)
+        throws IOException {
+        final HttpClientContext context = HttpClientContext.create();
+        for (final HttpRequestInterceptor interceptor : getHttpRequestInterceptors(webRequest)) {
+            // cookies are added below, connection control is not allowed in HTTP/2
+            if (interceptor instanceof RequestAddCookies || interceptor instanceof RequestClientConnControl) {
+                continue;
+            }
+            try {
+                interceptor.process(httpMethod, context);
+            }
+            catch (final HttpException e) {
+                throw new IOException(e);
+            }
+        }
+
+        final Set<Cookie> cookies = webClient_.getCookies(webRequest.getUrl());
+        if (!cookies.isEmpty()) {
+            for (final Header header : cookieSpec_.formatCookies(Cookie.toHttpClient(cookies))) {
+                httpMethod.addHeader(header);
+            }
+        }
+    }
+
+    private static byte[] getRequestBody(final HttpUriRequest httpMethod) throws IOException {
+        if (httpMethod instanceof HttpEntityEnclosingRequest) {
+            final HttpEntity entity = ((HttpEntityEnclosingRequest) httpMethod).getEntity();
+            if (entity != null) {
+                final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                entity.writeTo(bos);
+
+                final Header contentType = entity.getContentType();
+                if (contentType != null && httpMethod.getFirstHeader(HttpHeader.CONTENT_TYPE) == null) {
+                    httpMethod.addHeader(contentType);
+                }
+                return bos.toByteArray();
+            }
+        }
+        return null;
+    }
+
+    private Exchange send(final HttpUriRequest httpMethod, final byte[] body,
+            final Credentials credentials, final AtomicBoolean committed)
+        throws IOException, ExecutionException {
+        final int timeout = getTimeout();
+
+        final Request request = getHttp2Client().newRequest(httpMethod.getURI())
+                .method(httpMethod.getMethod())
+                .followRedirects(false);
+        if (timeout > 0) {
+            request.timeout(timeout, TimeUnit.MILLISECONDS);
+        }
+
+        for (final Header header : httpMethod.getAllHeaders()) {
+            if (!CONNECTION_SPECIFIC_HEADERS.contains(header.getName().toLowerCase(Locale.ROOT))) {
+                request.header(header.getName(), header.getValue());
+            }
+        }
+        if (credentials != null) {
+            final String token = credentials.getUserPrincipal().getName()
+                    + ':' + StringUtils.defaultString(credentials.getPassword());
+            request.header(HttpHeader.AUTHORIZATION,
+                    "Basic " + Base64.getEncoder().encodeToString(token.getBytes(StandardCharsets.ISO_8859_1)));
+        }
+        if (body != null) {
+            final Header contentType = httpMethod.getFirstHeader(HttpHeader.CONTENT_TYPE);
+            request.content(new BytesContentProvider(body),
+                    contentType == null ? null : contentType.getValue());
+        }
+
+        request.onRequestCommit(new Request.CommitListener() {
+            @Override
+            public void onCommit(final Request r) {
+                committed.set(true);
+            }
+        });
+
+        final InputStreamResponseListener listener = new InputStreamResponseListener();
+        request.send(listener);
+        try {
+            final Response response = listener.get(timeout > 0 ? timeout : Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            return new Exchange(response, listener.getInputStream());
+        }
+        catch (final TimeoutException e) {
+            request.abort(e);
+            throw new SocketTimeoutException("Read timed out after " + timeout + "ms");
+        }
+        catch (final InterruptedException e) {
+            request.abort(e);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        }
+    }
+
+    private WebResponse makeWebResponse(final Exchange exchange, final WebRequest webRequest, final long startTime)
+        throws IOException {
+        final Response response = exchange.response_;
+        final List<NameValuePair> headers = new ArrayList<>();
+        for (final HttpField field : response.getHeaders()) {
+            headers.add(new NameValuePair(field.getName(), field.getValue()));
+        }
+        processResponseCookies(headers, webRequest.getUrl());
+
+        final DownloadedContent downloadedBody;
+        try (InputStream is = exchange.content_) {
+            downloadedBody = downloadContent(is, webClient_.getOptions().getMaxInMemory());
+        }
+        final long endTime = System.currentTimeMillis();
+
+        // HTTP/2 has no reason phrase
+        String statusMessage = response.getReason();
+        if (statusMessage == null) {
+            statusMessage = HttpStatus.getMessage(response.getStatus());
+        }
+        final WebResponseData responseData =
+                new WebResponseData(downloadedBody, response.getStatus(), statusMessage, headers);
+        return newWebResponseInstance(responseData, endTime - startTime, webRequest);
+    }
+
+    /**
+     * Does the same as {@link org.apache.http.client.protocol.ResponseProcessCookies}.
+     */
+    private void processResponseCookies(final List<NameValuePair> headers, final URL url) {
+        final CookieManager cookieManager = webClient_.getCookieManager();
+        if (!cookieManager.isCookiesEnabled()) {
+            return;
+        }
+
+        final CookieOrigin cookieOrigin = cookieManager.buildCookieOrigin(url);
+        for (final NameValuePair header : headers) {
+            if (HttpHeader.SET_COOKIE.equalsIgnoreCase(header.getName())) {
+                try {
+                    final Header setCookie = new BasicHeader(HttpHeader.SET_COOKIE, header.getValue());
+                    final List<org.apache.http.cookie.Cookie> cookies = cookieSpec_.parse(setCookie, cookieOrigin);
+                    for (final org.apache.http.cookie.Cookie cookie : cookies) {
+                        try {
+                            cookieSpec_.validate(cookie, cookieOrigin);
+                            cookieManager.addCookie(new Cookie((ClientCookie) cookie));
+                        }
+                        catch (final MalformedCookieException e) {
+                            if (LOG.isWarnEnabled()) {
+                                LOG.warn("Cookie rejected [" + cookie + "] " + e.getMessage());
+                            }
+                        }
+                    }
+                }
+                catch (final MalformedCookieException e) {
+                    if (LOG.isWarnEnabled()) {
+                        LOG.warn("Invalid cookie header: \"" + header.getValue() + "\". " + e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Lazily creates the HTTP/2 client; (re)created if the ssl settings of the WebClient have changed.
+     */
+    private synchronized HttpClient getHttp2Client() throws IOException {
+        final WebClientOptions options = webClient_.getOptions();
+
+        if (httpClient_ != null
+                && (options.isUseInsecureSSL() != usedOptions_.isUseInsecureSSL()
+                    || options.getSSLClientCertificateStore() != usedOptions_.getSSLClientCertificateStore()
+                    || options.getSSLTrustStore() != usedOptions_.getSSLTrustStore()
+                    || options.getSSLClientCipherSuites() != usedOptions_.getSSLClientCipherSuites()
+                    || options.getSSLClientProtocols() != usedOptions_.getSSLClientProtocols()
+                    || options.getLocalAddress() != usedOptions_.getLocalAddress()
+                    || options.getDnsResolver() != usedOptions_.getDnsResolver()
+                    || getTimeout() != usedOptions_.getTimeout())) {
+            stopHttp2Client();
+        }
+
+        if (httpClient_ == null) {
+            final HttpClient httpClient = new HttpClient(new HttpClientTransportOverHTTP2(new HTTP2Client()),
+                    createSslContextFactory(options));
+
+            // use the same executor as the rest
+            httpClient.setExecutor(webClient_.getExecutor());
+
+            // redirects, cookies, content decoding and the user agent are done by us
+            httpClient.setFollowRedirects(false);
+            httpClient.setCookieStore(new HttpCookieStore.Empty());
+            httpClient.getContentDecoderFactories().clear();
+            httpClient.setUserAgentField(null);
+
+            final int timeout = getTimeout();
+            if (timeout > 0) {
+                httpClient.setConnectTimeout(timeout);
+            }
+            final InetAddress localAddress = options.getLocalAddress();
+            if (localAddress != null) {
+                httpClient.setBindAddress(new InetSocketAddress(localAddress, 0));
+            }
+            final DnsResolver dnsResolver = options.getDnsResolver();
+            if (dnsResolver != null) {
+                httpClient.setSocketAddressResolver(new DnsSocketAddressResolver(dnsResolver));
+            }
+
+            try {
+                httpClient.start();
+            }
+            catch (final Exception e) {
+                throw new IOException("Unable to start the HTTP/2 client", e);
+            }
+            httpClient_ = httpClient;
+
+            usedOptions_.setUseInsecureSSL(options.isUseInsecureSSL());
+            usedOptions_.setSSLClientCertificateStore(options.getSSLClientCertificateStore());
+            usedOptions_.setSSLTrustStore(options.getSSLTrustStore());
+            usedOptions_.setSSLClientCipherSuites(options.getSSLClientCipherSuites());
+            usedOptions_.setSSLClientProtocols(options.getSSLClientProtocols());
+            usedOptions_.setLocalAddress(localAddress);
+            usedOptions_.setDnsResolver(dnsResolver);
+            usedOptions_.setTimeout(timeout);
+        }
+        return httpClient_;
+    }
+
+    private static SslContextFactory createSslContextFactory(final WebClientOptions options) {
+        final SslContextFactory.Client factory = new SslContextFactory.Client(options.isUseInsecureSSL());
+        if (options.isUseInsecureSSL()) {
+            factory.setEndpointIdentificationAlgorithm(null);
+        }
+
+        final KeyStore keyStore = options.getSSLClientCertificateStore();
+        if (keyStore != null) {
+            factory.setKeyStore(keyStore);
+            final char[] password = options.getSSLClientCertificatePassword();
+            if (password != null) {
+                factory.setKeyStorePassword(new String(password));
+            }
+        }
+        final KeyStore trustStore = options.getSSLTrustStore();
+        if (trustStore != null) {
+            factory.setTrustStore(trustStore);
+        }
+        if (options.getSSLClientProtocols() != null) {
+            factory.setIncludeProtocols(options.getSSLClientProtocols());
+        }
+        if (options.getSSLClientCipherSuites() != null) {
+            factory.setIncludeCipherSuites(options.getSSLClientCipherSuites());
+        }
+        return factory;
+    }
+
+    private void stopHttp2Client() {
+        if (httpClient_ != null) {
+            try {
+                httpClient_.stop();
+            }
+            catch (final Exception e) {
+                LOG.error("Exception while stopping the HTTP/2 client", e);
+            }
+            httpClient_ = null;
+        }
+    }
+
+    /**
+     * Returns whether the given failure (of a request not yet sent) means that the server did not
+     * negotiate {@code h2}: either the TLS handshake failed because of ALPN, or the connection was
+     * closed by the ALPN processor after the server selected another (or no) protocol.
+     * Connect, DNS, timeout and other TLS failures are real errors and have to be reported.
+     */
+    private static boolean isProtocolNegotiationFailure(final Throwable t) {
+        for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+            if (cause instanceof UnknownHostException
+                    || cause instanceof ConnectException
+                    || cause instanceof NoRouteToHostException
+                    || cause instanceof SocketTimeoutException
+                    || cause instanceof TimeoutException) {
+                return false;
+            }
+            if (cause instanceof SSLException) {
+                final String message = StringUtils.defaultString(cause.getMessage()).toLowerCase(Locale.ROOT);
+                return message.contains("alpn") || message.contains("application_protocol")
+                        || message.contains("application protocol");
+            }
+            if (cause instanceof ClosedChannelException || cause instanceof EofException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static IOException toIOException(final Throwable t) {
+        if (t instanceof IOException) {
+            return (IOException) t;
+        }
+        return new IOException(t);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        super.close();
+
+        synchronized (this) {
+            stopHttp2Client();
+        }
+        basicAuthCache_.clear();
+    }
+
+    /**
+     * Adapts the {@link DnsResolver} of the options to Jetty.
+     */
+    private static final class DnsSocketAddressResolver implements SocketAddressResolver {
+        private final DnsResolver dnsResolver_;
+
+        DnsSocketAddressResolver(final DnsResolver dnsResolver) {
+            dnsResolver_ = dnsResolver;
+        }
+
+        @Override
+        public void resolve(final String host, final int port, final Promise<List<InetSocketAddress>> promise) {
+            try {
+                final List<InetSocketAddress> result = new ArrayList<>();
+                for (final InetAddress address : dnsResolver_.resolve(host)) {
+                    result.add(new InetSocketAddress(address, port));
+                }
+                promise.succeeded(result);
+            }
+            catch (final UnknownHostException | RuntimeException e) {
+                promise.failed(e);
+            }
+        }
+    }
+
+    /**
+     * The response headers and the not yet consumed body.
+     */
+    private static final class Exchange {
+        private final Response response_;
+        private final InputStream content_;
+
+        Exchange(final Response response, final InputStream content) {
+            response_ = response;
+            content_ = content;
+        }
+
+        /** Discards the body, the stream gets reset. */
+        void close() throws IOException {
+            content_.close();
+        }
+    }
+}
@@ -133,6 +133,15 @@ public final class HttpHeader {
     /** Content-Security-Policy. */
     public static final String CONTENT_SECURIRY_POLICY = "Content-Security-Policy";
 
+    /** Set-Cookie. */
+    public static final String SET_COOKIE = "Set-Cookie";
+
+    /** Authorization. */
+    public static final String AUTHORIZATION = "Authorization";
+
+    /** WWW-Authenticate. */
+    public static final String WWW_AUTHENTICATE = "WWW-Authenticate";
+
     private HttpHeader() {
     }
 }
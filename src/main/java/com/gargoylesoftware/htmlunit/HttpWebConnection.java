@@ -34,6 +34,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.WeakHashMap;
 import java.util.concurrent.TimeUnit;
 
@@ -49,6 +50,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.http.ConnectionClosedException;
 import org.apache.http.Header;
+import org.apache.http.HttpClientConnection;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.HttpException;
@@ -85,6 +87,7 @@ import org.apache.http.config.ConnectionConfig;
 import org.apache.http.config.RegistryBuilder;
 import org.apache.http.config.SocketConfig;
 import org.apache.http.conn.DnsResolver;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
 import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
 import org.apache.http.conn.ssl.DefaultHostnameVerifier;
@@ -99,17 +102,20 @@ import org.apache.http.entity.mime.content.InputStreamBody;
 import org.apache.http.impl.client.BasicAuthCache;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.client.IdleConnectionEvictor;
 import org.apache.http.protocol.HttpContext;
 import org.apache.http.protocol.HttpProcessorBuilder;
+import org.apache.http.protocol.HttpRequestExecutor;
 import org.apache.http.protocol.RequestContent;
 import org.apache.http.protocol.RequestTargetHost;
 import org.apache.http.ssl.SSLContexts;
 import org.apache.http.util.TextUtils;
 
 import com.gargoylesoftware.htmlunit.WebRequest.HttpHint;
+import com.gargoylesoftware.htmlunit.httpclient.ConnectionPoolStatistics;
 import com.gargoylesoftware.htmlunit.httpclient.HtmlUnitCookieSpecProvider;
 import com.gargoylesoftware.htmlunit.httpclient.HtmlUnitCookieStore;
+import com.gargoylesoftware.htmlunit.httpclient.HtmlUnitPoolingHttpClientConnectionManager;
 import com.gargoylesoftware.htmlunit.httpclient.HtmlUnitRedirectStrategie;
 import com.gargoylesoftware.htmlunit.httpclient.HtmlUnitSSLConnectionSocketFactory;
 import com.gargoylesoftware.htmlunit.httpclient.SocksConnectionSocketFactory;
@@ -139,6 +145,9 @@ public class HttpWebConnection implements WebConnection {
 
     private static final String HACKED_COOKIE_POLICY = "mine";
 
+    /** The maximum number of connections per route if not configured (like the browsers). */
+    private static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 6;
+
     // have one per thread because this is (re)configured for every call (see configureHttpProcessorBuilder)
     // do not use a ThreadLocal because this in only accessed form this class
     private final Map<Thread, HttpClientBuilder> httpClientBuilder_ = new WeakHashMap<>();
@@ -147,7 +156,11 @@ public class HttpWebConnection implements WebConnection {
     private String virtualHost_;
     private final CookieSpecProvider htmlUnitCookieSpecProvider_;
     private final WebClientOptions usedOptions_;
-    private PoolingHttpClientConnectionManager connectionManager_;
+    private HtmlUnitPoolingHttpClientConnectionManager connectionManager_;
+    // the limits of the connection manager as created by the builder, restored if a configured limit is removed
+    private int builderMaxTotal_;
+    private int builderMaxPerRoute_;
+    private IdleConnectionEvictor connectionEvictor_;
 
     /** Authentication cache shared among all threads of a web client. */
     private final AuthCache sharedAuthCache_ = new SynchronizedAuthCache();
@@ -187,6 +200,12 @@ public class HttpWebConnection implements WebConnection {
             final long startTime = System.currentTimeMillis();
 
             final HttpContext httpContext = getHttpContext();
+            // only the cookies of the target host are candidates for the Cookie header
+            httpContext.setAttribute(HttpClientContext.COOKIE_STORE,
+                    new HtmlUnitCookieStore(webClient_.getCookieManager(), url.getHost()));
+            final WebResponseTiming timing = new WebResponseTiming();
+            timing.setFetchStart(startTime);
+            httpContext.setAttribute(WebResponseTiming.CONTEXT_ATTRIBUTE, timing);
             HttpResponse httpResponse = null;
             try {
                 try (CloseableHttpClient closeableHttpClient = builder.build()) {
@@ -216,7 +235,15 @@ public class HttpWebConnection implements WebConnection {
 
             final DownloadedContent downloadedBody = downloadResponseBody(httpResponse);
             final long endTime = System.currentTimeMillis();
-            return makeWebResponse(httpResponse, request, downloadedBody, endTime - startTime);
+            httpContext.removeAttribute(WebResponseTiming.CONTEXT_ATTRIBUTE);
+            timing.setResponseEnd(endTime);
+            if (timing.getResponseStart() == 0) {
+                timing.setResponseStart(endTime);
+            }
+
+            final WebResponse webResponse = makeWebResponse(httpResponse, request, downloadedBody, endTime - startTime);
+            webResponse.setTiming(timing);
+            return webResponse;
         }
         finally {
             if (httpMethod != null) {
@@ -277,7 +304,7 @@ public class HttpWebConnection implements WebConnection {
      * @throws IOException
      * @throws URISyntaxException
      */
-    private HttpUriRequest makeHttpMethod(final WebRequest webRequest, final HttpClientBuilder httpClientBuilder)
+    HttpUriRequest makeHttpMethod(final WebRequest webRequest, final HttpClientBuilder httpClientBuilder)
         throws URISyntaxException {
 
         final HttpContext httpContext = getHttpContext();
@@ -580,9 +607,33 @@ public class HttpWebConnection implements WebConnection {
         builder.setRedirectStrategy(new HtmlUnitRedirectStrategie());
         configureTimeout(builder, getTimeout());
         configureHttpsScheme(builder);
-        builder.setMaxConnPerRoute(6);
+        builder.setMaxConnPerRoute(DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
 
         builder.setConnectionManagerShared(true);
+
+        // records the start of the request and the arrival of the response headers
+        builder.setRequestExecutor(new HttpRequestExecutor() {
+            @Override
+            protected HttpResponse doSendRequest(final HttpRequest request, final HttpClientConnection conn,
+                    final HttpContext context) throws IOException, HttpException {
+                final WebResponseTiming timing = WebResponseTiming.of(context);
+                if (timing != null) {
+                    timing.setRequestStart(System.currentTimeMillis());
+                }
+                return super.doSendRequest(request, conn, context);
+            }
+
+            @Override
+            protected HttpResponse doReceiveResponse(final HttpRequest request, final HttpClientConnection conn,
+                    final HttpContext context) throws HttpException, IOException {
+                final HttpResponse response = super.doReceiveResponse(request, conn, context);
+                final WebResponseTiming timing = WebResponseTiming.of(context);
+                if (timing != null) {
+                    timing.setResponseStart(System.currentTimeMillis());
+                }
+                return response;
+            }
+        });
         return builder;
     }
 
@@ -632,11 +683,13 @@ public class HttpWebConnection implements WebConnection {
                 || options.getSSLClientProtocols() != usedOptions_.getSSLClientProtocols()
                 || options.getProxyConfig() != usedOptions_.getProxyConfig()) {
             configureHttpsScheme(httpClientBuilder);
+            shutdownConnectionManager();
+        }
 
-            if (connectionManager_ != null) {
-                connectionManager_.shutdown();
-                connectionManager_ = null;
-            }
+        // the resolver is part of the connection manager
+        if (options.getDnsResolver() != usedOptions_.getDnsResolver()) {
+            usedOptions_.setDnsResolver(options.getDnsResolver());
+            shutdownConnectionManager();
         }
 
         final int timeout = getTimeout();
@@ -651,13 +704,116 @@ public class HttpWebConnection implements WebConnection {
         }
 
         if (connectionManager_ == null) {
+            httpClientBuilder.setDnsResolver(options.getDnsResolver());
             connectionManager_ = createConnectionManager(httpClientBuilder);
+            builderMaxTotal_ = connectionManager_.getMaxTotal();
+            builderMaxPerRoute_ = connectionManager_.getDefaultMaxPerRoute();
+            configureConnectionPool(options);
+        }
+        else if (options.getConnectionPoolMaxTotal() != usedOptions_.getConnectionPoolMaxTotal()
+                || options.getConnectionPoolMaxPerRoute() != usedOptions_.getConnectionPoolMaxPerRoute()
+                || !options.getConnectionPoolMaxPerOrigin().equals(usedOptions_.getConnectionPoolMaxPerOrigin())
+                || options.getConnectionPoolIdleTimeout() != usedOptions_.getConnectionPoolIdleTimeout()
+                || options.getConnectionPoolValidateAfterInactivity()
+                        != usedOptions_.getConnectionPoolValidateAfterInactivity()
+                || !Objects.equals(options.getLocalAddress(), usedOptions_.getLocalAddress())) {
+            configureConnectionPool(options);
         }
         httpClientBuilder.setConnectionManager(connectionManager_);
 
         return httpClientBuilder;
     }
 
+    /**
+     * Applies the pool settings of the options to the (already created) connection manager.
+     * All the settings can be changed while the pool is in use. The limits are only changed
+     * if configured; removing a configured limit restores the limit of the builder
+     * (see {@link #createHttpClientBuilder()}).
+     */
+    private void configureConnectionPool(final WebClientOptions options) {
+        final int maxTotal = options.getConnectionPoolMaxTotal();
+        if (maxTotal > 0) {
+            connectionManager_.setMaxTotal(maxTotal);
+        }
+        else if (usedOptions_.getConnectionPoolMaxTotal() > 0) {
+            connectionManager_.setMaxTotal(builderMaxTotal_);
+        }
+        final int maxPerRoute = options.getConnectionPoolMaxPerRoute();
+        if (maxPerRoute > 0) {
+            connectionManager_.setDefaultMaxPerRoute(maxPerRoute);
+        }
+        else if (usedOptions_.getConnectionPoolMaxPerRoute() > 0) {
+            connectionManager_.setDefaultMaxPerRoute(builderMaxPerRoute_);
+        }
+
+        // the routes include the local address; the routes of a former local address are reset
+        final InetAddress usedLocalAddress = usedOptions_.getLocalAddress();
+        final InetAddress localAddress = options.getLocalAddress();
+        final boolean localAddressChanged = !Objects.equals(localAddress, usedLocalAddress);
+        final Map<String, Integer> maxPerOrigin = options.getConnectionPoolMaxPerOrigin();
+        for (final String origin : usedOptions_.getConnectionPoolMaxPerOrigin().keySet()) {
+            if (localAddressChanged || !maxPerOrigin.containsKey(origin)) {
+                connectionManager_.setMaxPerRoute(createRoute(origin, usedLocalAddress),
+                        connectionManager_.getDefaultMaxPerRoute());
+            }
+        }
+        for (final Map.Entry<String, Integer> entry : maxPerOrigin.entrySet()) {
+            connectionManager_.setMaxPerRoute(createRoute(entry.getKey(), localAddress), entry.getValue());
+        }
+
+        connectionManager_.setValidateAfterInactivity(options.getConnectionPoolValidateAfterInactivity());
+
+        if (options.getConnectionPoolIdleTimeout() != usedOptions_.getConnectionPoolIdleTimeout()
+                || connectionEvictor_ == null) {
+            if (connectionEvictor_ != null) {
+                connectionEvictor_.shutdown();
+                connectionEvictor_ = null;
+            }
+            final long idleTimeout = options.getConnectionPoolIdleTimeout();
+            if (idleTimeout > 0) {
+                connectionEvictor_ = new IdleConnectionEvictor(connectionManager_,
+                        idleTimeout, TimeUnit.MILLISECONDS);
+                connectionEvictor_.start();
+            }
+        }
+
+        usedOptions_.setConnectionPoolMaxTotal(maxTotal);
+        usedOptions_.setConnectionPoolMaxPerRoute(maxPerRoute);
+        usedOptions_.setConnectionPoolMaxPerOrigin(options.getConnectionPoolMaxPerOrigin());
+        usedOptions_.setConnectionPoolIdleTimeout(options.getConnectionPoolIdleTimeout());
+        usedOptions_.setConnectionPoolValidateAfterInactivity(options.getConnectionPoolValidateAfterInactivity());
+        usedOptions_.setLocalAddress(localAddress);
+    }
+
+    private static HttpRoute createRoute(final String origin, final InetAddress localAddress) {
+        final HttpHost host = HttpHost.create(origin);
+        return new HttpRoute(host, localAddress, "https".equals(host.getSchemeName()));
+    }
+
+    private void shutdownConnectionManager() {
+        if (connectionEvictor_ != null) {
+            connectionEvictor_.shutdown();
+            connectionEvictor_ = null;
+        }
+        if (connectionManager_ != null) {
+            connectionManager_.shutdown();
+            connectionManager_ = null;
+        }
+    }
+
+    /**
+     * Returns a snapshot of the state of the connection pool: the leased, available and pending connections
+     * (in total and per route) and the time spent waiting for a connection.
+     * @return the statistics or {@code null} if the pool was not used so far
+     */
+    public ConnectionPoolStatistics getConnectionPoolStatistics() {
+        final HtmlUnitPoolingHttpClientConnectionManager connectionManager = connectionManager_;
+        if (connectionManager == null) {
+            return null;
+        }
+        return connectionManager.getStatistics();
+    }
+
     private void configureHttpsScheme(final HttpClientBuilder builder) {
         final WebClientOptions options = webClient_.getOptions();
 
@@ -803,7 +959,7 @@ public class HttpWebConnection implements WebConnection {
         return new WebResponse(responseData, request, loadTime);
     }
 
-    private List<HttpRequestInterceptor> getHttpRequestInterceptors(final WebRequest webRequest) {
+    List<HttpRequestInterceptor> getHttpRequestInterceptors(final WebRequest webRequest) {
         final List<HttpRequestInterceptor> list = new ArrayList<>();
         final Map<String, String> requestHeaders = webRequest.getAdditionalHeaders();
         final URL url = webRequest.getUrl();
@@ -1122,18 +1278,15 @@ public class HttpWebConnection implements WebConnection {
     @Override
     public void close() {
         httpClientBuilder_.clear();
-
-        if (connectionManager_ != null) {
-            connectionManager_.shutdown();
-            connectionManager_ = null;
-        }
+        shutdownConnectionManager();
     }
 
     /**
      * Has the exact logic in {@link HttpClientBuilder#build()} which sets the {@code connManager} part,
      * but with the ability to configure {@code socketFactory}.
      */
-    private static PoolingHttpClientConnectionManager createConnectionManager(final HttpClientBuilder builder) {
+    private static HtmlUnitPoolingHttpClientConnectionManager createConnectionManager(
+            final HttpClientBuilder builder) {
         try {
             PublicSuffixMatcher publicSuffixMatcher = getField(builder, "publicSuffixMatcher");
             if (publicSuffixMatcher == null) {
@@ -1178,13 +1331,12 @@ public class HttpWebConnection implements WebConnection {
                 }
             }
 
-            final PoolingHttpClientConnectionManager poolingmgr = new PoolingHttpClientConnectionManager(
+            final HtmlUnitPoolingHttpClientConnectionManager poolingmgr =
+                    new HtmlUnitPoolingHttpClientConnectionManager(
                     RegistryBuilder.<ConnectionSocketFactory>create()
                         .register("http", new SocksConnectionSocketFactory())
                         .register("https", sslSocketFactory)
                         .build(),
-                        null,
-                        null,
                         dnsResolver,
                         connTimeToLive,
                         connTimeToLiveTimeUnit != null ? connTimeToLiveTimeUnit : TimeUnit.MILLISECONDS);
@@ -0,0 +1,340 @@
+/*
+ * Copyright (c) 2002-2020 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The timeline of the load of an HTML page: the network timings of the page and of its resources,
+ * the parsing, the time spent compiling and executing scripts and the
+ * <tt>DOMContentLoaded</tt> and <tt>load</tt> events.
+ * <p>
+ * The timestamps are in milliseconds since the epoch; a value of <tt>0</tt> means that the step
+ * didn't happen (yet). The same values are available to the scripts of the page through
+ * <tt>performance.timing</tt> and <tt>performance.getEntries()</tt>.
+ *
+ * @author agent (agent@local)
+ * @see PageTimelineListener
+ */
+public class PageTimeline implements Serializable {
+
+    /** The maximum number of recorded resources, the default size of the resource timing buffer of browsers. */
+    public static final int MAX_RESOURCES = 250;
+
+    private final long navigationStart_;
+    private final WebResponseTiming responseTiming_;
+
+    private long domLoading_;
+    private long domInteractive_;
+    private long domContentLoadedEventStart_;
+    private long domContentLoadedEventEnd_;
+    private long domComplete_;
+    private long loadEventStart_;
+    private long loadEventEnd_;
+
+    private final AtomicLong scriptCompileTime_ = new AtomicLong();
+    private final AtomicLong scriptExecutionTime_ = new AtomicLong();
+
+    private final List<ResourceTiming> resources_ = Collections.synchronizedList(new ArrayList<ResourceTiming>());
+
+    /**
+     * Ctor.
+     * @param webResponse the response of the page
+     */
+    public PageTimeline(final WebResponse webResponse) {
+        responseTiming_ = webResponse == null ? null : webResponse.getTiming();
+        if (responseTiming_ != null && responseTiming_.getFetchStart() != 0) {
+            navigationStart_ = responseTiming_.getFetchStart();
+        }
+        else {
+            navigationStart_ = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * @return the time the navigation to the page started
+     */
+    public long getNavigationStart() {
+        return navigationStart_;
+    }
+
+    /**
+     * @return the network timings of the page itself, {@code null} if the page was not loaded from the network
+     */
+    public WebResponseTiming getResponseTiming() {
+        return responseTiming_;
+    }
+
+    /**
+     * @return the time the parsing of the page started
+     */
+    public long getDomLoading() {
+        return domLoading_;
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * @param domLoading the time the parsing of the page started
+     */
+    public void setDomLoading(final long domLoading) {
+        domLoading_ = domLoading;
+    }
+
+    /**
+     * @return the time the parsing of the page ended
+     */
+    public long getDomInteractive() {
+        return domInteractive_;
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * @param domInteractive the time the parsing of the page ended
+     */
+    public void setDomInteractive(final long domInteractive) {
+        domInteractive_ = domInteractive;
+    }
+
+    /**
+     * @return the time the <tt>DOMContentLoaded</tt> handlers started
+     */
+    public long getDomContentLoadedEventStart() {
+        return domContentLoadedEventStart_;
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * @param domContentLoadedEventStart the time the <tt>DOMContentLoaded</tt> handlers started
+     */
+    public void setDomContentLoadedEventStart(final long domContentLoadedEventStart) {
+        domContentLoadedEventStart_ = domContentLoadedEventStart;
+    }
+
+    /**
+     * @return the time the <tt>DOMContentLoaded</tt> handlers ended
+     */
+    public long getDomContentLoadedEventEnd() {
+        return domContentLoadedEventEnd_;
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * @param domContentLoadedEventEnd the time the <tt>DOMContentLoaded</tt> handlers ended
+     */
+    public void setDomContentLoadedEventEnd(final long domContentLoadedEventEnd) {
+        domContentLoadedEventEnd_ = domContentLoadedEventEnd;
+    }
+
+    /**
+     * @return the time the page (including its frames) was complete
+     */
+    public long getDomComplete() {
+        return domComplete_;
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * @param domComplete the time the page (including its frames) was complete
+     */
+    public void setDomComplete(final long domComplete) {
+        domComplete_ = domComplete;
+    }
+
+    /**
+     * @return the time the <tt>load</tt> handlers started
+     */
+    public long getLoadEventStart() {
+        return loadEventStart_;
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * @param loadEventStart the time the <tt>load</tt> handlers started
+     */
+    public void setLoadEventStart(final long loadEventStart) {
+        loadEventStart_ = loadEventStart;
+    }
+
+    /**
+     * @return the time the <tt>load</tt> handlers ended
+     */
+    public long getLoadEventEnd() {
+        return loadEventEnd_;
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * @param loadEventEnd the time the <tt>load</tt> handlers ended
+     */
+    public void setLoadEventEnd(final long loadEventEnd) {
+        loadEventEnd_ = loadEventEnd;
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * @param nanos the time spent compiling a script
+     */
+    public void addScriptCompileTime(final long nanos) {
+        scriptCompileTime_.addAndGet(nanos);
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * @param nanos the time spent executing a script or an event handler
+     */
+    public void addScriptExecutionTime(final long nanos) {
+        scriptExecutionTime_.addAndGet(nanos);
+    }
+
+    /**
+     * Returns the time spent compiling the scripts of the page.
+     * @param unit the time unit of the result
+     * @return the compile time
+     */
+    public long getScriptCompileTime(final TimeUnit unit) {
+        return unit.convert(scriptCompileTime_.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the time spent executing the scripts and the event handlers of the page;
+     * this includes the compilation of the code evaluated while a script runs.
+     * @param unit the time unit of the result
+     * @return the execution time
+     */
+    public long getScriptExecutionTime(final TimeUnit unit) {
+        return unit.convert(scriptExecutionTime_.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Records the load of a resource of the page; the end is the current time.
+     * Like the resource timing buffer of browsers, only the first {@link #MAX_RESOURCES}
+     * resources are recorded, the following ones are ignored.
+     * @param initiatorType the kind of resource (<tt>script</tt>, <tt>link</tt>, <tt>img</tt>, ...)
+     * @param startTime the time the load started
+     * @param webResponse the response
+     */
+    public void addResource(final String initiatorType, final long startTime, final WebResponse webResponse) {
+        if (resources_.size() >= MAX_RESOURCES) {
+            return;
+        }
+
+        WebResponseTiming networkTiming = webResponse.getTiming();
+        if (networkTiming != null && networkTiming.getFetchStart() < startTime) {
+            // served from the cache
+            networkTiming = null;
+        }
+        final ResourceTiming resource = new ResourceTiming(webResponse.getWebRequest().getUrl().toExternalForm(),
+                initiatorType, startTime, System.currentTimeMillis(), networkTiming);
+        synchronized (resources_) {
+            if (resources_.size() < MAX_RESOURCES) {
+                resources_.add(resource);
+            }
+        }
+    }
+
+    /**
+     * @return the resources loaded so far (at most {@link #MAX_RESOURCES}), in the order of their end
+     */
+    public List<ResourceTiming> getResources() {
+        synchronized (resources_) {
+            return new ArrayList<>(resources_);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "PageTimeline[navigationStart=" + navigationStart_
+                + ", domInteractive=+" + (domInteractive_ - navigationStart_)
+                + ", domContentLoaded=+" + (domContentLoadedEventEnd_ - navigationStart_)
+                + ", load=+" + (loadEventEnd_ - navigationStart_)
+                + ", scriptCompile=" + getScriptCompileTime(TimeUnit.MILLISECONDS)
+                + ", scriptExecution=" + getScriptExecutionTime(TimeUnit.MILLISECONDS)
+                + ", resources=" + resources_.size() + "]";
+    }
+
+    /**
+     * The load of one resource of the page.
+     */
+    public static final class ResourceTiming implements Serializable {
+        private final String name_;
+        private final String initiatorType_;
+        private final long startTime_;
+        private final long endTime_;
+        private final WebResponseTiming networkTiming_;
+
+        ResourceTiming(final String name, final String initiatorType, final long startTime, final long endTime,
+                final WebResponseTiming networkTiming) {
+            name_ = name;
+            initiatorType_ = initiatorType;
+            startTime_ = startTime;
+            endTime_ = endTime;
+            networkTiming_ = networkTiming;
+        }
+
+        /**
+         * @return the url of the resource
+         */
+        public String getName() {
+            return name_;
+        }
+
+        /**
+         * @return the kind of resource (<tt>script</tt>, <tt>link</tt>, <tt>img</tt>, ...)
+         */
+        public String getInitiatorType() {
+            return initiatorType_;
+        }
+
+        /**
+         * @return the time the load started
+         */
+        public long getStartTime() {
+            return startTime_;
+        }
+
+        /**
+         * @return the time the load ended
+         */
+        public long getEndTime() {
+            return endTime_;
+        }
+
+        /**
+         * @return the network timings, {@code null} if the resource was not loaded from the network
+         */
+        public WebResponseTiming getNetworkTiming() {
+            return networkTiming_;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2002-2020 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit;
+
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
+
+/**
+ * A listener notified when an HTML page has been loaded, with the {@link PageTimeline} of the load.
+ *
+ * @author agent (agent@local)
+ * @see WebClient#addPageTimelineListener(PageTimelineListener)
+ */
+public interface PageTimelineListener {
+
+    /**
+     * The page has been loaded: the <tt>load</tt> event handlers have been executed.
+     *
+     * @param page the page
+     * @param timeline the timeline of the load
+     */
+    void pageLoaded(HtmlPage page, PageTimeline timeline);
+}
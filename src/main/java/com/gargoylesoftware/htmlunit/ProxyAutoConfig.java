@@ -19,14 +19,24 @@ import java.net.InetAddress;
 import java.net.URL;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Locale;
+import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.net.util.SubnetUtils;
+import org.apache.http.conn.DnsResolver;
 
+import com.gargoylesoftware.htmlunit.httpclient.CachingDnsResolver;
+
+import net.sourceforge.htmlunit.corejs.javascript.BaseFunction;
 import net.sourceforge.htmlunit.corejs.javascript.Context;
+import net.sourceforge.htmlunit.corejs.javascript.Function;
 import net.sourceforge.htmlunit.corejs.javascript.FunctionObject;
 import net.sourceforge.htmlunit.corejs.javascript.NativeFunction;
+import net.sourceforge.htmlunit.corejs.javascript.ScriptRuntime;
 import net.sourceforge.htmlunit.corejs.javascript.Scriptable;
 import net.sourceforge.htmlunit.corejs.javascript.ScriptableObject;
 import net.sourceforge.htmlunit.corejs.javascript.Undefined;
@@ -42,7 +52,32 @@ import net.sourceforge.htmlunit.corejs.javascript.Undefined;
 public final class ProxyAutoConfig {
     private static final String TIMEZONE_GMT = "GMT";
 
-    private ProxyAutoConfig() {
+    /** The maximum number of proxy decisions remembered by {@link #findProxyForURL(URL)}. */
+    private static final int MAX_DECISIONS = 1000;
+
+    private final Scriptable scope_;
+    private final Function findProxyForURL_;
+    private final DnsResolver dnsResolver_;
+    private final AtomicBoolean dnsUsed_;
+    private final Map<String, Decision> decisions_;
+
+    private ProxyAutoConfig(final Scriptable scope, final Function findProxyForURL, final DnsResolver dnsResolver,
+            final AtomicBoolean dnsUsed, final boolean timeDependent) {
+        scope_ = scope;
+        findProxyForURL_ = findProxyForURL;
+        dnsResolver_ = dnsResolver;
+        dnsUsed_ = dnsUsed;
+        if (timeDependent) {
+            decisions_ = null;
+        }
+        else {
+            decisions_ = Collections.synchronizedMap(new LinkedHashMap<String, Decision>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, Decision> eldest) {
+                    return size() > MAX_DECISIONS;
+                }
+            });
+        }
     }
 
     /**
@@ -52,40 +87,115 @@ public final class ProxyAutoConfig {
      * @return semicolon-separated result
      */
     public static String evaluate(final String content, final URL url) {
+        return evaluate(content, url, null);
+    }
+
+    /**
+     * Evaluates the <tt>FindProxyForURL</tt> method of the specified content.
+     * @param content the JavaScript content
+     * @param url the URL to be retrieved
+     * @param dnsResolver the resolver used by the DNS functions, {@code null} for the system resolver
+     * @return semicolon-separated result
+     */
+    public static String evaluate(final String content, final URL url, final DnsResolver dnsResolver) {
+        return compile(content, dnsResolver).callFindProxyForURL(url).result_;
+    }
+
+    /**
+     * Compiles and runs the specified content once; the returned instance calls
+     * the <tt>FindProxyForURL</tt> method for every {@link #findProxyForURL(URL)}.
+     * @param content the JavaScript content
+     * @param dnsResolver the resolver used by the DNS functions, {@code null} for the system resolver
+     * @return the compiled proxy auto-config
+     */
+    public static ProxyAutoConfig compile(final String content, final DnsResolver dnsResolver) {
         final Context cx = Context.enter();
         try {
-            final ProxyAutoConfig config = new ProxyAutoConfig();
             final Scriptable scope = cx.initSafeStandardObjects();
-
-            config.defineMethod("isPlainHostName", scope);
-            config.defineMethod("dnsDomainIs", scope);
-            config.defineMethod("localHostOrDomainIs", scope);
-            config.defineMethod("isResolvable", scope);
-            config.defineMethod("isInNet", scope);
-            config.defineMethod("dnsResolve", scope);
-            config.defineMethod("myIpAddress", scope);
-            config.defineMethod("dnsDomainLevels", scope);
-            config.defineMethod("shExpMatch", scope);
-            config.defineMethod("weekdayRange", scope);
-            config.defineMethod("dateRange", scope);
-            config.defineMethod("timeRange", scope);
+            final AtomicBoolean dnsUsed = new AtomicBoolean();
+
+            defineMethod("isPlainHostName", scope);
+            defineMethod("dnsDomainIs", scope);
+            defineMethod("localHostOrDomainIs", scope);
+            defineDnsFunction("isResolvable", dnsResolver, dnsUsed, scope);
+            defineDnsFunction("isInNet", dnsResolver, dnsUsed, scope);
+            defineDnsFunction("dnsResolve", dnsResolver, dnsUsed, scope);
+            defineMethod("myIpAddress", scope);
+            defineMethod("dnsDomainLevels", scope);
+            defineMethod("shExpMatch", scope);
+            defineMethod("weekdayRange", scope);
+            defineMethod("dateRange", scope);
+            defineMethod("timeRange", scope);
 
             cx.evaluateString(scope, "var ProxyConfig = function() {}; ProxyConfig.bindings = {}", "<init>", 1, null);
             cx.evaluateString(scope, content, "<Proxy Auto-Config>", 1, null);
-            final Object[] functionArgs = {url.toExternalForm(), url.getHost()};
             final Object fObj = scope.get("FindProxyForURL", scope);
 
-            final NativeFunction f = (NativeFunction) fObj;
-            final Object result = f.call(cx, scope, scope, functionArgs);
-            return Context.toString(result);
+            final boolean timeDependent = content.contains("weekdayRange")
+                    || content.contains("dateRange") || content.contains("timeRange");
+            return new ProxyAutoConfig(scope, (NativeFunction) fObj, dnsResolver, dnsUsed, timeDependent);
+        }
+        finally {
+            Context.exit();
+        }
+    }
+
+    /**
+     * Returns the result of the <tt>FindProxyForURL</tt> method for the specified URL.
+     * The decisions are remembered per scheme and host; the decision made for the first URL
+     * of a scheme and host is used for all other paths and queries of it.
+     * Decisions made with the help of the DNS functions (<tt>dnsResolve</tt>, <tt>isInNet</tt>,
+     * <tt>isResolvable</tt>) expire after the time to live of the DNS lookups.
+     * Scripts using the time functions (<tt>weekdayRange</tt>, <tt>dateRange</tt>, <tt>timeRange</tt>)
+     * are called for every URL.
+     * @param url the URL to be retrieved
+     * @return semicolon-separated result
+     */
+    public String findProxyForURL(final URL url) {
+        if (decisions_ == null) {
+            return callFindProxyForURL(url).result_;
+        }
+
+        final String key = url.getProtocol() + "://" + url.getHost();
+        Decision decision = decisions_.get(key);
+        if (decision == null || decision.isExpired()) {
+            decision = callFindProxyForURL(url);
+            decisions_.put(key, decision);
+        }
+        return decision.result_;
+    }
+
+    /**
+     * @return the resolver used by the DNS functions, {@code null} for the system resolver
+     */
+    public DnsResolver getDnsResolver() {
+        return dnsResolver_;
+    }
+
+    private synchronized Decision callFindProxyForURL(final URL url) {
+        final Context cx = Context.enter();
+        try {
+            dnsUsed_.set(false);
+            final Object[] functionArgs = {url.toExternalForm(), url.getHost()};
+            final Object result = findProxyForURL_.call(cx, scope_, scope_, functionArgs);
+
+            long expires = Long.MAX_VALUE;
+            if (dnsUsed_.get()) {
+                long ttl = CachingDnsResolver.DEFAULT_TTL;
+                if (dnsResolver_ instanceof CachingDnsResolver) {
+                    ttl = ((CachingDnsResolver) dnsResolver_).getTtl();
+                }
+                expires = System.currentTimeMillis() + ttl;
+            }
+            return new Decision(Context.toString(result), expires);
         }
         finally {
             Context.exit();
         }
     }
 
-    private void defineMethod(final String methodName, final Scriptable scope) {
-        for (final Method method : getClass().getMethods()) {
+    private static void defineMethod(final String methodName, final Scriptable scope) {
+        for (final Method method : ProxyAutoConfig.class.getMethods()) {
             if (method.getName().equals(methodName)) {
                 final FunctionObject functionObject = new FunctionObject(methodName, method, scope);
                 ((ScriptableObject) scope).defineProperty(methodName, functionObject, ScriptableObject.EMPTY);
@@ -93,6 +203,13 @@ public final class ProxyAutoConfig {
         }
     }
 
+    private static void defineDnsFunction(final String functionName, final DnsResolver dnsResolver,
+            final AtomicBoolean dnsUsed, final Scriptable scope) {
+        final DnsFunction function = new DnsFunction(functionName, dnsResolver, dnsUsed);
+        ScriptRuntime.setFunctionProtoAndParent(function, scope);
+        ((ScriptableObject) scope).defineProperty(functionName, function, ScriptableObject.EMPTY);
+    }
+
     /**
      * Returns true if there is no domain name in the hostname (no dots).
      * @param host the hostname from the URL (excluding port number).
@@ -130,7 +247,11 @@ public final class ProxyAutoConfig {
      * @return true if the specific hostname is resolvable.
      */
     public static boolean isResolvable(final String host) {
-        return dnsResolve(host) != null;
+        return isResolvable(host, null);
+    }
+
+    private static boolean isResolvable(final String host, final DnsResolver dnsResolver) {
+        return dnsResolve(host, dnsResolver) != null;
     }
 
     /**
@@ -143,7 +264,12 @@ public final class ProxyAutoConfig {
      * @return true if the IP address of the host matches the specified IP address pattern.
      */
     public static boolean isInNet(final String host, final String pattern, final String mask) {
-        final String dnsResolve = dnsResolve(host);
+        return isInNet(host, pattern, mask, null);
+    }
+
+    private static boolean isInNet(final String host, final String pattern, final String mask,
+            final DnsResolver dnsResolver) {
+        final String dnsResolve = dnsResolve(host, dnsResolver);
         if (null == dnsResolve) {
             return false;
         }
@@ -158,8 +284,15 @@ public final class ProxyAutoConfig {
      * @return the resolved IP address
      */
     public static String dnsResolve(final String host) {
+        return dnsResolve(host, null);
+    }
+
+    private static String dnsResolve(final String host, final DnsResolver dnsResolver) {
         try {
-            return InetAddress.getByName(host).getHostAddress();
+            if (dnsResolver == null) {
+                return InetAddress.getByName(host).getHostAddress();
+            }
+            return dnsResolver.resolve(host)[0].getHostAddress();
         }
         catch (final Exception e) {
             return null;
@@ -476,4 +609,65 @@ public final class ProxyAutoConfig {
         }
         return calendar;
     }
+
+    /**
+     * The DNS functions, bound to the resolver of the WebClient.
+     */
+    private static final class DnsFunction extends BaseFunction {
+        private final String functionName_;
+        private final transient DnsResolver dnsResolver_;
+        private final transient AtomicBoolean dnsUsed_;
+
+        DnsFunction(final String functionName, final DnsResolver dnsResolver, final AtomicBoolean dnsUsed) {
+            functionName_ = functionName;
+            dnsResolver_ = dnsResolver;
+            dnsUsed_ = dnsUsed;
+        }
+
+        @Override
+        public Object call(final Context cx, final Scriptable scope, final Scriptable thisObj, final Object[] args) {
+            dnsUsed_.set(true);
+            final String host = Context.toString(getArgument(args, 0));
+            switch (functionName_) {
+                case "isResolvable":
+                    return isResolvable(host, dnsResolver_);
+
+                case "isInNet":
+                    return isInNet(host, Context.toString(getArgument(args, 1)),
+                            Context.toString(getArgument(args, 2)), dnsResolver_);
+
+                default:
+                    return dnsResolve(host, dnsResolver_);
+            }
+        }
+
+        private static Object getArgument(final Object[] args, final int index) {
+            if (index < args.length) {
+                return args[index];
+            }
+            return Undefined.instance;
+        }
+
+        @Override
+        public String getFunctionName() {
+            return functionName_;
+        }
+    }
+
+    /**
+     * A remembered result of the <tt>FindProxyForURL</tt> method.
+     */
+    private static final class Decision {
+        private final String result_;
+        private final long expires_;
+
+        Decision(final String result, final long expires) {
+            result_ = result;
+            expires_ = expires;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() >= expires_;
+        }
+    }
 }
@@ -34,6 +34,7 @@ public class ProxyConfig implements Serializable {
     private final Map<String, Pattern> proxyBypassHosts_ = new HashMap<>();
     private String proxyAutoConfigUrl_;
     private String proxyAutoConfigContent_;
+    private transient ProxyAutoConfig proxyAutoConfig_;
 
     /**
      * Creates a new instance.
@@ -179,5 +180,22 @@ public class ProxyConfig implements Serializable {
      */
     protected void setProxyAutoConfigContent(final String proxyAutoConfigContent) {
         proxyAutoConfigContent_ = proxyAutoConfigContent;
+        proxyAutoConfig_ = null;
+    }
+
+    /**
+     * Returns the compiled proxy auto-config.
+     * @return the compiled proxy auto-config, {@code null} if not compiled so far
+     */
+    protected ProxyAutoConfig getProxyAutoConfig() {
+        return proxyAutoConfig_;
+    }
+
+    /**
+     * Sets the compiled proxy auto-config.
+     * @param proxyAutoConfig the compiled proxy auto-config
+     */
+    protected void setProxyAutoConfig(final ProxyAutoConfig proxyAutoConfig) {
+        proxyAutoConfig_ = proxyAutoConfig;
     }
 }
@@ -42,6 +42,7 @@ import com.gargoylesoftware.htmlunit.html.DomNodeIterator;
 import com.gargoylesoftware.htmlunit.html.DomNodeList;
 import com.gargoylesoftware.htmlunit.html.DomText;
 import com.gargoylesoftware.htmlunit.html.DomTreeWalker;
+import com.gargoylesoftware.htmlunit.html.HtmlAttributeChangeEvent;
 
 /**
  * A basic class of Standard Generalized Markup Language (SGML), e.g. HTML and XML.
@@ -51,10 +52,17 @@ import com.gargoylesoftware.htmlunit.html.DomTreeWalker;
  */
 public abstract class SgmlPage extends DomNode implements Page, Document, DocumentTraversal {
 
+    /** The number of changes remembered by {@link #getDomChangesSince(int)}, a power of two. */
+    private static final int DOM_CHANGES_SIZE = 32;
+
     private DocumentType documentType_;
     private final WebResponse webResponse_;
     private WebWindow enclosingWindow_;
     private final WebClient webClient_;
+    private int domChangeVersion_;
+    private int scriptObjectCount_;
+    private transient DomNode[] changedNodes_;
+    private transient HtmlAttributeChangeEvent[] attributeChanges_;
 
     /**
      * Creates an instance of SgmlPage.
@@ -167,6 +175,96 @@ public abstract class SgmlPage extends DomNode implements Page, Document, Docume
         return this;
     }
 
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Returns a counter incremented on every change of the DOM of this page (nodes added or removed,
+     * attributes changed). The live collections use it to check whether their cache is still valid.
+     * @return the version of the DOM
+     */
+    public int getDomChangeVersion() {
+        return domChangeVersion_;
+    }
+
+    /**
+     * Returns the number of JavaScript objects created so far for the nodes of this page.
+     * This is a counter of the creations, not the number of live objects: objects of removed
+     * nodes or garbage collected ones are not subtracted.
+     * @return the number of JavaScript objects created
+     */
+    public int getScriptObjectCount() {
+        return scriptObjectCount_;
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Counts a JavaScript object created for a node of this page.
+     */
+    public void scriptObjectCreated() {
+        scriptObjectCount_++;
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Increments the version of the DOM after an attribute change reported by an event.
+     * @param attributeChange the event
+     */
+    public void domChanged(final HtmlAttributeChangeEvent attributeChange) {
+        domChanged(attributeChange.getHtmlElement(), attributeChange);
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Increments the version of the DOM after nodes were added to or removed from the specified node,
+     * or after an attribute of it was changed without an event.
+     * @param changedNode the node
+     */
+    public void domChanged(final DomNode changedNode) {
+        domChanged(changedNode, null);
+    }
+
+    private void domChanged(final DomNode changedNode, final HtmlAttributeChangeEvent attributeChange) {
+        if (changedNodes_ == null) {
+            changedNodes_ = new DomNode[DOM_CHANGES_SIZE];
+            attributeChanges_ = new HtmlAttributeChangeEvent[DOM_CHANGES_SIZE];
+        }
+        domChangeVersion_++;
+        final int index = domChangeVersion_ & (DOM_CHANGES_SIZE - 1);
+        changedNodes_[index] = changedNode;
+        attributeChanges_[index] = attributeChange;
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Returns the changed nodes after the specified version of the DOM. The attribute changes
+     * reported by an event are returned as {@link HtmlAttributeChangeEvent}, the other changes as
+     * the {@link DomNode} whose children or attributes changed.
+     * @param version the version
+     * @return the changes or {@code null} if they are not known anymore
+     */
+    public Object[] getDomChangesSince(final int version) {
+        final int count = domChangeVersion_ - version;
+        if (count < 0 || count > DOM_CHANGES_SIZE || changedNodes_ == null) {
+            return null;
+        }
+
+        final Object[] changes = new Object[count];
+        for (int i = 0; i < count; i++) {
+            final int index = (version + 1 + i) & (DOM_CHANGES_SIZE - 1);
+            if (attributeChanges_[index] != null) {
+                changes[i] = attributeChanges_[index];
+            }
+            else {
+                changes[i] = changedNodes_[index];
+            }
+        }
+        return changes;
+    }
+
     /**
      * Creates an element, the type of which depends on the specified tag name.
      * @param tagName the tag name which determines the type of element to be created
@@ -50,6 +50,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -100,6 +101,7 @@ import com.gargoylesoftware.htmlunit.protocol.data.DataURLConnection;
 import com.gargoylesoftware.htmlunit.util.Cookie;
 import com.gargoylesoftware.htmlunit.util.MimeType;
 import com.gargoylesoftware.htmlunit.util.NameValuePair;
+import com.gargoylesoftware.htmlunit.util.StringPool;
 import com.gargoylesoftware.htmlunit.util.TextUtils;
 import com.gargoylesoftware.htmlunit.util.UrlUtils;
 import com.gargoylesoftware.htmlunit.webstart.WebStartHandler;
@@ -182,6 +184,7 @@ public class WebClient implements Serializable, AutoCloseable {
     private PageCreator pageCreator_ = new DefaultPageCreator();
 
     private final Set<WebWindowListener> webWindowListeners_ = new HashSet<>(5);
+    private final List<PageTimelineListener> pageTimelineListeners_ = new CopyOnWriteArrayList<>();
     private final List<TopLevelWindow> topLevelWindows_ =
             Collections.synchronizedList(new ArrayList<TopLevelWindow>()); // top-level windows
     private final List<WebWindow> windows_ = Collections.synchronizedList(new ArrayList<WebWindow>()); // all windows
@@ -210,10 +213,16 @@ public class WebClient implements Serializable, AutoCloseable {
     /** URL for "about:blank". */
     public static final URL URL_ABOUT_BLANK = UrlUtils.toUrlSafe(ABOUT_BLANK);
 
+    private static final int STRING_POOL_SIZE = 65_536;
+    private static final int STRING_POOL_MAX_LENGTH = 256;
+
     private ScriptPreProcessor scriptPreProcessor_;
 
     private Map<String, String> activeXObjectMap_ = Collections.emptyMap();
     private transient MSXMLActiveXObjectFactory msxmlActiveXObjectFactory_;
+    private transient StringPool stringPool_ = new StringPool(STRING_POOL_SIZE, STRING_POOL_MAX_LENGTH);
+    private transient WindowReaper windowReaper_;
+    private transient WebClientMetrics metrics_;
     private RefreshHandler refreshHandler_ = new NiceRefreshHandler(2);
     private JavaScriptErrorListener javaScriptErrorListener_ = new DefaultJavaScriptErrorListener();
 
@@ -536,6 +545,20 @@ public class WebClient implements Serializable, AutoCloseable {
         return (P) getPage(getCurrentWindow().getTopWindow(), request);
     }
 
+    /**
+     * Loads a response kept by the {@link History} into the specified window, without asking the server again.
+     * @param webWindow the window
+     * @param webResponse the response
+     * @throws IOException if an IO error occurs
+     */
+    void loadHistoryWebResponse(final WebWindow webWindow, final WebResponse webResponse) throws IOException {
+        loadWebResponseInto(webResponse, webWindow);
+
+        if (scriptEngine_ != null) {
+            scriptEngine_.registerWindowAndMaybeStartEventLoop(webWindow);
+        }
+    }
+
     /**
      * <p>Creates a page based on the specified response and inserts it into the specified window. All page
      * initialization and event notification is handled here.</p>
@@ -961,6 +984,64 @@ public class WebClient implements Serializable, AutoCloseable {
         webWindowListeners_.remove(listener);
     }
 
+    /**
+     * Adds a listener notified with the {@link PageTimeline} of every HTML page loaded by this client.
+     * @param listener a listener
+     */
+    public void addPageTimelineListener(final PageTimelineListener listener) {
+        WebAssert.notNull("listener", listener);
+        pageTimelineListeners_.add(listener);
+    }
+
+    /**
+     * Removes a listener for the {@link PageTimeline}s.
+     * @param listener a listener
+     */
+    public void removePageTimelineListener(final PageTimelineListener listener) {
+        WebAssert.notNull("listener", listener);
+        pageTimelineListeners_.remove(listener);
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Notifies the listeners that the specified page has been loaded.
+     * @param page the page
+     */
+    public void firePageLoaded(final HtmlPage page) {
+        for (final PageTimelineListener listener : pageTimelineListeners_) {
+            try {
+                listener.pageLoaded(page, page.getTimeline());
+            }
+            catch (final RuntimeException e) {
+                // a failing listener must not break the processing of the loaded page
+                LOG.error("Exception in PageTimelineListener " + listener, e);
+            }
+        }
+    }
+
+    /**
+     * Enables or disables the collection of {@link WebClientMetrics} for this client.
+     * @param metrics the metrics to update, {@code null} to disable the collection
+     */
+    public void setMetrics(final WebClientMetrics metrics) {
+        if (metrics_ != null && metrics_ != metrics) {
+            metrics_.setWebClient(null);
+        }
+        if (metrics != null) {
+            metrics.setWebClient(this);
+        }
+        metrics_ = metrics;
+    }
+
+    /**
+     * Returns the metrics of this client.
+     * @return the metrics or {@code null} if they are not collected (the default)
+     */
+    public WebClientMetrics getMetrics() {
+        return metrics_;
+    }
+
     private void fireWindowContentChanged(final WebWindowEvent event) {
         for (final WebWindowListener listener : new ArrayList<>(webWindowListeners_)) {
             listener.webWindowContentChanged(event);
@@ -1488,13 +1569,18 @@ public class WebClient implements Serializable, AutoCloseable {
             final ProxyConfig proxyConfig = getOptions().getProxyConfig();
             if (proxyConfig.getProxyAutoConfigUrl() != null) {
                 if (!UrlUtils.sameFile(new URL(proxyConfig.getProxyAutoConfigUrl()), url)) {
-                    String content = proxyConfig.getProxyAutoConfigContent();
-                    if (content == null) {
-                        content = getPage(proxyConfig.getProxyAutoConfigUrl())
-                            .getWebResponse().getContentAsString();
-                        proxyConfig.setProxyAutoConfigContent(content);
+                    ProxyAutoConfig proxyAutoConfig = proxyConfig.getProxyAutoConfig();
+                    if (proxyAutoConfig == null || proxyAutoConfig.getDnsResolver() != getOptions().getDnsResolver()) {
+                        String content = proxyConfig.getProxyAutoConfigContent();
+                        if (content == null) {
+                            content = getPage(proxyConfig.getProxyAutoConfigUrl())
+                                .getWebResponse().getContentAsString();
+                            proxyConfig.setProxyAutoConfigContent(content);
+                        }
+                        proxyAutoConfig = ProxyAutoConfig.compile(content, getOptions().getDnsResolver());
+                        proxyConfig.setProxyAutoConfig(proxyAutoConfig);
                     }
-                    final String allValue = ProxyAutoConfig.evaluate(content, url);
+                    final String allValue = proxyAutoConfig.findProxyForURL(url);
                     if (LOG.isDebugEnabled()) {
                         LOG.debug("Proxy Auto-Config: value '" + allValue + "' for URL " + url);
                     }
@@ -1528,17 +1614,29 @@ public class WebClient implements Serializable, AutoCloseable {
 
         // Retrieve the response, either from the cache or from the server.
         final WebResponse fromCache = getCache().getCachedResponse(webRequest);
+        final WebClientMetrics metrics = metrics_;
+        if (metrics != null) {
+            metrics.cacheLookup(fromCache != null);
+        }
         final WebResponse webResponse;
         if (fromCache != null) {
             webResponse = new WebResponseFromCache(fromCache, webRequest);
         }
         else {
+            final long startTime = metrics == null ? 0 : System.nanoTime();
+            boolean failed = true;
             try {
                 webResponse = getWebConnection().getResponse(webRequest);
+                failed = false;
             }
             catch (final NoHttpResponseException e) {
                 return new WebResponse(responseDataNoHttpResponse_, webRequest, 0);
             }
+            finally {
+                if (metrics != null) {
+                    metrics.requestExecuted(url.getHost(), System.nanoTime() - startTime, failed);
+                }
+            }
         }
 
         // Continue according to the HTTP status code.
@@ -2084,6 +2182,16 @@ public class WebClient implements Serializable, AutoCloseable {
             }
         }
 
+        // finish the teardowns of the fast closed windows before the engine and the connection go away
+        final WindowReaper windowReaper;
+        synchronized (this) {
+            windowReaper = windowReaper_;
+            windowReaper_ = null;
+        }
+        if (windowReaper != null) {
+            windowReaper.shutdown();
+        }
+
         // do this after closing the windows, otherwise some unload event might
         // start a new window that will start the thread again
         if (scriptEngine_ != null) {
@@ -2112,8 +2220,13 @@ public class WebClient implements Serializable, AutoCloseable {
                 }
             }
         }
+        stringPool_.clear();
 
         cache_.clear();
+
+        if (metrics_ != null) {
+            metrics_.unregisterMBean();
+        }
     }
 
     /**
@@ -2260,6 +2373,7 @@ public class WebClient implements Serializable, AutoCloseable {
         scriptEngine_ = new JavaScriptEngine(this);
         jobManagers_ = Collections.synchronizedList(new ArrayList<WeakReference<JavaScriptJobManager>>());
         loadQueue_ = new ArrayList<>();
+        stringPool_ = new StringPool(STRING_POOL_SIZE, STRING_POOL_MAX_LENGTH);
 
         if (getBrowserVersion().hasFeature(JS_XML_SUPPORT_VIA_ACTIVEXOBJECT)) {
             initMSXMLActiveX();
@@ -2468,6 +2582,32 @@ public class WebClient implements Serializable, AutoCloseable {
         return options_;
     }
 
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Returns the pool used by the parser to share attribute values and whitespace only text
+     * between the pages of this client.
+     * @return the pool or {@code null} if {@link WebClientOptions#isStringDeduplicationEnabled()} is false
+     */
+    public StringPool getStringPool() {
+        if (!getOptions().isStringDeduplicationEnabled()) {
+            return null;
+        }
+        return stringPool_;
+    }
+
+    /**
+     * Returns the reaper tearing down the windows closed while {@link WebClientOptions#isFastCloseEnabled()}
+     * is true; it also provides the timing statistics of these closes.
+     * @return the reaper
+     */
+    public synchronized WindowReaper getWindowReaper() {
+        if (windowReaper_ == null) {
+            windowReaper_ = new WindowReaper();
+        }
+        return windowReaper_;
+    }
+
     /**
      * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
      *
@@ -2493,7 +2633,7 @@ public class WebClient implements Serializable, AutoCloseable {
      * @param url the URL on which to filter the returned cookies
      * @return the currently configured cookies applicable to the specified URL, in an unmodifiable set
      */
-    public synchronized Set<Cookie> getCookies(final URL url) {
+    public Set<Cookie> getCookies(final URL url) {
         final CookieManager cookieManager = getCookieManager();
 
         if (!cookieManager.isCookiesEnabled()) {
@@ -2518,21 +2658,19 @@ public class WebClient implements Serializable, AutoCloseable {
         // discard expired cookies
         cookieManager.clearExpired(new Date());
 
-        final List<org.apache.http.cookie.Cookie> all = Cookie.toHttpClient(cookieManager.getCookies());
-        final List<org.apache.http.cookie.Cookie> matches = new ArrayList<>();
-
-        if (all.size() > 0) {
-            final CookieOrigin cookieOrigin = new CookieOrigin(host, port, path, secure);
-            final CookieSpec cookieSpec = new HtmlUnitBrowserCompatCookieSpec(getBrowserVersion());
-            for (final org.apache.http.cookie.Cookie cookie : all) {
-                if (cookieSpec.match(cookie, cookieOrigin)) {
-                    matches.add(cookie);
-                }
-            }
+        final List<Cookie> candidates = cookieManager.getCookiesForHost(host);
+        if (candidates.isEmpty()) {
+            return Collections.emptySet();
         }
 
+        final CookieOrigin cookieOrigin = new CookieOrigin(host, port, path, secure);
+        final CookieSpec cookieSpec = new HtmlUnitBrowserCompatCookieSpec(getBrowserVersion());
         final Set<Cookie> cookies = new LinkedHashSet<>();
-        cookies.addAll(Cookie.fromHttpClient(matches));
+        for (final Cookie cookie : candidates) {
+            if (cookieSpec.match(cookie.toHttpClient(), cookieOrigin)) {
+                cookies.add(cookie);
+            }
+        }
         return Collections.unmodifiableSet(cookies);
     }
 
@@ -0,0 +1,475 @@
+/*
+ * Copyright (c) 2002-2020 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.gargoylesoftware.htmlunit.httpclient.ConnectionPoolStatistics;
+import com.gargoylesoftware.htmlunit.javascript.background.JavaScriptJobManager;
+
+/**
+ * Metrics about the internals of a {@link WebClient}: requests per host, cache hits, script execution,
+ * background jobs, windows and pages, JavaScript objects, connection pool and temporary files.
+ * <p>
+ * The metrics are disabled by default; a client only collects them once an instance is set with
+ * {@link WebClient#setMetrics(WebClientMetrics)}, otherwise the instrumented code only checks for
+ * {@code null}. The counters are updated by the <tt>...Executed</tt> and {@link #cacheLookup(boolean)}
+ * callbacks; subclasses can override them to forward the values to another metrics system (calling
+ * the super implementation keeps the counters). The other values are read from the client when asked.
+ * <p>
+ * The metrics can be published as a platform MXBean with {@link #registerMBean(String)}.
+ *
+ * @author agent (agent@local)
+ */
+public class WebClientMetrics implements WebClientMetricsMXBean {
+
+    private static final Log LOG = LogFactory.getLog(WebClientMetrics.class);
+
+    /** The domain of the names of the registered MBeans. */
+    public static final String MBEAN_DOMAIN = "com.gargoylesoftware.htmlunit";
+
+    private WebClient webClient_;
+    private ObjectName objectName_;
+
+    private final Map<String, HostMetrics> hostMetrics_ = new ConcurrentHashMap<>();
+    private final LongAdder requestFailureCount_ = new LongAdder();
+    private final LongAdder cacheHitCount_ = new LongAdder();
+    private final LongAdder cacheMissCount_ = new LongAdder();
+    private final LongAdder scriptExecutionCount_ = new LongAdder();
+    private final LongAdder scriptExecutionTime_ = new LongAdder();
+    private final LongAdder executedJobCount_ = new LongAdder();
+
+    /**
+     * Sets the client these metrics are about.
+     * @param webClient the client
+     */
+    void setWebClient(final WebClient webClient) {
+        webClient_ = webClient;
+    }
+
+    /**
+     * Called when a request has been sent through the web connection of the client.
+     * @param host the host of the request
+     * @param nanos the time spent waiting for the web connection (in nanoseconds)
+     * @param failed whether the web connection failed with an exception
+     */
+    public void requestExecuted(final String host, final long nanos, final boolean failed) {
+        HostMetrics metrics = hostMetrics_.get(host);
+        if (metrics == null) {
+            final HostMetrics newMetrics = new HostMetrics();
+            metrics = hostMetrics_.putIfAbsent(host, newMetrics);
+            if (metrics == null) {
+                metrics = newMetrics;
+            }
+        }
+        metrics.add(nanos, failed);
+        if (failed) {
+            requestFailureCount_.increment();
+        }
+    }
+
+    /**
+     * Called when the cache of the client has been searched for the response of a request.
+     * @param hit whether the response was found in the cache
+     */
+    public void cacheLookup(final boolean hit) {
+        if (hit) {
+            cacheHitCount_.increment();
+        }
+        else {
+            cacheMissCount_.increment();
+        }
+    }
+
+    /**
+     * Called when a top level script or event handler has been executed.
+     * @param nanos the time spent (in nanoseconds)
+     */
+    public void scriptExecuted(final long nanos) {
+        scriptExecutionCount_.increment();
+        scriptExecutionTime_.add(nanos);
+    }
+
+    /**
+     * Called when a background job (timer, asynchronous request, ...) has been executed.
+     */
+    public void jobExecuted() {
+        executedJobCount_.increment();
+    }
+
+    /**
+     * Returns the metrics of the requests per host.
+     * @return the metrics, keyed by host
+     */
+    public Map<String, HostMetrics> getHostMetrics() {
+        return Collections.unmodifiableMap(hostMetrics_);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getRequestCount() {
+        long count = 0;
+        for (final HostMetrics metrics : hostMetrics_.values()) {
+            count += metrics.getRequestCount();
+        }
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getRequestFailureCount() {
+        return requestFailureCount_.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getRequestTime() {
+        long nanos = 0;
+        for (final HostMetrics metrics : hostMetrics_.values()) {
+            nanos += metrics.totalTime_.sum();
+        }
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Long> getRequestCountPerHost() {
+        final Map<String, Long> result = new TreeMap<>();
+        for (final Map.Entry<String, HostMetrics> entry : hostMetrics_.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().getRequestCount());
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Long> getAverageRequestTimePerHost() {
+        final Map<String, Long> result = new TreeMap<>();
+        for (final Map.Entry<String, HostMetrics> entry : hostMetrics_.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().getAverageTime(TimeUnit.MILLISECONDS));
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getCacheHitCount() {
+        return cacheHitCount_.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getCacheMissCount() {
+        return cacheMissCount_.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getCacheHitRatio() {
+        final long hits = getCacheHitCount();
+        final long lookups = hits + getCacheMissCount();
+        if (lookups == 0) {
+            return 0;
+        }
+        return (double) hits / lookups;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getCacheSize() {
+        if (webClient_ == null) {
+            return 0;
+        }
+        return webClient_.getCache().getSize();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getScriptExecutionCount() {
+        return scriptExecutionCount_.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getScriptExecutionTime() {
+        return TimeUnit.NANOSECONDS.toMillis(scriptExecutionTime_.sum());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getExecutedJobCount() {
+        return executedJobCount_.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getPendingJobCount() {
+        int count = 0;
+        if (webClient_ != null) {
+            for (final WebWindow window : webClient_.getWebWindows()) {
+                final JavaScriptJobManager jobManager = window.getJobManager();
+                if (jobManager != null) {
+                    count += jobManager.getJobCount();
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getWindowCount() {
+        if (webClient_ == null) {
+            return 0;
+        }
+        return webClient_.getWebWindows().size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getPageCount() {
+        int count = 0;
+        if (webClient_ != null) {
+            for (final WebWindow window : webClient_.getWebWindows()) {
+                if (window.getEnclosedPage() != null) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getCreatedScriptObjectCount() {
+        long count = 0;
+        if (webClient_ != null) {
+            for (final WebWindow window : webClient_.getWebWindows()) {
+                final Page page = window.getEnclosedPage();
+                if (page instanceof SgmlPage) {
+                    count += ((SgmlPage) page).getScriptObjectCount();
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getLeasedConnectionCount() {
+        final ConnectionPoolStatistics statistics = getConnectionPoolStatistics();
+        if (statistics == null) {
+            return 0;
+        }
+        return statistics.getTotalStats().getLeased();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getAvailableConnectionCount() {
+        final ConnectionPoolStatistics statistics = getConnectionPoolStatistics();
+        if (statistics == null) {
+            return 0;
+        }
+        return statistics.getTotalStats().getAvailable();
+    }
+
+    private ConnectionPoolStatistics getConnectionPoolStatistics() {
+        if (webClient_ != null && webClient_.getWebConnection() instanceof HttpWebConnection) {
+            return ((HttpWebConnection) webClient_.getWebConnection()).getConnectionPoolStatistics();
+        }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getTemporaryFileCount() {
+        return DownloadedContent.OnFile.getTemporaryFileCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getTemporaryFileBytes() {
+        return DownloadedContent.OnFile.getTemporaryFileBytes();
+    }
+
+    /**
+     * Registers these metrics as MXBean of the platform MBean server, under the name
+     * <tt>com.gargoylesoftware.htmlunit:type=WebClient,name=&lt;name&gt;</tt>.
+     * The MXBean is unregistered when the client is closed.
+     * @param name the name identifying the client
+     * @return the name of the MXBean
+     * @throws JMException if the registration failed (e.g. the name is already used)
+     */
+    public synchronized ObjectName registerMBean(final String name) throws JMException {
+        unregisterMBean();
+
+        final ObjectName objectName = new ObjectName(MBEAN_DOMAIN + ":type=WebClient,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        objectName_ = objectName;
+        return objectName;
+    }
+
+    /**
+     * Unregisters the MXBean registered with {@link #registerMBean(String)}, if any.
+     */
+    public synchronized void unregisterMBean() {
+        if (objectName_ != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName_);
+            }
+            catch (final JMException e) {
+                LOG.warn("Failed to unregister MBean " + objectName_, e);
+            }
+            objectName_ = null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "WebClientMetrics[requests: " + getRequestCount()
+                + "; failures: " + getRequestFailureCount()
+                + "; cache hit ratio: " + getCacheHitRatio()
+                + "; scripts: " + getScriptExecutionCount() + " in " + getScriptExecutionTime() + "ms"
+                + "; jobs: " + getExecutedJobCount() + " executed, " + getPendingJobCount() + " pending"
+                + "; windows: " + getWindowCount() + "]";
+    }
+
+    /**
+     * The metrics of the requests to one host.
+     */
+    public static final class HostMetrics {
+        private final LongAdder requestCount_ = new LongAdder();
+        private final LongAdder failureCount_ = new LongAdder();
+        private final LongAdder totalTime_ = new LongAdder();
+        private final AtomicLong maxTime_ = new AtomicLong();
+
+        void add(final long nanos, final boolean failed) {
+            requestCount_.increment();
+            if (failed) {
+                failureCount_.increment();
+            }
+            totalTime_.add(nanos);
+
+            long max = maxTime_.get();
+            while (nanos > max && !maxTime_.compareAndSet(max, nanos)) {
+                max = maxTime_.get();
+            }
+        }
+
+        /**
+         * @return the number of requests
+         */
+        public long getRequestCount() {
+            return requestCount_.sum();
+        }
+
+        /**
+         * @return the number of requests that failed with an exception
+         */
+        public long getFailureCount() {
+            return failureCount_.sum();
+        }
+
+        /**
+         * Returns the average time of the requests.
+         * @param unit the unit of the result
+         * @return the average time, 0 if there are no requests so far
+         */
+        public long getAverageTime(final TimeUnit unit) {
+            final long count = getRequestCount();
+            if (count == 0) {
+                return 0;
+            }
+            return unit.convert(totalTime_.sum() / count, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Returns the time of the slowest request.
+         * @param unit the unit of the result
+         * @return the maximum time
+         */
+        public long getMaxTime(final TimeUnit unit) {
+            return unit.convert(maxTime_.get(), TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return "HostMetrics[requests: " + getRequestCount()
+                    + "; failures: " + getFailureCount()
+                    + "; avg: " + getAverageTime(TimeUnit.MILLISECONDS) + "ms"
+                    + "; max: " + getMaxTime(TimeUnit.MILLISECONDS) + "ms]";
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2002-2020 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit;
+
+import java.util.Map;
+
+/**
+ * The management interface of the {@link WebClientMetrics}, registered with
+ * {@link WebClientMetrics#registerMBean(String)}.
+ *
+ * @author agent (agent@local)
+ */
+public interface WebClientMetricsMXBean {
+
+    /**
+     * @return the number of requests sent through the web connection
+     */
+    long getRequestCount();
+
+    /**
+     * @return the number of requests that failed with an exception
+     */
+    long getRequestFailureCount();
+
+    /**
+     * @return the total time spent waiting for the web connection (in milliseconds)
+     */
+    long getRequestTime();
+
+    /**
+     * @return the number of requests per host
+     */
+    Map<String, Long> getRequestCountPerHost();
+
+    /**
+     * @return the average time of the requests per host (in milliseconds)
+     */
+    Map<String, Long> getAverageRequestTimePerHost();
+
+    /**
+     * @return the number of responses served from the cache
+     */
+    long getCacheHitCount();
+
+    /**
+     * @return the number of responses not found in the cache
+     */
+    long getCacheMissCount();
+
+    /**
+     * @return the ratio of responses served from the cache (0 - 1)
+     */
+    double getCacheHitRatio();
+
+    /**
+     * @return the number of entries of the cache
+     */
+    int getCacheSize();
+
+    /**
+     * @return the number of top level scripts and event handlers executed
+     */
+    long getScriptExecutionCount();
+
+    /**
+     * @return the time spent executing scripts and event handlers (in milliseconds)
+     */
+    long getScriptExecutionTime();
+
+    /**
+     * @return the number of background jobs executed
+     */
+    long getExecutedJobCount();
+
+    /**
+     * @return the number of background jobs waiting to be executed in the open windows
+     */
+    int getPendingJobCount();
+
+    /**
+     * @return the number of open windows
+     */
+    int getWindowCount();
+
+    /**
+     * @return the number of pages loaded in the open windows
+     */
+    int getPageCount();
+
+    /**
+     * Returns the number of JavaScript objects created so far for the nodes of the loaded pages.
+     * This counts every creation; objects no longer referenced are not subtracted.
+     * @return the number of JavaScript objects created for the nodes of the loaded pages
+     */
+    long getCreatedScriptObjectCount();
+
+    /**
+     * @return the number of connections leased from the pool
+     */
+    int getLeasedConnectionCount();
+
+    /**
+     * @return the number of idle connections of the pool
+     */
+    int getAvailableConnectionCount();
+
+    /**
+     * @return the number of temporary files holding downloaded content (for the whole JVM)
+     */
+    long getTemporaryFileCount();
+
+    /**
+     * @return the size of the temporary files holding downloaded content (for the whole JVM)
+     */
+    long getTemporaryFileBytes();
+}
@@ -19,6 +19,11 @@ import java.io.Serializable;
 import java.net.InetAddress;
 import java.net.URL;
 import java.security.KeyStore;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.http.conn.DnsResolver;
 
 /**
  * Represents options of a {@link WebClient}.
@@ -50,12 +55,21 @@ public class WebClientOptions implements Serializable {
     private ProxyConfig proxyConfig_;
     private int timeout_ = 90_000; // like Firefox 16 default's value for network.http.connection-timeout
     private long connectionTimeToLive_ = -1; // HttpClient default
+    private int connectionPoolMaxTotal_ = -1;
+    private int connectionPoolMaxPerRoute_ = -1;
+    private Map<String, Integer> connectionPoolMaxPerOrigin_ = new HashMap<>();
+    private long connectionPoolIdleTimeout_ = -1;
+    private int connectionPoolValidateAfterInactivity_ = 2000; // HttpClient default
+    private transient DnsResolver dnsResolver_;
 
     private boolean useInsecureSSL_; // default is secure SSL
     private String sslInsecureProtocol_;
     private int maxInMemory_ = 500 * 1024;
     private int historySizeLimit_ = 50;
     private int historyPageCacheLimit_ = Integer.MAX_VALUE;
+    private long historyResponseCacheLimit_;
+    private boolean stringDeduplicationEnabled_;
+    private boolean fastCloseEnabled_;
     private InetAddress localAddress_;
     private boolean downloadImages_;
     private int screenWidth_ = 1920;
@@ -482,6 +496,138 @@ public class WebClientOptions implements Serializable {
         connectionTimeToLive_ = connectionTimeToLive;
     }
 
+    /**
+     * Gets the maximum number of connections of the HttpClient connection pool.
+     *
+     * @return the maximum number of connections, -1 if not configured
+     */
+    public int getConnectionPoolMaxTotal() {
+        return connectionPoolMaxTotal_;
+    }
+
+    /**
+     * Sets the maximum number of connections of the HttpClient connection pool (over all routes).
+     * Set to -1 (default) to use the HttpClient default (20).
+     *
+     * @param connectionPoolMaxTotal the maximum number of connections
+     */
+    public void setConnectionPoolMaxTotal(final int connectionPoolMaxTotal) {
+        connectionPoolMaxTotal_ = connectionPoolMaxTotal;
+    }
+
+    /**
+     * Gets the maximum number of connections per route of the HttpClient connection pool.
+     *
+     * @return the maximum number of connections per route, -1 if not configured
+     */
+    public int getConnectionPoolMaxPerRoute() {
+        return connectionPoolMaxPerRoute_;
+    }
+
+    /**
+     * Sets the maximum number of connections per route of the HttpClient connection pool.
+     * Set to -1 (default) to use the value of the connection (6, like the browsers).
+     *
+     * @param connectionPoolMaxPerRoute the maximum number of connections per route
+     * @see #setConnectionPoolMaxPerOrigin(URL, int)
+     */
+    public void setConnectionPoolMaxPerRoute(final int connectionPoolMaxPerRoute) {
+        connectionPoolMaxPerRoute_ = connectionPoolMaxPerRoute;
+    }
+
+    /**
+     * Returns the maximum number of connections configured for individual origins.
+     *
+     * @return an unmodifiable map; the key is the origin (e.g. {@code https://htmlunit.sourceforge.io:443})
+     */
+    public Map<String, Integer> getConnectionPoolMaxPerOrigin() {
+        return Collections.unmodifiableMap(connectionPoolMaxPerOrigin_);
+    }
+
+    /**
+     * Sets the maximum number of connections of the HttpClient connection pool used
+     * for the origin (protocol, host and port) of the given url.
+     * This overrules {@link #setConnectionPoolMaxPerRoute(int)} for requests not using a proxy.
+     *
+     * @param url the url
+     * @param max the maximum number of connections for this origin, -1 to remove the setting
+     */
+    public void setConnectionPoolMaxPerOrigin(final URL url, final int max) {
+        final int port = url.getPort() == -1 ? url.getDefaultPort() : url.getPort();
+        final String origin = url.getProtocol() + "://" + url.getHost() + ':' + port;
+
+        if (max < 0) {
+            connectionPoolMaxPerOrigin_.remove(origin);
+        }
+        else {
+            connectionPoolMaxPerOrigin_.put(origin, max);
+        }
+    }
+
+    void setConnectionPoolMaxPerOrigin(final Map<String, Integer> connectionPoolMaxPerOrigin) {
+        connectionPoolMaxPerOrigin_ = new HashMap<>(connectionPoolMaxPerOrigin);
+    }
+
+    /**
+     * Gets the time after which idle connections are evicted from the HttpClient connection pool.
+     *
+     * @return the timeout value in milliseconds
+     */
+    public long getConnectionPoolIdleTimeout() {
+        return connectionPoolIdleTimeout_;
+    }
+
+    /**
+     * Sets the time after which idle connections are closed and evicted from the HttpClient connection pool
+     * by a background thread. Set to -1 (default) to keep idle connections until the server closes them.
+     *
+     * @param connectionPoolIdleTimeout the value of the timeout in milliseconds
+     */
+    public void setConnectionPoolIdleTimeout(final long connectionPoolIdleTimeout) {
+        connectionPoolIdleTimeout_ = connectionPoolIdleTimeout;
+    }
+
+    /**
+     * Gets the period of inactivity after which pooled connections are validated before being reused.
+     *
+     * @return the period in milliseconds
+     */
+    public int getConnectionPoolValidateAfterInactivity() {
+        return connectionPoolValidateAfterInactivity_;
+    }
+
+    /**
+     * Sets the period of inactivity after which pooled connections are validated before being reused.
+     * Default is 2000 (HttpClient default), non-positive values disable the validation.
+     *
+     * @param validateAfterInactivity the period in milliseconds
+     */
+    public void setConnectionPoolValidateAfterInactivity(final int validateAfterInactivity) {
+        connectionPoolValidateAfterInactivity_ = validateAfterInactivity;
+    }
+
+    /**
+     * Returns the resolver used for the host names of requests and by the Proxy Auto-Config functions
+     * ({@code dnsResolve()}, {@code isResolvable()} and {@code isInNet()}).
+     *
+     * @return the resolver or {@code null} if the system resolver is used
+     */
+    public DnsResolver getDnsResolver() {
+        return dnsResolver_;
+    }
+
+    /**
+     * Sets the resolver used for the host names of requests and by the Proxy Auto-Config functions.
+     * Use a {@link com.gargoylesoftware.htmlunit.httpclient.CachingDnsResolver} to cache the lookups,
+     * possibly shared by many WebClients.
+     * Set to {@code null} (default) to use the system resolver.
+     *
+     * @param dnsResolver the resolver
+     */
+    public void setDnsResolver(final DnsResolver dnsResolver) {
+        dnsResolver_ = dnsResolver;
+    }
+
     /**
      * Sets the SSL protocol, used only when {@link #setUseInsecureSSL(boolean)} is set to {@code true}.
      * @param sslInsecureProtocol the SSL protocol for insecure SSL connections,
@@ -601,6 +747,68 @@ public class WebClientOptions implements Serializable {
         historyPageCacheLimit_ = historyPageCacheLimit;
     }
 
+    /**
+     * Returns the maximum number of bytes used to keep the responses of the history entries
+     * older than {@link #getHistoryPageCacheLimit()}.
+     * @return the maximum number of bytes
+     */
+    public long getHistoryResponseCacheLimit() {
+        return historyResponseCacheLimit_;
+    }
+
+    /**
+     * Sets the maximum number of bytes used to keep the (compressed) responses and form values of
+     * the history entries older than {@link #getHistoryPageCacheLimit()}. Going back to such an entry
+     * re-creates the page from the kept response instead of loading it again from the server.
+     * If the limit is reached the responses of the oldest entries are dropped first.
+     * Default is zero, meaning that only the requests of the entries are kept.
+     * @param historyResponseCacheLimit maximum number of bytes
+     */
+    public void setHistoryResponseCacheLimit(final long historyResponseCacheLimit) {
+        historyResponseCacheLimit_ = historyResponseCacheLimit;
+    }
+
+    /**
+     * Returns whether the parser shares equal attribute values and whitespace only text
+     * between the pages of this client.
+     * @return whether the deduplication is enabled
+     */
+    public boolean isStringDeduplicationEnabled() {
+        return stringDeduplicationEnabled_;
+    }
+
+    /**
+     * Enables/disables the sharing of equal attribute values and whitespace only text between
+     * the pages parsed by this client. This reduces the memory needed by the pages kept
+     * in the history; the names of elements and attributes are always shared.
+     * Default is {@code false}.
+     * @param enabled whether to enable the deduplication
+     */
+    public void setStringDeduplicationEnabled(final boolean enabled) {
+        stringDeduplicationEnabled_ = enabled;
+    }
+
+    /**
+     * Returns whether closing a top level window only detaches it from the client and
+     * leaves the teardown to a background thread.
+     * @return whether the fast close is enabled
+     */
+    public boolean isFastCloseEnabled() {
+        return fastCloseEnabled_;
+    }
+
+    /**
+     * Enables/disables the fast close of the top level windows. If enabled, {@link TopLevelWindow#close()}
+     * only runs the unload events, stops the scheduled JavaScript jobs and deregisters the window from the
+     * client; the removal of the downloaded content, the deregistration of the frames and the shutdown of
+     * the job managers are done later by the {@link WebClient#getWindowReaper() window reaper}.
+     * Default is {@code false}.
+     * @param enabled whether to enable the fast close
+     */
+    public void setFastCloseEnabled(final boolean enabled) {
+        fastCloseEnabled_ = enabled;
+    }
+
     /**
      * Returns local address to be used for request execution.
      *
@@ -58,6 +58,7 @@ public class WebResponse implements Serializable {
     private WebResponseData responseData_;
     private WebRequest request_;
     private boolean defaultCharsetUtf8_;
+    private WebResponseTiming timing_;
 
     /**
      * Constructs with all data.
@@ -295,6 +296,24 @@ public class WebResponse implements Serializable {
         return loadTime_;
     }
 
+    /**
+     * Returns the network timings of this response (dns lookup, connect, time to first byte, download).
+     * @return the timings or {@code null} if this response was not loaded through an {@link HttpWebConnection}
+     */
+    public WebResponseTiming getTiming() {
+        return timing_;
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Sets the network timings of this response.
+     * @param timing the timings
+     */
+    public void setTiming(final WebResponseTiming timing) {
+        timing_ = timing;
+    }
+
     /**
      * Clean up the response data.
      */
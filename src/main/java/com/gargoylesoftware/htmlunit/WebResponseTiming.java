@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2002-2020 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit;
+
+import java.io.Serializable;
+
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * The network timings of one response, measured by the {@link HttpWebConnection}.
+ * All the values are timestamps in milliseconds since the epoch (like {@link System#currentTimeMillis()});
+ * a value of <tt>0</tt> means that the step was not done for this response: no dns lookup and no
+ * connect if an open connection was reused, no secure connection for plain http.
+ *
+ * @author agent (agent@local)
+ */
+public class WebResponseTiming implements Serializable {
+
+    /** The attribute of the http context holding the timing of the current request. */
+    public static final String CONTEXT_ATTRIBUTE = WebResponseTiming.class.getName();
+
+    private long fetchStart_;
+    private long domainLookupStart_;
+    private long domainLookupEnd_;
+    private long connectStart_;
+    private long connectEnd_;
+    private long secureConnectionStart_;
+    private long requestStart_;
+    private long responseStart_;
+    private long responseEnd_;
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Returns the timing of the request currently executed with the specified context.
+     * @param context the http context
+     * @return the timing or {@code null}
+     */
+    public static WebResponseTiming of(final HttpContext context) {
+        if (context == null) {
+            return null;
+        }
+        final Object timing = context.getAttribute(CONTEXT_ATTRIBUTE);
+        if (timing instanceof WebResponseTiming) {
+            return (WebResponseTiming) timing;
+        }
+        return null;
+    }
+
+    /**
+     * @return the time the fetch of the resource started
+     */
+    public long getFetchStart() {
+        return fetchStart_;
+    }
+
+    /**
+     * @param fetchStart the time the fetch of the resource started
+     */
+    public void setFetchStart(final long fetchStart) {
+        fetchStart_ = fetchStart;
+    }
+
+    /**
+     * @return the time the dns lookup started
+     */
+    public long getDomainLookupStart() {
+        return domainLookupStart_;
+    }
+
+    /**
+     * @param domainLookupStart the time the dns lookup started
+     */
+    public void setDomainLookupStart(final long domainLookupStart) {
+        domainLookupStart_ = domainLookupStart;
+    }
+
+    /**
+     * @return the time the dns lookup ended
+     */
+    public long getDomainLookupEnd() {
+        return domainLookupEnd_;
+    }
+
+    /**
+     * @param domainLookupEnd the time the dns lookup ended
+     */
+    public void setDomainLookupEnd(final long domainLookupEnd) {
+        domainLookupEnd_ = domainLookupEnd;
+    }
+
+    /**
+     * @return the time the connection to the server started
+     */
+    public long getConnectStart() {
+        return connectStart_;
+    }
+
+    /**
+     * @param connectStart the time the connection to the server started
+     */
+    public void setConnectStart(final long connectStart) {
+        connectStart_ = connectStart;
+    }
+
+    /**
+     * @return the time the connection to the server was established (including the tls handshake)
+     */
+    public long getConnectEnd() {
+        return connectEnd_;
+    }
+
+    /**
+     * @param connectEnd the time the connection to the server was established
+     */
+    public void setConnectEnd(final long connectEnd) {
+        connectEnd_ = connectEnd;
+    }
+
+    /**
+     * @return the time the tls handshake started
+     */
+    public long getSecureConnectionStart() {
+        return secureConnectionStart_;
+    }
+
+    /**
+     * @param secureConnectionStart the time the tls handshake started
+     */
+    public void setSecureConnectionStart(final long secureConnectionStart) {
+        secureConnectionStart_ = secureConnectionStart;
+    }
+
+    /**
+     * @return the time the request started to be sent
+     */
+    public long getRequestStart() {
+        return requestStart_;
+    }
+
+    /**
+     * @param requestStart the time the request started to be sent
+     */
+    public void setRequestStart(final long requestStart) {
+        requestStart_ = requestStart;
+    }
+
+    /**
+     * @return the time the response headers were received
+     */
+    public long getResponseStart() {
+        return responseStart_;
+    }
+
+    /**
+     * @param responseStart the time the response headers were received
+     */
+    public void setResponseStart(final long responseStart) {
+        responseStart_ = responseStart;
+    }
+
+    /**
+     * @return the time the response body was downloaded
+     */
+    public long getResponseEnd() {
+        return responseEnd_;
+    }
+
+    /**
+     * @param responseEnd the time the response body was downloaded
+     */
+    public void setResponseEnd(final long responseEnd) {
+        responseEnd_ = responseEnd;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "WebResponseTiming[fetchStart=" + fetchStart_
+                + ", dns=" + (domainLookupEnd_ - domainLookupStart_)
+                + ", connect=" + (connectEnd_ - connectStart_)
+                + ", ttfb=" + (responseStart_ - requestStart_)
+                + ", download=" + (responseEnd_ - responseStart_) + "]";
+    }
+}
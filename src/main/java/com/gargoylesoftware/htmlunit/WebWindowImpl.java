@@ -235,6 +235,22 @@ public abstract class WebWindowImpl implements WebWindow {
         }
     }
 
+    /**
+     * Marks the child windows as closed and removes their scheduled jobs without cleaning up their pages;
+     * used by the fast close where the remaining teardown is done later.
+     */
+    void stopChildren() {
+        final List<WebWindowImpl> children;
+        synchronized (childWindows_) {
+            children = new ArrayList<>(childWindows_);
+        }
+        for (final WebWindowImpl window : children) {
+            window.setClosed();
+            window.getJobManager().removeAllJobs();
+            window.stopChildren();
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2002-2020 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Tears down the windows closed with {@link WebClientOptions#isFastCloseEnabled()} in a background thread.
+ * The <tt>unload</tt> handlers of the closed window run synchronously and the window is detached from
+ * the client immediately; the work without JavaScript (removal of the downloaded content, closing of
+ * web sockets, deregistration of the frames and shutdown of the job managers) is done here.
+ * <p>
+ * The reaper also collects some timing statistics about the closing of the windows.
+ *
+ * @author agent (agent@local)
+ */
+public final class WindowReaper {
+
+    private static final Log LOG = LogFactory.getLog(WindowReaper.class);
+
+    private static final long KEEP_ALIVE_SECONDS = 10;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private final ThreadPoolExecutor executor_;
+
+    private final Object lock_ = new Object();
+    private int pending_;
+
+    private final AtomicLong reapedCount_ = new AtomicLong();
+    private final AtomicLong teardownTotal_ = new AtomicLong();
+    private final AtomicLong teardownMax_ = new AtomicLong();
+    private final AtomicLong detachTotal_ = new AtomicLong();
+    private final AtomicLong detachMax_ = new AtomicLong();
+
+    /**
+     * Ctor.
+     */
+    WindowReaper() {
+        executor_ = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    @Override
+                    public Thread newThread(final Runnable runnable) {
+                        final Thread thread = new Thread(runnable, "HtmlUnit WindowReaper");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor_.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Schedules the teardown of the specified window.
+     * @param window the window already detached from the client
+     * @param detachTime the time in nanoseconds needed to detach the window
+     * @param teardown the work to do
+     */
+    void reap(final WebWindow window, final long detachTime, final Runnable teardown) {
+        record(detachTotal_, detachMax_, detachTime);
+        synchronized (lock_) {
+            pending_++;
+        }
+
+        executor_.execute(new Runnable() {
+            @Override
+            public void run() {
+                final long start = System.nanoTime();
+                try {
+                    teardown.run();
+                }
+                catch (final RuntimeException e) {
+                    LOG.error("Exception while tearing down " + window, e);
+                }
+                finally {
+                    record(teardownTotal_, teardownMax_, System.nanoTime() - start);
+                    reapedCount_.incrementAndGet();
+                    synchronized (lock_) {
+                        pending_--;
+                        lock_.notifyAll();
+                    }
+                }
+            }
+        });
+    }
+
+    private static void record(final AtomicLong total, final AtomicLong max, final long nanos) {
+        total.addAndGet(nanos);
+        long current = max.get();
+        while (nanos > current && !max.compareAndSet(current, nanos)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Waits until all the scheduled teardowns are done.
+     * @param timeoutMillis the maximum time to wait (in milliseconds)
+     * @return the number of teardowns still pending
+     * @throws InterruptedException if the current thread is interrupted
+     */
+    public int awaitIdle(final long timeoutMillis) throws InterruptedException {
+        final long end = System.currentTimeMillis() + timeoutMillis;
+        synchronized (lock_) {
+            long wait = timeoutMillis;
+            while (pending_ > 0 && wait > 0) {
+                lock_.wait(wait);
+                wait = end - System.currentTimeMillis();
+            }
+            return pending_;
+        }
+    }
+
+    /**
+     * Finishes the scheduled teardowns and stops the reaper thread; called when the client is closed.
+     */
+    void shutdown() {
+        executor_.shutdown();
+        try {
+            if (!executor_.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOG.warn("Pending window teardowns not finished after " + SHUTDOWN_TIMEOUT_SECONDS + "s");
+                executor_.shutdownNow();
+            }
+        }
+        catch (final InterruptedException e) {
+            executor_.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return the number of teardowns scheduled but not finished yet
+     */
+    public int getPendingCount() {
+        synchronized (lock_) {
+            return pending_;
+        }
+    }
+
+    /**
+     * @return the number of finished teardowns
+     */
+    public long getReapedCount() {
+        return reapedCount_.get();
+    }
+
+    /**
+     * Returns the sum of the time spent in the background to tear down the closed windows.
+     * @param unit the time unit of the result
+     * @return the total teardown time
+     */
+    public long getTotalTeardownTime(final TimeUnit unit) {
+        return unit.convert(teardownTotal_.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the longest time spent in the background to tear down one closed window.
+     * @param unit the time unit of the result
+     * @return the maximum teardown time
+     */
+    public long getMaxTeardownTime(final TimeUnit unit) {
+        return unit.convert(teardownMax_.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the sum of the time the callers of {@link TopLevelWindow#close()} were blocked.
+     * @param unit the time unit of the result
+     * @return the total detach time
+     */
+    public long getTotalDetachTime(final TimeUnit unit) {
+        return unit.convert(detachTotal_.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the longest time a caller of {@link TopLevelWindow#close()} was blocked.
+     * @param unit the time unit of the result
+     * @return the maximum detach time
+     */
+    public long getMaxDetachTime(final TimeUnit unit) {
+        return unit.convert(detachMax_.get(), TimeUnit.NANOSECONDS);
+    }
+}
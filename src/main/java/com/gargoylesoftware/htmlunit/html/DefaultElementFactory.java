@@ -30,6 +30,7 @@ import org.xml.sax.Attributes;
 import com.gargoylesoftware.htmlunit.BrowserVersion;
 import com.gargoylesoftware.htmlunit.SgmlPage;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JavaScriptConfiguration;
+import com.gargoylesoftware.htmlunit.util.StringPool;
 
 /**
  * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
@@ -783,16 +784,25 @@ public class DefaultElementFactory implements ElementFactory {
             return null;
         }
 
+        // the names are shared by all pages, the values only if enabled in the options
+        final StringPool valuePool = page == null ? null : page.getWebClient().getStringPool();
+
         final Map<String, DomAttr> attributeMap = new LinkedHashMap<>(attributes.getLength());
         for (int i = 0; i < attributes.getLength(); i++) {
-            final String qName = attributes.getQName(i);
+            final String qName = StringPool.NAMES.intern(attributes.getQName(i));
             // browsers consider only first attribute (ex: <div id='foo' id='something'>...</div>)
             if (!attributeMap.containsKey(qName)) {
                 String namespaceURI = attributes.getURI(i);
                 if (namespaceURI != null && namespaceURI.isEmpty()) {
                     namespaceURI = null;
                 }
-                final DomAttr newAttr = new DomAttr(page, namespaceURI, qName, attributes.getValue(i), true);
+                namespaceURI = StringPool.NAMES.intern(namespaceURI);
+
+                String value = attributes.getValue(i);
+                if (valuePool != null) {
+                    value = valuePool.intern(value);
+                }
+                final DomAttr newAttr = new DomAttr(page, namespaceURI, qName, value, true);
                 attributeMap.put(qName, newAttr);
             }
         }
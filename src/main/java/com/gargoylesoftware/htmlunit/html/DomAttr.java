@@ -109,8 +109,20 @@ public class DomAttr extends DomNamespaceNode implements Attr {
      */
     @Override
     public void setValue(final String value) {
+        final DomElement owner = getOwnerElement();
+        final boolean mappedElement = owner != null && HtmlPage.isMappedElement(getOwnerDocument(), getName());
+        if (mappedElement) {
+            ((HtmlPage) getPage()).removeMappedElement(owner, false, false);
+        }
+        final String oldValue = value_;
         value_ = value;
         specified_ = true;
+        if (mappedElement) {
+            ((HtmlPage) getPage()).addMappedElement(owner);
+        }
+        if (owner != null) {
+            owner.attributeValueChanged(getName(), oldValue);
+        }
     }
 
     /**
@@ -175,13 +187,6 @@ public class DomAttr extends DomNamespaceNode implements Attr {
      */
     @Override
     public void setTextContent(final String textContent) {
-        final boolean mappedElement = HtmlPage.isMappedElement(getOwnerDocument(), getName());
-        if (mappedElement) {
-            ((HtmlPage) getPage()).removeMappedElement((HtmlElement) getOwnerElement());
-        }
         setValue(textContent);
-        if (mappedElement) {
-            ((HtmlPage) getPage()).addMappedElement(getOwnerElement());
-        }
     }
 }
@@ -21,6 +21,11 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.Serializable;
 import java.io.StringWriter;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -30,6 +35,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -85,10 +91,10 @@ public class DomElement extends DomNamespaceNode implements Element {
     public static final String ATTRIBUTE_VALUE_EMPTY = new String();
 
     /** The map holding the attributes, keyed by name. */
-    private NamedAttrNodeMapImpl attributes_ = new NamedAttrNodeMapImpl(this, isAttributeCaseSensitive());
+    private NamedAttrNodeMapImpl attributes_;
 
-    /** The map holding the namespaces, keyed by URI. */
-    private final Map<String, String> namespaces_ = new HashMap<>();
+    /** The map holding the namespaces, keyed by URI; created on demand as most elements have none. */
+    private Map<String, String> namespaces_;
 
     /** Cache for the styles. */
     private String styleString_;
@@ -118,10 +124,20 @@ public class DomElement extends DomNamespaceNode implements Element {
                 final String attrNamespaceURI = entry.getNamespaceURI();
                 final String prefix = entry.getPrefix();
                 if (attrNamespaceURI != null && prefix != null) {
-                    namespaces_.put(attrNamespaceURI, prefix);
+                    addNamespace(attrNamespaceURI, prefix);
                 }
             }
         }
+        else {
+            attributes_ = new NamedAttrNodeMapImpl(this, isAttributeCaseSensitive());
+        }
+    }
+
+    private void addNamespace(final String namespaceURI, final String prefix) {
+        if (namespaces_ == null) {
+            namespaces_ = new HashMap<>();
+        }
+        namespaces_.put(namespaceURI, prefix);
     }
 
     /**
@@ -360,7 +376,7 @@ public class DomElement extends DomNamespaceNode implements Element {
             qualifiedName = localName;
         }
         else {
-            final String prefix = namespaces_.get(namespaceURI);
+            final String prefix = namespaces_ == null ? null : namespaces_.get(namespaceURI);
             if (prefix == null) {
                 qualifiedName = null;
             }
@@ -509,7 +525,32 @@ public class DomElement extends DomNamespaceNode implements Element {
         attributes_.put(qualifiedName, newAttr);
 
         if (namespaceURI != null) {
-            namespaces_.put(namespaceURI, newAttr.getPrefix());
+            addNamespace(namespaceURI, newAttr.getPrefix());
+        }
+
+        // HtmlElements of an HtmlPage report the change with an HtmlAttributeChangeEvent
+        final SgmlPage page = getPage();
+        if (page != null && !(this instanceof HtmlElement && page instanceof HtmlPage)) {
+            page.domChanged(this);
+        }
+    }
+
+    /**
+     * Increments the DOM version of the page after an attribute value of this element was changed
+     * in place (see {@link DomAttr#setValue(String)}), so that the live collections see the new value.
+     * @param qualifiedName the name of the attribute
+     * @param oldValue the former value of the attribute
+     */
+    void attributeValueChanged(final String qualifiedName, final String oldValue) {
+        final SgmlPage page = getPage();
+        if (page == null) {
+            return;
+        }
+        if (this instanceof HtmlElement && page instanceof HtmlPage) {
+            page.domChanged(new HtmlAttributeChangeEvent((HtmlElement) this, qualifiedName, oldValue));
+        }
+        else {
+            page.domChanged(this);
         }
     }
 
@@ -585,6 +626,35 @@ public class DomElement extends DomNamespaceNode implements Element {
         }
         final String value = builder.toString();
         setAttribute("style", value);
+
+        // the map is already known, no need to parse the new attribute value again
+        // (if parsing would produce the same map, in the order of the attribute value)
+        final String styleAttribute = getAttributeDirect("style");
+        if (value.equals(styleAttribute) && isParsedUnchanged(sortedValues)) {
+            final Map<String, StyleElement> parsedMap = new LinkedHashMap<>();
+            for (final StyleElement e : sortedValues) {
+                parsedMap.put(e.getName(), e);
+            }
+            styleMap_ = parsedMap;
+            styleString_ = styleAttribute;
+        }
+    }
+
+    private static boolean isParsedUnchanged(final Collection<StyleElement> styleElements) {
+        for (final StyleElement e : styleElements) {
+            final String name = e.getName();
+            final String value = e.getValue();
+            final String priority = e.getPriority();
+            if (!name.equals(name.trim().toLowerCase(Locale.ROOT))
+                    || name.indexOf(':') != -1 || name.indexOf(';') != -1
+                    || value.isEmpty() || !value.equals(value.trim()) || value.indexOf(';') != -1
+                    || org.apache.commons.lang3.StringUtils.endsWithIgnoreCase(value, "!important")
+                    || priority == null
+                    || !(priority.isEmpty() || StyleElement.PRIORITY_IMPORTANT.equals(priority))) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -605,8 +675,24 @@ public class DomElement extends DomNamespaceNode implements Element {
             @Override
             @SuppressWarnings("unchecked")
             protected List<E> provideElements() {
+                final DomNode root = getDomNode();
+                final SgmlPage page = root.getPage();
+                if (page instanceof HtmlPage) {
+                    final List<DomElement> indexed =
+                            ((HtmlPage) page).getIndexedElementsByTagName(root, tagName.toLowerCase(Locale.ROOT));
+                    if (indexed != null) {
+                        final List<E> res = new ArrayList<>(indexed.size());
+                        for (final DomElement elem : indexed) {
+                            if (elem instanceof HtmlElement) {
+                                res.add((E) elem);
+                            }
+                        }
+                        return res;
+                    }
+                }
+
                 final List<E> res = new LinkedList<>();
-                for (final HtmlElement elem : getDomNode().getHtmlElementDescendants()) {
+                for (final HtmlElement elem : root.getHtmlElementDescendants()) {
                     if (elem.getLocalName().equalsIgnoreCase(tagName)) {
                         res.add((E) elem);
                     }
@@ -1580,14 +1666,22 @@ public class DomElement extends DomNamespaceNode implements Element {
 
 /**
  * The {@link NamedNodeMap} to store the node attributes.
+ * Most elements have only a few attributes; therefore the attributes are stored in two arrays
+ * (names and attributes, in insertion order) instead of a hash map. Elements having many
+ * attributes additionally get a hash map for the lookup.
  */
 class NamedAttrNodeMapImpl implements Map<String, DomAttr>, NamedNodeMap, Serializable {
     protected static final NamedAttrNodeMapImpl EMPTY_MAP = new NamedAttrNodeMapImpl();
+    private static final String[] EMPTY_NAMES = new String[0];
     private static final DomAttr[] EMPTY_ARRAY = new DomAttr[0];
 
-    private final Map<String, DomAttr> map_ = new LinkedHashMap<>();
-    private boolean dirty_ = false;
-    private DomAttr[] attrPositions_ = EMPTY_ARRAY;
+    /** Above this number of attributes, the position lookup uses {@link #index_}. */
+    private static final int LINEAR_SEARCH_LIMIT = 8;
+
+    private String[] names_ = EMPTY_NAMES;
+    private DomAttr[] attrs_ = EMPTY_ARRAY;
+    private int size_;
+    private Map<String, Integer> index_;
     private final DomElement domNode_;
     private final boolean caseSensitive_;
 
@@ -1609,6 +1703,8 @@ class NamedAttrNodeMapImpl implements Map<String, DomAttr>, NamedNodeMap, Serial
     NamedAttrNodeMapImpl(final DomElement domNode, final boolean caseSensitive,
             final Map<String, DomAttr> attributes) {
         this(domNode, caseSensitive);
+        names_ = new String[attributes.size()];
+        attrs_ = new DomAttr[attributes.size()];
         putAll(attributes);
     }
 
@@ -1635,6 +1731,19 @@ class NamedAttrNodeMapImpl implements Map<String, DomAttr>, NamedNodeMap, Serial
         return name.toLowerCase(Locale.ROOT);
     }
 
+    private int indexOf(final String name) {
+        if (index_ != null) {
+            final Integer pos = index_.get(name);
+            return pos == null ? -1 : pos.intValue();
+        }
+        for (int i = 0; i < size_; i++) {
+            if (name.equals(names_[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -1651,14 +1760,10 @@ class NamedAttrNodeMapImpl implements Map<String, DomAttr>, NamedNodeMap, Serial
      */
     @Override
     public Node item(final int index) {
-        if (index < 0 || index >= map_.size()) {
+        if (index < 0 || index >= size_) {
             return null;
         }
-        if (dirty_) {
-            attrPositions_ = map_.values().toArray(attrPositions_);
-            dirty_ = false;
-        }
-        return attrPositions_[index];
+        return attrs_[index];
     }
 
     /**
@@ -1702,8 +1807,32 @@ class NamedAttrNodeMapImpl implements Map<String, DomAttr>, NamedNodeMap, Serial
     @Override
     public DomAttr put(final String key, final DomAttr value) {
         final String name = fixName(key);
-        dirty_ = true;
-        return map_.put(name, value);
+        final int pos = indexOf(name);
+        if (pos != -1) {
+            final DomAttr old = attrs_[pos];
+            attrs_[pos] = value;
+            return old;
+        }
+
+        if (size_ == names_.length) {
+            final int newLength = Math.max(2, size_ + (size_ >> 1) + 1);
+            names_ = Arrays.copyOf(names_, newLength);
+            attrs_ = Arrays.copyOf(attrs_, newLength);
+        }
+        names_[size_] = name;
+        attrs_[size_] = value;
+        size_++;
+
+        if (index_ != null) {
+            index_.put(name, size_ - 1);
+        }
+        else if (size_ > LINEAR_SEARCH_LIMIT) {
+            index_ = new HashMap<>();
+            for (int i = 0; i < size_; i++) {
+                index_.put(names_[i], i);
+            }
+        }
+        return null;
     }
 
     /**
@@ -1713,19 +1842,47 @@ class NamedAttrNodeMapImpl implements Map<String, DomAttr>, NamedNodeMap, Serial
     public DomAttr remove(final Object key) {
         if (key instanceof String) {
             final String name = fixName((String) key);
-            dirty_ = true;
-            return map_.remove(name);
+            final int pos = indexOf(name);
+            if (pos != -1) {
+                return removeAt(pos);
+            }
         }
         return null;
     }
 
+    private DomAttr removeAt(final int pos) {
+        final DomAttr old = attrs_[pos];
+        if (index_ != null) {
+            index_.remove(names_[pos]);
+        }
+
+        final int moved = size_ - pos - 1;
+        if (moved > 0) {
+            System.arraycopy(names_, pos + 1, names_, pos, moved);
+            System.arraycopy(attrs_, pos + 1, attrs_, pos, moved);
+        }
+        size_--;
+        names_[size_] = null;
+        attrs_[size_] = null;
+
+        if (index_ != null) {
+            // the following entries moved one position down
+            for (int i = pos; i < size_; i++) {
+                index_.put(names_[i], i);
+            }
+        }
+        return old;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public void clear() {
-        dirty_ = true;
-        map_.clear();
+        names_ = EMPTY_NAMES;
+        attrs_ = EMPTY_ARRAY;
+        size_ = 0;
+        index_ = null;
     }
 
     /**
@@ -1745,8 +1902,7 @@ class NamedAttrNodeMapImpl implements Map<String, DomAttr>, NamedNodeMap, Serial
     @Override
     public boolean containsKey(final Object key) {
         if (key instanceof String) {
-            final String name = fixName((String) key);
-            return map_.containsKey(name);
+            return getDirect(fixName((String) key)) != null;
         }
         return false;
     }
@@ -1757,8 +1913,7 @@ class NamedAttrNodeMapImpl implements Map<String, DomAttr>, NamedNodeMap, Serial
     @Override
     public DomAttr get(final Object key) {
         if (key instanceof String) {
-            final String name = fixName((String) key);
-            return map_.get(name);
+            return getDirect(fixName((String) key));
         }
         return null;
     }
@@ -1768,7 +1923,11 @@ class NamedAttrNodeMapImpl implements Map<String, DomAttr>, NamedNodeMap, Serial
      * @param key the key
      */
     protected DomAttr getDirect(final String key) {
-        return map_.get(key);
+        final int pos = indexOf(key);
+        if (pos == -1) {
+            return null;
+        }
+        return attrs_[pos];
     }
 
     /**
@@ -1776,7 +1935,12 @@ class NamedAttrNodeMapImpl implements Map<String, DomAttr>, NamedNodeMap, Serial
      */
     @Override
     public boolean containsValue(final Object value) {
-        return map_.containsValue(value);
+        for (int i = 0; i < size_; i++) {
+            if (Objects.equals(value, attrs_[i])) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -1784,7 +1948,28 @@ class NamedAttrNodeMapImpl implements Map<String, DomAttr>, NamedNodeMap, Serial
      */
     @Override
     public Set<Map.Entry<String, DomAttr>> entrySet() {
-        return map_.entrySet();
+        return new AbstractSet<Map.Entry<String, DomAttr>>() {
+            @Override
+            public Iterator<Map.Entry<String, DomAttr>> iterator() {
+                return new AttributesIterator<Map.Entry<String, DomAttr>>() {
+                    @Override
+                    protected Map.Entry<String, DomAttr> get(final int pos) {
+                        return new AbstractMap.SimpleEntry<String, DomAttr>(names_[pos], attrs_[pos]) {
+                            @Override
+                            public DomAttr setValue(final DomAttr value) {
+                                super.setValue(value);
+                                return put(getKey(), value);
+                            }
+                        };
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size_;
+            }
+        };
     }
 
     /**
@@ -1792,7 +1977,7 @@ class NamedAttrNodeMapImpl implements Map<String, DomAttr>, NamedNodeMap, Serial
      */
     @Override
     public boolean isEmpty() {
-        return map_.isEmpty();
+        return size_ == 0;
     }
 
     /**
@@ -1800,7 +1985,27 @@ class NamedAttrNodeMapImpl implements Map<String, DomAttr>, NamedNodeMap, Serial
      */
     @Override
     public Set<String> keySet() {
-        return map_.keySet();
+        return new AbstractSet<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new AttributesIterator<String>() {
+                    @Override
+                    protected String get(final int pos) {
+                        return names_[pos];
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(final Object o) {
+                return containsKey(o);
+            }
+
+            @Override
+            public int size() {
+                return size_;
+            }
+        };
     }
 
     /**
@@ -1808,7 +2013,7 @@ class NamedAttrNodeMapImpl implements Map<String, DomAttr>, NamedNodeMap, Serial
      */
     @Override
     public int size() {
-        return map_.size();
+        return size_;
     }
 
     /**
@@ -1816,6 +2021,57 @@ class NamedAttrNodeMapImpl implements Map<String, DomAttr>, NamedNodeMap, Serial
      */
     @Override
     public Collection<DomAttr> values() {
-        return map_.values();
+        return new AbstractCollection<DomAttr>() {
+            @Override
+            public Iterator<DomAttr> iterator() {
+                return new AttributesIterator<DomAttr>() {
+                    @Override
+                    protected DomAttr get(final int pos) {
+                        return attrs_[pos];
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size_;
+            }
+        };
+    }
+
+    /**
+     * Iterator over the attributes in insertion order, supporting removal.
+     * @param <T> the type of the returned elements
+     */
+    private abstract class AttributesIterator<T> implements Iterator<T> {
+        private int next_;
+        private int last_ = -1;
+
+        protected abstract T get(int pos);
+
+        @Override
+        public boolean hasNext() {
+            return next_ < size_;
+        }
+
+        @Override
+        public T next() {
+            if (next_ >= size_) {
+                throw new NoSuchElementException();
+            }
+            last_ = next_;
+            next_++;
+            return get(last_);
+        }
+
+        @Override
+        public void remove() {
+            if (last_ == -1) {
+                throw new IllegalStateException();
+            }
+            removeAt(last_);
+            next_ = last_;
+            last_ = -1;
+        }
     }
 }
@@ -45,8 +45,11 @@ import com.gargoylesoftware.css.parser.CSSException;
 import com.gargoylesoftware.css.parser.CSSOMParser;
 import com.gargoylesoftware.css.parser.CSSParseException;
 import com.gargoylesoftware.css.parser.javacc.CSS3Parser;
+import com.gargoylesoftware.css.parser.selector.ElementSelector;
 import com.gargoylesoftware.css.parser.selector.Selector;
+import com.gargoylesoftware.css.parser.selector.Selector.SelectorType;
 import com.gargoylesoftware.css.parser.selector.SelectorList;
+import com.gargoylesoftware.css.parser.selector.SimpleSelector;
 import com.gargoylesoftware.htmlunit.BrowserVersion;
 import com.gargoylesoftware.htmlunit.BrowserVersionFeatures;
 import com.gargoylesoftware.htmlunit.IncorrectnessListener;
@@ -118,6 +121,9 @@ public abstract class DomNode implements Cloneable, Serializable, Node {
     /** The name of the "element" property. Used when watching property change events. */
     public static final String PROPERTY_ELEMENT = "element";
 
+    /** The distance between the order labels of subsequent nodes after a renumbering. */
+    private static final long ORDER_LABEL_GAP = 1L << 16;
+
     /** The owning page of this node. */
     private SgmlPage page_;
 
@@ -138,6 +144,18 @@ public abstract class DomNode implements Cloneable, Serializable, Node {
     /** Start of the child list. */
     private DomNode firstChild_;
 
+    /** Incremented on every change of the child list, allows {@link SiblingDomNodeList} to cache the children. */
+    private int childrenVersion_;
+
+    /** The result of {@link #getChildNodes()}, created on first use; caches the children itself. */
+    private transient SiblingDomNodeList childNodes_;
+
+    /**
+     * The position of this node in document order. Within one tree the labels are ascending in pre-order,
+     * they are assigned on insertion (see {@link #assignOrderLabels(DomNode)}).
+     */
+    private long orderLabel_;
+
     /**
      * This is the JavaScript object corresponding to this DOM node. It may
      * be null if there isn't a corresponding JavaScript object.
@@ -385,6 +403,10 @@ public abstract class DomNode implements Cloneable, Serializable, Node {
     /** @param previous set the previousSibling field value */
     protected void setPreviousSibling(final DomNode previous) {
         previousSibling_ = previous;
+        if (parent_ != null) {
+            parent_.childrenVersion_++;
+        }
+        incrementDomChangeVersion(parent_);
     }
 
     /**
@@ -394,6 +416,17 @@ public abstract class DomNode implements Cloneable, Serializable, Node {
      */
     public void setNextSibling(final DomNode next) {
         nextSibling_ = next;
+        if (parent_ != null) {
+            parent_.childrenVersion_++;
+        }
+        incrementDomChangeVersion(parent_);
+    }
+
+    private void incrementDomChangeVersion(final DomNode parent) {
+        final SgmlPage page = getPage();
+        if (page != null) {
+            page.domChanged(parent == null ? this : parent);
+        }
     }
 
     /**
@@ -447,7 +480,17 @@ public abstract class DomNode implements Cloneable, Serializable, Node {
      */
     @Override
     public DomNodeList<DomNode> getChildNodes() {
-        return new SiblingDomNodeList(this);
+        if (childNodes_ == null) {
+            childNodes_ = new SiblingDomNodeList(this);
+        }
+        return childNodes_;
+    }
+
+    /**
+     * @return the version of the child list, changes whenever a child is added or removed
+     */
+    int getChildrenVersion() {
+        return childrenVersion_;
     }
 
     /**
@@ -512,9 +555,60 @@ public abstract class DomNode implements Cloneable, Serializable, Node {
             return 0; // strange, no constant available?
         }
 
+        final DomNode otherNode = (DomNode) other;
+        if (this instanceof DomAttr || otherNode instanceof DomAttr) {
+            // attributes have a parent but are not part of the child lists
+            return compareDocumentPositionByAncestors(otherNode);
+        }
+
+        DomNode myRoot = this;
+        int myDepth = 0;
+        while (myRoot.parent_ != null) {
+            myRoot = myRoot.parent_;
+            myDepth++;
+        }
+        DomNode otherRoot = otherNode;
+        int otherDepth = 0;
+        while (otherRoot.parent_ != null) {
+            otherRoot = otherRoot.parent_;
+            otherDepth++;
+        }
+        if (myRoot != otherRoot) {
+            return DOCUMENT_POSITION_DISCONNECTED | DOCUMENT_POSITION_IMPLEMENTATION_SPECIFIC;
+        }
+
+        if (myDepth < otherDepth) {
+            DomNode ancestor = otherNode;
+            for (int i = myDepth; i < otherDepth; i++) {
+                ancestor = ancestor.parent_;
+            }
+            if (ancestor == this) {
+                return DOCUMENT_POSITION_CONTAINED_BY | DOCUMENT_POSITION_FOLLOWING;
+            }
+        }
+        else if (myDepth > otherDepth) {
+            DomNode ancestor = this;
+            for (int i = otherDepth; i < myDepth; i++) {
+                ancestor = ancestor.parent_;
+            }
+            if (ancestor == otherNode) {
+                return DOCUMENT_POSITION_CONTAINS | DOCUMENT_POSITION_PRECEDING;
+            }
+        }
+
+        if (orderLabel_ < otherNode.orderLabel_) {
+            return DOCUMENT_POSITION_FOLLOWING;
+        }
+        if (orderLabel_ > otherNode.orderLabel_) {
+            return DOCUMENT_POSITION_PRECEDING;
+        }
+        return compareDocumentPositionByAncestors(otherNode);
+    }
+
+    private short compareDocumentPositionByAncestors(final DomNode other) {
         // get ancestors of both
         final List<Node> myAncestors = getAncestors();
-        final List<Node> otherAncestors = ((DomNode) other).getAncestors();
+        final List<Node> otherAncestors = other.getAncestors();
 
         final int max = Math.min(myAncestors.size(), otherAncestors.size());
 
@@ -899,6 +993,7 @@ public abstract class DomNode implements Cloneable, Serializable, Node {
         newnode.previousSibling_ = null;
         newnode.scriptObject_ = null;
         newnode.firstChild_ = null;
+        newnode.childNodes_ = null;
         newnode.attachedToPage_ = false;
 
         // if deep, clone the children too.
@@ -994,6 +1089,7 @@ public abstract class DomNode implements Cloneable, Serializable, Node {
      */
     private void basicAppend(final DomNode node) {
         node.setPage(getPage());
+        childrenVersion_++;
         if (firstChild_ == null) {
             firstChild_ = node;
             firstChild_.previousSibling_ = node;
@@ -1006,6 +1102,8 @@ public abstract class DomNode implements Cloneable, Serializable, Node {
             firstChild_.previousSibling_ = node; // new last node
         }
         node.parent_ = this;
+        assignOrderLabels(node);
+        incrementDomChangeVersion(this);
     }
 
     /**
@@ -1066,6 +1164,7 @@ public abstract class DomNode implements Cloneable, Serializable, Node {
      */
     private void basicInsertBefore(final DomNode node) {
         node.setPage(page_);
+        parent_.childrenVersion_++;
         if (parent_.firstChild_ == this) {
             parent_.firstChild_ = node;
         }
@@ -1076,6 +1175,158 @@ public abstract class DomNode implements Cloneable, Serializable, Node {
         node.nextSibling_ = this;
         previousSibling_ = node;
         node.parent_ = parent_;
+        assignOrderLabels(node);
+        incrementDomChangeVersion(parent_);
+    }
+
+    /**
+     * Labels the inserted node and its descendants between the labels of the preceding and the following
+     * node in document order. Appending at the end never needs more; if there is no space left between
+     * the neighbors, the smallest enclosing label range that is sparse enough gets renumbered
+     * (see {@link #relabel(DomNode, DomNode, int)}).
+     *
+     * @param node the node just inserted
+     */
+    private static void assignOrderLabels(final DomNode node) {
+        final DomNode preceding = node.previousInPreOrder();
+        final long from = preceding.orderLabel_;
+
+        long to = Long.MAX_VALUE;
+        for (DomNode n = node; n != null; n = n.parent_) {
+            if (n.nextSibling_ != null) {
+                to = n.nextSibling_.orderLabel_;
+                break;
+            }
+        }
+
+        int count = 0;
+        for (DomNode n = node; n != null; n = n.nextInPreOrder(node)) {
+            count++;
+        }
+
+        long step = ORDER_LABEL_GAP;
+        if (to != Long.MAX_VALUE) {
+            step = Math.min(step, (to - from) / (count + 1));
+        }
+        else if ((Long.MAX_VALUE - from) / (count + 1) < step) {
+            step = 0;
+        }
+
+        if (step <= 0) {
+            relabel(node, preceding, count);
+            return;
+        }
+
+        long label = from;
+        for (DomNode n = node; n != null; n = n.nextInPreOrder(node)) {
+            label += step;
+            n.orderLabel_ = label;
+        }
+    }
+
+    /**
+     * Renumbers the nodes around an insertion without room for its labels, following the list labeling
+     * scheme of Bender et al. ("Two simplified algorithms for maintaining order in a list"): starting with
+     * the aligned label range of size 2 containing the preceding node, the range size is doubled until the
+     * range holds less than (2 / 1.5)^i nodes (including the inserted ones); then only the nodes of that
+     * range are spread evenly over it. This keeps the amortized cost of an insertion logarithmic instead
+     * of renumbering the whole tree.
+     *
+     * @param node the node just inserted
+     * @param preceding the node preceding the inserted subtree in document order
+     * @param count the number of nodes of the inserted subtree
+     */
+    private static void relabel(final DomNode node, final DomNode preceding, final int count) {
+        final List<DomNode> before = new ArrayList<>();
+        final List<DomNode> after = new ArrayList<>();
+        before.add(preceding);
+        DomNode previous = preceding.previousInPreOrder();
+        DomNode next = null;
+        for (DomNode n = node; n != null; n = n.parent_) {
+            if (n.nextSibling_ != null) {
+                next = n.nextSibling_;
+                break;
+            }
+        }
+
+        double threshold = 1;
+        for (int i = 1; i < Long.SIZE - 1; i++) {
+            final long size = 1L << i;
+            final long low = preceding.orderLabel_ & -size;
+            final long high = low + size - 1;
+            while (previous != null && previous.orderLabel_ >= low) {
+                before.add(previous);
+                previous = previous.previousInPreOrder();
+            }
+            while (next != null && next.orderLabel_ <= high) {
+                after.add(next);
+                next = next.nextInPreOrder(null);
+            }
+
+            threshold *= 2 / 1.5;
+            final int total = before.size() + count + after.size();
+            if (total < threshold) {
+                final long step = size / (total + 1);
+                long label = low;
+                for (int j = before.size() - 1; j >= 0; j--) {
+                    label += step;
+                    before.get(j).orderLabel_ = label;
+                }
+                for (DomNode n = node; n != null; n = n.nextInPreOrder(node)) {
+                    label += step;
+                    n.orderLabel_ = label;
+                }
+                for (final DomNode n : after) {
+                    label += step;
+                    n.orderLabel_ = label;
+                }
+                return;
+            }
+        }
+
+        // more nodes than labels; should never happen
+        DomNode root = node;
+        while (root.parent_ != null) {
+            root = root.parent_;
+        }
+        long label = 0;
+        for (DomNode n = root; n != null; n = n.nextInPreOrder(root)) {
+            n.orderLabel_ = label;
+            label += ORDER_LABEL_GAP;
+        }
+    }
+
+    /**
+     * Returns the node preceding this one in pre-order (the parent or the last descendant
+     * of the previous sibling).
+     * @return the previous node or {@code null} for the root
+     */
+    private DomNode previousInPreOrder() {
+        DomNode previous = getPreviousSibling();
+        if (previous == null) {
+            return parent_;
+        }
+        while (previous.firstChild_ != null) {
+            previous = previous.getLastChild();
+        }
+        return previous;
+    }
+
+    /**
+     * Returns the node following this one in pre-order, without leaving the given subtree.
+     * @param subtreeRoot the root of the subtree
+     * @return the next node or {@code null}
+     */
+    private DomNode nextInPreOrder(final DomNode subtreeRoot) {
+        if (firstChild_ != null) {
+            return firstChild_;
+        }
+        for (DomNode n = this; n != null && n != subtreeRoot; n = n.parent_) {
+            if (n.nextSibling_ != null) {
+                return n.nextSibling_;
+            }
+        }
+        return null;
     }
 
     private void fireAddition(final DomNode domNode) {
@@ -1176,6 +1427,10 @@ public abstract class DomNode implements Cloneable, Serializable, Node {
      * Cuts off all relationships this node has with siblings and parents.
      */
     protected void basicRemove() {
+        if (parent_ != null) {
+            parent_.childrenVersion_++;
+        }
+        incrementDomChangeVersion(parent_);
         if (parent_ != null && parent_.firstChild_ == this) {
             parent_.firstChild_ = nextSibling_;
         }
@@ -1257,11 +1512,26 @@ public abstract class DomNode implements Cloneable, Serializable, Node {
         if (destination.getPage() != getPage()) {
             throw new RuntimeException("Cannot perform quiet move on nodes from different pages.");
         }
+
+        // the indexes of the page depend on the document position, update them around the move
+        final HtmlPage htmlPage = getHtmlPageOrNull();
+        if (htmlPage != null && this instanceof DomElement) {
+            htmlPage.removeIndexedElement((DomElement) this);
+        }
+
         for (final DomNode child : getChildren()) {
             child.basicRemove();
             destination.basicAppend(child);
         }
         basicRemove();
+
+        if (htmlPage != null) {
+            for (DomNode child = destination.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (child instanceof DomElement) {
+                    htmlPage.addIndexedElement((DomElement) child);
+                }
+            }
+        }
     }
 
     /**
@@ -1855,7 +2125,7 @@ public abstract class DomNode implements Cloneable, Serializable, Node {
 
             final List<DomNode> elements = new ArrayList<>();
             if (selectorList != null) {
-                for (final DomElement child : getDomElementDescendants()) {
+                for (final DomElement child : getSelectorCandidates(selectorList)) {
                     for (final Selector selector : selectorList) {
                         if (CSSStyleSheet.selects(browserVersion, selector, child, null, true)) {
                             elements.add(child);
@@ -1871,6 +2141,30 @@ public abstract class DomNode implements Cloneable, Serializable, Node {
         }
     }
 
+    /**
+     * Returns the elements to check against the selectors. If there is only one selector and
+     * its subject has a type (e.g. {@code div > p}), only the elements of this type are returned,
+     * taken from the tag name index of the page.
+     * @param selectorList the selectors
+     * @return the elements
+     */
+    private Iterable<DomElement> getSelectorCandidates(final SelectorList selectorList) {
+        final SgmlPage page = getPage();
+        if (selectorList.size() == 1 && page instanceof HtmlPage) {
+            final SimpleSelector simpleSelector = selectorList.get(0).getSimpleSelector();
+            if (SelectorType.ELEMENT_NODE_SELECTOR == simpleSelector.getSelectorType()) {
+                final String name = ((ElementSelector) simpleSelector).getLocalNameLowerCase();
+                if (name != null && !"*".equals(name)) {
+                    final List<DomElement> elements = ((HtmlPage) page).getIndexedElementsByTagName(this, name);
+                    if (elements != null) {
+                        return elements;
+                    }
+                }
+            }
+        }
+        return getDomElementDescendants();
+    }
+
     /**
      * Returns the {@link SelectorList}.
      * @param selectors the selectors
@@ -1953,7 +2247,7 @@ public abstract class DomNode implements Cloneable, Serializable, Node {
         return getPage().getWebClient().getBrowserVersion().hasFeature(feature);
     }
 
-    private static final class CheckErrorHandler implements CSSErrorHandler {
+    static final class CheckErrorHandler implements CSSErrorHandler {
         private boolean errorDetected_;
 
         protected CheckErrorHandler() {
@@ -0,0 +1,934 @@
+/*
+ * Copyright (c) 2002-2020 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.html;
+
+import static com.gargoylesoftware.htmlunit.html.DomElement.ATTRIBUTE_NOT_DEFINED;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Serializable;
+import java.io.StringWriter;
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.w3c.dom.Node;
+
+import com.gargoylesoftware.css.parser.CSSException;
+import com.gargoylesoftware.css.parser.CSSOMParser;
+import com.gargoylesoftware.css.parser.condition.Condition;
+import com.gargoylesoftware.css.parser.javacc.CSS3Parser;
+import com.gargoylesoftware.css.parser.selector.ChildSelector;
+import com.gargoylesoftware.css.parser.selector.DescendantSelector;
+import com.gargoylesoftware.css.parser.selector.DirectAdjacentSelector;
+import com.gargoylesoftware.css.parser.selector.ElementSelector;
+import com.gargoylesoftware.css.parser.selector.GeneralAdjacentSelector;
+import com.gargoylesoftware.css.parser.selector.Selector;
+import com.gargoylesoftware.css.parser.selector.SelectorList;
+
+/**
+ * A read-only, compact copy of the DOM tree of a page, see {@link HtmlPage#snapshot()}.
+ *
+ * <p>Instead of one {@link DomNode} per node (with its parent and sibling references, listeners,
+ * JavaScript wrapper...) the snapshot keeps the nodes in document order in a few flat arrays
+ * (node type, parent, end of the subtree, name, value and attributes) sharing one string table.
+ * This makes it a cheap way to keep many pages for diffing or later extraction; it supports
+ * {@link #querySelectorAll(String)}, {@link #asXml()} and {@link #asText()} without the page.</p>
+ *
+ * <p>The nodes are addressed by their index, {@link SnapshotNode} is a lightweight view of one of them.</p>
+ *
+ * @author agent (agent@local)
+ */
+public final class DomSnapshot implements Serializable {
+
+    private static final String INDENT_MARKER = "\u0000";
+
+    /** Whether the (element) classes do their own XML serialization. */
+    private static final Map<Class<?>, Boolean> CUSTOM_XML_CLASSES = new ConcurrentHashMap<>();
+
+    private final String url_;
+    private final String charset_;
+    private final String text_;
+    private final boolean caseSensitive_;
+    private final int htmlElement_;
+
+    private final String[] strings_;
+    private final byte[] types_;
+    private final int[] parents_;
+    private final int[] ends_;
+    private final int[] names_;
+    private final int[] values_;
+    private final int[] attributeStarts_;
+    private final int[] attributeNames_;
+    private final int[] attributeValues_;
+
+    /** The XML of the nodes not serialized the default way, indented with {@link #INDENT_MARKER}. */
+    private final Map<Integer, String> customXml_;
+    /** The opening tag content of the elements not serialized as their attributes. */
+    private final Map<Integer, String> customOpeningTags_;
+    /** The elements serialized with a closing tag even without children. */
+    private final BitSet expandedTags_;
+
+    /**
+     * Creates the snapshot of the current state of the given page.
+     * @param page the page
+     */
+    DomSnapshot(final HtmlPage page) {
+        final Charset charset = page.getCharset();
+        url_ = page.getUrl().toExternalForm();
+        charset_ = charset == null ? null : charset.name();
+        text_ = page.asText();
+        caseSensitive_ = page.hasCaseSensitiveTagNames();
+
+        final Builder builder = new Builder();
+        builder.add(page, -1);
+        final int size = builder.size_;
+
+        htmlElement_ = builder.htmlElement_;
+        strings_ = builder.strings_.toArray(new String[builder.strings_.size()]);
+        types_ = Arrays.copyOf(builder.types_, size);
+        parents_ = Arrays.copyOf(builder.parents_, size);
+        ends_ = Arrays.copyOf(builder.ends_, size);
+        names_ = Arrays.copyOf(builder.names_, size);
+        values_ = Arrays.copyOf(builder.values_, size);
+        attributeStarts_ = Arrays.copyOf(builder.attributeStarts_, size + 1);
+        attributeStarts_[size] = builder.attributeSize_;
+        attributeNames_ = Arrays.copyOf(builder.attributeNames_, builder.attributeSize_);
+        attributeValues_ = Arrays.copyOf(builder.attributeValues_, builder.attributeSize_);
+        customXml_ = builder.customXml_;
+        customOpeningTags_ = builder.customOpeningTags_;
+        expandedTags_ = builder.expandedTags_;
+    }
+
+    /**
+     * @return the URL of the page
+     */
+    public String getUrl() {
+        return url_;
+    }
+
+    /**
+     * @return the number of nodes
+     */
+    public int getNodeCount() {
+        return types_.length;
+    }
+
+    /**
+     * @return the document node
+     */
+    public SnapshotNode getDocument() {
+        return new SnapshotNode(this, 0);
+    }
+
+    /**
+     * @return the document element, or {@code null} if there is none
+     */
+    public SnapshotNode getDocumentElement() {
+        final int index = getDocumentElementIndex();
+        if (index == -1) {
+            return null;
+        }
+        return new SnapshotNode(this, index);
+    }
+
+    /**
+     * Returns the first element with the specified id.
+     * @param id the id
+     * @return the element, or {@code null} if there is none
+     */
+    public SnapshotNode getElementById(final String id) {
+        for (int i = 0; i < types_.length; i++) {
+            if (types_[i] == Node.ELEMENT_NODE && id.equals(getAttribute(i, "id"))) {
+                return new SnapshotNode(this, i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the elements matching the specified selectors, like {@link DomNode#querySelectorAll(String)}.
+     * Only the selectors and conditions not depending on the state of the page are supported,
+     * for the others (e.g. {@code :checked}) a {@link CSSException} is thrown.
+     * @param selectors one or more CSS selectors separated by commas
+     * @return the matching elements
+     */
+    public List<SnapshotNode> querySelectorAll(final String selectors) {
+        return querySelectorAll(0, selectors);
+    }
+
+    /**
+     * Returns the XML representation of the page, like {@link HtmlPage#asXml()}.
+     * @return the XML
+     */
+    public String asXml() {
+        return asXml(0);
+    }
+
+    /**
+     * Returns the text of the page, like {@link HtmlPage#asText()} at the time the snapshot was taken.
+     * @return the text
+     */
+    public String asText() {
+        return text_;
+    }
+
+    private int getDocumentElementIndex() {
+        for (int i = 1; i < ends_[0]; i = ends_[i]) {
+            if (types_[i] == Node.ELEMENT_NODE) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private String getString(final int index) {
+        if (index == -1) {
+            return null;
+        }
+        return strings_[index];
+    }
+
+    private boolean isElement(final int index) {
+        return index >= 0 && types_[index] == Node.ELEMENT_NODE;
+    }
+
+    private String getAttribute(final int index, final String name) {
+        for (int i = attributeStarts_[index]; i < attributeStarts_[index + 1]; i++) {
+            final String attributeName = strings_[attributeNames_[i]];
+            if (caseSensitive_ ? attributeName.equals(name) : attributeName.equalsIgnoreCase(name)) {
+                return strings_[attributeValues_[i]];
+            }
+        }
+        return ATTRIBUTE_NOT_DEFINED;
+    }
+
+    private String getLocalName(final int index) {
+        final String name = strings_[names_[index]];
+        final int colon = name.indexOf(':');
+        if (colon == -1) {
+            return name;
+        }
+        return name.substring(colon + 1);
+    }
+
+    private String getTextContent(final int index) {
+        final short type = types_[index];
+        if (type == Node.ELEMENT_NODE || type == Node.DOCUMENT_FRAGMENT_NODE) {
+            final StringBuilder builder = new StringBuilder();
+            for (int i = index + 1; i < ends_[index]; i++) {
+                if (types_[i] == Node.TEXT_NODE || types_[i] == Node.CDATA_SECTION_NODE) {
+                    builder.append(strings_[values_[i]]);
+                }
+            }
+            return builder.toString();
+        }
+        return getString(values_[index]);
+    }
+
+    private String asXml(final int node) {
+        int index = node;
+        if (types_[index] == Node.DOCUMENT_NODE) {
+            index = getDocumentElementIndex();
+            if (index == -1) {
+                return "";
+            }
+        }
+
+        final StringBuilder builder = new StringBuilder();
+        if (charset_ != null && index == htmlElement_) {
+            builder.append("<?xml version=\"1.0\" encoding=\"").append(charset_).append("\"?>\r\n");
+        }
+        printXml(index, "", builder);
+        return builder.toString();
+    }
+
+    /**
+     * Writes the XML like {@link DomNode#printXml(String, PrintWriter)} and its overrides.
+     */
+    private void printXml(final int index, final String indent, final StringBuilder builder) {
+        final String customXml = customXml_.get(index);
+        if (customXml != null) {
+            builder.append(StringUtils.replace(customXml, INDENT_MARKER, indent));
+            return;
+        }
+
+        switch (types_[index]) {
+            case Node.ELEMENT_NODE:
+                builder.append(indent).append('<');
+                final String openingTag = customOpeningTags_.get(index);
+                if (openingTag == null) {
+                    appendDefaultOpeningTag(index, builder);
+                }
+                else {
+                    builder.append(openingTag);
+                }
+
+                if (ends_[index] > index + 1 || expandedTags_.get(index)) {
+                    builder.append(">\r\n");
+                    printChildrenXml(index, indent, builder);
+                    builder.append(indent).append("</").append(strings_[names_[index]]).append(">\r\n");
+                }
+                else {
+                    builder.append("/>\r\n");
+                }
+                break;
+
+            case Node.TEXT_NODE:
+                final String data = strings_[values_[index]];
+                if (StringUtils.isNotBlank(data)) {
+                    builder.append(indent)
+                        .append(com.gargoylesoftware.htmlunit.util.StringUtils.escapeXmlChars(data))
+                        .append("\r\n");
+                }
+                break;
+
+            case Node.COMMENT_NODE:
+                builder.append(indent).append("<!--").append(strings_[values_[index]]).append("-->");
+                break;
+
+            default:
+                printChildrenXml(index, indent, builder);
+        }
+    }
+
+    private void printChildrenXml(final int index, final String indent, final StringBuilder builder) {
+        final String childIndent = indent + "  ";
+        for (int child = index + 1; child < ends_[index]; child = ends_[child]) {
+            printXml(child, childIndent, builder);
+        }
+    }
+
+    /**
+     * Appends the opening tag content like {@link DomElement#printOpeningTagContentAsXml(PrintWriter)}.
+     */
+    private void appendDefaultOpeningTag(final int index, final StringBuilder builder) {
+        builder.append(strings_[names_[index]]);
+        for (int i = attributeStarts_[index]; i < attributeStarts_[index + 1]; i++) {
+            builder.append(' ')
+                .append(strings_[attributeNames_[i]])
+                .append("=\"")
+                .append(com.gargoylesoftware.htmlunit.util.StringUtils.escapeXmlAttributeValue(
+                        strings_[attributeValues_[i]]))
+                .append('"');
+        }
+    }
+
+    private List<SnapshotNode> querySelectorAll(final int root, final String selectors) {
+        final SelectorList selectorList = parseSelectors(selectors);
+
+        final List<SnapshotNode> elements = new ArrayList<>();
+        for (int i = root + 1; i < ends_[root]; i++) {
+            if (types_[i] == Node.ELEMENT_NODE) {
+                for (final Selector selector : selectorList) {
+                    if (selects(selector, i)) {
+                        elements.add(new SnapshotNode(this, i));
+                        break;
+                    }
+                }
+            }
+        }
+        return elements;
+    }
+
+    private static SelectorList parseSelectors(final String selectors) {
+        final CSSOMParser parser = new CSSOMParser(new CSS3Parser());
+        final DomNode.CheckErrorHandler errorHandler = new DomNode.CheckErrorHandler();
+        parser.setErrorHandler(errorHandler);
+
+        final SelectorList selectorList;
+        try {
+            selectorList = parser.parseSelectors(selectors);
+        }
+        catch (final IOException e) {
+            throw new CSSException("Error parsing CSS selectors from '" + selectors + "': " + e.getMessage());
+        }
+        // in case of error parseSelectors returns null
+        if (errorHandler.errorDetected() || selectorList == null) {
+            throw new CSSException("Invalid selectors: " + selectors);
+        }
+
+        for (final Selector selector : selectorList) {
+            checkSupported(selector);
+        }
+        return selectorList;
+    }
+
+    private static void checkSupported(final Selector selector) {
+        switch (selector.getSelectorType()) {
+            case ELEMENT_NODE_SELECTOR:
+                final List<Condition> conditions = ((ElementSelector) selector).getConditions();
+                if (conditions != null) {
+                    for (final Condition condition : conditions) {
+                        checkSupported(condition);
+                    }
+                }
+                return;
+
+            case CHILD_SELECTOR:
+                checkSupported(((ChildSelector) selector).getAncestorSelector());
+                checkSupported(((ChildSelector) selector).getSimpleSelector());
+                return;
+
+            case DESCENDANT_SELECTOR:
+                checkSupported(((DescendantSelector) selector).getAncestorSelector());
+                checkSupported(((DescendantSelector) selector).getSimpleSelector());
+                return;
+
+            case DIRECT_ADJACENT_SELECTOR:
+                checkSupported(((DirectAdjacentSelector) selector).getSelector());
+                checkSupported(((DirectAdjacentSelector) selector).getSimpleSelector());
+                return;
+
+            case GENERAL_ADJACENT_SELECTOR:
+                checkSupported(((GeneralAdjacentSelector) selector).getSelector());
+                checkSupported(((GeneralAdjacentSelector) selector).getSimpleSelector());
+                return;
+
+            default:
+                throw new CSSException("Selector '" + selector + "' is not supported by snapshots.");
+        }
+    }
+
+    private static void checkSupported(final Condition condition) {
+        if (condition.getConditionType() == Condition.ConditionType.PSEUDO_CLASS_CONDITION) {
+            switch (condition.getValue()) {
+                case "root":
+                case "first-child":
+                case "last-child":
+                case "only-child":
+                case "first-of-type":
+                case "last-of-type":
+                case "only-of-type":
+                case "empty":
+                    return;
+
+                default:
+                    throw new CSSException("Pseudo class ':" + condition.getValue()
+                            + "' is not supported by snapshots.");
+            }
+        }
+    }
+
+    /**
+     * Returns whether the selector selects the element, like
+     * {@link com.gargoylesoftware.htmlunit.javascript.host.css.CSSStyleSheet#selects}.
+     */
+    private boolean selects(final Selector selector, final int element) {
+        switch (selector.getSelectorType()) {
+            case ELEMENT_NODE_SELECTOR:
+                final ElementSelector es = (ElementSelector) selector;
+                final String name = es.getLocalNameLowerCase();
+                if (name != null && !name.equalsIgnoreCase(getLocalName(element))) {
+                    return false;
+                }
+                final List<Condition> conditions = es.getConditions();
+                if (conditions != null) {
+                    for (final Condition condition : conditions) {
+                        if (!selects(condition, element)) {
+                            return false;
+                        }
+                    }
+                }
+                return true;
+
+            case CHILD_SELECTOR:
+                final ChildSelector cs = (ChildSelector) selector;
+                final int parent = parents_[element];
+                return isElement(parent)
+                        && selects(cs.getSimpleSelector(), element)
+                        && selects(cs.getAncestorSelector(), parent);
+
+            case DESCENDANT_SELECTOR:
+                final DescendantSelector ds = (DescendantSelector) selector;
+                if (selects(ds.getSimpleSelector(), element)) {
+                    for (int ancestor = parents_[element]; isElement(ancestor); ancestor = parents_[ancestor]) {
+                        if (selects(ds.getAncestorSelector(), ancestor)) {
+                            return true;
+                        }
+                    }
+                }
+                return false;
+
+            case DIRECT_ADJACENT_SELECTOR:
+                final DirectAdjacentSelector das = (DirectAdjacentSelector) selector;
+                if (selects(das.getSimpleSelector(), element)) {
+                    int previous = -1;
+                    for (int sibling = parents_[element] + 1; sibling < element; sibling = ends_[sibling]) {
+                        if (types_[sibling] == Node.ELEMENT_NODE) {
+                            previous = sibling;
+                        }
+                    }
+                    return previous != -1 && selects(das.getSelector(), previous);
+                }
+                return false;
+
+            case GENERAL_ADJACENT_SELECTOR:
+                final GeneralAdjacentSelector gas = (GeneralAdjacentSelector) selector;
+                if (selects(gas.getSimpleSelector(), element)) {
+                    for (int sibling = parents_[element] + 1; sibling < element; sibling = ends_[sibling]) {
+                        if (types_[sibling] == Node.ELEMENT_NODE && selects(gas.getSelector(), sibling)) {
+                            return true;
+                        }
+                    }
+                }
+                return false;
+
+            default:
+                return false;
+        }
+    }
+
+    private boolean selects(final Condition condition, final int element) {
+        final String value = condition.getValue();
+        switch (condition.getConditionType()) {
+            case ID_CONDITION:
+                return value.equals(getAttribute(element, "id"));
+
+            case CLASS_CONDITION:
+                return containsWord(getAttribute(element, "class"), value);
+
+            case ATTRIBUTE_CONDITION:
+                final String attribute = getAttribute(element, condition.getLocalName());
+                if (value != null) {
+                    return ATTRIBUTE_NOT_DEFINED != attribute && attribute.equals(value);
+                }
+                return ATTRIBUTE_NOT_DEFINED != attribute;
+
+            case PREFIX_ATTRIBUTE_CONDITION:
+                return !value.isEmpty() && getAttribute(element, condition.getLocalName()).startsWith(value);
+
+            case SUFFIX_ATTRIBUTE_CONDITION:
+                return !value.isEmpty() && getAttribute(element, condition.getLocalName()).endsWith(value);
+
+            case SUBSTRING_ATTRIBUTE_CONDITION:
+                return !value.isEmpty() && getAttribute(element, condition.getLocalName()).contains(value);
+
+            case BEGIN_HYPHEN_ATTRIBUTE_CONDITION:
+                final String hyphenAttribute = getAttribute(element, condition.getLocalName());
+                return !value.isEmpty()
+                        && (hyphenAttribute.equals(value) || hyphenAttribute.startsWith(value + "-"));
+
+            case ONE_OF_ATTRIBUTE_CONDITION:
+                return containsWord(getAttribute(element, condition.getLocalName()), value);
+
+            case LANG_CONDITION:
+                for (int node = element; isElement(node); node = parents_[node]) {
+                    final String lang = getAttribute(node, "lang");
+                    if (ATTRIBUTE_NOT_DEFINED != lang) {
+                        // "en", "en-GB" should be matched by "en" but not "english"
+                        return lang.startsWith(value)
+                            && (lang.length() == value.length() || '-' == lang.charAt(value.length()));
+                    }
+                }
+                return false;
+
+            case PSEUDO_CLASS_CONDITION:
+                return selectsPseudoClass(value, element);
+
+            default:
+                return false;
+        }
+    }
+
+    private boolean selectsPseudoClass(final String pseudoClass, final int element) {
+        switch (pseudoClass) {
+            case "root":
+                return element == getDocumentElementIndex();
+
+            case "first-child":
+                return countSiblings(element, null, true, false) == 0;
+
+            case "last-child":
+                return countSiblings(element, null, false, true) == 0;
+
+            case "only-child":
+                return countSiblings(element, null, true, true) == 0;
+
+            case "first-of-type":
+                return countSiblings(element, strings_[names_[element]], true, false) == 0;
+
+            case "last-of-type":
+                return countSiblings(element, strings_[names_[element]], false, true) == 0;
+
+            case "only-of-type":
+                return countSiblings(element, strings_[names_[element]], true, true) == 0;
+
+            case "empty":
+                for (int child = element + 1; child < ends_[element]; child = ends_[child]) {
+                    if (types_[child] == Node.ELEMENT_NODE || types_[child] == Node.TEXT_NODE) {
+                        return false;
+                    }
+                }
+                return true;
+
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Counts the element siblings (with the given name, if any) before and/or after the element.
+     */
+    private int countSiblings(final int element, final String name, final boolean before, final boolean after) {
+        final int parent = parents_[element];
+        if (parent == -1) {
+            return 0;
+        }
+
+        int count = 0;
+        for (int sibling = parent + 1; sibling < ends_[parent]; sibling = ends_[sibling]) {
+            if (sibling != element
+                    && (sibling < element ? before : after)
+                    && types_[sibling] == Node.ELEMENT_NODE
+                    && (name == null || name.equals(strings_[names_[sibling]]))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean containsWord(final String words, final String word) {
+        if (word.isEmpty()) {
+            return false;
+        }
+
+        int pos = words.indexOf(word);
+        while (pos != -1) {
+            final int end = pos + word.length();
+            if ((pos == 0 || Character.isWhitespace(words.charAt(pos - 1)))
+                    && (end == words.length() || Character.isWhitespace(words.charAt(end)))) {
+                return true;
+            }
+            pos = words.indexOf(word, pos + 1);
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the class (below {@link DomElement}) overrides the XML serialization
+     * of the element or of its children.
+     */
+    static boolean hasCustomXml(final Class<?> elementClass) {
+        Boolean custom = CUSTOM_XML_CLASSES.get(elementClass);
+        if (custom == null) {
+            custom = Boolean.FALSE;
+            for (Class<?> c = elementClass; c != null && c != DomElement.class; c = c.getSuperclass()) {
+                for (final Method method : c.getDeclaredMethods()) {
+                    final String name = method.getName();
+                    if ("printXml".equals(name) || "printChildrenAsXml".equals(name)) {
+                        custom = Boolean.TRUE;
+                    }
+                }
+            }
+            CUSTOM_XML_CLASSES.put(elementClass, custom);
+        }
+        return custom.booleanValue();
+    }
+
+    /**
+     * A read-only view of one node of a {@link DomSnapshot}.
+     */
+    public static final class SnapshotNode {
+        private final DomSnapshot snapshot_;
+        private final int index_;
+
+        SnapshotNode(final DomSnapshot snapshot, final int index) {
+            snapshot_ = snapshot;
+            index_ = index;
+        }
+
+        /**
+         * @return the snapshot this node belongs to
+         */
+        public DomSnapshot getSnapshot() {
+            return snapshot_;
+        }
+
+        /**
+         * @return the position of this node in document order
+         */
+        public int getIndex() {
+            return index_;
+        }
+
+        /**
+         * @return the node type as defined by {@link org.w3c.dom.Node}
+         */
+        public short getNodeType() {
+            return snapshot_.types_[index_];
+        }
+
+        /**
+         * @return the node name, like {@link DomNode#getNodeName()}
+         */
+        public String getNodeName() {
+            return snapshot_.getString(snapshot_.names_[index_]);
+        }
+
+        /**
+         * @return the node value, like {@link DomNode#getNodeValue()}
+         */
+        public String getNodeValue() {
+            return snapshot_.getString(snapshot_.values_[index_]);
+        }
+
+        /**
+         * Returns the value of the specified attribute.
+         * @param name the attribute name
+         * @return the value, or {@link DomElement#ATTRIBUTE_NOT_DEFINED} if the attribute is not defined
+         */
+        public String getAttribute(final String name) {
+            return snapshot_.getAttribute(index_, name);
+        }
+
+        /**
+         * Returns whether the specified attribute is defined.
+         * @param name the attribute name
+         * @return {@code true} if the attribute is defined
+         */
+        public boolean hasAttribute(final String name) {
+            return ATTRIBUTE_NOT_DEFINED != snapshot_.getAttribute(index_, name);
+        }
+
+        /**
+         * @return the attributes (names and values) in document order
+         */
+        public Map<String, String> getAttributes() {
+            final Map<String, String> attributes = new LinkedHashMap<>();
+            final int[] starts = snapshot_.attributeStarts_;
+            for (int i = starts[index_]; i < starts[index_ + 1]; i++) {
+                attributes.put(snapshot_.strings_[snapshot_.attributeNames_[i]],
+                        snapshot_.strings_[snapshot_.attributeValues_[i]]);
+            }
+            return attributes;
+        }
+
+        /**
+         * @return the parent node, or {@code null} for the document
+         */
+        public SnapshotNode getParent() {
+            final int parent = snapshot_.parents_[index_];
+            if (parent == -1) {
+                return null;
+            }
+            return new SnapshotNode(snapshot_, parent);
+        }
+
+        /**
+         * @return the child nodes
+         */
+        public List<SnapshotNode> getChildren() {
+            final int[] ends = snapshot_.ends_;
+            if (ends[index_] == index_ + 1) {
+                return Collections.emptyList();
+            }
+
+            final List<SnapshotNode> children = new ArrayList<>();
+            for (int child = index_ + 1; child < ends[index_]; child = ends[child]) {
+                children.add(new SnapshotNode(snapshot_, child));
+            }
+            return children;
+        }
+
+        /**
+         * @return the text content, like {@link DomNode#getTextContent()}
+         */
+        public String getTextContent() {
+            return snapshot_.getTextContent(index_);
+        }
+
+        /**
+         * Returns the elements below this node matching the specified selectors.
+         * @param selectors one or more CSS selectors separated by commas
+         * @return the matching elements
+         * @see DomSnapshot#querySelectorAll(String)
+         */
+        public List<SnapshotNode> querySelectorAll(final String selectors) {
+            return snapshot_.querySelectorAll(index_, selectors);
+        }
+
+        /**
+         * @return the XML representation of this node, like {@link DomNode#asXml()}
+         */
+        public String asXml() {
+            return snapshot_.asXml(index_);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof SnapshotNode)) {
+                return false;
+            }
+            final SnapshotNode other = (SnapshotNode) obj;
+            return snapshot_ == other.snapshot_ && index_ == other.index_;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+            return index_;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return "SnapshotNode[" + index_ + ": " + getNodeName() + "]";
+        }
+    }
+
+    /**
+     * Collects the nodes of the page into the growing arrays.
+     */
+    private static final class Builder {
+        private final Map<String, Integer> stringIndexes_ = new HashMap<>();
+        private final List<String> strings_ = new ArrayList<>();
+
+        private int size_;
+        private byte[] types_ = new byte[256];
+        private int[] parents_ = new int[256];
+        private int[] ends_ = new int[256];
+        private int[] names_ = new int[256];
+        private int[] values_ = new int[256];
+        private int[] attributeStarts_ = new int[257];
+
+        private int attributeSize_;
+        private int[] attributeNames_ = new int[256];
+        private int[] attributeValues_ = new int[256];
+
+        private final Map<Integer, String> customXml_ = new HashMap<>();
+        private final Map<Integer, String> customOpeningTags_ = new HashMap<>();
+        private final BitSet expandedTags_ = new BitSet();
+        private int htmlElement_ = -1;
+
+        void add(final DomNode node, final int parent) {
+            if (size_ == types_.length) {
+                final int length = size_ * 2;
+                types_ = Arrays.copyOf(types_, length);
+                parents_ = Arrays.copyOf(parents_, length);
+                ends_ = Arrays.copyOf(ends_, length);
+                names_ = Arrays.copyOf(names_, length);
+                values_ = Arrays.copyOf(values_, length);
+                attributeStarts_ = Arrays.copyOf(attributeStarts_, length + 1);
+            }
+
+            final int index = size_++;
+            final short type = node.getNodeType();
+            types_[index] = (byte) type;
+            parents_[index] = parent;
+            names_[index] = indexOf(node.getNodeName());
+            values_[index] = indexOf(node.getNodeValue());
+            attributeStarts_[index] = attributeSize_;
+
+            if (type == Node.ELEMENT_NODE) {
+                addElement((DomElement) node, index);
+            }
+            else if (type == Node.TEXT_NODE) {
+                if (node.getParentNode() instanceof HtmlStyle) {
+                    customXml_.put(index, toXml(node));
+                }
+            }
+            else if (type != Node.COMMENT_NODE && type != Node.DOCUMENT_NODE) {
+                customXml_.put(index, toXml(node));
+            }
+
+            for (DomNode child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+                add(child, index);
+            }
+            ends_[index] = size_;
+        }
+
+        private void addElement(final DomElement element, final int index) {
+            if (element instanceof HtmlHtml) {
+                htmlElement_ = index;
+            }
+
+            final StringBuilder defaultOpeningTag = new StringBuilder(element.getTagName());
+            for (final Map.Entry<String, DomAttr> entry : element.getAttributesMap().entrySet()) {
+                final String name = entry.getKey();
+                final String value = entry.getValue().getValue();
+                addAttribute(indexOf(name), indexOf(value));
+
+                defaultOpeningTag.append(' ').append(name).append("=\"")
+                    .append(com.gargoylesoftware.htmlunit.util.StringUtils.escapeXmlAttributeValue(value))
+                    .append('"');
+            }
+
+            if (hasCustomXml(element.getClass())) {
+                customXml_.put(index, toXml(element));
+                return;
+            }
+
+            final StringWriter stringWriter = new StringWriter();
+            try (PrintWriter printWriter = new PrintWriter(stringWriter)) {
+                element.printOpeningTagContentAsXml(printWriter);
+            }
+            final String openingTag = stringWriter.toString();
+            if (!openingTag.contentEquals(defaultOpeningTag)) {
+                customOpeningTags_.put(index, openingTag);
+            }
+            if (element.isEmptyXmlTagExpanded()) {
+                expandedTags_.set(index);
+            }
+        }
+
+        private void addAttribute(final int name, final int value) {
+            if (attributeSize_ == attributeNames_.length) {
+                attributeNames_ = Arrays.copyOf(attributeNames_, attributeSize_ * 2);
+                attributeValues_ = Arrays.copyOf(attributeValues_, attributeSize_ * 2);
+            }
+            attributeNames_[attributeSize_] = name;
+            attributeValues_[attributeSize_] = value;
+            attributeSize_++;
+        }
+
+        private int indexOf(final String string) {
+            if (string == null) {
+                return -1;
+            }
+            Integer index = stringIndexes_.get(string);
+            if (index == null) {
+                index = strings_.size();
+                strings_.add(string);
+                stringIndexes_.put(string, index);
+            }
+            return index;
+        }
+
+        private static String toXml(final DomNode node) {
+            final StringWriter stringWriter = new StringWriter();
+            try (PrintWriter printWriter = new PrintWriter(stringWriter)) {
+                node.printXml(INDENT_MARKER, printWriter);
+            }
+            return stringWriter.toString();
+        }
+    }
+}
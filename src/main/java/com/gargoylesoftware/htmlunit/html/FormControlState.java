@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2002-2020 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.html;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+ *
+ * The values entered into the form controls of a page (text fields, text areas, check boxes,
+ * radio buttons and selects), used to restore them when the page is loaded again from the history.
+ * Like browsers, password and file fields are not kept. Restoring the values doesn't fire any event.
+ *
+ * @author agent (agent@local)
+ */
+public final class FormControlState implements Serializable {
+
+    private final List<String> values_;
+
+    private FormControlState(final List<String> values) {
+        values_ = values;
+    }
+
+    /**
+     * Captures the current values of the form controls of the specified page.
+     * @param page the page
+     * @return the state
+     */
+    public static FormControlState capture(final HtmlPage page) {
+        final List<String> values = new ArrayList<>();
+        for (final HtmlElement control : getControls(page)) {
+            if (control instanceof HtmlCheckBoxInput || control instanceof HtmlRadioButtonInput) {
+                values.add(Boolean.toString(((HtmlInput) control).isChecked()));
+            }
+            else if (control instanceof HtmlInput) {
+                values.add(((HtmlInput) control).getValueAttribute());
+            }
+            else if (control instanceof HtmlTextArea) {
+                values.add(((HtmlTextArea) control).getText());
+            }
+            else {
+                final StringBuilder selected = new StringBuilder(",");
+                final List<HtmlOption> options = ((HtmlSelect) control).getOptions();
+                for (int i = 0; i < options.size(); i++) {
+                    if (options.get(i).isSelected()) {
+                        selected.append(i).append(',');
+                    }
+                }
+                values.add(selected.toString());
+            }
+        }
+        return new FormControlState(values);
+    }
+
+    /**
+     * Restores the captured values into the specified page. Nothing is done if the page
+     * doesn't have the same form controls (e.g. because they are created by scripts).
+     * @param page the page
+     */
+    public void restore(final HtmlPage page) {
+        final List<HtmlElement> controls = getControls(page);
+        if (controls.size() != values_.size()) {
+            return;
+        }
+
+        for (int i = 0; i < controls.size(); i++) {
+            final HtmlElement control = controls.get(i);
+            final String value = values_.get(i);
+            if (control instanceof HtmlCheckBoxInput) {
+                ((HtmlCheckBoxInput) control).setCheckedInternal(Boolean.parseBoolean(value));
+            }
+            else if (control instanceof HtmlRadioButtonInput) {
+                ((HtmlRadioButtonInput) control).setCheckedInternal(Boolean.parseBoolean(value));
+            }
+            else if (control instanceof HtmlInput) {
+                ((HtmlInput) control).setValueAttribute(value);
+            }
+            else if (control instanceof HtmlTextArea) {
+                ((HtmlTextArea) control).setTextInternal(value);
+            }
+            else {
+                final List<HtmlOption> options = ((HtmlSelect) control).getOptions();
+                for (int j = 0; j < options.size(); j++) {
+                    options.get(j).setSelectedInternal(value.contains("," + j + ","));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of form controls
+     */
+    public int size() {
+        return values_.size();
+    }
+
+    private static List<HtmlElement> getControls(final HtmlPage page) {
+        final List<HtmlElement> controls = new ArrayList<>();
+        for (final HtmlElement element : page.getHtmlElementDescendants()) {
+            if (element instanceof HtmlInput) {
+                if (!(element instanceof HtmlPasswordInput
+                        || element instanceof HtmlFileInput
+                        || element instanceof HtmlHiddenInput
+                        || element instanceof HtmlSubmitInput
+                        || element instanceof HtmlResetInput
+                        || element instanceof HtmlButtonInput
+                        || element instanceof HtmlImageInput)) {
+                    controls.add(element);
+                }
+            }
+            else if (element instanceof HtmlTextArea || element instanceof HtmlSelect) {
+                controls.add(element);
+            }
+        }
+        return controls;
+    }
+}
@@ -122,6 +122,10 @@ public class HtmlCheckBoxInput extends HtmlInput implements LabelableElement {
         return executeOnChangeHandlerIfAppropriate(this);
     }
 
+    void setCheckedInternal(final boolean isChecked) {
+        checkedState_ = isChecked;
+    }
+
     /**
      * A checkbox does not have a textual representation,
      * but we invent one for it because it is useful for testing.
@@ -547,7 +547,9 @@ public class HtmlImage extends HtmlElement {
                                                                     browser.getAcceptEncodingHeader());
                     request.setCharset(page.getCharset());
                     request.setAdditionalHeader(HttpHeader.REFERER, page.getUrl().toExternalForm());
+                    final long start = System.currentTimeMillis();
                     imageWebResponse_ = webClient.loadWebResponse(request);
+                    page.getTimeline().addResource("img", start, imageWebResponse_);
                 }
             }
 
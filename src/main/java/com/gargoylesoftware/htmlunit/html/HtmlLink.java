@@ -198,7 +198,11 @@ public class HtmlLink extends HtmlElement {
 
         if (downloadIfNeeded) {
             try {
+                final long start = System.currentTimeMillis();
                 final WebResponse response = webclient.loadWebResponse(request);
+                if (getPage() instanceof HtmlPage) {
+                    ((HtmlPage) getPage()).getTimeline().addResource("link", start, response);
+                }
                 final int statusCode = response.getStatusCode();
                 final boolean successful = statusCode >= HttpStatus.SC_OK
                                                 && statusCode < HttpStatus.SC_MULTIPLE_CHOICES;
@@ -69,6 +69,7 @@ import com.gargoylesoftware.htmlunit.History;
 import com.gargoylesoftware.htmlunit.HttpHeader;
 import com.gargoylesoftware.htmlunit.OnbeforeunloadHandler;
 import com.gargoylesoftware.htmlunit.Page;
+import com.gargoylesoftware.htmlunit.PageTimeline;
 import com.gargoylesoftware.htmlunit.ScriptResult;
 import com.gargoylesoftware.htmlunit.SgmlPage;
 import com.gargoylesoftware.htmlunit.TopLevelWindow;
@@ -161,6 +162,12 @@ public class HtmlPage extends SgmlPage {
             = Collections.synchronizedMap(new HashMap<String, SortedSet<DomElement>>());
     private Map<String, SortedSet<DomElement>> nameMap_
             = Collections.synchronizedMap(new HashMap<String, SortedSet<DomElement>>());
+    private Map<String, SortedSet<DomElement>> tagNameMap_
+            = Collections.synchronizedMap(new HashMap<String, SortedSet<DomElement>>());
+    private Map<String, SortedSet<DomElement>> classNameMap_
+            = Collections.synchronizedMap(new HashMap<String, SortedSet<DomElement>>());
+    private Map<DomElement, List<String>> indexedClassNames_
+            = Collections.synchronizedMap(new HashMap<DomElement, List<String>>());
 
     private SortedSet<BaseFrameElement> frameElements_ = new TreeSet<>(documentPositionComparator);
     private int parserCount_;
@@ -169,12 +176,14 @@ public class HtmlPage extends SgmlPage {
     private Collection<HtmlAttributeChangeListener> attributeListeners_;
     private List<PostponedAction> afterLoadActions_ = Collections.synchronizedList(new ArrayList<PostponedAction>());
     private boolean cleaning_;
+    private boolean unloadHandlersExecuted_;
     private HtmlBase base_;
     private URL baseUrl_;
     private List<AutoCloseable> autoCloseableList_;
     private ElementFromPointHandler elementFromPointHandler_;
     private DomElement elementWithFocus_;
     private List<Range> selectionRanges_ = new ArrayList<>(3);
+    private final PageTimeline timeline_;
 
     private static final List<String> TABBABLE_TAGS = Arrays.asList(HtmlAnchor.TAG_NAME, HtmlArea.TAG_NAME,
             HtmlButton.TAG_NAME, HtmlInput.TAG_NAME, HtmlObject.TAG_NAME, HtmlSelect.TAG_NAME, HtmlTextArea.TAG_NAME);
@@ -205,6 +214,7 @@ public class HtmlPage extends SgmlPage {
      */
     public HtmlPage(final WebResponse webResponse, final WebWindow webWindow) {
         super(webResponse, webWindow);
+        timeline_ = new PageTimeline(webResponse);
     }
 
     /**
@@ -251,12 +261,15 @@ public class HtmlPage extends SgmlPage {
             }
         }
 
+        timeline_.setDomInteractive(System.currentTimeMillis());
         if (!isAboutBlank) {
             setReadyState(READY_STATE_INTERACTIVE);
             getDocumentElement().setReadyState(READY_STATE_INTERACTIVE);
         }
 
+        timeline_.setDomContentLoadedEventStart(System.currentTimeMillis());
         executeEventHandlersIfNeeded(Event.TYPE_DOM_DOCUMENT_LOADED);
+        timeline_.setDomContentLoadedEventEnd(System.currentTimeMillis());
 
         loadFrames();
 
@@ -272,6 +285,7 @@ public class HtmlPage extends SgmlPage {
 
         executeDeferredScriptsIfNeeded();
         setReadyStateOnDeferredScriptsIfNeeded();
+        timeline_.setDomComplete(System.currentTimeMillis());
 
         // frame initialization has a different order
         boolean isFrameWindow = enclosingWindow instanceof FrameWindow;
@@ -288,6 +302,7 @@ public class HtmlPage extends SgmlPage {
             }
         }
 
+        timeline_.setLoadEventStart(System.currentTimeMillis());
         if (isFrameWindow && !isFirstPageInFrameWindow) {
             executeEventHandlersIfNeeded(Event.TYPE_LOAD);
         }
@@ -313,6 +328,8 @@ public class HtmlPage extends SgmlPage {
                 }
             }
         }
+        timeline_.setLoadEventEnd(System.currentTimeMillis());
+        getWebClient().firePageLoaded(this);
 
         try {
             while (!afterLoadActions_.isEmpty()) {
@@ -329,6 +346,14 @@ public class HtmlPage extends SgmlPage {
         executeRefreshIfNeeded();
     }
 
+    /**
+     * Returns the timeline of the load of this page: network timings, parsing, scripts and events.
+     * @return the timeline
+     */
+    public PageTimeline getTimeline() {
+        return timeline_;
+    }
+
     /**
      * Adds an action that should be executed once the page has been loaded.
      * @param action the action
@@ -348,7 +373,9 @@ public class HtmlPage extends SgmlPage {
         }
         cleaning_ = true;
         super.cleanUp();
-        executeEventHandlersIfNeeded(Event.TYPE_UNLOAD);
+        if (!unloadHandlersExecuted_) {
+            executeEventHandlersIfNeeded(Event.TYPE_UNLOAD);
+        }
         deregisterFramesIfNeeded();
         cleaning_ = false;
         if (autoCloseableList_ != null) {
@@ -363,6 +390,35 @@ public class HtmlPage extends SgmlPage {
         }
     }
 
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Executes the <tt>unload</tt> event handlers of this page and of its frames; a following
+     * {@link #cleanUp()} doesn't execute them again. Used by the fast close of the windows
+     * where the scripts have to run in the thread using the client and the rest of the clean up
+     * is done in the background.
+     */
+    public void executeUnloadHandlers() {
+        if (cleaning_ || unloadHandlersExecuted_) {
+            return;
+        }
+        cleaning_ = true;
+        try {
+            executeEventHandlersIfNeeded(Event.TYPE_UNLOAD);
+        }
+        finally {
+            cleaning_ = false;
+        }
+        unloadHandlersExecuted_ = true;
+
+        for (final FrameWindow frame : getFrames()) {
+            final Page page = frame.getEnclosedPage();
+            if (page != null && page.isHtmlPage()) {
+                ((HtmlPage) page).executeUnloadHandlers();
+            }
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -938,6 +994,17 @@ public class HtmlPage extends SgmlPage {
             if (sourceCode.startsWith("return ")) {
                 sourceCode = sourceCode.substring("return ".length());
             }
+
+            // the same javascript: urls are often used by many links, compile them only once
+            final AbstractJavaScriptEngine<?> engine = getWebClient().getJavaScriptEngine();
+            if (engine instanceof JavaScriptEngine) {
+                final JavaScriptEngine jsEngine = (JavaScriptEngine) engine;
+                final Script script = jsEngine.compileSnippet(this, sourceCode, sourceName, startLine);
+                if (script == null) { // happens with syntax error + throwExceptionOnScriptError = false
+                    return new ScriptResult(null);
+                }
+                return new ScriptResult(jsEngine.execute(this, script));
+            }
         }
 
         final Object result = getWebClient().getJavaScriptEngine().execute(this, sourceCode, sourceName, startLine);
@@ -1052,7 +1119,9 @@ public class HtmlPage extends SgmlPage {
         // our cache is a bit strange;
         // loadWebResponse check the cache for the web response
         // AND also fixes the request url for the following cache lookups
+        final long start = System.currentTimeMillis();
         final WebResponse response = client.loadWebResponse(request);
+        timeline_.addResource("script", start, response);
 
         // now we can look into the cache with the fixed request for
         // a cached script
@@ -1742,6 +1811,128 @@ public class HtmlPage extends SgmlPage {
         return list;
     }
 
+    /**
+     * Creates a read-only, compact copy of the current DOM tree of this page. The snapshot
+     * needs much less memory than the page and supports CSS selectors and the XML and text
+     * representations, see {@link DomSnapshot}.
+     * @return the snapshot
+     */
+    public DomSnapshot snapshot() {
+        return new DomSnapshot(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DomNodeList<DomElement> getElementsByTagName(final String tagName) {
+        // the index is case insensitive
+        if ("*".equals(tagName) || hasCaseSensitiveTagNames()) {
+            return super.getElementsByTagName(tagName);
+        }
+
+        final String tagNameLC = tagName.toLowerCase(Locale.ROOT);
+        return new AbstractDomNodeList<DomElement>(this) {
+            @Override
+            protected List<DomElement> provideElements() {
+                return getIndexedElementsByTagName(HtmlPage.this, tagNameLC);
+            }
+        };
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Returns the descendants of the specified node having the specified local name.
+     * The result is taken from the tag name index of this page instead of walking the tree.
+     *
+     * @param root the node to search in
+     * @param localNameLC the lower case local name
+     * @return the elements in document order or {@code null} if the node is not part of this page
+     */
+    public List<DomElement> getIndexedElementsByTagName(final DomNode root, final String localNameLC) {
+        return getIndexedElements(tagNameMap_, localNameLC, root);
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Returns the {@link HtmlElement} descendants of the specified node having the specified class name
+     * (one of the whitespace separated tokens of the class attribute).
+     * The result is taken from the class name index of this page instead of walking the tree.
+     *
+     * @param root the node to search in
+     * @param className the class name
+     * @return the elements in document order or {@code null} if the node is not part of this page
+     *         or the class name contains whitespace
+     */
+    public List<DomElement> getIndexedElementsByClassName(final DomNode root, final String className) {
+        for (int i = 0; i < className.length(); i++) {
+            if (Character.isWhitespace(className.charAt(i))) {
+                return null;
+            }
+        }
+        return getIndexedElements(classNameMap_, className, root);
+    }
+
+    private List<DomElement> getIndexedElements(final Map<String, SortedSet<DomElement>> map, final String key,
+            final DomNode root) {
+        if (root != this && !isAncestorOf(root)) {
+            return null;
+        }
+
+        final SortedSet<DomElement> elements = map.get(key);
+        if (elements == null) {
+            return new ArrayList<>();
+        }
+        if (root == this) {
+            return new ArrayList<>(elements);
+        }
+
+        final List<DomElement> list = new ArrayList<>();
+        if (!(root instanceof DomElement)) {
+            for (final DomElement element : elements) {
+                if (root.isAncestorOf(element)) {
+                    list.add(element);
+                }
+            }
+            return list;
+        }
+
+        // the descendants of root are the elements between root and the first element following its subtree
+        final DomElement end = getFirstElementAfterSubtree(root);
+        final SortedSet<DomElement> subtree;
+        if (end == null) {
+            subtree = elements.tailSet((DomElement) root);
+        }
+        else {
+            subtree = elements.subSet((DomElement) root, end);
+        }
+        for (final DomElement element : subtree) {
+            if (element != root) {
+                list.add(element);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Returns the first element following the subtree of the specified node in document order
+     * (which is not a descendant of it).
+     * @param node the node
+     * @return the element or {@code null} if the subtree is the end of the document
+     */
+    private static DomElement getFirstElementAfterSubtree(final DomNode node) {
+        for (DomNode ancestor = node; ancestor != null; ancestor = ancestor.getParentNode()) {
+            for (DomNode sibling = ancestor.getNextSibling(); sibling != null; sibling = sibling.getNextSibling()) {
+                if (sibling instanceof DomElement) {
+                    return (DomElement) sibling;
+                }
+            }
+        }
+        return null;
+    }
+
     /**
      * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
      *
@@ -1750,6 +1941,7 @@ public class HtmlPage extends SgmlPage {
     void notifyNodeAdded(final DomNode node) {
         if (node instanceof DomElement) {
             addMappedElement((DomElement) node, true);
+            addElementByTagName((DomElement) node);
 
             if (node instanceof BaseFrameElement) {
                 frameElements_.add((BaseFrameElement) node);
@@ -1773,9 +1965,12 @@ public class HtmlPage extends SgmlPage {
      * @param node the node that has just been removed from the tree
      */
     void notifyNodeRemoved(final DomNode node) {
-        if (node instanceof HtmlElement) {
-            removeMappedElement((HtmlElement) node, true, true);
+        if (node instanceof DomElement) {
+            removeMappedElement((DomElement) node, true, true);
+            removeElementByTagName((DomElement) node);
+        }
 
+        if (node instanceof HtmlElement) {
             if (node instanceof BaseFrameElement) {
                 frameElements_.remove(node);
             }
@@ -1792,22 +1987,146 @@ public class HtmlPage extends SgmlPage {
     }
 
     /**
-     * Adds an element to the ID and name maps, if necessary.
-     * @param element the element to be added to the ID and name maps
+     * Adds an element to the ID, name and class name maps, if necessary.
+     * @param element the element to be added to the ID, name and class name maps
      */
     void addMappedElement(final DomElement element) {
         addMappedElement(element, false);
     }
 
     /**
-     * Adds an element to the ID and name maps, if necessary.
-     * @param element the element to be added to the ID and name maps
+     * Adds an element to the ID, name and class name maps, if necessary.
+     * @param element the element to be added to the ID, name and class name maps
      * @param recurse indicates if children must be added too
      */
     void addMappedElement(final DomElement element, final boolean recurse) {
         if (isAncestorOf(element)) {
             addElement(idMap_, element, "id", recurse);
             addElement(nameMap_, element, "name", recurse);
+            addElementByClassName(element, recurse);
+        }
+    }
+
+    /**
+     * Adds an element and its descendants to the tag and class name indexes, if necessary.
+     * @param element the element to be added
+     */
+    void addIndexedElement(final DomElement element) {
+        if (isAncestorOf(element)) {
+            addElementByTagName(element);
+            addElementByClassName(element, true);
+        }
+    }
+
+    /**
+     * Removes an element and its descendants from the tag and class name indexes.
+     * @param element the element to be removed
+     */
+    void removeIndexedElement(final DomElement element) {
+        removeElementByTagName(element);
+        removeElementByClassName(element, true);
+    }
+
+    private void addElementByTagName(final DomElement element) {
+        addToIndex(tagNameMap_, element.getLowercaseName(), element);
+        for (final DomElement child : element.getChildElements()) {
+            addElementByTagName(child);
+        }
+    }
+
+    private void removeElementByTagName(final DomElement element) {
+        removeFromIndex(tagNameMap_, element.getLowercaseName(), element);
+        for (final DomElement child : element.getChildElements()) {
+            removeElementByTagName(child);
+        }
+    }
+
+    /**
+     * Only the class names of {@link HtmlElement}s are indexed, as only their attribute changes are
+     * reported to the page. The names are remembered to be able to remove them later even if the
+     * attribute was already changed.
+     * @param element the element
+     * @param recurse indicates if children must be added too
+     */
+    private void addElementByClassName(final DomElement element, final boolean recurse) {
+        if (element instanceof HtmlElement) {
+            removeElementByClassName(element, false);
+
+            final List<String> classNames = getClassNames(element);
+            if (!classNames.isEmpty()) {
+                indexedClassNames_.put(element, classNames);
+                for (final String className : classNames) {
+                    addToIndex(classNameMap_, className, element);
+                }
+            }
+        }
+        if (recurse) {
+            for (final DomElement child : element.getChildElements()) {
+                addElementByClassName(child, true);
+            }
+        }
+    }
+
+    private void removeElementByClassName(final DomElement element, final boolean recurse) {
+        final List<String> classNames = indexedClassNames_.remove(element);
+        if (classNames != null) {
+            for (final String className : classNames) {
+                removeFromIndex(classNameMap_, className, element);
+            }
+        }
+        if (recurse) {
+            for (final DomElement child : element.getChildElements()) {
+                removeElementByClassName(child, true);
+            }
+        }
+    }
+
+    /**
+     * Splits the class attribute of the element at every whitespace (as the CSS class selector does).
+     * @param element the element
+     * @return the class names
+     */
+    private static List<String> getClassNames(final DomElement element) {
+        final String classAttribute = element.getAttributeDirect("class");
+        if (DomElement.ATTRIBUTE_NOT_DEFINED == classAttribute || classAttribute.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final List<String> classNames = new ArrayList<>(2);
+        final int length = classAttribute.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            if (i == length || Character.isWhitespace(classAttribute.charAt(i))) {
+                if (start != -1) {
+                    classNames.add(classAttribute.substring(start, i));
+                    start = -1;
+                }
+            }
+            else if (start == -1) {
+                start = i;
+            }
+        }
+        return classNames;
+    }
+
+    private static void addToIndex(final Map<String, SortedSet<DomElement>> map, final String key,
+            final DomElement element) {
+        SortedSet<DomElement> elements = map.get(key);
+        if (elements == null) {
+            elements = new TreeSet<>(documentPositionComparator);
+            map.put(key, elements);
+        }
+        elements.add(element);
+    }
+
+    private static void removeFromIndex(final Map<String, SortedSet<DomElement>> map, final String key,
+            final DomElement element) {
+        final SortedSet<DomElement> elements = map.get(key);
+        if (elements != null) {
+            elements.remove(element);
+            if (elements.isEmpty()) {
+                map.remove(key);
+            }
         }
     }
 
@@ -1860,16 +2179,16 @@ public class HtmlPage extends SgmlPage {
     }
 
     /**
-     * Removes an element from the ID and name maps, if necessary.
-     * @param element the element to be removed from the ID and name maps
+     * Removes an element from the ID, name and class name maps, if necessary.
+     * @param element the element to be removed from the ID, name and class name maps
      */
     void removeMappedElement(final HtmlElement element) {
         removeMappedElement(element, false, false);
     }
 
     /**
-     * Removes an element and optionally its children from the ID and name maps, if necessary.
-     * @param element the element to be removed from the ID and name maps
+     * Removes an element and optionally its children from the ID, name and class name maps, if necessary.
+     * @param element the element to be removed from the ID, name and class name maps
      * @param recurse indicates if children must be removed too
      * @param descendant indicates of the element was descendant of this HtmlPage, but now its parent might be null
      */
@@ -1877,6 +2196,7 @@ public class HtmlPage extends SgmlPage {
         if (descendant || isAncestorOf(element)) {
             removeElement(idMap_, element, "id", recurse);
             removeElement(nameMap_, element, "name", recurse);
+            removeElementByClassName(element, recurse);
         }
     }
 
@@ -1906,7 +2226,7 @@ public class HtmlPage extends SgmlPage {
      */
     static boolean isMappedElement(final Document document, final String attributeName) {
         return document instanceof HtmlPage
-            && ("name".equals(attributeName) || "id".equals(attributeName));
+            && ("name".equals(attributeName) || "id".equals(attributeName) || "class".equals(attributeName));
     }
 
     private void calculateBase() {
@@ -1992,6 +2312,9 @@ public class HtmlPage extends SgmlPage {
 
         result.idMap_ = Collections.synchronizedMap(new HashMap<String, SortedSet<DomElement>>());
         result.nameMap_ = Collections.synchronizedMap(new HashMap<String, SortedSet<DomElement>>());
+        result.tagNameMap_ = Collections.synchronizedMap(new HashMap<String, SortedSet<DomElement>>());
+        result.classNameMap_ = Collections.synchronizedMap(new HashMap<String, SortedSet<DomElement>>());
+        result.indexedClassNames_ = Collections.synchronizedMap(new HashMap<DomElement, List<String>>());
 
         return result;
     }
@@ -2062,6 +2385,7 @@ public class HtmlPage extends SgmlPage {
      * @param event the event to fire
      */
     void fireHtmlAttributeAdded(final HtmlAttributeChangeEvent event) {
+        domChanged(event);
         final List<HtmlAttributeChangeListener> listeners = safeGetAttributeListeners();
         if (listeners != null) {
             for (final HtmlAttributeChangeListener listener : listeners) {
@@ -2075,6 +2399,7 @@ public class HtmlPage extends SgmlPage {
      * @param event the event to fire
      */
     void fireHtmlAttributeReplaced(final HtmlAttributeChangeEvent event) {
+        domChanged(event);
         final List<HtmlAttributeChangeListener> listeners = safeGetAttributeListeners();
         if (listeners != null) {
             for (final HtmlAttributeChangeListener listener : listeners) {
@@ -2088,6 +2413,7 @@ public class HtmlPage extends SgmlPage {
      * @param event the event to fire
      */
     void fireHtmlAttributeRemoved(final HtmlAttributeChangeEvent event) {
+        domChanged(event);
         final List<HtmlAttributeChangeListener> listeners = safeGetAttributeListeners();
         if (listeners != null) {
             for (final HtmlAttributeChangeListener listener : listeners) {
@@ -2143,6 +2469,9 @@ public class HtmlPage extends SgmlPage {
      * Called by the HTML parser to let the page know that it has started parsing some content for this page.
      */
     public void registerParsingStart() {
+        if (timeline_.getDomLoading() == 0) {
+            timeline_.setDomLoading(System.currentTimeMillis());
+        }
         parserCount_++;
     }
 
@@ -157,7 +157,7 @@ public class HtmlTextArea extends HtmlElement implements DisabledElement, Submit
         HtmlInput.executeOnChangeHandlerIfAppropriate(this);
     }
 
-    private void setTextInternal(final String newValue) {
+    void setTextInternal(final String newValue) {
         initDefaultValue();
         DomNode child = getFirstChild();
         if (child == null) {
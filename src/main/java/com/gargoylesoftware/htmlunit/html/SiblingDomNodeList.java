@@ -29,20 +29,39 @@ class SiblingDomNodeList extends AbstractSequentialList<DomNode> implements DomN
 
     private DomNode parent_;
 
+    /** The children as of {@link #childrenVersion_}; allows indexed access in constant time. */
+    private DomNode[] children_;
+    private int childrenVersion_;
+
     SiblingDomNodeList(final DomNode parent) {
         parent_ = parent;
     }
 
+    private DomNode[] getChildren() {
+        final int version = parent_.getChildrenVersion();
+        if (children_ == null || childrenVersion_ != version) {
+            int length = 0;
+            for (DomNode node = parent_.getFirstChild(); node != null; node = node.getNextSibling()) {
+                length++;
+            }
+
+            final DomNode[] children = new DomNode[length];
+            int i = 0;
+            for (DomNode node = parent_.getFirstChild(); node != null; node = node.getNextSibling()) {
+                children[i++] = node;
+            }
+            children_ = children;
+            childrenVersion_ = version;
+        }
+        return children_;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public int getLength() {
-        int length = 0;
-        for (DomNode node = parent_.getFirstChild(); node != null; node = node.getNextSibling()) {
-            length++;
-        }
-        return length;
+        return getChildren().length;
     }
 
     /**
@@ -66,14 +85,11 @@ class SiblingDomNodeList extends AbstractSequentialList<DomNode> implements DomN
      */
     @Override
     public DomNode get(final int index) {
-        int i = 0;
-        for (DomNode node = parent_.getFirstChild(); node != null; node = node.getNextSibling()) {
-            if (i == index) {
-                return node;
-            }
-            i++;
+        final DomNode[] children = getChildren();
+        if (index < 0 || index >= children.length) {
+            return null;
         }
-        return null;
+        return children[index];
     }
 
     /**
@@ -75,6 +75,7 @@ import com.gargoylesoftware.htmlunit.html.parser.HTMLParserDOMBuilder;
 import com.gargoylesoftware.htmlunit.html.parser.HTMLParserListener;
 import com.gargoylesoftware.htmlunit.javascript.host.html.HTMLBodyElement;
 import com.gargoylesoftware.htmlunit.javascript.host.html.HTMLDocument;
+import com.gargoylesoftware.htmlunit.util.StringPool;
 
 import net.sourceforge.htmlunit.cyberneko.HTMLConfiguration;
 import net.sourceforge.htmlunit.cyberneko.HTMLElements;
@@ -182,6 +183,7 @@ final class HtmlUnitNekoDOMBuilder extends AbstractSAXParser
     private boolean lastTagWasSynthesized_;
     private HtmlForm formWaitingForLostChildren_;
     private boolean insideSvg_;
+    private final StringPool stringPool_;
 
     private static final String FEATURE_AUGMENTATIONS = "http://cyberneko.org/html/features/augmentations";
     private static final String FEATURE_PARSE_NOSCRIPT
@@ -226,6 +228,8 @@ final class HtmlUnitNekoDOMBuilder extends AbstractSAXParser
         }
 
         final WebClient webClient = page_.getWebClient();
+        stringPool_ = webClient.getStringPool();
+
         final HTMLParserListener listener = webClient.getHTMLParserListener();
         final boolean reportErrors = listener != null;
         if (reportErrors) {
@@ -350,6 +354,10 @@ final class HtmlUnitNekoDOMBuilder extends AbstractSAXParser
             qName = "select";
         }
 
+        // share the names between all elements instead of keeping the copies made by the scanner
+        qName = StringPool.NAMES.intern(qName);
+        namespaceURI = StringPool.NAMES.intern(namespaceURI);
+
         final ElementFactory factory =
                 htmlParser_.getElementFactory(page_, namespaceURI, qName, insideSvg_, false);
         if (factory == HtmlUnitNekoHtmlParser.SVG_FACTORY) {
@@ -592,7 +600,11 @@ final class HtmlUnitNekoDOMBuilder extends AbstractSAXParser
             }
             else {
                 // Use the normal behavior: append a text node for the accumulated text.
-                final String textValue = characters_.toString();
+                String textValue = characters_.toString();
+                if (stringPool_ != null && StringUtils.isBlank(textValue)) {
+                    // the whitespace between the tags is mostly the same line break and indentation
+                    textValue = stringPool_.intern(textValue);
+                }
                 final DomText text = new DomText(page_, textValue);
                 characters_.setLength(0);
 
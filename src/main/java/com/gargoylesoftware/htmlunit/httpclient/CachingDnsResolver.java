@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2002-2020 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.httpclient;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
+
+/**
+ * A {@link DnsResolver} caching the results of another resolver (by default the system resolver).
+ *
+ * <p>Successful lookups are cached for the time to live, failed lookups for the negative time to live.
+ * Concurrent lookups for the same host are coalesced: only one of the threads asks the underlying
+ * resolver, the others wait for its result. Hosts added with {@link #addStaticHost(String, InetAddress...)}
+ * are never looked up; this is handy for tests. At most 10,000 lookups are cached,
+ * the least recently used ones are dropped first.</p>
+ *
+ * <p>As Java provides no access to the TTL of the DNS records, the times to live are configured
+ * here; the defaults match the JVM defaults for {@code networkaddress.cache.ttl} (30s)
+ * and {@code networkaddress.cache.negative.ttl} (10s).</p>
+ *
+ * <pre>
+ * final CachingDnsResolver resolver = new CachingDnsResolver();
+ * webClient.getOptions().setDnsResolver(resolver);
+ * </pre>
+ *
+ * @author agent (agent@local)
+ */
+public class CachingDnsResolver implements DnsResolver {
+
+    /** Default time to live of successful lookups (ms). */
+    public static final long DEFAULT_TTL = 30_000;
+    /** Default time to live of failed lookups (ms). */
+    public static final long DEFAULT_NEGATIVE_TTL = 10_000;
+
+    private static final int MAX_ENTRIES = 10_000;
+
+    private final DnsResolver delegate_;
+    private final long ttl_;
+    private final long negativeTtl_;
+
+    /** The cached lookups in access order, the least recently used one is dropped above {@link #MAX_ENTRIES}. */
+    private final Map<String, Lookup> cache_ = Collections.synchronizedMap(
+            new LinkedHashMap<String, Lookup>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, Lookup> eldest) {
+                    return size() > MAX_ENTRIES;
+                }
+            });
+    private final Map<String, InetAddress[]> staticHosts_ = new ConcurrentHashMap<>();
+
+    private final AtomicLong hitCount_ = new AtomicLong();
+    private final AtomicLong missCount_ = new AtomicLong();
+    private final AtomicLong coalescedCount_ = new AtomicLong();
+
+    /**
+     * Creates a new instance using the system resolver and the default times to live.
+     */
+    public CachingDnsResolver() {
+        this(SystemDefaultDnsResolver.INSTANCE, DEFAULT_TTL, DEFAULT_NEGATIVE_TTL);
+    }
+
+    /**
+     * Creates a new instance.
+     * @param delegate the resolver doing the real lookups
+     * @param ttl the time to live of successful lookups in milliseconds
+     * @param negativeTtl the time to live of failed lookups in milliseconds, zero or negative
+     *        values disable the caching of failures
+     */
+    public CachingDnsResolver(final DnsResolver delegate, final long ttl, final long negativeTtl) {
+        delegate_ = delegate;
+        ttl_ = ttl;
+        negativeTtl_ = negativeTtl;
+    }
+
+    /**
+     * Adds a host that is always resolved to the given addresses, like an entry in the hosts file.
+     * @param host the host name
+     * @param addresses the addresses
+     */
+    public void addStaticHost(final String host, final InetAddress... addresses) {
+        staticHosts_.put(host.toLowerCase(Locale.ROOT), addresses.clone());
+    }
+
+    /**
+     * Removes a host added with {@link #addStaticHost(String, InetAddress...)}.
+     * @param host the host name
+     */
+    public void removeStaticHost(final String host) {
+        staticHosts_.remove(host.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InetAddress[] resolve(final String host) throws UnknownHostException {
+        final String key = host.toLowerCase(Locale.ROOT);
+
+        final InetAddress[] staticAddresses = staticHosts_.get(key);
+        if (staticAddresses != null) {
+            hitCount_.incrementAndGet();
+            return staticAddresses.clone();
+        }
+
+        while (true) {
+            final Lookup cached = cache_.get(key);
+            if (cached != null && !cached.isExpired()) {
+                if (cached.isDone()) {
+                    hitCount_.incrementAndGet();
+                }
+                else {
+                    coalescedCount_.incrementAndGet();
+                }
+                return cached.get(host);
+            }
+
+            final Lookup lookup = new Lookup();
+            final boolean owner;
+            if (cached == null) {
+                owner = cache_.putIfAbsent(key, lookup) == null;
+            }
+            else {
+                owner = cache_.replace(key, cached, lookup);
+            }
+
+            if (owner) {
+                missCount_.incrementAndGet();
+                lookup.resolve(host);
+                return lookup.get(host);
+            }
+        }
+    }
+
+    /**
+     * @return the time to live of successful lookups in milliseconds
+     */
+    public long getTtl() {
+        return ttl_;
+    }
+
+    /**
+     * Removes all cached lookups (but not the static hosts).
+     */
+    public void clear() {
+        cache_.clear();
+    }
+
+    /**
+     * @return the number of cached lookups, including the failed ones
+     */
+    public int getSize() {
+        return cache_.size();
+    }
+
+    /**
+     * @return the number of lookups answered from the cache or from the static hosts
+     */
+    public long getHitCount() {
+        return hitCount_.get();
+    }
+
+    /**
+     * @return the number of lookups done by the underlying resolver
+     */
+    public long getMissCount() {
+        return missCount_.get();
+    }
+
+    /**
+     * @return the number of lookups that waited for the same lookup already running in another thread
+     */
+    public long getCoalescedCount() {
+        return coalescedCount_.get();
+    }
+
+    /**
+     * One (running or done) lookup.
+     */
+    private final class Lookup {
+        private final CompletableFuture<InetAddress[]> result_ = new CompletableFuture<>();
+        private volatile long expires_ = Long.MAX_VALUE;
+
+        void resolve(final String host) {
+            try {
+                final InetAddress[] addresses = delegate_.resolve(host);
+                expires_ = System.currentTimeMillis() + ttl_;
+                result_.complete(addresses);
+            }
+            catch (final UnknownHostException | RuntimeException e) {
+                expires_ = System.currentTimeMillis() + negativeTtl_;
+                result_.completeExceptionally(e);
+            }
+            finally {
+                // never leave the waiting threads alone
+                if (!result_.isDone()) {
+                    expires_ = 0;
+                    result_.completeExceptionally(new UnknownHostException(host));
+                }
+            }
+        }
+
+        boolean isDone() {
+            return result_.isDone();
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() >= expires_;
+        }
+
+        InetAddress[] get(final String host) throws UnknownHostException {
+            try {
+                return result_.get().clone();
+            }
+            catch (final ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof UnknownHostException) {
+                    final UnknownHostException ex = new UnknownHostException(cause.getMessage());
+                    ex.initCause(cause);
+                    throw ex;
+                }
+                throw (RuntimeException) cause;
+            }
+            catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UnknownHostException(host + ": interrupted");
+            }
+        }
+    }
+}
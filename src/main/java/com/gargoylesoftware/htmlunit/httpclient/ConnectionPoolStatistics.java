@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2002-2020 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.httpclient;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.pool.PoolStats;
+
+/**
+ * An immutable snapshot of the state of the connection pool used by
+ * {@link com.gargoylesoftware.htmlunit.HttpWebConnection}.
+ *
+ * @author agent (agent@local)
+ */
+public final class ConnectionPoolStatistics implements Serializable {
+
+    private final PoolStats totalStats_;
+    private final Map<String, PoolStats> routeStats_;
+    private final long leaseCount_;
+    private final long leaseTimeoutCount_;
+    private final long[] sortedLeaseWaitTimes_;
+
+    ConnectionPoolStatistics(final PoolStats totalStats, final Map<String, PoolStats> routeStats,
+            final long leaseCount, final long leaseTimeoutCount, final long[] leaseWaitTimes) {
+        totalStats_ = totalStats;
+        routeStats_ = Collections.unmodifiableMap(routeStats);
+        leaseCount_ = leaseCount;
+        leaseTimeoutCount_ = leaseTimeoutCount;
+        sortedLeaseWaitTimes_ = leaseWaitTimes;
+        Arrays.sort(sortedLeaseWaitTimes_);
+    }
+
+    /**
+     * Returns the totals (leased, pending, available, max) over all routes.
+     * @return the totals
+     */
+    public PoolStats getTotalStats() {
+        return totalStats_;
+    }
+
+    /**
+     * Returns the leased, pending, available and max connections per route.
+     * @return the stats, keyed by the route (e.g. {@code {s}->https://htmlunit.sourceforge.io:443})
+     */
+    public Map<String, PoolStats> getRouteStats() {
+        return routeStats_;
+    }
+
+    /**
+     * @return the number of connections successfully leased from the pool
+     */
+    public long getLeaseCount() {
+        return leaseCount_;
+    }
+
+    /**
+     * @return the number of connection requests that timed out waiting for a free connection
+     */
+    public long getLeaseTimeoutCount() {
+        return leaseTimeoutCount_;
+    }
+
+    /**
+     * Returns the given percentile of the time spent waiting for a connection from the pool.
+     * This is based on the most recent 1024 requests.
+     * @param percentile the percentile (0 - 100)
+     * @param unit the unit of the result
+     * @return the wait time, 0 if there are no requests so far
+     */
+    public long getLeaseWaitTimePercentile(final double percentile, final TimeUnit unit) {
+        if (sortedLeaseWaitTimes_.length == 0) {
+            return 0;
+        }
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Invalid percentile: " + percentile);
+        }
+
+        final int index = (int) Math.ceil(percentile / 100 * sortedLeaseWaitTimes_.length) - 1;
+        return unit.convert(sortedLeaseWaitTimes_[Math.max(0, index)], TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "ConnectionPoolStatistics[total: " + totalStats_
+                + "; leases: " + leaseCount_
+                + "; lease timeouts: " + leaseTimeoutCount_
+                + "; lease wait p50/p99: "
+                + getLeaseWaitTimePercentile(50, TimeUnit.MILLISECONDS) + "ms/"
+                + getLeaseWaitTimePercentile(99, TimeUnit.MILLISECONDS) + "ms]";
+    }
+}
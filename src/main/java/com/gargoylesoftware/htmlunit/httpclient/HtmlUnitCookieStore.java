@@ -33,6 +33,7 @@ import com.gargoylesoftware.htmlunit.CookieManager;
  */
 public final class HtmlUnitCookieStore implements CookieStore, Serializable {
     private CookieManager manager_;
+    private final String host_;
 
     /**
      * Constructor.
@@ -40,7 +41,19 @@ public final class HtmlUnitCookieStore implements CookieStore, Serializable {
      * @param manager the CookieManager
      */
     public HtmlUnitCookieStore(final CookieManager manager) {
+        this(manager, null);
+    }
+
+    /**
+     * Constructor for a store used for the requests to one host only; {@link #getCookies()}
+     * returns only the cookies whose domain matches this host.
+     *
+     * @param manager the CookieManager
+     * @param host the host, {@code null} for all cookies
+     */
+    public HtmlUnitCookieStore(final CookieManager manager, final String host) {
         manager_ = manager;
+        host_ = host;
     }
 
     /**
@@ -56,6 +69,9 @@ public final class HtmlUnitCookieStore implements CookieStore, Serializable {
      */
     @Override
     public synchronized List<Cookie> getCookies() {
+        if (host_ != null) {
+            return com.gargoylesoftware.htmlunit.util.Cookie.toHttpClient(manager_.getCookiesForHost(host_));
+        }
         return com.gargoylesoftware.htmlunit.util.Cookie.toHttpClient(manager_.getCookies());
     }
 
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2002-2020 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.httpclient;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.config.Registry;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+import com.gargoylesoftware.htmlunit.WebResponseTiming;
+
+/**
+ * A {@link PoolingHttpClientConnectionManager} that additionally records how long
+ * the leasing of a connection from the pool took.
+ *
+ * @author agent (agent@local)
+ */
+public class HtmlUnitPoolingHttpClientConnectionManager extends PoolingHttpClientConnectionManager {
+
+    /** The number of lease wait times kept for the percentiles. */
+    private static final int SAMPLE_SIZE = 1024;
+
+    private final long[] leaseWaitTimes_ = new long[SAMPLE_SIZE];
+    private int leaseWaitTimesPos_;
+    private final AtomicLong leaseCount_ = new AtomicLong();
+    private final AtomicLong leaseTimeoutCount_ = new AtomicLong();
+
+    /**
+     * Ctor.
+     * @param socketFactoryRegistry the socket factory registry
+     * @param dnsResolver the dns resolver, may be null
+     * @param timeToLive maximum time to live, may be negative (no limit)
+     * @param timeUnit the time unit of the time to live
+     */
+    public HtmlUnitPoolingHttpClientConnectionManager(final Registry<ConnectionSocketFactory> socketFactoryRegistry,
+            final DnsResolver dnsResolver, final long timeToLive, final TimeUnit timeUnit) {
+        super(socketFactoryRegistry, null, null, new TimingDnsResolver(dnsResolver), timeToLive, timeUnit);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Records the dns lookup and connect times in the {@link WebResponseTiming} of the request.
+     */
+    @Override
+    public void connect(final HttpClientConnection managedConn, final HttpRoute route, final int connectTimeout,
+            final HttpContext context) throws IOException {
+        final WebResponseTiming timing = WebResponseTiming.of(context);
+        if (timing == null) {
+            super.connect(managedConn, route, connectTimeout, context);
+            return;
+        }
+
+        final long start = System.currentTimeMillis();
+        TimingDnsResolver.CURRENT_TIMING.set(timing);
+        try {
+            super.connect(managedConn, route, connectTimeout, context);
+        }
+        finally {
+            TimingDnsResolver.CURRENT_TIMING.remove();
+        }
+        timing.setConnectStart(Math.max(start, timing.getDomainLookupEnd()));
+        timing.setConnectEnd(System.currentTimeMillis());
+    }
+
+    /**
+     * Measures the lookups done while a connection is established.
+     */
+    private static final class TimingDnsResolver implements DnsResolver {
+        static final ThreadLocal<WebResponseTiming> CURRENT_TIMING = new ThreadLocal<>();
+
+        private final DnsResolver delegate_;
+
+        TimingDnsResolver(final DnsResolver delegate) {
+            delegate_ = delegate == null ? SystemDefaultDnsResolver.INSTANCE : delegate;
+        }
+
+        @Override
+        public InetAddress[] resolve(final String host) throws UnknownHostException {
+            final WebResponseTiming timing = CURRENT_TIMING.get();
+            if (timing == null) {
+                return delegate_.resolve(host);
+            }
+
+            timing.setDomainLookupStart(System.currentTimeMillis());
+            try {
+                return delegate_.resolve(host);
+            }
+            finally {
+                timing.setDomainLookupEnd(System.currentTimeMillis());
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ConnectionRequest requestConnection(final HttpRoute route, final Object state) {
+        final ConnectionRequest connectionRequest = super.requestConnection(route, state);
+        return new ConnectionRequest() {
+            @Override
+            public HttpClientConnection get(final long timeout, final TimeUnit tunit)
+                throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                final long start = System.nanoTime();
+                try {
+                    final HttpClientConnection connection = connectionRequest.get(timeout, tunit);
+                    leaseCount_.incrementAndGet();
+                    return connection;
+                }
+                catch (final ConnectionPoolTimeoutException e) {
+                    leaseTimeoutCount_.incrementAndGet();
+                    throw e;
+                }
+                finally {
+                    addLeaseWaitTime(System.nanoTime() - start);
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                return connectionRequest.cancel();
+            }
+        };
+    }
+
+    private synchronized void addLeaseWaitTime(final long nanos) {
+        leaseWaitTimes_[leaseWaitTimesPos_ % SAMPLE_SIZE] = nanos;
+        leaseWaitTimesPos_++;
+        if (leaseWaitTimesPos_ == 2 * SAMPLE_SIZE) {
+            leaseWaitTimesPos_ = SAMPLE_SIZE;
+        }
+    }
+
+    private synchronized long[] getLeaseWaitTimes() {
+        final int size = Math.min(leaseWaitTimesPos_, SAMPLE_SIZE);
+        final long[] result = new long[size];
+        System.arraycopy(leaseWaitTimes_, 0, result, 0, size);
+        return result;
+    }
+
+    /**
+     * Returns a snapshot of the current state of the pool.
+     * @return the statistics
+     */
+    public ConnectionPoolStatistics getStatistics() {
+        final Map<String, PoolStats> routeStats = new LinkedHashMap<>();
+        for (final HttpRoute route : getRoutes()) {
+            routeStats.put(route.toString(), getStats(route));
+        }
+        return new ConnectionPoolStatistics(getTotalStats(), routeStats,
+                leaseCount_.get(), leaseTimeoutCount_.get(), getLeaseWaitTimes());
+    }
+}
@@ -49,6 +49,7 @@ import org.apache.http.protocol.HttpContext;
 import org.apache.http.ssl.SSLContexts;
 
 import com.gargoylesoftware.htmlunit.WebClientOptions;
+import com.gargoylesoftware.htmlunit.WebResponseTiming;
 
 /**
  * Socket factory offering facilities for insecure SSL and for SOCKS proxy support.
@@ -195,6 +196,19 @@ public final class HtmlUnitSSLConnectionSocketFactory extends SSLConnectionSocke
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Socket createLayeredSocket(final Socket socket, final String target, final int port,
+            final HttpContext context) throws IOException {
+        final WebResponseTiming timing = WebResponseTiming.of(context);
+        if (timing != null) {
+            timing.setSecureConnectionStart(System.currentTimeMillis());
+        }
+        return super.createLayeredSocket(socket, target, port, context);
+    }
+
     private static void setEmptyHostname(final HttpHost host) {
         try {
             final Field field = HttpHost.class.getDeclaredField("hostname");
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2002-2020 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.javascript;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.sourceforge.htmlunit.corejs.javascript.ConsString;
+import net.sourceforge.htmlunit.corejs.javascript.Context;
+import net.sourceforge.htmlunit.corejs.javascript.ContinuationPending;
+import net.sourceforge.htmlunit.corejs.javascript.Function;
+import net.sourceforge.htmlunit.corejs.javascript.FunctionObject;
+import net.sourceforge.htmlunit.corejs.javascript.Scriptable;
+import net.sourceforge.htmlunit.corejs.javascript.Undefined;
+
+/**
+ * A {@link FunctionObject} for the host methods (<tt>@JsxFunction</tt> and <tt>@JsxStaticFunction</tt>)
+ * calling the Java method through a {@link MethodHandle} instead of reflection.
+ * The handle is created once per method and shared by all the function objects (of all the
+ * windows and browser versions) defined for this method. Calls with up to two arguments don't
+ * allocate an argument array.
+ * <p>
+ * Calls the standard {@link FunctionObject} doesn't dispatch directly (like a <tt>this</tt> of an
+ * unexpected type) are left to {@link FunctionObject#call(Context, Scriptable, Scriptable, Object[])}.
+ *
+ * @author agent (agent@local)
+ */
+public class HostFunctionObject extends FunctionObject {
+
+    private static final int VARARGS = -1;
+
+    private static final MethodHandle NO_INVOKER = MethodHandles.constant(Object.class, null);
+    private static final Map<Method, MethodHandle> INVOKERS = new ConcurrentHashMap<>();
+
+    private final Class<?> declaringClass_;
+    private final boolean static_;
+    private final int arity_;
+    private final int[] typeTags_;
+    private final boolean voidReturn_;
+    private final boolean wrapResult_;
+    private transient MethodHandle invoker_;
+
+    /**
+     * Ctor.
+     * @param name the name of the function
+     * @param method the host method
+     * @param scope the enclosing scope of the function
+     */
+    public HostFunctionObject(final String name, final Method method, final Scriptable scope) {
+        super(name, method, scope);
+
+        declaringClass_ = method.getDeclaringClass();
+        static_ = Modifier.isStatic(method.getModifiers());
+
+        final Class<?>[] types = method.getParameterTypes();
+        if (static_ && types.length == 4
+                && types[0] == Context.class && types[1] == Scriptable.class
+                && types[2] == Object[].class && types[3] == Function.class) {
+            arity_ = VARARGS;
+            typeTags_ = null;
+        }
+        else {
+            arity_ = types.length;
+            typeTags_ = new int[arity_];
+            for (int i = 0; i < arity_; i++) {
+                typeTags_[i] = getTypeTag(types[i]);
+            }
+        }
+
+        final Class<?> returnType = method.getReturnType();
+        voidReturn_ = returnType == Void.TYPE;
+        wrapResult_ = !voidReturn_ && getTypeTag(returnType) == JAVA_UNSUPPORTED_TYPE;
+
+        invoker_ = getInvoker(method, arity_);
+    }
+
+    /**
+     * Returns the shared invoker of the method: a handle taking and returning only {@code Object}s
+     * (the receiver first for instance methods), spreading an argument array for more than two arguments.
+     */
+    private static MethodHandle getInvoker(final Method method, final int arity) {
+        MethodHandle invoker = INVOKERS.get(method);
+        if (invoker == null) {
+            try {
+                final MethodHandle handle = MethodHandles.publicLookup().unreflect(method);
+                invoker = handle.asType(MethodType.genericMethodType(handle.type().parameterCount()));
+                if (arity > 2) {
+                    invoker = invoker.asSpreader(Object[].class, arity);
+                }
+            }
+            catch (final IllegalAccessException e) {
+                invoker = NO_INVOKER;
+            }
+            INVOKERS.put(method, invoker);
+        }
+
+        if (invoker == NO_INVOKER) {
+            return null;
+        }
+        return invoker;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object call(final Context cx, final Scriptable scope, final Scriptable thisObj, final Object[] args) {
+        if (invoker_ == null || (!static_ && !declaringClass_.isInstance(thisObj))) {
+            return super.call(cx, scope, thisObj, args);
+        }
+
+        final Object result;
+        try {
+            if (arity_ == VARARGS) {
+                flatten(args);
+                result = invoker_.invokeExact((Object) cx, (Object) thisObj, (Object) args, (Object) this);
+            }
+            else if (arity_ == 0) {
+                result = static_ ? invoker_.invokeExact() : invoker_.invokeExact((Object) thisObj);
+            }
+            else if (arity_ == 1) {
+                final Object arg0 = convert(cx, scope, args, 0);
+                result = static_ ? invoker_.invokeExact(arg0) : invoker_.invokeExact((Object) thisObj, arg0);
+            }
+            else if (arity_ == 2) {
+                final Object arg0 = convert(cx, scope, args, 0);
+                final Object arg1 = convert(cx, scope, args, 1);
+                result = static_ ? invoker_.invokeExact(arg0, arg1)
+                        : invoker_.invokeExact((Object) thisObj, arg0, arg1);
+            }
+            else {
+                final Object[] invokeArgs = new Object[arity_];
+                for (int i = 0; i < arity_; i++) {
+                    invokeArgs[i] = convert(cx, scope, args, i);
+                }
+                result = static_ ? invoker_.invokeExact(invokeArgs)
+                        : invoker_.invokeExact((Object) thisObj, invokeArgs);
+            }
+        }
+        catch (final ContinuationPending e) {
+            throw e;
+        }
+        catch (final Throwable t) {
+            throw Context.throwAsScriptRuntimeEx(t);
+        }
+
+        if (voidReturn_) {
+            return Undefined.instance;
+        }
+        if (wrapResult_) {
+            return cx.getWrapFactory().wrap(cx, scope, result, null);
+        }
+        return result;
+    }
+
+    private Object convert(final Context cx, final Scriptable scope, final Object[] args, final int index) {
+        Object arg = index < args.length ? args[index] : Undefined.instance;
+        if (arg instanceof ConsString) {
+            arg = arg.toString();
+        }
+        return convertArg(cx, scope, arg, typeTags_[index]);
+    }
+
+    private static void flatten(final Object[] args) {
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] instanceof ConsString) {
+                args[i] = args[i].toString();
+            }
+        }
+    }
+}
@@ -66,6 +66,7 @@ public class HtmlUnitContextFactory extends ContextFactory {
     private Debugger debugger_;
     private final WrapFactory wrapFactory_ = new HtmlUnitWrapFactory();
     private boolean deminifyFunctionCode_;
+    private int optimizationLevel_ = -1;
 
     /**
      * Creates a new instance of HtmlUnitContextFactory.
@@ -136,6 +137,38 @@ public class HtmlUnitContextFactory extends ContextFactory {
         return deminifyFunctionCode_;
     }
 
+    /**
+     * Sets the optimization level used to compile the scripts. The default value <tt>-1</tt> runs the
+     * scripts in the interpreter; the levels <tt>0</tt> to <tt>9</tt> compile them to Java byte code which
+     * is much faster for CPU intensive scripts but makes the compilation itself slower. In compiled mode
+     * the timeout is enforced by the callbacks the compiler adds to the loops and the function entries.
+     * The compiled mode is not used while a debugger is set.
+     *
+     * @param optimizationLevel the optimization level (<tt>-1</tt> to <tt>9</tt>)
+     */
+    public void setOptimizationLevel(final int optimizationLevel) {
+        if (!Context.isValidOptimizationLevel(optimizationLevel)) {
+            throw new IllegalArgumentException("Invalid optimization level: " + optimizationLevel);
+        }
+        optimizationLevel_ = optimizationLevel;
+    }
+
+    /**
+     * Returns the optimization level used to compile the scripts.
+     * @return the optimization level (default value is <tt>-1</tt>)
+     */
+    public int getOptimizationLevel() {
+        return optimizationLevel_;
+    }
+
+    /**
+     * Indicates if the scripts are compiled to Java byte code.
+     * @return {@code true} if the optimization level is <tt>0</tt> or more and no debugger is set
+     */
+    public boolean isCompiledMode() {
+        return optimizationLevel_ >= 0 && debugger_ == null;
+    }
+
     /**
      * Custom context to store execution time and handle timeouts.
      */
@@ -292,8 +325,15 @@ public class HtmlUnitContextFactory extends ContextFactory {
             }
         });
 
-        // Use pure interpreter mode to get observeInstructionCount() callbacks.
-        cx.setOptimizationLevel(-1);
+        if (isCompiledMode()) {
+            // the generated byte code calls observeInstructionCount() at loop back-edges and function entries
+            cx.setOptimizationLevel(optimizationLevel_);
+            cx.setGenerateObserverCount(true);
+        }
+        else {
+            // Use pure interpreter mode to get observeInstructionCount() callbacks.
+            cx.setOptimizationLevel(-1);
+        }
 
         // Set threshold on how often we want to receive the callbacks
         cx.setInstructionObserverThreshold(INSTRUCTION_COUNT_THRESHOLD);
@@ -323,6 +363,10 @@ public class HtmlUnitContextFactory extends ContextFactory {
      */
     @Override
     protected void observeInstructionCount(final Context cx, final int instructionCount) {
+        if (debugger_ instanceof JavaScriptProfiler) {
+            ((JavaScriptProfiler) debugger_).instructionsExecuted(instructionCount);
+        }
+
         final TimeoutContext tcx = (TimeoutContext) cx;
         tcx.terminateScriptIfNecessary();
     }
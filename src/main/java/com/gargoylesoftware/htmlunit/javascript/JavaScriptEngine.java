@@ -37,8 +37,10 @@ import java.lang.reflect.Executable;
 import java.lang.reflect.Method;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -51,6 +53,7 @@ import com.gargoylesoftware.htmlunit.BrowserVersion;
 import com.gargoylesoftware.htmlunit.ScriptException;
 import com.gargoylesoftware.htmlunit.WebAssert;
 import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.WebClientMetrics;
 import com.gargoylesoftware.htmlunit.WebWindow;
 import com.gargoylesoftware.htmlunit.html.DomNode;
 import com.gargoylesoftware.htmlunit.html.HtmlPage;
@@ -110,6 +113,8 @@ public class JavaScriptEngine implements AbstractJavaScriptEngine<Script> {
 
     private static final Log LOG = LogFactory.getLog(JavaScriptEngine.class);
 
+    private static final int MAX_CACHED_SNIPPETS = 500;
+
     private WebClient webClient_;
     private final HtmlUnitContextFactory contextFactory_;
     private final JavaScriptConfiguration jsConfig_;
@@ -117,6 +122,7 @@ public class JavaScriptEngine implements AbstractJavaScriptEngine<Script> {
     private transient ThreadLocal<Boolean> javaScriptRunning_;
     private transient ThreadLocal<List<PostponedAction>> postponedActions_;
     private transient boolean holdPostponedActions_;
+    private transient Map<String, Script> snippets_;
 
     /** The JavaScriptExecutor corresponding to all windows of this Web client */
     private transient JavaScriptExecutor javaScriptExecutor_;
@@ -623,7 +629,7 @@ public class JavaScriptEngine implements AbstractJavaScriptEngine<Script> {
             for (final Entry<String, Method> functionInfo : functionMap.entrySet()) {
                 final String functionName = functionInfo.getKey();
                 final Method method = functionInfo.getValue();
-                final FunctionObject functionObject = new FunctionObject(functionName, method, scriptable);
+                final FunctionObject functionObject = new HostFunctionObject(functionName, method, scriptable);
                 scriptable.defineProperty(functionName, functionObject, attributes);
             }
         }
@@ -671,7 +677,7 @@ public class JavaScriptEngine implements AbstractJavaScriptEngine<Script> {
             for (final Entry<String, Method> staticFunctionInfo : staticFunctionMap.entrySet()) {
                 final String functionName = staticFunctionInfo.getKey();
                 final Method method = staticFunctionInfo.getValue();
-                final FunctionObject staticFunctionObject = new FunctionObject(functionName, method,
+                final FunctionObject staticFunctionObject = new HostFunctionObject(functionName, method,
                         scriptable);
                 scriptable.defineProperty(functionName, staticFunctionObject, ScriptableObject.EMPTY);
             }
@@ -722,6 +728,9 @@ public class JavaScriptEngine implements AbstractJavaScriptEngine<Script> {
             javaScriptRunning_.remove();
         }
         holdPostponedActions_ = false;
+        if (snippets_ != null) {
+            snippets_.clear();
+        }
     }
 
     /**
@@ -753,19 +762,111 @@ public class JavaScriptEngine implements AbstractJavaScriptEngine<Script> {
             LOG.trace("Javascript compile " + sourceName + newline + sourceCode + newline);
         }
 
+        // compiling to byte code is expensive, reuse the generated classes for the same inline scripts
+        // of all pages through the snippet cache (the source name and start line are the ones of the
+        // first compilation); the scripts loaded from an url are already cached with the response
+        String cacheKey = null;
+        if (getContextFactory().isCompiledMode() && isSnippetCacheUsable()) {
+            cacheKey = "compiled\n" + sourceCode;
+            final Script cached = getCachedSnippet(cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
         final ContextAction<Object> action = new HtmlUnitContextAction(scope, owningPage) {
             @Override
             public Object doRun(final Context cx) {
                 return cx.compileString(sourceCode, sourceName, startLine, null);
             }
 
+            @Override
+            protected void recordTime(final HtmlPage page, final boolean nested, final long nanos) {
+                page.getTimeline().addScriptCompileTime(nanos);
+            }
+
             @Override
             protected String getSourceCode(final Context cx) {
                 return sourceCode;
             }
         };
 
-        return (Script) getContextFactory().callSecured(action, owningPage);
+        final Script script = (Script) getContextFactory().callSecured(action, owningPage);
+        if (cacheKey != null && script != null) {
+            cacheSnippet(cacheKey, script);
+        }
+        return script;
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Compiles a snippet executed with the same source for many elements (like the code of the
+     * <tt>javascript:</tt> urls). The compiled script doesn't depend on the scope it is executed in
+     * and is shared through the snippet cache; the source name and start line used are the ones of
+     * the first compilation.
+     *
+     * @param page the page from which the code started
+     * @param sourceCode the JavaScript code to compile
+     * @param sourceName the name that will be displayed on error conditions
+     * @param startLine the line at which the script source starts
+     * @return the compiled script or {@code null} in case of a syntax error
+     */
+    public Script compileSnippet(final HtmlPage page, final String sourceCode,
+            final String sourceName, final int startLine) {
+        if (!isSnippetCacheUsable()) {
+            return compile(page, sourceCode, sourceName, startLine);
+        }
+
+        final String key = "script\n" + sourceName + '\n' + sourceCode;
+        Script script = getCachedSnippet(key);
+        if (script == null) {
+            script = compile(page, sourceCode, sourceName, startLine);
+            if (script != null) {
+                cacheSnippet(key, script);
+            }
+        }
+        return script;
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * The compiled snippets can't be shared when a {@link com.gargoylesoftware.htmlunit.ScriptPreProcessor}
+     * is set, as it has to see every execution.
+     * @return whether the snippet cache can be used
+     */
+    public boolean isSnippetCacheUsable() {
+        return webClient_ != null && webClient_.getScriptPreProcessor() == null;
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * @param key the key of the snippet
+     * @return the cached compiled snippet or {@code null}
+     */
+    public Script getCachedSnippet(final String key) {
+        return snippets_.get(key);
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Caches a compiled snippet; the least recently used snippets are removed
+     * when more than {@value #MAX_CACHED_SNIPPETS} are cached.
+     * @param key the key of the snippet
+     * @param script the compiled snippet
+     */
+    public void cacheSnippet(final String key, final Script script) {
+        snippets_.put(key, script);
+    }
+
+    /**
+     * @return the number of compiled snippets currently cached
+     */
+    public int getSnippetCacheSize() {
+        return snippets_.size();
     }
 
     /**
@@ -919,7 +1020,9 @@ public class JavaScriptEngine implements AbstractJavaScriptEngine<Script> {
                         if (page_ != page_.getEnclosingWindow().getEnclosedPage()) {
                             return null; // page has been unloaded
                         }
+                        final long start = System.nanoTime();
                         response = doRun(cx);
+                        recordTime(page_, Boolean.TRUE.equals(javaScriptAlreadyRunning), System.nanoTime() - start);
                     }
                 }
                 finally {
@@ -948,6 +1051,23 @@ public class JavaScriptEngine implements AbstractJavaScriptEngine<Script> {
 
         protected abstract Object doRun(Context cx);
 
+        /**
+         * Records the time spent in {@link #doRun(Context)} in the timeline of the page;
+         * the nested executions are part of the outer one.
+         * @param page the page
+         * @param nested whether some JavaScript was already running
+         * @param nanos the time spent
+         */
+        protected void recordTime(final HtmlPage page, final boolean nested, final long nanos) {
+            if (!nested) {
+                page.getTimeline().addScriptExecutionTime(nanos);
+                final WebClientMetrics metrics = page.getWebClient().getMetrics();
+                if (metrics != null) {
+                    metrics.scriptExecuted(nanos);
+                }
+            }
+        }
+
         protected abstract String getSourceCode(Context cx);
     }
 
@@ -1099,6 +1219,12 @@ public class JavaScriptEngine implements AbstractJavaScriptEngine<Script> {
         javaScriptRunning_ = new ThreadLocal<>();
         postponedActions_ = new ThreadLocal<>();
         holdPostponedActions_ = false;
+        snippets_ = Collections.synchronizedMap(new LinkedHashMap<String, Script>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Script> eldest) {
+                return size() > MAX_CACHED_SNIPPETS;
+            }
+        });
     }
 
     /**
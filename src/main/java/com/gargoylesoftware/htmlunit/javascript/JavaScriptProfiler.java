@@ -0,0 +1,334 @@
+/*
+ * Copyright (c) 2002-2020 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.javascript;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.StringUtils;
+
+import net.sourceforge.htmlunit.corejs.javascript.Context;
+import net.sourceforge.htmlunit.corejs.javascript.Scriptable;
+import net.sourceforge.htmlunit.corejs.javascript.debug.DebugFrame;
+import net.sourceforge.htmlunit.corejs.javascript.debug.DebuggableScript;
+
+/**
+ * A sampling profiler for the JavaScript code, built on the Rhino debugger hooks.
+ * <p>
+ * The profiler tracks the JavaScript call stack of every thread executing scripts; a background thread
+ * takes a sample of these stacks at a fixed interval. Each frame is identified by its function name,
+ * source (usually the url of the script) and current line. The time is attributed proportionally to the
+ * number of samples; the executed instructions reported to
+ * {@link HtmlUnitContextFactory#observeInstructionCount(Context, int)} are attributed to the frame running
+ * at that time.
+ * <p>
+ * To enable the profiler for a client, set it as debugger:
+ * <pre>
+ * final JavaScriptProfiler profiler = new JavaScriptProfiler();
+ * ((JavaScriptEngine) webClient.getJavaScriptEngine()).getContextFactory().setDebugger(profiler);
+ * ...
+ * profiler.writeFoldedStacks(writer);
+ * profiler.stop();
+ * </pre>
+ * The same profiler can be used by several clients to aggregate the results. As for all debuggers,
+ * the scripts run in interpreted mode while the profiler is set; the per call overhead is limited to
+ * the allocation of the frame, the sampling itself is done outside of the script threads.
+ *
+ * @author agent (agent@local)
+ */
+public class JavaScriptProfiler extends DebuggerAdapter {
+
+    /** The default sampling interval (in milliseconds). */
+    public static final long DEFAULT_SAMPLING_INTERVAL = 10;
+
+    private final long samplingInterval_;
+    private final Map<Thread, ThreadState> threads_ = new ConcurrentHashMap<>();
+    private final ThreadLocal<ThreadState> threadState_ = new ThreadLocal<>();
+
+    private final Map<String, AtomicLong> stackSamples_ = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> sourceSamples_ = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> instructionCounts_ = new ConcurrentHashMap<>();
+    private final AtomicLong sampleCount_ = new AtomicLong();
+
+    private ScheduledThreadPoolExecutor sampler_;
+    private boolean stopped_;
+
+    /**
+     * Creates a profiler sampling every {@link #DEFAULT_SAMPLING_INTERVAL} milliseconds.
+     */
+    public JavaScriptProfiler() {
+        this(DEFAULT_SAMPLING_INTERVAL);
+    }
+
+    /**
+     * Creates a profiler.
+     * @param samplingInterval the interval between two samples (in milliseconds)
+     */
+    public JavaScriptProfiler(final long samplingInterval) {
+        if (samplingInterval <= 0) {
+            throw new IllegalArgumentException("Invalid sampling interval: " + samplingInterval);
+        }
+        samplingInterval_ = samplingInterval;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DebugFrame getFrame(final Context cx, final DebuggableScript functionOrScript) {
+        ThreadState state = threadState_.get();
+        if (state == null) {
+            startSampler();
+            state = new ThreadState();
+            threadState_.set(state);
+            threads_.put(Thread.currentThread(), state);
+        }
+        return new ProfilerFrame(state, functionOrScript);
+    }
+
+    private synchronized void startSampler() {
+        if (sampler_ != null || stopped_) {
+            return;
+        }
+
+        sampler_ = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "HtmlUnit JavaScriptProfiler");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        sampler_.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                sample();
+            }
+        }, samplingInterval_, samplingInterval_, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the sampling; the collected data stays available.
+     */
+    public synchronized void stop() {
+        stopped_ = true;
+        if (sampler_ != null) {
+            sampler_.shutdownNow();
+            sampler_ = null;
+        }
+    }
+
+    /**
+     * Takes one sample of the stacks of all the threads executing scripts.
+     */
+    void sample() {
+        final List<ProfilerFrame> frames = new ArrayList<>();
+        for (final Iterator<Map.Entry<Thread, ThreadState>> it = threads_.entrySet().iterator(); it.hasNext();) {
+            final Map.Entry<Thread, ThreadState> entry = it.next();
+            if (!entry.getKey().isAlive()) {
+                it.remove();
+                continue;
+            }
+
+            ProfilerFrame frame = entry.getValue().top_;
+            if (frame == null) {
+                continue;
+            }
+
+            frames.clear();
+            while (frame != null) {
+                frames.add(frame);
+                frame = frame.parent_;
+            }
+
+            final StringBuilder stack = new StringBuilder();
+            for (int i = frames.size() - 1; i >= 0; i--) {
+                stack.append(frames.get(i).getLabel());
+                if (i > 0) {
+                    stack.append(';');
+                }
+            }
+            increment(stackSamples_, stack.toString(), 1);
+            increment(sourceSamples_, frames.get(0).getSourceName(), 1);
+            sampleCount_.incrementAndGet();
+        }
+    }
+
+    /**
+     * Attributes executed instructions to the frame currently running in the current thread.
+     * @param instructionCount the number of instructions executed
+     */
+    void instructionsExecuted(final int instructionCount) {
+        final ThreadState state = threadState_.get();
+        if (state != null) {
+            final ProfilerFrame frame = state.top_;
+            if (frame != null) {
+                increment(instructionCounts_, frame.getLabel(), instructionCount);
+            }
+        }
+    }
+
+    private static void increment(final Map<String, AtomicLong> counts, final String key, final long value) {
+        AtomicLong count = counts.get(key);
+        if (count == null) {
+            final AtomicLong newCount = new AtomicLong();
+            count = counts.putIfAbsent(key, newCount);
+            if (count == null) {
+                count = newCount;
+            }
+        }
+        count.addAndGet(value);
+    }
+
+    private static Map<String, Long> snapshot(final Map<String, AtomicLong> counts) {
+        final Map<String, Long> result = new HashMap<>();
+        for (final Map.Entry<String, AtomicLong> entry : counts.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().get());
+        }
+        return result;
+    }
+
+    /**
+     * @return the interval between two samples (in milliseconds)
+     */
+    public long getSamplingInterval() {
+        return samplingInterval_;
+    }
+
+    /**
+     * @return the total number of samples taken
+     */
+    public long getSampleCount() {
+        return sampleCount_.get();
+    }
+
+    /**
+     * Returns the number of samples per stack; the frames are separated by <tt>;</tt>,
+     * from the outermost to the running one.
+     * @return the samples per stack
+     */
+    public Map<String, Long> getStackSamples() {
+        return snapshot(stackSamples_);
+    }
+
+    /**
+     * Returns the number of samples per source (script url) of the running frame.
+     * Multiplied by the sampling interval, this is an estimation of the time spent in each script.
+     * @return the samples per source
+     */
+    public Map<String, Long> getSourceSamples() {
+        return snapshot(sourceSamples_);
+    }
+
+    /**
+     * Returns the number of instructions executed per frame. Rhino only reports the instructions
+     * by blocks of several thousands, the counts are therefore a statistical view too.
+     * @return the instructions per frame
+     */
+    public Map<String, Long> getInstructionCounts() {
+        return snapshot(instructionCounts_);
+    }
+
+    /**
+     * Writes the collected samples in the 'folded stacks' format used by the flame graph tools
+     * (one line per stack: the frames separated by <tt>;</tt>, a space and the number of samples).
+     * @param writer the writer to write to
+     * @throws IOException in case of error
+     */
+    public void writeFoldedStacks(final Writer writer) throws IOException {
+        for (final Map.Entry<String, Long> entry : getStackSamples().entrySet()) {
+            writer.write(entry.getKey());
+            writer.write(' ');
+            writer.write(Long.toString(entry.getValue()));
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    /**
+     * Discards the collected data.
+     */
+    public void reset() {
+        stackSamples_.clear();
+        sourceSamples_.clear();
+        instructionCounts_.clear();
+        sampleCount_.set(0);
+    }
+
+    /**
+     * The JavaScript stack of one thread.
+     */
+    private static final class ThreadState {
+        private volatile ProfilerFrame top_;
+    }
+
+    /**
+     * One frame of the stack; the frames of a thread form a linked list from the running one
+     * to the outermost one, read without locking by the sampler.
+     */
+    private static final class ProfilerFrame extends DebugFrameAdapter {
+        private final ThreadState state_;
+        private final DebuggableScript functionOrScript_;
+        private ProfilerFrame parent_;
+        private volatile int line_;
+
+        ProfilerFrame(final ThreadState state, final DebuggableScript functionOrScript) {
+            state_ = state;
+            functionOrScript_ = functionOrScript;
+        }
+
+        @Override
+        public void onEnter(final Context cx, final Scriptable activation,
+                final Scriptable thisObj, final Object[] args) {
+            parent_ = state_.top_;
+            state_.top_ = this;
+        }
+
+        @Override
+        public void onLineChange(final Context cx, final int lineNumber) {
+            line_ = lineNumber;
+        }
+
+        @Override
+        public void onExit(final Context cx, final boolean byThrow, final Object resultOrException) {
+            if (state_.top_ == this) {
+                state_.top_ = parent_;
+            }
+        }
+
+        String getSourceName() {
+            return StringUtils.defaultString(functionOrScript_.getSourceName(), "unknown");
+        }
+
+        String getLabel() {
+            String name = functionOrScript_.getFunctionName();
+            if (StringUtils.isEmpty(name)) {
+                name = functionOrScript_.isFunction() ? "(anonymous)" : "(script)";
+            }
+            // ';' separates the frames in the folded format
+            return StringUtils.replaceChars(name + " (" + getSourceName() + ':' + line_ + ')', ';', ',');
+        }
+    }
+}
@@ -17,7 +17,12 @@ package com.gargoylesoftware.htmlunit.javascript;
 import static com.gargoylesoftware.htmlunit.BrowserVersionFeatures.HTMLIMAGE_HTMLELEMENT;
 import static com.gargoylesoftware.htmlunit.BrowserVersionFeatures.HTMLIMAGE_HTMLUNKNOWNELEMENT;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -53,6 +58,9 @@ public class SimpleScriptable extends HtmlUnitScriptable implements Cloneable {
 
     private static final Log LOG = LogFactory.getLog(SimpleScriptable.class);
 
+    /** The constructors of the host classes, adapted to return a {@link SimpleScriptable}. */
+    private static final Map<Class<?>, MethodHandle> FACTORIES = new ConcurrentHashMap<>();
+
     private DomNode domNode_;
     private boolean caseSensitive_ = true;
 
@@ -207,9 +215,8 @@ public class SimpleScriptable extends HtmlUnitScriptable implements Cloneable {
         if (javaScriptClass == null) {
             final JavaScriptEngine javaScriptEngine =
                     (JavaScriptEngine) getWindow().getWebWindow().getWebClient().getJavaScriptEngine();
-            for (Class<?> c = domNode.getClass(); javaScriptClass == null && c != null; c = c.getSuperclass()) {
-                javaScriptClass = (Class<? extends SimpleScriptable>) javaScriptEngine.getJavaScriptClass(c);
-            }
+            javaScriptClass = (Class<? extends SimpleScriptable>) javaScriptEngine.getJavaScriptConfiguration()
+                    .findDomJavaScriptMappingFor(domNode.getClass());
         }
 
         final SimpleScriptable scriptable;
@@ -221,21 +228,45 @@ public class SimpleScriptable extends HtmlUnitScriptable implements Cloneable {
             }
         }
         else {
-            try {
-                scriptable = javaScriptClass.newInstance();
-            }
-            catch (final Exception e) {
-                throw Context.throwAsScriptRuntimeEx(e);
-            }
+            scriptable = createScriptable(javaScriptClass);
         }
         initParentScope(domNode, scriptable);
 
         scriptable.setPrototype(getPrototype(javaScriptClass));
         scriptable.setDomNode(domNode);
+        domNode.getPage().scriptObjectCreated();
 
         return scriptable;
     }
 
+    /**
+     * Creates a new instance of the specified host class using its default constructor.
+     * The constructor handle is looked up only once per class.
+     * @param javaScriptClass the host class
+     * @return the new instance
+     */
+    protected static SimpleScriptable createScriptable(final Class<? extends SimpleScriptable> javaScriptClass) {
+        MethodHandle factory = FACTORIES.get(javaScriptClass);
+        if (factory == null) {
+            try {
+                factory = MethodHandles.publicLookup()
+                        .findConstructor(javaScriptClass, MethodType.methodType(void.class))
+                        .asType(MethodType.methodType(SimpleScriptable.class));
+            }
+            catch (final NoSuchMethodException | IllegalAccessException e) {
+                throw Context.throwAsScriptRuntimeEx(e);
+            }
+            FACTORIES.put(javaScriptClass, factory);
+        }
+
+        try {
+            return (SimpleScriptable) factory.invokeExact();
+        }
+        catch (final Throwable t) {
+            throw Context.throwAsScriptRuntimeEx(t);
+        }
+    }
+
     /**
      * Initialize the parent scope of a newly created scriptable.
      * @param domNode the DOM node for the script object
@@ -47,6 +47,15 @@ public interface JavaScriptJobManager extends Serializable {
      */
     int getJobCount();
 
+    /**
+     * Returns the number of jobs executed so far (every execution of a periodic job is counted).
+     * The default implementation returns 0.
+     * @return the number of executed jobs
+     */
+    default long getExecutedJobCount() {
+        return 0;
+    }
+
     /**
      * Returns the number of active jobs, including jobs that are currently executing and jobs that are
      * waiting to execute. Only jobs passing the filter are counted.
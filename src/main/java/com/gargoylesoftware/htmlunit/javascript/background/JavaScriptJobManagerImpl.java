@@ -25,6 +25,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import com.gargoylesoftware.htmlunit.Page;
+import com.gargoylesoftware.htmlunit.WebClientMetrics;
 import com.gargoylesoftware.htmlunit.WebWindow;
 
 /**
@@ -58,6 +59,8 @@ class JavaScriptJobManagerImpl implements JavaScriptJobManager {
 
     private transient JavaScriptJob currentlyRunningJob_;
 
+    private long executedJobCount_;
+
     /** A counter used to generate the IDs assigned to {@link JavaScriptJob}s. */
     private static final AtomicInteger NEXT_JOB_ID_ = new AtomicInteger(1);
 
@@ -79,6 +82,12 @@ class JavaScriptJobManagerImpl implements JavaScriptJobManager {
         return scheduledJobsQ_.size() + (currentlyRunningJob_ != null ? 1 : 0);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public synchronized long getExecutedJobCount() {
+        return executedJobCount_;
+    }
+
     /** {@inheritDoc} */
     @Override
     public synchronized int getJobCount(final JavaScriptJobFilter filter) {
@@ -436,9 +445,17 @@ class JavaScriptJobManagerImpl implements JavaScriptJobManager {
                 if (job == currentlyRunningJob_) {
                     currentlyRunningJob_ = null;
                 }
+                executedJobCount_++;
                 notify();
             }
         }
+        final WebWindow window = getWindow();
+        if (window != null) {
+            final WebClientMetrics metrics = window.getWebClient().getMetrics();
+            if (metrics != null) {
+                metrics.jobExecuted();
+            }
+        }
         if (debug) {
             final String periodicJob = isPeriodicJob ? "interval " : "";
             LOG.debug("Finished " + periodicJob + "job " + job);
@@ -55,6 +55,8 @@ public abstract class AbstractJavaScriptConfiguration {
     private static final Map<String, String> CLASS_NAME_MAP_ = new ConcurrentHashMap<>();
 
     private Map<Class<?>, Class<? extends HtmlUnitScriptable>> domJavaScriptMap_;
+    private final Map<Class<?>, Class<? extends HtmlUnitScriptable>> domJavaScriptHierarchyMap_
+            = new ConcurrentHashMap<>();
 
     private final Map<String, ClassConfiguration> configuration_;
 
@@ -393,4 +395,23 @@ public abstract class AbstractJavaScriptConfiguration {
 
         return domJavaScriptMap_.get(clazz);
     }
+
+    /**
+     * Returns the JavaScript class mapped to the specified DOM class or, if there is none,
+     * to its nearest superclass having one. The result is cached per DOM class.
+     * @param clazz the DOM class
+     * @return the JavaScript class or {@code null}
+     */
+    public Class<? extends HtmlUnitScriptable> findDomJavaScriptMappingFor(final Class<?> clazz) {
+        Class<? extends HtmlUnitScriptable> javaScriptClass = domJavaScriptHierarchyMap_.get(clazz);
+        if (javaScriptClass == null) {
+            for (Class<?> c = clazz; javaScriptClass == null && c != null; c = c.getSuperclass()) {
+                javaScriptClass = getDomJavaScriptMappingFor(c);
+            }
+            if (javaScriptClass != null) {
+                domJavaScriptHierarchyMap_.put(clazz, javaScriptClass);
+            }
+        }
+        return javaScriptClass;
+    }
 }
@@ -30,7 +30,6 @@ import static com.gargoylesoftware.htmlunit.javascript.configuration.SupportedBr
 import static com.gargoylesoftware.htmlunit.javascript.configuration.SupportedBrowser.IE;
 
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
@@ -70,6 +69,7 @@ import com.gargoylesoftware.htmlunit.javascript.host.html.HTMLElement;
 import com.gargoylesoftware.htmlunit.javascript.host.html.HTMLElement.ProxyDomNode;
 import com.gargoylesoftware.htmlunit.javascript.host.html.HTMLScriptElement;
 import com.gargoylesoftware.htmlunit.javascript.host.html.HTMLStyleElement;
+import com.gargoylesoftware.htmlunit.util.WeakValueCache;
 
 import net.sourceforge.htmlunit.corejs.javascript.BaseFunction;
 import net.sourceforge.htmlunit.corejs.javascript.Context;
@@ -100,7 +100,10 @@ public class Element extends Node {
     private static final Pattern PRINT_NODE_QUOTE_PATTERN = Pattern.compile("\"");
 
     private NamedNodeMap attributes_;
-    private Map<String, HTMLCollection> elementsByTagName_; // for performance and for equality (==)
+    // for performance and for equality (==), as long as the collection is referenced
+    private transient WeakValueCache<String, HTMLCollection> elementsByTagName_;
+    // for performance and for equality (==), as long as the collection is referenced
+    private transient WeakValueCache<String, HTMLCollection> elementsByClassName_;
     private int scrollLeft_;
     private int scrollTop_;
     private CSSStyleDeclaration style_;
@@ -221,7 +224,7 @@ public class Element extends Node {
         final String tagNameLC = tagName.toLowerCase(Locale.ROOT);
 
         if (elementsByTagName_ == null) {
-            elementsByTagName_ = new HashMap<>();
+            elementsByTagName_ = new WeakValueCache<>();
         }
 
         HTMLCollection collection = elementsByTagName_.get(tagNameLC);
@@ -240,6 +243,11 @@ public class Element extends Node {
         }
         else {
             collection = new HTMLCollection(node, false) {
+                @Override
+                protected Iterable<DomNode> getCandidates() {
+                    return getCandidatesByTagName(tagNameLC);
+                }
+
                 @Override
                 protected boolean isMatching(final DomNode nodeToMatch) {
                     return tagNameLC.equalsIgnoreCase(nodeToMatch.getNodeName());
@@ -247,7 +255,7 @@ public class Element extends Node {
             };
         }
 
-        elementsByTagName_.put(tagName, collection);
+        elementsByTagName_.put(tagNameLC, collection);
 
         return collection;
     }
@@ -647,10 +655,35 @@ public class Element extends Node {
      */
     @JsxFunction({CHROME, EDGE, FF, FF68})
     public HTMLCollection getElementsByClassName(final String className) {
+        if (elementsByClassName_ == null) {
+            elementsByClassName_ = new WeakValueCache<>();
+        }
+
+        HTMLCollection collection = elementsByClassName_.get(className);
+        if (collection != null) {
+            return collection;
+        }
+
         final DomElement elt = getDomNodeOrDie();
         final String[] classNames = CLASS_NAMES_SPLIT_PATTERN.split(className, 0);
+        String indexedClassName = null;
+        for (final String aClassName : classNames) {
+            if (!aClassName.isEmpty()) {
+                indexedClassName = aClassName;
+                break;
+            }
+        }
+        final String candidatesClassName = indexedClassName;
+
+        collection = new HTMLCollection(elt, true) {
+            @Override
+            protected Iterable<DomNode> getCandidates() {
+                if (candidatesClassName == null) {
+                    return super.getCandidates();
+                }
+                return getCandidatesByClassName(candidatesClassName);
+            }
 
-        final HTMLCollection collection = new HTMLCollection(elt, true) {
             @Override
             protected boolean isMatching(final DomNode node) {
                 if (!(node instanceof HtmlElement)) {
@@ -671,6 +704,8 @@ public class Element extends Node {
             }
         };
 
+        elementsByClassName_.put(className, collection);
+
         return collection;
     }
 
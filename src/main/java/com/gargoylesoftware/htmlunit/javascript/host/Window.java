@@ -215,6 +215,14 @@ public class Window extends EventTarget implements WindowOrWorkerGlobalScope, Fu
     private static final class CSSPropertiesCache implements Serializable {
         private transient WeakHashMap<Element, Map<String, CSS2Properties>> computedStyles_ = new WeakHashMap<>();
 
+        /**
+         * The node of the last attribute change, as long as no style was computed since then;
+         * further attribute changes of this node have nothing to evict (e.g. a script writing
+         * several style properties of an element in a row).
+         */
+        private transient DomNode lastAttributeChanged_;
+        private transient boolean lastAttributeChangedClearParents_;
+
         CSSPropertiesCache() {
         }
 
@@ -227,6 +235,7 @@ public class Window extends EventTarget implements WindowOrWorkerGlobalScope, Fu
         }
 
         public synchronized void put(final Element element, final String normalizedPseudo, final CSS2Properties style) {
+            lastAttributeChanged_ = null;
             Map<String, CSS2Properties> elementMap = computedStyles_.get(element);
             if (elementMap == null) {
                 elementMap = new WeakHashMap<>();
@@ -235,7 +244,17 @@ public class Window extends EventTarget implements WindowOrWorkerGlobalScope, Fu
             elementMap.put(normalizedPseudo, style);
         }
 
+        public synchronized void attributeChanged(final DomNode changed, final boolean clearParents) {
+            if (changed == lastAttributeChanged_ && (lastAttributeChangedClearParents_ || !clearParents)) {
+                return;
+            }
+            nodeChanged(changed, clearParents);
+            lastAttributeChanged_ = changed;
+            lastAttributeChangedClearParents_ = clearParents;
+        }
+
         public synchronized void nodeChanged(final DomNode changed, final boolean clearParents) {
+            lastAttributeChanged_ = null;
             final Iterator<Map.Entry<Element, Map<String, CSS2Properties>>> i = computedStyles_.entrySet().iterator();
             while (i.hasNext()) {
                 final Map.Entry<Element, Map<String, CSS2Properties>> entry = i.next();
@@ -2079,7 +2098,12 @@ public class Window extends EventTarget implements WindowOrWorkerGlobalScope, Fu
 
             // Apparently it wasn't a stylesheet that changed; be semi-smart about what we evict and when.
             final boolean clearParents = ATTRIBUTES_AFFECTING_PARENT.contains(attribName);
-            cssPropertiesCache_.nodeChanged(changed, clearParents);
+            if (attribName == null) {
+                cssPropertiesCache_.nodeChanged(changed, clearParents);
+            }
+            else {
+                cssPropertiesCache_.attributeChanged(changed, clearParents);
+            }
         }
     }
 
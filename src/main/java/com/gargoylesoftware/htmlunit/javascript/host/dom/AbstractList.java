@@ -16,17 +16,17 @@ package com.gargoylesoftware.htmlunit.javascript.host.dom;
 
 import static com.gargoylesoftware.htmlunit.BrowserVersionFeatures.HTMLCOLLECTION_NULL_IF_NOT_FOUND;
 
-import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
-import com.gargoylesoftware.htmlunit.html.DomChangeEvent;
-import com.gargoylesoftware.htmlunit.html.DomChangeListener;
+import com.gargoylesoftware.htmlunit.SgmlPage;
 import com.gargoylesoftware.htmlunit.html.DomElement;
 import com.gargoylesoftware.htmlunit.html.DomNode;
 import com.gargoylesoftware.htmlunit.html.HtmlAttributeChangeEvent;
-import com.gargoylesoftware.htmlunit.html.HtmlAttributeChangeListener;
 import com.gargoylesoftware.htmlunit.html.HtmlElement;
 import com.gargoylesoftware.htmlunit.html.HtmlPage;
 import com.gargoylesoftware.htmlunit.javascript.SimpleScriptable;
@@ -72,7 +72,17 @@ public class AbstractList extends SimpleScriptable implements Function, External
      */
     private List<DomNode> cachedElements_;
 
-    private boolean listenerRegistered_;
+    /** The page and its DOM version {@link #cachedElements_} belong to. */
+    private SgmlPage cachedPage_;
+    private int cachedDomChangeVersion_;
+
+    /**
+     * The ids and names of the elements, used to answer quickly that a property
+     * (like <tt>forEach</tt> or <tt>item</tt>) is not the id or name of one of the elements.
+     */
+    private Set<String> cachedIdsAndNames_;
+    private List<DomNode> cachedIdsAndNamesElements_;
+    private int cachedIdsAndNamesVersion_;
 
     /**
      * Creates an instance.
@@ -122,7 +132,7 @@ public class AbstractList extends SimpleScriptable implements Function, External
         attributeChangeSensitive_ = attributeChangeSensitive;
         cachedElements_ = initialElements;
         if (initialElements != null) {
-            registerListener();
+            rememberDomChangeVersion();
         }
         setExternalArrayData(this);
     }
@@ -192,7 +202,7 @@ public class AbstractList extends SimpleScriptable implements Function, External
         super.setDomNode(domNode, assignScriptObject);
 
         if (oldDomNode != domNode) {
-            listenerRegistered_ = false;
+            cachedPage_ = null;
         }
     }
 
@@ -204,7 +214,8 @@ public class AbstractList extends SimpleScriptable implements Function, External
         // a bit strange but we like to avoid sync
         List<DomNode> cachedElements = cachedElements_;
 
-        if (cachedElements == null) {
+        if (cachedElements == null || !isCacheValid()) {
+            rememberDomChangeVersion();
             if (getParentScope() == null) {
                 cachedElements = new ArrayList<>();
             }
@@ -213,30 +224,62 @@ public class AbstractList extends SimpleScriptable implements Function, External
             }
             cachedElements_ = cachedElements;
         }
-        registerListener();
 
-        // maybe the cache was cleared in between
-        // then this returns the old state and never null
         return cachedElements;
     }
 
-    private void registerListener() {
-        if (!listenerRegistered_) {
-            final DomNode domNode = getDomNodeOrNull();
-            if (domNode != null) {
-                final DomHtmlAttributeChangeListenerImpl listener = new DomHtmlAttributeChangeListenerImpl(this);
-                domNode.addDomChangeListener(listener);
-                if (attributeChangeSensitive_) {
-                    if (domNode instanceof HtmlElement) {
-                        ((HtmlElement) domNode).addHtmlAttributeChangeListener(listener);
-                    }
-                    else if (domNode instanceof HtmlPage) {
-                        ((HtmlPage) domNode).addHtmlAttributeChangeListener(listener);
-                    }
+    private void rememberDomChangeVersion() {
+        final DomNode domNode = getDomNodeOrNull();
+        if (domNode == null) {
+            cachedPage_ = null;
+            return;
+        }
+        cachedPage_ = domNode.getPage();
+        if (cachedPage_ != null) {
+            cachedDomChangeVersion_ = cachedPage_.getDomChangeVersion();
+        }
+    }
+
+    /**
+     * Checks whether the DOM was changed since the cache was filled in a way affecting this collection.
+     * Instead of listeners registered for every collection, this uses the DOM version of the page.
+     * @return {@code true} if the cache is still valid
+     */
+    private boolean isCacheValid() {
+        final DomNode domNode = getDomNodeOrNull();
+        if (domNode == null) {
+            return true;
+        }
+
+        final SgmlPage page = domNode.getPage();
+        if (page == null || page != cachedPage_) {
+            return false;
+        }
+
+        final int version = page.getDomChangeVersion();
+        if (version == cachedDomChangeVersion_) {
+            return true;
+        }
+
+        final Object[] changes = page.getDomChangesSince(cachedDomChangeVersion_);
+        if (changes == null) {
+            return false;
+        }
+        for (final Object change : changes) {
+            if (change instanceof HtmlAttributeChangeEvent) {
+                final HtmlAttributeChangeEvent event = (HtmlAttributeChangeEvent) change;
+                if (attributeChangeSensitive_ && domNode.isAncestorOf(event.getHtmlElement())
+                        && EffectOnCache.RESET == getEffectOnCache(event)) {
+                    return false;
                 }
-                listenerRegistered_ = true;
+            }
+            else if (domNode.isAncestorOf((DomNode) change)) {
+                // nodes added or removed inside of the collection root
+                return false;
             }
         }
+        cachedDomChangeVersion_ = version;
+        return true;
     }
 
     /**
@@ -267,6 +310,42 @@ public class AbstractList extends SimpleScriptable implements Function, External
         return domNode.getDescendants();
     }
 
+    /**
+     * Gets the candidates having the specified local name, taken from the tag name index of the page.
+     * Falls back to all descendants of reference node if the index is not available.
+     * @param localNameLC the lower case local name
+     * @return the nodes
+     */
+    protected Iterable<DomNode> getCandidatesByTagName(final String localNameLC) {
+        final DomNode domNode = getDomNodeOrNull();
+        final SgmlPage page = domNode.getPage();
+        if (page instanceof HtmlPage && localNameLC.indexOf(':') == -1) {
+            final List<DomElement> elements = ((HtmlPage) page).getIndexedElementsByTagName(domNode, localNameLC);
+            if (elements != null) {
+                return Collections.<DomNode>unmodifiableList(elements);
+            }
+        }
+        return domNode.getDescendants();
+    }
+
+    /**
+     * Gets the candidates having the specified class name, taken from the class name index of the page.
+     * Falls back to all descendants of reference node if the index is not available.
+     * @param className the class name
+     * @return the nodes
+     */
+    protected Iterable<DomNode> getCandidatesByClassName(final String className) {
+        final DomNode domNode = getDomNodeOrNull();
+        final SgmlPage page = domNode.getPage();
+        if (page instanceof HtmlPage) {
+            final List<DomElement> elements = ((HtmlPage) page).getIndexedElementsByClassName(domNode, className);
+            if (elements != null) {
+                return Collections.<DomNode>unmodifiableList(elements);
+            }
+        }
+        return domNode.getDescendants();
+    }
+
     /**
      * Indicates if the node should belong to the collection.
      * Belongs to the refactoring effort to improve HTMLCollection's performance.
@@ -294,6 +373,9 @@ public class AbstractList extends SimpleScriptable implements Function, External
         }
 
         final List<DomNode> elements = getElements();
+        if (!isPossibleIdOrName(name, elements)) {
+            return NOT_FOUND;
+        }
 
         // See if there is an element in the element array with the specified id.
         final List<DomNode> matchingElements = new ArrayList<>();
@@ -320,6 +402,41 @@ public class AbstractList extends SimpleScriptable implements Function, External
         return getWithPreemptionByName(name, elements);
     }
 
+    /**
+     * Checks if the name can be the id or the name of one of the elements. Names not starting like an identifier
+     * are never excluded because some collections also accept them as (double) index.
+     * The ids and names are collected once per version of the DOM.
+     * @param name the property name
+     * @param elements the elements
+     * @return {@code false} if no element can be found for this name
+     */
+    private boolean isPossibleIdOrName(final String name, final List<DomNode> elements) {
+        if (name.isEmpty() || elements.isEmpty()) {
+            return true;
+        }
+        final char first = name.charAt(0);
+        if (!Character.isLetter(first) && first != '_' && first != '$') {
+            return true;
+        }
+
+        final int version = elements.get(0).getPage().getDomChangeVersion();
+        if (cachedIdsAndNames_ == null || cachedIdsAndNamesElements_ != elements
+                || cachedIdsAndNamesVersion_ != version) {
+            final Set<String> idsAndNames = new HashSet<>();
+            for (final DomNode node : elements) {
+                if (node instanceof DomElement) {
+                    final DomElement element = (DomElement) node;
+                    idsAndNames.add(element.getId());
+                    idsAndNames.add(element.getAttributeDirect("name"));
+                }
+            }
+            cachedIdsAndNames_ = idsAndNames;
+            cachedIdsAndNamesElements_ = elements;
+            cachedIdsAndNamesVersion_ = version;
+        }
+        return cachedIdsAndNames_.contains(name);
+    }
+
     /**
      * Constructs a new instance with an initial cache value.
      * @param parentScope the parent scope, on which we listen for changes
@@ -417,86 +534,6 @@ public class AbstractList extends SimpleScriptable implements Function, External
         return super.equivalentValues(other);
     }
 
-    private static final class DomHtmlAttributeChangeListenerImpl
-                                    implements DomChangeListener, HtmlAttributeChangeListener {
-
-        private transient WeakReference<AbstractList> nodeList_;
-
-        DomHtmlAttributeChangeListenerImpl(final AbstractList nodeList) {
-            super();
-
-            nodeList_ = new WeakReference<>(nodeList);
-        }
-
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public void nodeAdded(final DomChangeEvent event) {
-            clearCache();
-        }
-
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public void nodeDeleted(final DomChangeEvent event) {
-            clearCache();
-        }
-
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public void attributeAdded(final HtmlAttributeChangeEvent event) {
-            handleChangeOnCache(event);
-        }
-
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public void attributeRemoved(final HtmlAttributeChangeEvent event) {
-            handleChangeOnCache(event);
-        }
-
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public void attributeReplaced(final HtmlAttributeChangeEvent event) {
-            final AbstractList nodes = nodeList_.get();
-            if (null == nodes) {
-                return;
-            }
-            if (nodes.attributeChangeSensitive_) {
-                handleChangeOnCache(event);
-            }
-        }
-
-        private void handleChangeOnCache(final HtmlAttributeChangeEvent event) {
-            final AbstractList nodes = nodeList_.get();
-            if (null == nodes) {
-                return;
-            }
-
-            final EffectOnCache effectOnCache = nodes.getEffectOnCache(event);
-            if (EffectOnCache.NONE == effectOnCache) {
-                return;
-            }
-            if (EffectOnCache.RESET == effectOnCache) {
-                clearCache();
-            }
-        }
-
-        private void clearCache() {
-            final AbstractList nodes = nodeList_.get();
-            if (null != nodes) {
-                nodes.cachedElements_ = null;
-            }
-        }
-    }
-
     /**
      * Gets the effect of the change on an attribute of the reference node
      * on this collection's cache.
@@ -137,6 +137,7 @@ import com.gargoylesoftware.htmlunit.javascript.host.html.HTMLCollection;
 import com.gargoylesoftware.htmlunit.javascript.host.html.HTMLDocument;
 import com.gargoylesoftware.htmlunit.javascript.host.html.HTMLElement;
 import com.gargoylesoftware.htmlunit.util.EncodingSniffer;
+import com.gargoylesoftware.htmlunit.util.WeakValueCache;
 import com.gargoylesoftware.htmlunit.xml.XmlPage;
 
 import net.sourceforge.htmlunit.corejs.javascript.Callable;
@@ -250,6 +251,8 @@ public class Document extends Node {
     private ScriptableObject currentScript_;
     private transient FontFaceSet fonts_;
     private transient StyleSheetList styleSheetList_;
+    // for performance and for equality (==), as long as the collection is referenced
+    private transient WeakValueCache<String, HTMLCollection> elementsByTagName_;
 
     static {
         // commands
@@ -758,7 +761,17 @@ public class Document extends Node {
      */
     @JsxFunction
     public HTMLCollection getElementsByTagName(final String tagName) {
-        final HTMLCollection collection;
+        final String tagNameLC = tagName.toLowerCase(Locale.ROOT);
+
+        if (elementsByTagName_ == null) {
+            elementsByTagName_ = new WeakValueCache<>();
+        }
+
+        HTMLCollection collection = elementsByTagName_.get(tagNameLC);
+        if (collection != null) {
+            return collection;
+        }
+
         if ("*".equals(tagName)) {
             collection = new HTMLCollection(getDomNodeOrDie(), false) {
                 @Override
@@ -769,13 +782,20 @@ public class Document extends Node {
         }
         else {
             collection = new HTMLCollection(getDomNodeOrDie(), false) {
+                @Override
+                protected Iterable<DomNode> getCandidates() {
+                    return getCandidatesByTagName(tagNameLC);
+                }
+
                 @Override
                 protected boolean isMatching(final DomNode node) {
-                    return tagName.equalsIgnoreCase(node.getNodeName());
+                    return tagNameLC.equalsIgnoreCase(node.getNodeName());
                 }
             };
         }
 
+        elementsByTagName_.put(tagNameLC, collection);
+
         return collection;
     }
 
@@ -15,14 +15,20 @@
 package com.gargoylesoftware.htmlunit.javascript.host.event;
 
 import com.gargoylesoftware.htmlunit.html.DomNode;
+import com.gargoylesoftware.htmlunit.javascript.JavaScriptEngine;
 import com.gargoylesoftware.htmlunit.javascript.SimpleScriptable;
 
 import net.sourceforge.htmlunit.corejs.javascript.BaseFunction;
+import net.sourceforge.htmlunit.corejs.javascript.CompilerEnvirons;
 import net.sourceforge.htmlunit.corejs.javascript.Context;
 import net.sourceforge.htmlunit.corejs.javascript.Function;
 import net.sourceforge.htmlunit.corejs.javascript.JavaScriptException;
+import net.sourceforge.htmlunit.corejs.javascript.NativeObject;
+import net.sourceforge.htmlunit.corejs.javascript.Parser;
+import net.sourceforge.htmlunit.corejs.javascript.Script;
 import net.sourceforge.htmlunit.corejs.javascript.Scriptable;
 import net.sourceforge.htmlunit.corejs.javascript.ScriptableObject;
+import net.sourceforge.htmlunit.corejs.javascript.ast.AstRoot;
 
 /**
  * Allows to wrap event handler code as Function object.
@@ -62,14 +68,50 @@ public class EventHandler extends BaseFunction {
         final SimpleScriptable jsObj = node_.getScriptableObject();
         // compile "just in time"
         if (realFunction_ == null) {
-            realFunction_ = cx.compileFunction(jsObj, jsSnippet_, eventName_ + " event for " + node_
-                + " in " + node_.getPage().getUrl(), 0, null);
+            final Object engine = node_.getPage().getWebClient().getJavaScriptEngine();
+            if (engine instanceof JavaScriptEngine && ((JavaScriptEngine) engine).isSnippetCacheUsable()) {
+                realFunction_ = compileShared(cx, (JavaScriptEngine) engine, jsObj);
+            }
+            else {
+                realFunction_ = cx.compileFunction(jsObj, jsSnippet_, eventName_ + " event for " + node_
+                    + " in " + node_.getPage().getUrl(), 0, null);
+            }
             realFunction_.setParentScope(jsObj);
         }
 
         return realFunction_.call(cx, scope, thisObj, args);
     }
 
+    /**
+     * The same handler code is often used by many elements; the declaration is compiled only once
+     * (per engine) and each handler only creates its own function object from the shared script.
+     */
+    private Function compileShared(final Context cx, final JavaScriptEngine engine, final Scriptable jsObj) {
+        final String key = "handler\n" + jsSnippet_;
+        Script script = engine.getCachedSnippet(key);
+        if (script == null) {
+            final String sourceName = eventName_ + " event in " + node_.getPage().getUrl();
+
+            // like compileFunction(), ignore everything after the function when the code closes it
+            final CompilerEnvirons environs = new CompilerEnvirons();
+            environs.initFromContext(cx);
+            final AstRoot root = new Parser(environs).parse(jsSnippet_, sourceName, 0);
+            if (root.getFirstChild() != root.getLastChild()) {
+                return cx.compileFunction(jsObj, jsSnippet_, sourceName, 0, null);
+            }
+
+            script = cx.compileString(jsSnippet_, sourceName, 0, null);
+            engine.cacheSnippet(key, script);
+        }
+
+        // executing the declaration defines the function in a holder, not in the scope of the element
+        final NativeObject holder = new NativeObject();
+        holder.setParentScope(jsObj);
+        holder.setPrototype(ScriptableObject.getObjectPrototype(jsObj));
+        script.exec(cx, holder);
+        return (Function) holder.get("on" + eventName_, holder);
+    }
+
     /**
      * @see net.sourceforge.htmlunit.corejs.javascript.ScriptableObject#getDefaultValue(java.lang.Class)
      * @param typeHint the type hint
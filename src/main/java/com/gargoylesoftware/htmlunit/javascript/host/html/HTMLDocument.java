@@ -29,6 +29,7 @@ import static com.gargoylesoftware.htmlunit.javascript.configuration.SupportedBr
 import static com.gargoylesoftware.htmlunit.javascript.configuration.SupportedBrowser.IE;
 
 import java.io.IOException;
+import java.io.Serializable;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
@@ -109,6 +110,8 @@ public class HTMLDocument extends Document {
 
     /** The buffer that will be used for calls to document.write(). */
     private final StringBuilder writeBuilder_ = new StringBuilder();
+    /** The state of the scan of {@link #writeBuilder_}, to scan each written chunk only once. */
+    private WriteScanner writeScanner_ = new WriteScanner();
     private boolean writeInCurrentDocument_ = true;
 
     private boolean closePostponedAction_;
@@ -311,15 +314,16 @@ public class HTMLDocument extends Document {
             scheduleImplicitClose();
             return;
         }
-        final String bufferedContent = writeBuilder_.toString();
-        if (!canAlreadyBeParsed(bufferedContent)) {
+        if (!writeScanner_.scan(writeBuilder_)) {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("write: not enough content to parse it now");
             }
             return;
         }
 
+        final String bufferedContent = writeBuilder_.toString();
         writeBuilder_.setLength(0);
+        writeScanner_ = new WriteScanner();
         page.writeInParsedStream(bufferedContent);
     }
 
@@ -352,109 +356,140 @@ public class HTMLDocument extends Document {
      * @return {@code false} if it not well formed
      */
     static boolean canAlreadyBeParsed(final String content) {
-        // all <script> must have their </script> because the parser doesn't close automatically this tag
-        // All tags must be complete, that is from '<' to '>'.
-        ParsingStatus tagState = ParsingStatus.OUTSIDE;
-        int tagNameBeginIndex = 0;
-        int scriptTagCount = 0;
-        boolean tagIsOpen = true;
-        char stringBoundary = 0;
-        boolean stringSkipNextChar = false;
-        int index = 0;
-        char openingQuote = 0;
-        for (final char currentChar : content.toCharArray()) {
-            switch (tagState) {
-                case OUTSIDE:
-                    if (currentChar == '<') {
-                        tagState = ParsingStatus.START;
-                        tagIsOpen = true;
-                    }
-                    else if (scriptTagCount > 0 && (currentChar == '\'' || currentChar == '"')) {
-                        tagState = ParsingStatus.IN_STRING;
-                        stringBoundary = currentChar;
-                        stringSkipNextChar = false;
-                    }
-                    break;
-                case START:
-                    if (currentChar == '/') {
-                        tagIsOpen = false;
-                        tagNameBeginIndex = index + 1;
-                    }
-                    else {
-                        tagNameBeginIndex = index;
-                    }
-                    tagState = ParsingStatus.IN_NAME;
-                    break;
-                case IN_NAME:
-                    if (Character.isWhitespace(currentChar) || currentChar == '>') {
-                        final String tagName = content.substring(tagNameBeginIndex, index);
-                        if ("script".equalsIgnoreCase(tagName)) {
-                            if (tagIsOpen) {
-                                scriptTagCount++;
-                            }
-                            else if (scriptTagCount > 0) {
-                                // Ignore extra close tags for now. Let the parser deal with them.
-                                scriptTagCount--;
-                            }
+        return new WriteScanner().scan(content);
+    }
+
+    /**
+     * Scans the content written with <tt>document.write</tt> to find out if it can already be parsed.
+     * The state is kept between the calls, only the content appended since the last call is scanned:
+     * writing many small chunks costs the same as writing the whole content at once.
+     */
+    private static final class WriteScanner implements Serializable {
+        private ParsingStatus tagState_ = ParsingStatus.OUTSIDE;
+        private int tagNameBeginIndex_;
+        private int scriptTagCount_;
+        private boolean tagIsOpen_ = true;
+        private char stringBoundary_;
+        private boolean stringSkipNextChar_;
+        private char openingQuote_;
+        private int index_;
+
+        /**
+         * Scans the content appended since the last call.
+         * @param content the whole buffered content
+         * @return {@code false} if the buffered content is not well formed
+         */
+        boolean scan(final CharSequence content) {
+            // all <script> must have their </script> because the parser doesn't close automatically this tag
+            // All tags must be complete, that is from '<' to '>'.
+            final int length = content.length();
+            while (index_ < length) {
+                final char currentChar = content.charAt(index_);
+                switch (tagState_) {
+                    case OUTSIDE:
+                        if (currentChar == '<') {
+                            tagState_ = ParsingStatus.START;
+                            tagIsOpen_ = true;
+                        }
+                        else if (scriptTagCount_ > 0 && (currentChar == '\'' || currentChar == '"')) {
+                            tagState_ = ParsingStatus.IN_STRING;
+                            stringBoundary_ = currentChar;
+                            stringSkipNextChar_ = false;
                         }
-                        if (currentChar == '>') {
-                            tagState = ParsingStatus.OUTSIDE;
+                        break;
+                    case START:
+                        if (currentChar == '/') {
+                            tagIsOpen_ = false;
+                            tagNameBeginIndex_ = index_ + 1;
                         }
                         else {
-                            tagState = ParsingStatus.INSIDE;
+                            tagNameBeginIndex_ = index_;
                         }
-                    }
-                    else if (!Character.isLetter(currentChar)) {
-                        tagState = ParsingStatus.OUTSIDE;
-                    }
-                    break;
-                case INSIDE:
-                    if (currentChar == openingQuote) {
-                        openingQuote = 0;
-                    }
-                    else if (openingQuote == 0) {
-                        if (currentChar == '\'' || currentChar == '"') {
-                            openingQuote = currentChar;
+                        tagState_ = ParsingStatus.IN_NAME;
+                        break;
+                    case IN_NAME:
+                        if (Character.isWhitespace(currentChar) || currentChar == '>') {
+                            if (isScriptTagName(content, tagNameBeginIndex_, index_)) {
+                                if (tagIsOpen_) {
+                                    scriptTagCount_++;
+                                }
+                                else if (scriptTagCount_ > 0) {
+                                    // Ignore extra close tags for now. Let the parser deal with them.
+                                    scriptTagCount_--;
+                                }
+                            }
+                            if (currentChar == '>') {
+                                tagState_ = ParsingStatus.OUTSIDE;
+                            }
+                            else {
+                                tagState_ = ParsingStatus.INSIDE;
+                            }
                         }
-                        else if (currentChar == '>' && openingQuote == 0) {
-                            tagState = ParsingStatus.OUTSIDE;
+                        else if (!Character.isLetter(currentChar)) {
+                            tagState_ = ParsingStatus.OUTSIDE;
                         }
-                    }
-                    break;
-                case IN_STRING:
-                    if (stringSkipNextChar) {
-                        stringSkipNextChar = false;
-                    }
-                    else {
-                        if (currentChar == stringBoundary) {
-                            tagState = ParsingStatus.OUTSIDE;
+                        break;
+                    case INSIDE:
+                        if (currentChar == openingQuote_) {
+                            openingQuote_ = 0;
                         }
-                        else if (currentChar == '\\') {
-                            stringSkipNextChar = true;
+                        else if (openingQuote_ == 0) {
+                            if (currentChar == '\'' || currentChar == '"') {
+                                openingQuote_ = currentChar;
+                            }
+                            else if (currentChar == '>' && openingQuote_ == 0) {
+                                tagState_ = ParsingStatus.OUTSIDE;
+                            }
                         }
-                    }
-                    break;
-                default:
-                    // nothing
+                        break;
+                    case IN_STRING:
+                        if (stringSkipNextChar_) {
+                            stringSkipNextChar_ = false;
+                        }
+                        else {
+                            if (currentChar == stringBoundary_) {
+                                tagState_ = ParsingStatus.OUTSIDE;
+                            }
+                            else if (currentChar == '\\') {
+                                stringSkipNextChar_ = true;
+                            }
+                        }
+                        break;
+                    default:
+                        // nothing
+                }
+                index_++;
             }
-            index++;
-        }
-        if (scriptTagCount > 0 || tagState != ParsingStatus.OUTSIDE) {
-            if (LOG.isDebugEnabled()) {
-                final StringBuilder message = new StringBuilder()
-                    .append("canAlreadyBeParsed() retruns false for content: '")
-                    .append(StringUtils.abbreviateMiddle(content, ".", 100))
-                    .append("' (scriptTagCount: ")
-                        .append(Integer.toString(scriptTagCount))
-                    .append(" tagState: ")
-                        .append(tagState)
-                    .append(')');
-                LOG.debug(message.toString());
+            if (scriptTagCount_ > 0 || tagState_ != ParsingStatus.OUTSIDE) {
+                if (LOG.isDebugEnabled()) {
+                    final StringBuilder message = new StringBuilder()
+                        .append("canAlreadyBeParsed() retruns false for content: '")
+                        .append(StringUtils.abbreviateMiddle(content.toString(), ".", 100))
+                        .append("' (scriptTagCount: ")
+                            .append(Integer.toString(scriptTagCount_))
+                        .append(" tagState: ")
+                            .append(tagState_)
+                        .append(')');
+                    LOG.debug(message.toString());
+                }
+                return false;
             }
-            return false;
+
+            return true;
         }
 
-        return true;
+        private static boolean isScriptTagName(final CharSequence content, final int begin, final int end) {
+            final String script = "script";
+            if (end - begin != script.length()) {
+                return false;
+            }
+            for (int i = 0; i < script.length(); i++) {
+                if (Character.toLowerCase(content.charAt(begin + i)) != script.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
     }
 
     /**
@@ -598,6 +633,7 @@ public class HTMLDocument extends Document {
             webResponse.setFromJavascript(true);
             writeInCurrentDocument_ = true;
             writeBuilder_.setLength(0);
+            writeScanner_ = new WriteScanner();
 
             final WebClient webClient = page.getWebClient();
             final WebWindow window = page.getEnclosingWindow();
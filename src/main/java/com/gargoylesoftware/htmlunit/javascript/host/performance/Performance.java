@@ -14,12 +14,19 @@
  */
 package com.gargoylesoftware.htmlunit.javascript.host.performance;
 
+import static com.gargoylesoftware.htmlunit.BrowserVersionFeatures.JS_PERFORMANCE_NO_NAVIGATION_ENTRY;
 import static com.gargoylesoftware.htmlunit.javascript.configuration.SupportedBrowser.CHROME;
 import static com.gargoylesoftware.htmlunit.javascript.configuration.SupportedBrowser.EDGE;
 import static com.gargoylesoftware.htmlunit.javascript.configuration.SupportedBrowser.FF;
 import static com.gargoylesoftware.htmlunit.javascript.configuration.SupportedBrowser.FF68;
 import static com.gargoylesoftware.htmlunit.javascript.configuration.SupportedBrowser.IE;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import com.gargoylesoftware.htmlunit.Page;
+import com.gargoylesoftware.htmlunit.PageTimeline;
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
 import com.gargoylesoftware.htmlunit.javascript.SimpleScriptable;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxClass;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxConstructor;
@@ -27,6 +34,10 @@ import com.gargoylesoftware.htmlunit.javascript.configuration.JsxFunction;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxGetter;
 import com.gargoylesoftware.htmlunit.javascript.host.event.EventTarget;
 
+import net.sourceforge.htmlunit.corejs.javascript.Context;
+import net.sourceforge.htmlunit.corejs.javascript.Scriptable;
+import net.sourceforge.htmlunit.corejs.javascript.Undefined;
+
 /**
  * A JavaScript object for {@code Performance}.
  *
@@ -64,7 +75,14 @@ public class Performance extends EventTarget {
     @JsxGetter
     public PerformanceTiming getTiming() {
         if (timing_ == null) {
-            final PerformanceTiming timing = new PerformanceTiming();
+            final PageTimeline timeline = getPageTimeline();
+            final PerformanceTiming timing;
+            if (timeline == null) {
+                timing = new PerformanceTiming();
+            }
+            else {
+                timing = new PerformanceTiming(timeline);
+            }
             timing.setParentScope(getParentScope());
             timing.setPrototype(getPrototype(timing.getClass()));
             timing_ = timing;
@@ -73,6 +91,92 @@ public class Performance extends EventTarget {
         return timing_;
     }
 
+    private PageTimeline getPageTimeline() {
+        final Page page = getWindow().getWebWindow().getEnclosedPage();
+        if (page instanceof HtmlPage) {
+            return ((HtmlPage) page).getTimeline();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the navigation entry (if supported) followed by the entries of the resources loaded so far.
+     */
+    private List<PerformanceEntry> getAllEntries() {
+        final List<PerformanceEntry> entries = new ArrayList<>();
+        final PageTimeline timeline = getPageTimeline();
+        if (timeline == null) {
+            return entries;
+        }
+
+        if (!getBrowserVersion().hasFeature(JS_PERFORMANCE_NO_NAVIGATION_ENTRY)) {
+            final Page page = getWindow().getWebWindow().getEnclosedPage();
+            final PerformanceNavigationTiming navigation = new PerformanceNavigationTiming();
+            navigation.setParentScope(getParentScope());
+            navigation.setPrototype(getPrototype(navigation.getClass()));
+            navigation.setTimeline(page.getUrl().toExternalForm(), timeline);
+            entries.add(navigation);
+        }
+
+        final long origin = timeline.getNavigationStart();
+        for (final PageTimeline.ResourceTiming resource : timeline.getResources()) {
+            final PerformanceResourceTiming entry = new PerformanceResourceTiming();
+            entry.setParentScope(getParentScope());
+            entry.setPrototype(getPrototype(entry.getClass()));
+            entry.setTiming(resource.getName(), "resource", resource.getInitiatorType(), origin,
+                    resource.getStartTime(), resource.getEndTime(), resource.getNetworkTiming());
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private Scriptable toArray(final List<PerformanceEntry> entries) {
+        return Context.getCurrentContext().newArray(getWindow(), entries.toArray());
+    }
+
+    /**
+     * Returns the performance entries of the page: the navigation and the resources.
+     * @return the entries
+     */
+    @JsxFunction
+    public Scriptable getEntries() {
+        return toArray(getAllEntries());
+    }
+
+    /**
+     * Returns the performance entries of the specified type.
+     * @param type the entry type (<tt>navigation</tt> or <tt>resource</tt>)
+     * @return the entries
+     */
+    @JsxFunction
+    public Scriptable getEntriesByType(final String type) {
+        final List<PerformanceEntry> entries = new ArrayList<>();
+        for (final PerformanceEntry entry : getAllEntries()) {
+            if (entry.getEntryType().equals(type)) {
+                entries.add(entry);
+            }
+        }
+        return toArray(entries);
+    }
+
+    /**
+     * Returns the performance entries with the specified name.
+     * @param name the name (the url for the navigation and the resources)
+     * @param type the optional entry type
+     * @return the entries
+     */
+    @JsxFunction
+    public Scriptable getEntriesByName(final String name, final Object type) {
+        final List<PerformanceEntry> entries = new ArrayList<>();
+        for (final PerformanceEntry entry : getAllEntries()) {
+            if (entry.getName().equals(name)
+                    && (Undefined.isUndefined(type) || entry.getEntryType().equals(Context.toString(type)))) {
+                entries.add(entry);
+            }
+        }
+        return toArray(entries);
+    }
+
     /**
      * @return a timestamp
      */
@@ -22,6 +22,7 @@ import static com.gargoylesoftware.htmlunit.javascript.configuration.SupportedBr
 import com.gargoylesoftware.htmlunit.javascript.SimpleScriptable;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxClass;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxConstructor;
+import com.gargoylesoftware.htmlunit.javascript.configuration.JsxGetter;
 
 /**
  * A JavaScript object for {@code PerformanceEntry}.
@@ -32,6 +33,11 @@ import com.gargoylesoftware.htmlunit.javascript.configuration.JsxConstructor;
 @JsxClass
 public class PerformanceEntry extends SimpleScriptable {
 
+    private String name_ = "";
+    private String entryType_ = "";
+    private double startTime_;
+    private double duration_;
+
     /**
      * Creates an instance.
      */
@@ -39,4 +45,50 @@ public class PerformanceEntry extends SimpleScriptable {
     public PerformanceEntry() {
     }
 
+    /**
+     * Sets the values of this entry.
+     * @param name the name
+     * @param entryType the type
+     * @param startTime the start (in milliseconds since the start of the navigation)
+     * @param duration the duration (in milliseconds)
+     */
+    void setValues(final String name, final String entryType, final double startTime, final double duration) {
+        name_ = name;
+        entryType_ = entryType;
+        startTime_ = startTime;
+        duration_ = duration;
+    }
+
+    /**
+     * @return the name
+     */
+    @JsxGetter
+    public String getName() {
+        return name_;
+    }
+
+    /**
+     * @return the entry type
+     */
+    @JsxGetter
+    public String getEntryType() {
+        return entryType_;
+    }
+
+    /**
+     * @return the start time
+     */
+    @JsxGetter
+    public double getStartTime() {
+        return startTime_;
+    }
+
+    /**
+     * @return the duration
+     */
+    @JsxGetter
+    public double getDuration() {
+        return duration_;
+    }
+
 }
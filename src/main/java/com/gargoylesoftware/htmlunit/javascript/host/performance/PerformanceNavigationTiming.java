@@ -19,8 +19,11 @@ import static com.gargoylesoftware.htmlunit.javascript.configuration.SupportedBr
 import static com.gargoylesoftware.htmlunit.javascript.configuration.SupportedBrowser.FF;
 import static com.gargoylesoftware.htmlunit.javascript.configuration.SupportedBrowser.FF68;
 
+import com.gargoylesoftware.htmlunit.PageTimeline;
+import com.gargoylesoftware.htmlunit.WebResponseTiming;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxClass;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxConstructor;
+import com.gargoylesoftware.htmlunit.javascript.configuration.JsxGetter;
 
 /**
  * A JavaScript object for {@code PerformanceNavigationTiming}.
@@ -31,10 +34,120 @@ import com.gargoylesoftware.htmlunit.javascript.configuration.JsxConstructor;
 @JsxClass
 public class PerformanceNavigationTiming extends PerformanceResourceTiming {
 
+    private PageTimeline timeline_;
+
     /**
      * Creates an instance.
      */
     @JsxConstructor({CHROME, EDGE, FF, FF68})
     public PerformanceNavigationTiming() {
     }
+
+    /**
+     * Sets the timeline this entry reports.
+     * @param name the url of the page
+     * @param timeline the timeline of the page
+     */
+    void setTimeline(final String name, final PageTimeline timeline) {
+        timeline_ = timeline;
+        final WebResponseTiming timing = timeline.getResponseTiming();
+        final long origin = timeline.getNavigationStart();
+        long endTime = origin;
+        if (timing != null && timing.getResponseEnd() != 0) {
+            endTime = timing.getResponseEnd();
+        }
+        setTiming(name, "navigation", "navigation", origin, origin, endTime, timing);
+    }
+
+    /**
+     * Returns the time in milliseconds since the start of the navigation, 0 if the step didn't happen yet.
+     */
+    private double relative(final long time) {
+        if (time == 0) {
+            return 0;
+        }
+        return time - timeline_.getNavigationStart();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getDuration() {
+        return getLoadEventEnd();
+    }
+
+    /**
+     * @return the type of the navigation
+     */
+    @JsxGetter
+    public String getType() {
+        return "navigate";
+    }
+
+    /**
+     * @return the time the parsing of the page ended
+     */
+    @JsxGetter
+    public double getDomInteractive() {
+        if (timeline_ == null) {
+            return 0;
+        }
+        return relative(timeline_.getDomInteractive());
+    }
+
+    /**
+     * @return the time the <tt>DOMContentLoaded</tt> handlers started
+     */
+    @JsxGetter
+    public double getDomContentLoadedEventStart() {
+        if (timeline_ == null) {
+            return 0;
+        }
+        return relative(timeline_.getDomContentLoadedEventStart());
+    }
+
+    /**
+     * @return the time the <tt>DOMContentLoaded</tt> handlers ended
+     */
+    @JsxGetter
+    public double getDomContentLoadedEventEnd() {
+        if (timeline_ == null) {
+            return 0;
+        }
+        return relative(timeline_.getDomContentLoadedEventEnd());
+    }
+
+    /**
+     * @return the time the page was complete
+     */
+    @JsxGetter
+    public double getDomComplete() {
+        if (timeline_ == null) {
+            return 0;
+        }
+        return relative(timeline_.getDomComplete());
+    }
+
+    /**
+     * @return the time the <tt>load</tt> handlers started
+     */
+    @JsxGetter
+    public double getLoadEventStart() {
+        if (timeline_ == null) {
+            return 0;
+        }
+        return relative(timeline_.getLoadEventStart());
+    }
+
+    /**
+     * @return the time the <tt>load</tt> handlers ended
+     */
+    @JsxGetter
+    public double getLoadEventEnd() {
+        if (timeline_ == null) {
+            return 0;
+        }
+        return relative(timeline_.getLoadEventEnd());
+    }
 }
@@ -19,8 +19,10 @@ import static com.gargoylesoftware.htmlunit.javascript.configuration.SupportedBr
 import static com.gargoylesoftware.htmlunit.javascript.configuration.SupportedBrowser.FF;
 import static com.gargoylesoftware.htmlunit.javascript.configuration.SupportedBrowser.FF68;
 
+import com.gargoylesoftware.htmlunit.WebResponseTiming;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxClass;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxConstructor;
+import com.gargoylesoftware.htmlunit.javascript.configuration.JsxGetter;
 
 /**
  * A JavaScript object for {@code PerformanceResourceTiming}.
@@ -31,6 +33,17 @@ import com.gargoylesoftware.htmlunit.javascript.configuration.JsxConstructor;
 @JsxClass
 public class PerformanceResourceTiming extends PerformanceEntry {
 
+    private String initiatorType_ = "";
+    private double fetchStart_;
+    private double domainLookupStart_;
+    private double domainLookupEnd_;
+    private double connectStart_;
+    private double connectEnd_;
+    private double secureConnectionStart_;
+    private double requestStart_;
+    private double responseStart_;
+    private double responseEnd_;
+
     /**
      * Creates an instance.
      */
@@ -38,4 +51,127 @@ public class PerformanceResourceTiming extends PerformanceEntry {
     public PerformanceResourceTiming() {
     }
 
+    /**
+     * Sets the values of this entry; the times are converted to milliseconds since the start of the navigation.
+     * @param name the url of the resource
+     * @param entryType the type of the entry
+     * @param initiatorType the kind of resource
+     * @param origin the start of the navigation
+     * @param startTime the start of the load
+     * @param endTime the end of the load
+     * @param timing the network timings, may be {@code null} if the resource was not loaded from the network
+     */
+    void setTiming(final String name, final String entryType, final String initiatorType, final long origin,
+            final long startTime, final long endTime, final WebResponseTiming timing) {
+        initiatorType_ = initiatorType;
+        fetchStart_ = startTime - origin;
+        if (timing == null) {
+            domainLookupStart_ = fetchStart_;
+            domainLookupEnd_ = fetchStart_;
+            connectStart_ = fetchStart_;
+            connectEnd_ = fetchStart_;
+            requestStart_ = fetchStart_;
+            responseStart_ = fetchStart_;
+        }
+        else {
+            // no dns lookup and no connect if the connection was reused
+            domainLookupStart_ = relative(timing.getDomainLookupStart(), fetchStart_, origin);
+            domainLookupEnd_ = relative(timing.getDomainLookupEnd(), domainLookupStart_, origin);
+            connectStart_ = relative(timing.getConnectStart(), domainLookupEnd_, origin);
+            connectEnd_ = relative(timing.getConnectEnd(), connectStart_, origin);
+            secureConnectionStart_ = relative(timing.getSecureConnectionStart(), 0, origin);
+            requestStart_ = relative(timing.getRequestStart(), connectEnd_, origin);
+            responseStart_ = relative(timing.getResponseStart(), requestStart_, origin);
+        }
+        responseEnd_ = endTime - origin;
+        setValues(name, entryType, fetchStart_, responseEnd_ - fetchStart_);
+    }
+
+    private static double relative(final long value, final double fallback, final long origin) {
+        if (value == 0) {
+            return fallback;
+        }
+        return value - origin;
+    }
+
+    /**
+     * @return the initiator type
+     */
+    @JsxGetter
+    public String getInitiatorType() {
+        return initiatorType_;
+    }
+
+    /**
+     * @return the fetchStart
+     */
+    @JsxGetter
+    public double getFetchStart() {
+        return fetchStart_;
+    }
+
+    /**
+     * @return the domainLookupStart
+     */
+    @JsxGetter
+    public double getDomainLookupStart() {
+        return domainLookupStart_;
+    }
+
+    /**
+     * @return the domainLookupEnd
+     */
+    @JsxGetter
+    public double getDomainLookupEnd() {
+        return domainLookupEnd_;
+    }
+
+    /**
+     * @return the connectStart
+     */
+    @JsxGetter
+    public double getConnectStart() {
+        return connectStart_;
+    }
+
+    /**
+     * @return the connectEnd
+     */
+    @JsxGetter
+    public double getConnectEnd() {
+        return connectEnd_;
+    }
+
+    /**
+     * @return the secureConnectionStart
+     */
+    @JsxGetter
+    public double getSecureConnectionStart() {
+        return secureConnectionStart_;
+    }
+
+    /**
+     * @return the requestStart
+     */
+    @JsxGetter
+    public double getRequestStart() {
+        return requestStart_;
+    }
+
+    /**
+     * @return the responseStart
+     */
+    @JsxGetter
+    public double getResponseStart() {
+        return responseStart_;
+    }
+
+    /**
+     * @return the responseEnd
+     */
+    @JsxGetter
+    public double getResponseEnd() {
+        return responseEnd_;
+    }
+
 }
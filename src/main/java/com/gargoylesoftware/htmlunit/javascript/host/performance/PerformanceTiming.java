@@ -19,6 +19,8 @@ import static com.gargoylesoftware.htmlunit.javascript.configuration.SupportedBr
 import static com.gargoylesoftware.htmlunit.javascript.configuration.SupportedBrowser.FF;
 import static com.gargoylesoftware.htmlunit.javascript.configuration.SupportedBrowser.FF68;
 
+import com.gargoylesoftware.htmlunit.PageTimeline;
+import com.gargoylesoftware.htmlunit.WebResponseTiming;
 import com.gargoylesoftware.htmlunit.javascript.SimpleScriptable;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxClass;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxConstructor;
@@ -26,7 +28,8 @@ import com.gargoylesoftware.htmlunit.javascript.configuration.JsxGetter;
 
 /**
  * A JavaScript object for {@code PerformanceTiming}.
- * This implementation is a simple mock for the moment.
+ * The values are the real ones from the {@link PageTimeline} of the page; a standalone instance
+ * returns simulated values.
  *
  * @author Ahmed Ashour
  * @author Ronald Brill
@@ -52,6 +55,8 @@ public class PerformanceTiming extends SimpleScriptable {
     private final long navigationStart_;
     private final long fetchStart_;
 
+    private PageTimeline timeline_;
+
     /**
      * Creates an instance.
      */
@@ -81,11 +86,39 @@ public class PerformanceTiming extends SimpleScriptable {
         fetchStart_ = now;
     }
 
+    /**
+     * Creates an instance reporting the values of the specified timeline.
+     * @param timeline the timeline of the page
+     */
+    public PerformanceTiming(final PageTimeline timeline) {
+        this();
+        timeline_ = timeline;
+    }
+
+    /**
+     * Returns the value of the network timing if it was measured, the fallback otherwise
+     * (e.g. no dns lookup and no connect if the connection was reused).
+     */
+    private long network(final long value, final long fallback) {
+        return value == 0 ? fallback : value;
+    }
+
+    private WebResponseTiming getResponseTiming() {
+        final WebResponseTiming timing = timeline_.getResponseTiming();
+        if (timing == null) {
+            return new WebResponseTiming();
+        }
+        return timing;
+    }
+
     /**
      * @return a domainLookupStart
      */
     @JsxGetter
     public long getDomainLookupStart() {
+        if (timeline_ != null) {
+            return network(getResponseTiming().getDomainLookupStart(), getFetchStart());
+        }
         return domainLookupStart_;
     }
 
@@ -94,6 +127,9 @@ public class PerformanceTiming extends SimpleScriptable {
      */
     @JsxGetter
     public long getDomainLookupEnd() {
+        if (timeline_ != null) {
+            return network(getResponseTiming().getDomainLookupEnd(), getDomainLookupStart());
+        }
         return domainLookupEnd_;
     }
 
@@ -102,6 +138,9 @@ public class PerformanceTiming extends SimpleScriptable {
      */
     @JsxGetter
     public long getConnectStart() {
+        if (timeline_ != null) {
+            return network(getResponseTiming().getConnectStart(), getDomainLookupEnd());
+        }
         return connectStart_;
     }
 
@@ -110,6 +149,20 @@ public class PerformanceTiming extends SimpleScriptable {
      */
     @JsxGetter
     public long getConnectEnd() {
+        if (timeline_ != null) {
+            return network(getResponseTiming().getConnectEnd(), getConnectStart());
+        }
+        return connectEnd_;
+    }
+
+    /**
+     * @return a requestStart
+     */
+    @JsxGetter
+    public long getRequestStart() {
+        if (timeline_ != null) {
+            return network(getResponseTiming().getRequestStart(), getConnectEnd());
+        }
         return connectEnd_;
     }
 
@@ -118,6 +171,9 @@ public class PerformanceTiming extends SimpleScriptable {
      */
     @JsxGetter
     public long getResponseStart() {
+        if (timeline_ != null) {
+            return network(getResponseTiming().getResponseStart(), getRequestStart());
+        }
         return responseStart_;
     }
 
@@ -126,6 +182,9 @@ public class PerformanceTiming extends SimpleScriptable {
      */
     @JsxGetter
     public long getResponseEnd() {
+        if (timeline_ != null) {
+            return network(getResponseTiming().getResponseEnd(), getResponseStart());
+        }
         return responseEnd_;
     }
 
@@ -134,6 +193,9 @@ public class PerformanceTiming extends SimpleScriptable {
      */
     @JsxGetter({CHROME, EDGE, FF, FF68})
     public long getSecureConnectionStart() {
+        if (timeline_ != null) {
+            return getResponseTiming().getSecureConnectionStart();
+        }
         return 0;
     }
 
@@ -174,6 +236,9 @@ public class PerformanceTiming extends SimpleScriptable {
      */
     @JsxGetter
     public long getDomContentLoadedEventStart() {
+        if (timeline_ != null) {
+            return timeline_.getDomContentLoadedEventStart();
+        }
         return domContentLoadedEventStart_;
     }
 
@@ -182,6 +247,9 @@ public class PerformanceTiming extends SimpleScriptable {
      */
     @JsxGetter
     public long getDomLoading() {
+        if (timeline_ != null) {
+            return network(timeline_.getDomLoading(), getResponseEnd());
+        }
         return domLoading_;
     }
 
@@ -190,6 +258,9 @@ public class PerformanceTiming extends SimpleScriptable {
      */
     @JsxGetter
     public long getDomInteractive() {
+        if (timeline_ != null) {
+            return timeline_.getDomInteractive();
+        }
         return domInteractive_;
     }
 
@@ -198,6 +269,9 @@ public class PerformanceTiming extends SimpleScriptable {
      */
     @JsxGetter
     public long getDomContentLoadedEventEnd() {
+        if (timeline_ != null) {
+            return timeline_.getDomContentLoadedEventEnd();
+        }
         return domContentLoadedEventEnd_;
     }
 
@@ -206,6 +280,9 @@ public class PerformanceTiming extends SimpleScriptable {
      */
     @JsxGetter
     public long getDomComplete() {
+        if (timeline_ != null) {
+            return timeline_.getDomComplete();
+        }
         return domComplete_;
     }
 
@@ -214,6 +291,9 @@ public class PerformanceTiming extends SimpleScriptable {
      */
     @JsxGetter
     public long getLoadEventStart() {
+        if (timeline_ != null) {
+            return timeline_.getLoadEventStart();
+        }
         return loadEventStart_;
     }
 
@@ -222,6 +302,9 @@ public class PerformanceTiming extends SimpleScriptable {
      */
     @JsxGetter
     public long getLoadEventEnd() {
+        if (timeline_ != null) {
+            return timeline_.getLoadEventEnd();
+        }
         return loadEventEnd_;
     }
 
@@ -230,6 +313,9 @@ public class PerformanceTiming extends SimpleScriptable {
      */
     @JsxGetter
     public long getNavigationStart() {
+        if (timeline_ != null) {
+            return timeline_.getNavigationStart();
+        }
         return navigationStart_;
     }
 
@@ -238,6 +324,9 @@ public class PerformanceTiming extends SimpleScriptable {
      */
     @JsxGetter
     public long getFetchStart() {
+        if (timeline_ != null) {
+            return network(getResponseTiming().getFetchStart(), timeline_.getNavigationStart());
+        }
         return fetchStart_;
     }
 }
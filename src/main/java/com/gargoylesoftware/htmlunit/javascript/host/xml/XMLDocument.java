@@ -214,12 +214,7 @@ public class XMLDocument extends Document {
                 final Class<? extends HtmlUnitScriptable> javaScriptClass
                     = ((JavaScriptEngine) getWindow().getWebWindow().getWebClient()
                         .getJavaScriptEngine()).getJavaScriptClass(domNode.getClass());
-                try {
-                    scriptable = (SimpleScriptable) javaScriptClass.newInstance();
-                }
-                catch (final Exception e) {
-                    throw Context.throwAsScriptRuntimeEx(e);
-                }
+                scriptable = createScriptable(javaScriptClass.asSubclass(SimpleScriptable.class));
             }
             else {
                 scriptable = new Element();
@@ -235,6 +230,7 @@ public class XMLDocument extends Document {
         scriptable.setPrototype(getPrototype(scriptable.getClass()));
         scriptable.setParentScope(getParentScope());
         scriptable.setDomNode(domNode);
+        domNode.getPage().scriptObjectCreated();
         return scriptable;
     }
 
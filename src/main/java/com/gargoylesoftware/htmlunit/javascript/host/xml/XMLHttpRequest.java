@@ -749,7 +749,11 @@ public class XMLHttpRequest extends XMLHttpRequestEventTarget {
                     return;
                 }
             }
+            final long start = System.currentTimeMillis();
             final WebResponse webResponse = wc.loadWebResponse(webRequest_);
+            if (containingPage_ != null) {
+                containingPage_.getTimeline().addResource("xmlhttprequest", start, webResponse);
+            }
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Web response loaded successfully.");
             }
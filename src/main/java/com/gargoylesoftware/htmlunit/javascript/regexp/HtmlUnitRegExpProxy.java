@@ -18,9 +18,11 @@ import static com.gargoylesoftware.htmlunit.BrowserVersionFeatures.JS_REGEXP_EMP
 import static com.gargoylesoftware.htmlunit.BrowserVersionFeatures.JS_REGEXP_GROUP0_RETURNS_WHOLE_MATCH;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -52,8 +54,19 @@ import net.sourceforge.htmlunit.corejs.javascript.regexp.SubString;
 public class HtmlUnitRegExpProxy extends RegExpImpl {
 
     private static final Log LOG = LogFactory.getLog(HtmlUnitRegExpProxy.class);
-    /** Pattern cache */
-    private static final Map<String, Pattern> PATTENS = new HashMap<>();
+
+    private static final int MAX_PATTERNS = 1_000;
+
+    /** Pattern cache, shared by all clients; the least recently used patterns are dropped first. */
+    private static final Map<String, Pattern> PATTERNS
+            = Collections.synchronizedMap(new LinkedHashMap<String, Pattern>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, Pattern> eldest) {
+                    return size() > MAX_PATTERNS;
+                }
+            });
+    private static final AtomicLong PATTERN_CACHE_HITS = new AtomicLong();
+    private static final AtomicLong PATTERN_CACHE_MISSES = new AtomicLong();
 
     private final RegExpProxy wrapped_;
     private final BrowserVersion browserVersion_;
@@ -422,21 +435,27 @@ public class HtmlUnitRegExpProxy extends RegExpImpl {
 
             global_ = jsFlags.indexOf('g') != -1;
 
-            pattern_ = PATTENS.get(str);
-            if (pattern_ == null) {
-                pattern_ = Pattern.compile(jsRegExpToJavaRegExp(jsSource), getJavaFlags(jsFlags));
-                PATTENS.put(str, pattern_);
-            }
+            pattern_ = getPattern(str, jsSource, getJavaFlags(jsFlags));
         }
 
         RegExpData(final String string) {
             global_ = false;
 
-            pattern_ = PATTENS.get(string);
-            if (pattern_ == null) {
-                pattern_ = Pattern.compile(jsRegExpToJavaRegExp(string), 0);
-                PATTENS.put(string, pattern_);
+            // the key of a NativeRegExp always starts with a slash
+            pattern_ = getPattern(" " + string, string, 0);
+        }
+
+        private static Pattern getPattern(final String key, final String jsSource, final int flags) {
+            Pattern pattern = PATTERNS.get(key);
+            if (pattern != null) {
+                PATTERN_CACHE_HITS.incrementAndGet();
+                return pattern;
             }
+
+            PATTERN_CACHE_MISSES.incrementAndGet();
+            pattern = Pattern.compile(jsRegExpToJavaRegExp(jsSource), flags);
+            PATTERNS.put(key, pattern);
+            return pattern;
         }
 
         /**
@@ -463,6 +482,30 @@ public class HtmlUnitRegExpProxy extends RegExpImpl {
         }
     }
 
+    /**
+     * Returns the number of lookups of the pattern cache (shared by all clients) which found
+     * an already translated and compiled pattern.
+     * @return the number of cache hits
+     */
+    public static long getPatternCacheHits() {
+        return PATTERN_CACHE_HITS.get();
+    }
+
+    /**
+     * Returns the number of lookups of the pattern cache which had to translate and compile the pattern.
+     * @return the number of cache misses
+     */
+    public static long getPatternCacheMisses() {
+        return PATTERN_CACHE_MISSES.get();
+    }
+
+    /**
+     * @return the number of patterns in the cache
+     */
+    public static int getPatternCacheSize() {
+        return PATTERNS.size();
+    }
+
     /**
      * Transform a JavaScript regular expression to a Java regular expression
      * @param re the JavaScript regular expression to transform
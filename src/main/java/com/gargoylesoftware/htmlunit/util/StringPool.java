@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2002-2020 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.util;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A thread safe pool of strings, used to share equal strings (like tag names or attribute values)
+ * between the nodes of parsed pages instead of keeping a copy for every node.
+ *
+ * <p>The pool is bounded: the least recently used strings are removed if it is full,
+ * and strings longer than the configured limit are returned unchanged.</p>
+ *
+ * @author agent (agent@local)
+ */
+public final class StringPool {
+
+    /** The pool shared by all parsers of the JVM for the names of elements and attributes. */
+    public static final StringPool NAMES = new StringPool(4096, 64);
+
+    private final Map<String, String> strings_;
+    private final int maxLength_;
+
+    /**
+     * Creates a new pool.
+     * @param maxSize the maximum number of strings in the pool
+     * @param maxLength the maximum length of the strings to pool
+     */
+    public StringPool(final int maxSize, final int maxLength) {
+        maxLength_ = maxLength;
+        strings_ = Collections.synchronizedMap(new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, String> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    /**
+     * Returns the pooled string equal to the given one, adding it to the pool if there is none yet.
+     * @param string the string, may be {@code null}
+     * @return the pooled string or the given one if it can't be pooled
+     */
+    public String intern(final String string) {
+        if (string == null || string.length() > maxLength_) {
+            return string;
+        }
+
+        final String previous = strings_.putIfAbsent(string, string);
+        if (previous == null) {
+            return string;
+        }
+        return previous;
+    }
+
+    /**
+     * @return the number of strings in the pool
+     */
+    public int size() {
+        return strings_.size();
+    }
+
+    /**
+     * Removes all strings from the pool.
+     */
+    public void clear() {
+        strings_.clear();
+    }
+}
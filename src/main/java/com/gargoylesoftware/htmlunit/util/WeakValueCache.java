@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2002-2020 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+ *
+ * A cache holding its values weakly. The entries of the collected values are removed
+ * on the next access, so the keys do not pile up. Not thread safe.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ *
+ * @author agent (agent@local)
+ */
+public class WeakValueCache<K, V> {
+
+    private final Map<K, ValueReference<K, V>> map_ = new HashMap<>();
+    private final ReferenceQueue<V> queue_ = new ReferenceQueue<>();
+
+    /**
+     * Returns the value for the specified key.
+     * @param key the key
+     * @return the value or {@code null} if there is none or if it was collected
+     */
+    public V get(final K key) {
+        purge();
+        final ValueReference<K, V> reference = map_.get(key);
+        if (reference == null) {
+            return null;
+        }
+        return reference.get();
+    }
+
+    /**
+     * Stores the value for the specified key.
+     * @param key the key
+     * @param value the value
+     */
+    public void put(final K key, final V value) {
+        purge();
+        map_.put(key, new ValueReference<>(key, value, queue_));
+    }
+
+    /**
+     * @return the number of entries, including the ones of values collected since the last access
+     */
+    public int size() {
+        return map_.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void purge() {
+        Reference<? extends V> reference;
+        while ((reference = queue_.poll()) != null) {
+            final ValueReference<K, V> valueReference = (ValueReference<K, V>) reference;
+            // the key may have been mapped to a new value meanwhile
+            if (map_.get(valueReference.key_) == valueReference) {
+                map_.remove(valueReference.key_);
+            }
+        }
+    }
+
+    private static final class ValueReference<K, V> extends WeakReference<V> {
+        private final K key_;
+
+        ValueReference(final K key, final V value, final ReferenceQueue<V> queue) {
+            super(value, queue);
+            key_ = key;
+        }
+    }
+}
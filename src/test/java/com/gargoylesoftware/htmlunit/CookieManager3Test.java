@@ -18,11 +18,15 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Collection;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.http.Header;
 import org.apache.http.cookie.CookieOrigin;
+import org.apache.http.impl.cookie.BasicClientCookie;
 import org.apache.http.impl.cookie.DefaultCookieSpec;
 import org.apache.http.message.BasicHeader;
 import org.junit.Test;
@@ -112,4 +116,99 @@ public class CookieManager3Test {
         assertEquals(1, list.size());
         assertEquals("\"hello world\"", list.get(0).getValue());
     }
+
+    /**
+     * Verifies the lookup of the cookies by host.
+     */
+    @Test
+    public void cookiesForHost() {
+        final CookieManager mgr = new CookieManager();
+        mgr.addCookie(new Cookie(".htmlunit.org", "a", "1"));
+        mgr.addCookie(new Cookie("www.htmlunit.org", "b", "2"));
+        mgr.addCookie(new Cookie("other.org", "c", "3"));
+        mgr.addCookie(new Cookie("HtmlUnit.org", "d", "4"));
+
+        assertEquals("a, b, d", names(mgr.getCookiesForHost("www.htmlunit.org")));
+        assertEquals("a, d", names(mgr.getCookiesForHost("htmlunit.org")));
+        assertEquals("c", names(mgr.getCookiesForHost("other.org")));
+        assertEquals("", names(mgr.getCookiesForHost("localhost")));
+
+        // replacing a cookie moves it to the end
+        mgr.addCookie(new Cookie(".htmlunit.org", "a", "5"));
+        assertEquals("b, d, a", names(mgr.getCookiesForHost("www.htmlunit.org")));
+        assertEquals("b, c, d, a", names(mgr.getCookies()));
+
+        mgr.removeCookie(new Cookie("www.htmlunit.org", "b", "2"));
+        assertEquals("d, a", names(mgr.getCookiesForHost("www.htmlunit.org")));
+
+        mgr.setCookiesEnabled(false);
+        assertTrue(mgr.getCookiesForHost("www.htmlunit.org").isEmpty());
+    }
+
+    /**
+     * Cookies without domain are returned for every host.
+     */
+    @Test
+    public void cookiesForHostWithoutDomain() {
+        final CookieManager mgr = new CookieManager();
+        mgr.addCookie(new Cookie("htmlunit.org", "a", "1"));
+        mgr.addCookie(new Cookie(new BasicClientCookie("b", "2")));
+
+        assertEquals("a, b", names(mgr.getCookiesForHost("www.htmlunit.org")));
+        assertEquals("b", names(mgr.getCookiesForHost("localhost")));
+    }
+
+    /**
+     * The lookup by host uses the cookies of an overridden {@link CookieManager#getCookies()}.
+     */
+    @Test
+    public void cookiesForHostGetCookiesOverridden() {
+        final CookieManager mgr = new CookieManager() {
+            @Override
+            public Set<Cookie> getCookies() {
+                final Set<Cookie> cookies = new LinkedHashSet<>(super.getCookies());
+                cookies.add(new Cookie("htmlunit.org", "extra", "1"));
+                return cookies;
+            }
+        };
+        mgr.addCookie(new Cookie("htmlunit.org", "a", "1"));
+        mgr.addCookie(new Cookie("other.org", "b", "2"));
+
+        assertEquals("a, extra", names(mgr.getCookiesForHost("www.htmlunit.org")));
+        assertEquals("b", names(mgr.getCookiesForHost("other.org")));
+    }
+
+    /**
+     * Verifies the removal of expired cookies.
+     */
+    @Test
+    public void clearExpired() {
+        final long now = System.currentTimeMillis();
+        final CookieManager mgr = new CookieManager();
+        mgr.addCookie(new Cookie("localhost", "a", "1", "/", new Date(now + 20_000), false));
+        mgr.addCookie(new Cookie("localhost", "b", "2", "/", new Date(now + 10_000), false));
+        mgr.addCookie(new Cookie("localhost", "c", "3"));
+
+        assertFalse(mgr.clearExpired(new Date(now + 5_000)));
+        assertEquals("a, b, c", names(mgr.getCookies()));
+
+        assertTrue(mgr.clearExpired(new Date(now + 15_000)));
+        assertEquals("a, c", names(mgr.getCookies()));
+
+        // replacing the cookie removes the old expiration date
+        mgr.addCookie(new Cookie("localhost", "a", "1"));
+        assertFalse(mgr.clearExpired(new Date(now + 25_000)));
+        assertEquals("c, a", names(mgr.getCookies()));
+    }
+
+    private static String names(final Collection<Cookie> cookies) {
+        final StringBuilder names = new StringBuilder();
+        for (final Cookie cookie : cookies) {
+            if (names.length() > 0) {
+                names.append(", ");
+            }
+            names.append(cookie.getName());
+        }
+        return names.toString();
+    }
 }
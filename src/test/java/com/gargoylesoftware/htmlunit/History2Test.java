@@ -18,6 +18,8 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import com.gargoylesoftware.htmlunit.BrowserRunner.Alerts;
+import com.gargoylesoftware.htmlunit.html.HtmlInput;
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
 
 /**
  * Tests for {@link History} with {@link WebClient}.
@@ -183,4 +185,74 @@ public class History2Test extends SimpleWebTestCase {
 
         assertEquals(7, getMockWebConnection().getRequestCount() - startCount);
     }
+
+    /**
+     * Tests going back in history to entries older than the HistoryPageCacheLimit
+     * uses the kept responses.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void historyResponseCacheLimit() throws Exception {
+        final String content = "<html><head>\n"
+                + "</head>\n"
+                + "<body>\n"
+                + "</body></html>";
+
+        final int startCount = getMockWebConnection().getRequestCount();
+        getMockWebConnection().setDefaultResponse(content);
+        final WebClient webClient = getWebClientWithMockWebConnection();
+        webClient.getOptions().setHistorySizeLimit(5);
+        webClient.getOptions().setHistoryPageCacheLimit(0);
+        webClient.getOptions().setHistoryResponseCacheLimit(1024 * 1024);
+
+        final TopLevelWindow window = (TopLevelWindow) webClient.getCurrentWindow();
+        final History history = window.getHistory();
+
+        loadPage(content);
+        loadPage(content);
+        loadPage(content);
+        loadPage(content);
+        history.back();
+        history.back();
+        history.back();
+
+        assertEquals(4, getMockWebConnection().getRequestCount() - startCount);
+    }
+
+    /**
+     * The values of the form controls are restored together with the kept response.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void historyResponseCacheFormValues() throws Exception {
+        final String content = "<html><head>\n"
+                + "</head>\n"
+                + "<body>\n"
+                + "  <input id='text' type='text' value='default'>\n"
+                + "  <input id='check' type='checkbox'>\n"
+                + "</body></html>";
+
+        final WebClient webClient = getWebClientWithMockWebConnection();
+        webClient.getOptions().setHistoryPageCacheLimit(1);
+        webClient.getOptions().setHistoryResponseCacheLimit(1024 * 1024);
+
+        getMockWebConnection().setResponse(URL_FIRST, content);
+        getMockWebConnection().setResponse(URL_SECOND, "<html><body></body></html>");
+
+        final HtmlPage page = webClient.getPage(URL_FIRST);
+        ((HtmlInput) page.getElementById("text")).setValueAttribute("typed");
+        ((HtmlInput) page.getElementById("check")).setChecked(true);
+        webClient.getPage(URL_SECOND);
+        final int count = getMockWebConnection().getRequestCount();
+
+        webClient.getCurrentWindow().getHistory().back();
+        assertEquals(count, getMockWebConnection().getRequestCount());
+
+        final HtmlPage restored = (HtmlPage) webClient.getCurrentWindow().getEnclosedPage();
+        assertNotSame(page, restored);
+        assertEquals("typed", ((HtmlInput) restored.getElementById("text")).getValueAttribute());
+        assertTrue(((HtmlInput) restored.getElementById("check")).isChecked());
+    }
 }
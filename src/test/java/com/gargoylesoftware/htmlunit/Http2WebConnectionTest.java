@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2002-2020 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit;
+
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang3.JavaVersion;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.SystemUtils;
+import org.eclipse.jetty.alpn.server.ALPNServerConnectionFactory;
+import org.eclipse.jetty.http2.HTTP2Cipher;
+import org.eclipse.jetty.http2.server.HTTP2ServerConnectionFactory;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.SecureRequestCustomizer;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.SslConnectionFactory;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
+import com.gargoylesoftware.htmlunit.util.MimeType;
+
+/**
+ * Tests for {@link Http2WebConnection}.
+ *
+ * @author agent (agent@local)
+ */
+@RunWith(BrowserRunner.class)
+public class Http2WebConnectionTest extends SimpleWebTestCase {
+
+    private Server server_;
+
+    /**
+     * Starts a local https server.
+     * @param http2 whether to offer h2 via ALPN or not
+     * @throws Exception if an error occurs
+     */
+    private void startServer(final boolean http2) throws Exception {
+        if (http2) {
+            assumeTrue("HTTP/2 needs Java 9+", SystemUtils.isJavaVersionAtLeast(JavaVersion.JAVA_9));
+        }
+        server_ = new Server();
+
+        final HttpConfiguration httpsConfig = new HttpConfiguration();
+        httpsConfig.addCustomizer(new SecureRequestCustomizer(false));
+        final HttpConnectionFactory http11 = new HttpConnectionFactory(httpsConfig);
+
+        final SslContextFactory.Server sslContextFactory = new SslContextFactory.Server();
+        sslContextFactory.setKeyStorePath(getClass().getClassLoader().getResource("insecureSSL.keystore")
+                .toExternalForm());
+        sslContextFactory.setKeyStorePassword("nopassword");
+
+        final ServerConnector connector;
+        if (http2) {
+            sslContextFactory.setCipherComparator(HTTP2Cipher.COMPARATOR);
+
+            final HTTP2ServerConnectionFactory h2 = new HTTP2ServerConnectionFactory(httpsConfig);
+            final ALPNServerConnectionFactory alpn = new ALPNServerConnectionFactory();
+            alpn.setDefaultProtocol(http11.getProtocol());
+            final SslConnectionFactory ssl = new SslConnectionFactory(sslContextFactory, alpn.getProtocol());
+            connector = new ServerConnector(server_, ssl, alpn, h2, http11);
+        }
+        else {
+            final SslConnectionFactory ssl = new SslConnectionFactory(sslContextFactory, http11.getProtocol());
+            connector = new ServerConnector(server_, ssl, http11);
+        }
+        connector.setPort(PORT);
+        server_.addConnector(connector);
+
+        server_.setHandler(new AbstractHandler() {
+            @Override
+            public void handle(final String target, final org.eclipse.jetty.server.Request baseRequest,
+                    final HttpServletRequest request, final HttpServletResponse response) throws IOException {
+                if ("/setCookie".equals(target)) {
+                    response.addHeader(HttpHeader.SET_COOKIE, "h2=yes; Path=/");
+                }
+                else if ("/redirect".equals(target)) {
+                    response.sendRedirect("/");
+                    baseRequest.setHandled(true);
+                    return;
+                }
+                else if ("/auth".equals(target)) {
+                    final String expected = "Basic " + Base64.getEncoder().encodeToString(
+                            "jetty:jetty".getBytes(StandardCharsets.ISO_8859_1));
+                    if (!expected.equals(request.getHeader(HttpHeader.AUTHORIZATION))) {
+                        response.addHeader(HttpHeader.WWW_AUTHENTICATE, "Basic realm=\"h2\"");
+                        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                    }
+                }
+                else if ("/noChallenge".equals(target)) {
+                    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                }
+                else if ("/slow".equals(target)) {
+                    try {
+                        Thread.sleep(2_000);
+                    }
+                    catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+
+                response.setContentType(MimeType.TEXT_HTML);
+                final Writer writer = response.getWriter();
+                writer.write("<html><head><title>" + request.getProtocol() + "</title></head><body>"
+                        + StringUtils.defaultString(request.getHeader(HttpHeader.COOKIE))
+                        + "</body></html>");
+                baseRequest.setHandled(true);
+            }
+        });
+        server_.start();
+    }
+
+    /**
+     * Stops the server.
+     * @throws Exception if an error occurs
+     */
+    @After
+    public void tearDown() throws Exception {
+        if (server_ != null) {
+            server_.stop();
+        }
+        server_ = null;
+    }
+
+    private WebClient getHttp2WebClient() {
+        final WebClient webClient = getWebClient();
+        webClient.getOptions().setUseInsecureSSL(true);
+        webClient.setWebConnection(new Http2WebConnection(webClient));
+        return webClient;
+    }
+
+    /**
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void http2() throws Exception {
+        startServer(true);
+
+        final HtmlPage page = getHttp2WebClient().getPage(new URL("https://localhost:" + PORT + "/"));
+        assertEquals("HTTP/2.0", page.getTitleText());
+    }
+
+    /**
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void cookies() throws Exception {
+        startServer(true);
+
+        final WebClient webClient = getHttp2WebClient();
+        webClient.getPage(new URL("https://localhost:" + PORT + "/setCookie"));
+        assertEquals("yes", webClient.getCookieManager().getCookie("h2").getValue());
+
+        final HtmlPage page = webClient.getPage(new URL("https://localhost:" + PORT + "/"));
+        assertEquals("h2=yes", page.getBody().asText());
+    }
+
+    /**
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void fallbackToHttp11() throws Exception {
+        startServer(false);
+
+        final WebClient webClient = getHttp2WebClient();
+        HtmlPage page = webClient.getPage(new URL("https://localhost:" + PORT + "/"));
+        assertEquals("HTTP/1.1", page.getTitleText());
+
+        page = webClient.getPage(new URL("https://localhost:" + PORT + "/"));
+        assertEquals("HTTP/1.1", page.getTitleText());
+    }
+
+    /**
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void redirect() throws Exception {
+        startServer(true);
+
+        final HtmlPage page = getHttp2WebClient().getPage(new URL("https://localhost:" + PORT + "/redirect"));
+        assertEquals("HTTP/2.0", page.getTitleText());
+        assertEquals(new URL("https://localhost:" + PORT + "/"), page.getUrl());
+    }
+
+    /**
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void basicAuthentication() throws Exception {
+        startServer(true);
+
+        final WebClient webClient = getHttp2WebClient();
+        ((DefaultCredentialsProvider) webClient.getCredentialsProvider()).addCredentials("jetty", "jetty");
+
+        HtmlPage page = webClient.getPage(new URL("https://localhost:" + PORT + "/auth"));
+        assertEquals(HttpServletResponse.SC_OK, page.getWebResponse().getStatusCode());
+        assertEquals("HTTP/2.0", page.getTitleText());
+
+        // the credentials are sent preemptively now
+        page = webClient.getPage(new URL("https://localhost:" + PORT + "/auth"));
+        assertEquals(HttpServletResponse.SC_OK, page.getWebResponse().getStatusCode());
+    }
+
+    /**
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void basicAuthenticationWrongCredentials() throws Exception {
+        startServer(true);
+
+        final WebClient webClient = getHttp2WebClient();
+        webClient.getOptions().setThrowExceptionOnFailingStatusCode(false);
+        ((DefaultCredentialsProvider) webClient.getCredentialsProvider()).addCredentials("jetty", "wrong");
+
+        final HtmlPage page = webClient.getPage(new URL("https://localhost:" + PORT + "/auth"));
+        assertEquals(HttpServletResponse.SC_UNAUTHORIZED, page.getWebResponse().getStatusCode());
+    }
+
+    /**
+     * A 401 response without a WWW-Authenticate header has to be returned as it is.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void unauthorizedWithoutChallenge() throws Exception {
+        startServer(true);
+
+        final WebClient webClient = getHttp2WebClient();
+        webClient.getOptions().setThrowExceptionOnFailingStatusCode(false);
+        ((DefaultCredentialsProvider) webClient.getCredentialsProvider()).addCredentials("jetty", "jetty");
+
+        final HtmlPage page = webClient.getPage(new URL("https://localhost:" + PORT + "/noChallenge"));
+        assertEquals(HttpServletResponse.SC_UNAUTHORIZED, page.getWebResponse().getStatusCode());
+        assertEquals("HTTP/2.0", page.getTitleText());
+    }
+
+    /**
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void timeout() throws Exception {
+        startServer(true);
+
+        final WebClient webClient = getHttp2WebClient();
+        webClient.getOptions().setTimeout(500);
+        try {
+            webClient.getPage(new URL("https://localhost:" + PORT + "/slow"));
+            fail("timeout expected!");
+        }
+        catch (final SocketTimeoutException e) {
+            // as expected
+        }
+
+        webClient.getOptions().setTimeout(5_000);
+        final HtmlPage page = webClient.getPage(new URL("https://localhost:" + PORT + "/slow"));
+        assertEquals("HTTP/2.0", page.getTitleText());
+    }
+
+    /**
+     * Connect failures are reported and not taken as 'HTTP/2 not supported'.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void connectionRefused() throws Exception {
+        final WebClient webClient = getHttp2WebClient();
+        try {
+            webClient.getPage(new URL("https://localhost:" + PORT + "/"));
+            fail("ConnectException expected");
+        }
+        catch (final ConnectException e) {
+            // as expected
+        }
+
+        startServer(true);
+        final HtmlPage page = webClient.getPage(new URL("https://localhost:" + PORT + "/"));
+        assertEquals("HTTP/2.0", page.getTitleText());
+    }
+}
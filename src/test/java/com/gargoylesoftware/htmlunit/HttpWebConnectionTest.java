@@ -31,6 +31,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.Servlet;
 import javax.servlet.ServletException;
@@ -61,6 +62,7 @@ import org.junit.runner.RunWith;
 
 import com.gargoylesoftware.htmlunit.BrowserRunner.Alerts;
 import com.gargoylesoftware.htmlunit.html.HtmlPage;
+import com.gargoylesoftware.htmlunit.httpclient.ConnectionPoolStatistics;
 import com.gargoylesoftware.htmlunit.util.KeyDataPair;
 import com.gargoylesoftware.htmlunit.util.MimeType;
 import com.gargoylesoftware.htmlunit.util.ServletContentWrapper;
@@ -599,6 +601,86 @@ public class HttpWebConnectionTest extends WebServerTestCase {
         assertEquals(webClient.getBrowserVersion().getUserAgent(), userAgent);
     }
 
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void connectionPoolStatistics() throws Exception {
+        startWebServer("./");
+
+        final WebClient webClient = getWebClient();
+        webClient.getOptions().setConnectionPoolMaxTotal(7);
+        webClient.getOptions().setConnectionPoolMaxPerRoute(3);
+        webClient.getOptions().setConnectionPoolMaxPerOrigin(URL_FIRST, 2);
+        webClient.getOptions().setConnectionPoolIdleTimeout(60_000);
+
+        final HttpWebConnection connection = (HttpWebConnection) webClient.getWebConnection();
+        assertNull(connection.getConnectionPoolStatistics());
+
+        webClient.getPage(URL_FIRST + "LICENSE.txt");
+        webClient.getPage(URL_FIRST + "pom.xml");
+
+        final ConnectionPoolStatistics statistics = connection.getConnectionPoolStatistics();
+        assertEquals(7, statistics.getTotalStats().getMax());
+        assertEquals(0, statistics.getTotalStats().getLeased());
+        assertEquals(0, statistics.getTotalStats().getPending());
+        assertEquals(1, statistics.getRouteStats().size());
+        assertEquals(2, statistics.getRouteStats().values().iterator().next().getMax());
+        assertEquals(2, statistics.getLeaseCount());
+        assertEquals(0, statistics.getLeaseTimeoutCount());
+        assertTrue(statistics.getLeaseWaitTimePercentile(50, TimeUnit.NANOSECONDS)
+                <= statistics.getLeaseWaitTimePercentile(100, TimeUnit.NANOSECONDS));
+
+        // settings can be changed while the pool is in use
+        webClient.getOptions().setConnectionPoolMaxTotal(11);
+        webClient.getPage(URL_FIRST + "LICENSE.txt");
+        assertEquals(11, connection.getConnectionPoolStatistics().getTotalStats().getMax());
+
+        // back to the defaults
+        webClient.getOptions().setConnectionPoolMaxTotal(-1);
+        webClient.getOptions().setConnectionPoolMaxPerRoute(-1);
+        webClient.getOptions().setConnectionPoolMaxPerOrigin(URL_FIRST, -1);
+        webClient.getPage(URL_FIRST + "LICENSE.txt");
+        assertEquals(20, connection.getConnectionPoolStatistics().getTotalStats().getMax());
+        assertEquals(6, connection.getConnectionPoolStatistics().getRouteStats().values().iterator().next().getMax());
+    }
+
+    /**
+     * The limits set by an extension in {@link HttpWebConnection#createHttpClientBuilder()}
+     * are only changed by configured options.
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void connectionPoolLimitsOfBuilder() throws Exception {
+        startWebServer("./");
+
+        final WebClient webClient = getWebClient();
+        final HttpWebConnection connection = new HttpWebConnection(webClient) {
+            @Override
+            protected HttpClientBuilder createHttpClientBuilder() {
+                final HttpClientBuilder builder = super.createHttpClientBuilder();
+                builder.setMaxConnTotal(13);
+                builder.setMaxConnPerRoute(4);
+                return builder;
+            }
+        };
+        webClient.setWebConnection(connection);
+
+        webClient.getPage(URL_FIRST + "LICENSE.txt");
+        assertEquals(13, connection.getConnectionPoolStatistics().getTotalStats().getMax());
+        assertEquals(4, connection.getConnectionPoolStatistics().getRouteStats().values().iterator().next().getMax());
+
+        webClient.getOptions().setConnectionPoolMaxTotal(7);
+        webClient.getPage(URL_FIRST + "LICENSE.txt");
+        assertEquals(7, connection.getConnectionPoolStatistics().getTotalStats().getMax());
+        assertEquals(4, connection.getConnectionPoolStatistics().getRouteStats().values().iterator().next().getMax());
+
+        // removing the option restores the limit of the builder
+        webClient.getOptions().setConnectionPoolMaxTotal(-1);
+        webClient.getPage(URL_FIRST + "LICENSE.txt");
+        assertEquals(13, connection.getConnectionPoolStatistics().getTotalStats().getMax());
+    }
+
     @SuppressWarnings("unchecked")
     private static <T> T get(final Object o, final String fieldName) throws Exception {
         final Field field = o.getClass().getDeclaredField(fieldName);
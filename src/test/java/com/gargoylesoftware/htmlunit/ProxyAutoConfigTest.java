@@ -14,13 +14,18 @@
  */
 package com.gargoylesoftware.htmlunit;
 
+import java.net.InetAddress;
+import java.net.URL;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Locale;
 
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
 import org.junit.Test;
 
+import com.gargoylesoftware.htmlunit.httpclient.CachingDnsResolver;
+
 import net.sourceforge.htmlunit.corejs.javascript.Undefined;
 
 /**
@@ -136,4 +141,87 @@ public class ProxyAutoConfigTest extends SimpleWebTestCase {
         final boolean isInNet = ProxyAutoConfig.isInNet("172.22.0.7", "172.16.0.0", "255.240.0.0");
         assertTrue(isInNet);
     }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void dnsResolver() throws Exception {
+        final CachingDnsResolver resolver = new CachingDnsResolver();
+        resolver.addStaticHost("proxy.test", InetAddress.getByAddress("proxy.test", new byte[] {10, 1, 2, 3}));
+
+        final String content = "function FindProxyForURL(url, host) {\n"
+            + "  if (isResolvable('proxy.test') && isInNet('proxy.test', '10.0.0.0', '255.0.0.0')) {\n"
+            + "    return 'PROXY ' + dnsResolve('proxy.test') + ':8080';\n"
+            + "  }\n"
+            + "  return 'DIRECT';\n"
+            + "}\n";
+        final String value = ProxyAutoConfig.evaluate(content, URL_FIRST, resolver);
+        assertEquals("PROXY 10.1.2.3:8080", value);
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void compile() throws Exception {
+        final String content = "var calls = 0;\n"
+            + "function FindProxyForURL(url, host) {\n"
+            + "  calls++;\n"
+            + "  return 'PROXY proxy' + calls + ':8080';\n"
+            + "}\n";
+        final ProxyAutoConfig config = ProxyAutoConfig.compile(content, null);
+        assertEquals("PROXY proxy1:8080", config.findProxyForURL(new URL("http://localhost/a.html")));
+        assertEquals("PROXY proxy1:8080", config.findProxyForURL(new URL("http://localhost/a.html")));
+        assertEquals("PROXY proxy1:8080", config.findProxyForURL(new URL("http://localhost/b.html?x=1")));
+        assertEquals("PROXY proxy2:8080", config.findProxyForURL(new URL("https://localhost/a.html")));
+        assertEquals("PROXY proxy3:8080", config.findProxyForURL(new URL("http://htmlunit/a.html")));
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void compileDnsDependent() throws Exception {
+        final String content = "var calls = 0;\n"
+            + "function FindProxyForURL(url, host) {\n"
+            + "  calls++;\n"
+            + "  if (isInNet(host, '10.0.0.0', '255.0.0.0')) {\n"
+            + "    return 'PROXY proxy' + calls + ':8080';\n"
+            + "  }\n"
+            + "  return 'DIRECT';\n"
+            + "}\n";
+        final InetAddress address = InetAddress.getByAddress("htmlunit", new byte[] {10, 1, 2, 3});
+
+        CachingDnsResolver resolver = new CachingDnsResolver(SystemDefaultDnsResolver.INSTANCE, 60_000, 0);
+        resolver.addStaticHost("htmlunit", address);
+        ProxyAutoConfig config = ProxyAutoConfig.compile(content, resolver);
+        assertEquals("PROXY proxy1:8080", config.findProxyForURL(new URL("http://htmlunit/a.html")));
+        assertEquals("PROXY proxy1:8080", config.findProxyForURL(new URL("http://htmlunit/a.html")));
+
+        // the decision expires with the DNS time to live
+        resolver = new CachingDnsResolver(SystemDefaultDnsResolver.INSTANCE, 0, 0);
+        resolver.addStaticHost("htmlunit", address);
+        config = ProxyAutoConfig.compile(content, resolver);
+        assertEquals("PROXY proxy1:8080", config.findProxyForURL(new URL("http://htmlunit/a.html")));
+        assertEquals("PROXY proxy2:8080", config.findProxyForURL(new URL("http://htmlunit/a.html")));
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void compileTimeDependent() throws Exception {
+        final String content = "var calls = 0;\n"
+            + "function FindProxyForURL(url, host) {\n"
+            + "  calls++;\n"
+            + "  if (typeof timeRange == 'function') {\n"
+            + "    return 'PROXY proxy' + calls + ':8080';\n"
+            + "  }\n"
+            + "  return 'DIRECT';\n"
+            + "}\n";
+        final ProxyAutoConfig config = ProxyAutoConfig.compile(content, null);
+        assertEquals("PROXY proxy1:8080", config.findProxyForURL(new URL("http://localhost/a.html")));
+        assertEquals("PROXY proxy2:8080", config.findProxyForURL(new URL("http://localhost/a.html")));
+    }
 }
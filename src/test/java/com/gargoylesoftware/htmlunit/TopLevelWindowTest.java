@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.mutable.MutableInt;
 import org.junit.Test;
@@ -338,4 +339,38 @@ public class TopLevelWindowTest extends SimpleWebTestCase {
         assertEquals(getExpectedAlerts(), alerts);
     }
 
+    /**
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void fastClose() throws Exception {
+        final String html = "<html><body onunload='alert(\"unload\")'>\n"
+            + "<script>setTimeout(function() { alert('timeout'); }, 500);</script>\n"
+            + "</body></html>";
+        final List<String> alerts = new ArrayList<>();
+        final WebClient client = getWebClient();
+        client.getOptions().setFastCloseEnabled(true);
+        final HtmlPage page = loadPage(html, alerts);
+        final TopLevelWindow w = (TopLevelWindow) page.getEnclosingWindow();
+
+        w.close();
+        assertTrue(w.isClosed());
+        assertFalse(client.getWebWindows().contains(w));
+        // the unload handler runs in the closing thread
+        assertEquals(Arrays.asList("unload"), alerts);
+        assertEquals(0, w.getJobManager().getJobCount());
+
+        final WindowReaper reaper = client.getWindowReaper();
+        assertEquals(0, reaper.awaitIdle(10_000));
+        assertEquals(1, reaper.getReapedCount());
+        assertTrue(reaper.getTotalTeardownTime(TimeUnit.NANOSECONDS) > 0);
+        assertTrue(reaper.getMaxDetachTime(TimeUnit.NANOSECONDS) > 0);
+
+        client.waitForBackgroundJavaScript(1000);
+        assertEquals(Arrays.asList("unload"), alerts);
+
+        client.close();
+        assertEquals(1, reaper.getReapedCount());
+    }
+
 }
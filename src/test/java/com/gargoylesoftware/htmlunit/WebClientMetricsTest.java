@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2002-2020 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit;
+
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.gargoylesoftware.htmlunit.util.MimeType;
+
+/**
+ * Tests for {@link WebClientMetrics}.
+ *
+ * @author agent (agent@local)
+ */
+@RunWith(BrowserRunner.class)
+public class WebClientMetricsTest extends SimpleWebTestCase {
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void disabledByDefault() throws Exception {
+        assertNull(getWebClient().getMetrics());
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void metrics() throws Exception {
+        final String html = "<html><head>\n"
+                + "<script src='script.js'></script>\n"
+                + "<script>setTimeout(function() { document.title = 'done'; }, 10);</script>\n"
+                + "</head><body onload='x++'></body></html>";
+
+        final WebClient client = getWebClientWithMockWebConnection();
+        final MockWebConnection conn = getMockWebConnection();
+        conn.setResponse(URL_FIRST, html);
+        conn.setResponse(new URL(URL_FIRST, "script.js"), "var x = 1;", MimeType.APPLICATION_JAVASCRIPT);
+
+        final WebClientMetrics metrics = new WebClientMetrics();
+        client.setMetrics(metrics);
+        assertSame(metrics, client.getMetrics());
+
+        client.getPage(URL_FIRST);
+        client.waitForBackgroundJavaScript(1000);
+
+        assertEquals(2, metrics.getRequestCount());
+        assertEquals(0, metrics.getRequestFailureCount());
+        assertEquals(2, metrics.getRequestCountPerHost().get(URL_FIRST.getHost()).longValue());
+        assertEquals(2, metrics.getHostMetrics().get(URL_FIRST.getHost()).getRequestCount());
+        assertEquals(2, metrics.getCacheHitCount() + metrics.getCacheMissCount());
+
+        // the two scripts, the onload handler and the timer
+        assertTrue(metrics.getScriptExecutionCount() >= 4);
+        assertEquals(1, metrics.getExecutedJobCount());
+        assertEquals(0, metrics.getPendingJobCount());
+
+        assertEquals(1, metrics.getWindowCount());
+        assertEquals(1, metrics.getPageCount());
+
+        client.setMetrics(null);
+        client.getPage(URL_FIRST);
+        assertEquals(2, metrics.getRequestCount());
+        assertEquals(0, metrics.getWindowCount());
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void registerMBean() throws Exception {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        final WebClient client = getWebClientWithMockWebConnection();
+        getMockWebConnection().setResponse(URL_FIRST, "<html><body></body></html>");
+
+        final WebClientMetrics metrics = new WebClientMetrics();
+        client.setMetrics(metrics);
+        final ObjectName name = metrics.registerMBean("registerMBean");
+        try {
+            assertEquals("WebClient", name.getKeyProperty("type"));
+            assertTrue(server.isRegistered(name));
+
+            client.getPage(URL_FIRST);
+            assertEquals(1L, server.getAttribute(name, "RequestCount"));
+            assertEquals(1, server.getAttribute(name, "WindowCount"));
+        }
+        finally {
+            client.close();
+        }
+        assertFalse(server.isRegistered(name));
+    }
+}
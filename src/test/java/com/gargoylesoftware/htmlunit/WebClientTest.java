@@ -2554,4 +2554,86 @@ public class WebClientTest extends SimpleWebTestCase {
         client.getPage(URL_FIRST);
         assertEquals(new String[]{"true"}, actual);
     }
+
+    /**
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void pageTimelineListener() throws Exception {
+        final String html = "<html><head>\n"
+                + "<script src='script.js'></script>\n"
+                + "</head><body onload='x++'></body></html>";
+
+        final WebClient client = getWebClientWithMockWebConnection();
+        final MockWebConnection conn = getMockWebConnection();
+        conn.setResponse(URL_FIRST, html);
+        conn.setResponse(new URL(URL_FIRST, "script.js"), "var x = 1;", MimeType.APPLICATION_JAVASCRIPT);
+
+        final List<PageTimeline> timelines = new ArrayList<>();
+        client.addPageTimelineListener(new PageTimelineListener() {
+            @Override
+            public void pageLoaded(final HtmlPage page, final PageTimeline timeline) {
+                assertSame(timeline, page.getTimeline());
+                timelines.add(timeline);
+            }
+        });
+
+        client.getPage(URL_FIRST);
+        assertEquals(1, timelines.size());
+
+        final PageTimeline timeline = timelines.get(0);
+        assertTrue(timeline.getDomLoading() >= timeline.getNavigationStart());
+        assertTrue(timeline.getDomInteractive() >= timeline.getDomLoading());
+        assertTrue(timeline.getDomContentLoadedEventEnd() >= timeline.getDomContentLoadedEventStart());
+        assertTrue(timeline.getLoadEventEnd() >= timeline.getLoadEventStart());
+        assertTrue(timeline.getLoadEventStart() >= timeline.getDomComplete());
+
+        assertEquals(1, timeline.getResources().size());
+        final PageTimeline.ResourceTiming resource = timeline.getResources().get(0);
+        assertEquals("script", resource.getInitiatorType());
+        assertEquals(new URL(URL_FIRST, "script.js").toExternalForm(), resource.getName());
+        assertTrue(resource.getEndTime() >= resource.getStartTime());
+    }
+
+    /**
+     * A failing listener does not break the processing of the page.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void pageTimelineListenerFailing() throws Exception {
+        final WebClient client = getWebClientWithMockWebConnection();
+        getMockWebConnection().setResponse(URL_FIRST, "<html><head><title>foo</title></head><body></body></html>");
+
+        final List<HtmlPage> pages = new ArrayList<>();
+        client.addPageTimelineListener(new PageTimelineListener() {
+            @Override
+            public void pageLoaded(final HtmlPage page, final PageTimeline timeline) {
+                throw new IllegalStateException("failing listener");
+            }
+        });
+        client.addPageTimelineListener(new PageTimelineListener() {
+            @Override
+            public void pageLoaded(final HtmlPage page, final PageTimeline timeline) {
+                pages.add(page);
+            }
+        });
+
+        final HtmlPage page = client.getPage(URL_FIRST);
+        assertEquals("foo", page.getTitleText());
+        assertEquals(1, pages.size());
+        assertSame(page, pages.get(0));
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void pageTimelineResourcesLimit() throws Exception {
+        final PageTimeline timeline = new PageTimeline(null);
+        final WebResponse response = new StringWebResponse("var x = 1;", URL_FIRST);
+        for (int i = 0; i < PageTimeline.MAX_RESOURCES + 10; i++) {
+            timeline.addResource("script", System.currentTimeMillis(), response);
+        }
+        assertEquals(PageTimeline.MAX_RESOURCES, timeline.getResources().size());
+    }
 }
@@ -14,6 +14,7 @@
  */
 package com.gargoylesoftware.htmlunit.html;
 
+import java.util.ArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
@@ -21,6 +22,7 @@ import org.junit.runner.RunWith;
 
 import com.gargoylesoftware.htmlunit.BrowserRunner;
 import com.gargoylesoftware.htmlunit.SimpleWebTestCase;
+import com.gargoylesoftware.htmlunit.css.StyleElement;
 import com.gargoylesoftware.htmlunit.util.MimeType;
 import com.gargoylesoftware.htmlunit.xml.XmlPage;
 
@@ -107,4 +109,24 @@ public final class DomElement2Test extends SimpleWebTestCase {
         root.getChildren().forEach(e -> count.incrementAndGet());
         assertEquals(3, count.get());
     }
+
+    /**
+     * The style map kept after a style write has the same order as the parsed attribute.
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void styleMapOrderAfterWrite() throws Exception {
+        final String html = "<html><body><div id='d1'></div><div id='d2'></div></body></html>";
+
+        final HtmlPage page = loadPage(html);
+        final DomElement d1 = page.getElementById("d1");
+        d1.replaceStyleAttribute("color", "red", StyleElement.PRIORITY_IMPORTANT);
+        d1.replaceStyleAttribute("width", "10px", "");
+
+        final DomElement d2 = page.getElementById("d2");
+        d2.setAttribute("style", d1.getAttribute("style"));
+
+        assertEquals(new ArrayList<>(d2.getStyleMap().keySet()), new ArrayList<>(d1.getStyleMap().keySet()));
+        assertEquals("width", d1.getStyleMap().keySet().iterator().next());
+    }
 }
@@ -21,6 +21,7 @@ import java.util.List;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.w3c.dom.Node;
 import org.xml.sax.helpers.AttributesImpl;
 
 import com.gargoylesoftware.htmlunit.BrowserRunner;
@@ -751,6 +752,78 @@ public class DomNodeTest extends SimpleWebTestCase {
         assertNull(children.get(0));
     }
 
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void getChildNodes_live() throws Exception {
+        final String content = "<html><body id='b'><div id='d1'></div><div id='d2'></div></body></html>";
+        final HtmlPage page = loadPage(content);
+        final HtmlElement body = page.getBody();
+        final DomNodeList<DomNode> children = body.getChildNodes();
+        assertEquals(2, children.getLength());
+        assertSame(page.getElementById("d2"), children.get(1));
+
+        final DomElement d0 = page.createElement("div");
+        page.getElementById("d1").insertBefore(d0);
+        assertEquals(3, children.getLength());
+        assertSame(d0, children.get(0));
+        assertSame(page.getElementById("d2"), children.get(2));
+
+        final DomElement d3 = page.createElement("div");
+        body.appendChild(d3);
+        assertEquals(4, children.getLength());
+        assertSame(d3, children.item(3));
+        assertNull(children.get(4));
+        assertNull(children.get(-1));
+
+        page.getElementById("d1").remove();
+        assertEquals(3, children.getLength());
+        assertSame(page.getElementById("d2"), children.get(1));
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void compareDocumentPosition_insertions() throws Exception {
+        final String content = "<html><body><div id='d1'><span id='s1'></span></div><div id='d2'></div></body></html>";
+        final HtmlPage page = loadPage(content);
+        final DomElement d1 = page.getElementById("d1");
+        final DomElement s1 = page.getElementById("s1");
+        final DomElement d2 = page.getElementById("d2");
+
+        // always insert at the same position to exhaust the space between the labels
+        final List<DomElement> inserted = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            final DomElement div = page.createElement("div");
+            div.appendChild(page.createElement("span"));
+            d2.insertBefore(div);
+            inserted.add(div);
+        }
+
+        DomNode previous = s1;
+        for (final DomElement div : inserted) {
+            assertEquals(Node.DOCUMENT_POSITION_FOLLOWING, previous.compareDocumentPosition(div));
+            assertEquals(Node.DOCUMENT_POSITION_PRECEDING, div.compareDocumentPosition(previous));
+            assertEquals(Node.DOCUMENT_POSITION_FOLLOWING, div.compareDocumentPosition(d2));
+            assertEquals(Node.DOCUMENT_POSITION_CONTAINED_BY | Node.DOCUMENT_POSITION_FOLLOWING,
+                    div.compareDocumentPosition(div.getFirstChild()));
+            assertEquals(Node.DOCUMENT_POSITION_CONTAINS | Node.DOCUMENT_POSITION_PRECEDING,
+                    div.getFirstChild().compareDocumentPosition(div));
+            previous = div.getFirstChild();
+        }
+        assertEquals(Node.DOCUMENT_POSITION_FOLLOWING, d1.compareDocumentPosition(d2));
+
+        // moving a node
+        d1.remove();
+        assertEquals(Node.DOCUMENT_POSITION_DISCONNECTED | Node.DOCUMENT_POSITION_IMPLEMENTATION_SPECIFIC,
+                d1.compareDocumentPosition(d2));
+        page.getBody().appendChild(d1);
+        assertEquals(Node.DOCUMENT_POSITION_PRECEDING, s1.compareDocumentPosition(d2));
+        assertEquals(Node.DOCUMENT_POSITION_FOLLOWING, inserted.get(0).compareDocumentPosition(s1));
+    }
+
     /**
      * @throws Exception if an error occurs
      */
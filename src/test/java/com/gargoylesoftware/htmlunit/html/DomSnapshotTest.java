@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2002-2020 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.html;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.gargoylesoftware.css.parser.CSSException;
+import com.gargoylesoftware.htmlunit.BrowserRunner;
+import com.gargoylesoftware.htmlunit.SimpleWebTestCase;
+
+/**
+ * Tests for {@link DomSnapshot}.
+ *
+ * @author agent (agent@local)
+ */
+@RunWith(BrowserRunner.class)
+public class DomSnapshotTest extends SimpleWebTestCase {
+
+    private static final String HTML = "<html><head>\n"
+            + "<title>Snapshot</title>\n"
+            + "<style>p { color: red; }</style>\n"
+            + "<script>var x = 1 < 2;</script>\n"
+            + "</head><body>\n"
+            + "  <div id='d1' class='box first' lang='en-GB'>\n"
+            + "    <p id='p1'>one &amp; two</p>\n"
+            + "    <!-- a comment -->\n"
+            + "    <p id='p2' title='x\"y'>three</p>\n"
+            + "  </div>\n"
+            + "  <div id='d2' class='box'></div>\n"
+            + "  <form><select><option>a</option><option selected>b</option></select>\n"
+            + "  <textarea>some <text></textarea></form>\n"
+            + "</body></html>";
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void asXml() throws Exception {
+        final HtmlPage page = loadPage(HTML);
+        final DomSnapshot snapshot = page.snapshot();
+
+        assertEquals(page.asXml(), snapshot.asXml());
+        assertEquals(page.getElementById("d1").asXml(), snapshot.getElementById("d1").asXml());
+        assertEquals(page.asText(), snapshot.asText());
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void querySelectorAll() throws Exception {
+        final HtmlPage page = loadPage(HTML);
+        final DomSnapshot snapshot = page.snapshot();
+
+        final String[] selectors = {"p", "div.box", ".first p", "div > p", "#d1 ~ div", "p + p", "[title]",
+            "[class~=first]", "[lang|=en]", "div:first-of-type", "div:empty", "p:last-child", "option, textarea",
+            ":lang(en)", "html:root"};
+        for (final String selector : selectors) {
+            final List<String> expected = new ArrayList<>();
+            for (final DomNode node : page.querySelectorAll(selector)) {
+                expected.add(node.getNodeName() + "#" + ((DomElement) node).getId());
+            }
+
+            final List<String> found = new ArrayList<>();
+            for (final DomSnapshot.SnapshotNode node : snapshot.querySelectorAll(selector)) {
+                found.add(node.getNodeName() + "#" + node.getAttribute("id"));
+            }
+            assertEquals(selector, expected, found);
+        }
+
+        final DomSnapshot.SnapshotNode div = snapshot.getElementById("d1");
+        assertEquals(2, div.querySelectorAll("p").size());
+        assertEquals("one & two", div.querySelectorAll("p").get(0).getTextContent());
+        assertEquals("x\"y", snapshot.getElementById("p2").getAttribute("title"));
+        assertEquals("body", div.getParent().getNodeName());
+        assertEquals(7, div.getChildren().size());
+
+        try {
+            snapshot.querySelectorAll("option:checked");
+            fail("CSSException expected");
+        }
+        catch (final CSSException e) {
+            // expected
+        }
+    }
+}
@@ -186,4 +186,45 @@ public class NamedAttrNodeMapImplTest {
         assertEquals("Key2", entry.getKey());
         assertEquals("attr2", entry.getValue().getNodeName());
     }
+
+    /**
+     * Test more attributes than searched linearly, replacing and removing.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void manyAttributes() throws Exception {
+        final DomElement dom = new HtmlBreak("", null, null);
+
+        final NamedAttrNodeMapImpl map = new NamedAttrNodeMapImpl(dom, false);
+        for (int i = 0; i < 20; i++) {
+            map.put("Key" + i, new DomAttr(null, "", "attr" + i, null, false));
+        }
+        assertEquals(20, map.size());
+        assertEquals("attr13", map.get("KEY13").getNodeName());
+
+        final DomAttr replaced = map.put("key5", new DomAttr(null, "", "new5", null, false));
+        assertEquals("attr5", replaced.getNodeName());
+        assertEquals(20, map.size());
+        assertEquals("new5", map.item(5).getNodeName());
+
+        assertEquals("attr0", map.remove("key0").getNodeName());
+        assertNull(map.get("key0"));
+        assertEquals("attr1", map.item(0).getNodeName());
+        assertEquals("attr19", map.item(18).getNodeName());
+        assertNull(map.item(19));
+
+        final Iterator<DomAttr> values = map.values().iterator();
+        while (values.hasNext()) {
+            if (values.next().getNodeName().startsWith("attr")) {
+                values.remove();
+            }
+        }
+        assertEquals(1, map.size());
+        assertEquals("new5", map.get("key5").getNodeName());
+        assertFalse(map.containsKey("key6"));
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get("key5"));
+    }
 }
@@ -143,4 +143,27 @@ public class XHtmlPageTest extends SimpleWebTestCase {
         assertEquals("http://www.w3.org/1999/xhtml", div.getNamespaceURI());
     }
 
+    /**
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void getElementsByTagNameCaseSensitive() throws Exception {
+        final String html =
+              "<html xmlns='http://www.w3.org/1999/xhtml'>\n"
+            + "<body><div>foo</div>\n"
+            + "<svg xmlns='http://www.w3.org/2000/svg'><foreignObject/></svg></body></html>";
+
+        final MockWebConnection conn = new MockWebConnection();
+        conn.setDefaultResponse(html, 200, "OK", "application/xhtml+xml");
+
+        final WebClient client = getWebClient();
+        client.setWebConnection(conn);
+        final XHtmlPage page = client.getPage(URL_FIRST);
+
+        assertEquals(1, page.getElementsByTagName("div").size());
+        assertEquals(0, page.getElementsByTagName("DIV").size());
+        assertEquals(1, page.getElementsByTagName("foreignObject").size());
+        assertEquals(0, page.getElementsByTagName("foreignobject").size());
+    }
+
 }
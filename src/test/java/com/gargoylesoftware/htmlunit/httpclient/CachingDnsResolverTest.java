@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2002-2020 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.httpclient;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.conn.DnsResolver;
+import org.junit.Test;
+
+/**
+ * Tests for {@link CachingDnsResolver}.
+ *
+ * @author agent (agent@local)
+ */
+public class CachingDnsResolverTest {
+
+    /**
+     * A resolver knowing only 'known.test' and counting the calls.
+     */
+    private static final class CountingDnsResolver implements DnsResolver {
+        private final AtomicInteger count_ = new AtomicInteger();
+
+        @Override
+        public InetAddress[] resolve(final String host) throws UnknownHostException {
+            count_.incrementAndGet();
+            if ("known.test".equals(host)) {
+                return new InetAddress[] {InetAddress.getByAddress(host, new byte[] {10, 0, 0, 1})};
+            }
+            throw new UnknownHostException(host);
+        }
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void cache() throws Exception {
+        final CountingDnsResolver delegate = new CountingDnsResolver();
+        final CachingDnsResolver resolver = new CachingDnsResolver(delegate, 60_000, 60_000);
+
+        assertEquals("10.0.0.1", resolver.resolve("known.test")[0].getHostAddress());
+        assertEquals("10.0.0.1", resolver.resolve("KNOWN.test")[0].getHostAddress());
+        assertEquals(1, delegate.count_.get());
+        assertEquals(1, resolver.getMissCount());
+        assertEquals(1, resolver.getHitCount());
+        assertEquals(1, resolver.getSize());
+
+        resolver.clear();
+        resolver.resolve("known.test");
+        assertEquals(2, delegate.count_.get());
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void negativeCache() throws Exception {
+        final CountingDnsResolver delegate = new CountingDnsResolver();
+        final CachingDnsResolver resolver = new CachingDnsResolver(delegate, 60_000, 60_000);
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                resolver.resolve("unknown.test");
+                fail("UnknownHostException expected");
+            }
+            catch (final UnknownHostException e) {
+                // expected
+            }
+        }
+        assertEquals(1, delegate.count_.get());
+        assertEquals(2, resolver.getHitCount());
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void expiration() throws Exception {
+        final CountingDnsResolver delegate = new CountingDnsResolver();
+        final CachingDnsResolver resolver = new CachingDnsResolver(delegate, 0, 0);
+
+        resolver.resolve("known.test");
+        resolver.resolve("known.test");
+        assertEquals(2, delegate.count_.get());
+        assertEquals(0, resolver.getHitCount());
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void staticHost() throws Exception {
+        final CountingDnsResolver delegate = new CountingDnsResolver();
+        final CachingDnsResolver resolver = new CachingDnsResolver(delegate, 60_000, 60_000);
+
+        final InetAddress address = InetAddress.getByAddress("static.test", new byte[] {10, 0, 0, 2});
+        resolver.addStaticHost("static.test", address);
+        assertArrayEquals(new InetAddress[] {address}, resolver.resolve("static.test"));
+        assertEquals(0, delegate.count_.get());
+
+        resolver.removeStaticHost("static.test");
+        try {
+            resolver.resolve("static.test");
+            fail("UnknownHostException expected");
+        }
+        catch (final UnknownHostException e) {
+            // expected
+        }
+        assertEquals(1, delegate.count_.get());
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void leastRecentlyUsedEviction() throws Exception {
+        final CountingDnsResolver delegate = new CountingDnsResolver();
+        final CachingDnsResolver resolver = new CachingDnsResolver(delegate, 60_000, 60_000);
+
+        resolver.resolve("known.test");
+        for (int i = 0; i < 9_999; i++) {
+            resolveUnknown(resolver, "h" + i + ".test");
+        }
+        assertEquals(10_000, resolver.getSize());
+
+        // known.test is now the most recently used one, h0.test gets dropped
+        resolver.resolve("known.test");
+        resolveUnknown(resolver, "h9999.test");
+        assertEquals(10_000, resolver.getSize());
+
+        final int count = delegate.count_.get();
+        resolver.resolve("known.test");
+        assertEquals(count, delegate.count_.get());
+        resolveUnknown(resolver, "h0.test");
+        assertEquals(count + 1, delegate.count_.get());
+    }
+
+    private static void resolveUnknown(final CachingDnsResolver resolver, final String host) {
+        try {
+            resolver.resolve(host);
+            fail("UnknownHostException expected");
+        }
+        catch (final UnknownHostException e) {
+            // expected
+        }
+    }
+}
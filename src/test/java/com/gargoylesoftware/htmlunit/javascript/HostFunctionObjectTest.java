@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2002-2020 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.javascript;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.gargoylesoftware.htmlunit.BrowserRunner;
+import com.gargoylesoftware.htmlunit.BrowserRunner.Alerts;
+import com.gargoylesoftware.htmlunit.WebDriverTestCase;
+
+/**
+ * Tests for {@link HostFunctionObject}.
+ *
+ * @author agent (agent@local)
+ */
+@RunWith(BrowserRunner.class)
+public class HostFunctionObjectTest extends WebDriverTestCase {
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    @Alerts({"false", "d", "adb", "foo true false", "true", "written", "exception"})
+    public void call() throws Exception {
+        final String html
+            = "<html><head><script>\n"
+            + "function test() {\n"
+            + "  var div = document.createElement('div');\n"
+            + "  alert(div.hasChildNodes());\n"
+            + "  div.setAttribute('id', 'd');\n"
+            + "  alert(div.getAttribute('id'));\n"
+            + "  div.setAttribute('title', 'a' + div.id + 'b');\n"
+            + "  alert(div.title);\n"
+            + "  var evt = document.createEvent('Event');\n"
+            + "  evt.initEvent('foo', true, false);\n"
+            + "  alert(evt.type + ' ' + evt.bubbles + ' ' + evt.cancelable);\n"
+            + "  div.appendChild(document.createTextNode('text'));\n"
+            + "  alert(div.hasChildNodes());\n"
+            + "  alert(document.getElementById('written').id);\n"
+            + "  try {\n"
+            + "    document.getElementById.call(div, 'd');\n"
+            + "  } catch (e) { alert('exception'); }\n"
+            + "}\n"
+            + "</script></head><body onload='test()'>\n"
+            + "<script>document.write('<span id=\"', 'written', '\"></span>');</script>\n"
+            + "</body></html>";
+
+        loadPageWithAlerts2(html);
+    }
+}
@@ -14,10 +14,14 @@
  */
 package com.gargoylesoftware.htmlunit.javascript;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import com.gargoylesoftware.htmlunit.BrowserRunner;
+import com.gargoylesoftware.htmlunit.BrowserRunner.Alerts;
 import com.gargoylesoftware.htmlunit.BrowserVersion;
 import com.gargoylesoftware.htmlunit.SimpleWebTestCase;
 
@@ -45,4 +49,33 @@ public class HtmlUnitContextFactoryTest extends SimpleWebTestCase {
 
         loadPage(browserVersion, html, null, URL_FIRST);
     }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    @Alerts({"4950", "timeout"})
+    public void compiledMode() throws Exception {
+        final String html = "<html><body><script>\n"
+            + "  var s = 0;\n"
+            + "  for (var i = 0; i < 100; i++) { s += i; }\n"
+            + "  alert(s);\n"
+            + "  function loop() { while (true) {} }\n"
+            + "  loop();\n"
+            + "  alert('not reached');\n"
+            + "</script>\n"
+            + "<script>alert('timeout');</script>\n"
+            + "</body></html>";
+
+        final HtmlUnitContextFactory factory =
+                ((JavaScriptEngine) getWebClient().getJavaScriptEngine()).getContextFactory();
+        factory.setOptimizationLevel(9);
+        getWebClient().setJavaScriptTimeout(1000);
+        getWebClient().getOptions().setThrowExceptionOnScriptError(false);
+
+        final List<String> collectedAlerts = new ArrayList<>();
+        loadPage(html, collectedAlerts);
+        assertEquals(getExpectedAlerts(), collectedAlerts);
+        assertTrue(factory.isCompiledMode());
+    }
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2002-2020 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.javascript;
+
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.gargoylesoftware.htmlunit.BrowserRunner;
+import com.gargoylesoftware.htmlunit.SimpleWebTestCase;
+
+/**
+ * Tests for {@link JavaScriptProfiler}.
+ *
+ * @author agent (agent@local)
+ */
+@RunWith(BrowserRunner.class)
+public class JavaScriptProfilerTest extends SimpleWebTestCase {
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void profile() throws Exception {
+        final JavaScriptProfiler profiler = new JavaScriptProfiler(1);
+        ((JavaScriptEngine) getWebClient().getJavaScriptEngine()).getContextFactory().setDebugger(profiler);
+        try {
+            final String html = "<html><head><script>\n"
+                + "function busy() {\n"
+                + "  var end = new Date().getTime() + 300;\n"
+                + "  var i = 0;\n"
+                + "  while (new Date().getTime() < end) {\n"
+                + "    i++;\n"
+                + "  }\n"
+                + "  return i;\n"
+                + "}\n"
+                + "function test() {\n"
+                + "  busy();\n"
+                + "}\n"
+                + "</script></head><body onload='test()'></body></html>";
+            loadPage(html);
+        }
+        finally {
+            profiler.stop();
+        }
+
+        assertTrue(profiler.getSampleCount() > 0);
+
+        // the inline scripts are named "script in <url> from (<line>, <column>) to (...)"
+        final String source = "script in " + URL_FIRST + " from ";
+        final String quoted = Pattern.quote(source);
+        boolean found = false;
+        for (final Map.Entry<String, Long> entry : profiler.getStackSamples().entrySet()) {
+            if (entry.getKey().matches(".*;test \\(" + quoted + ".*:11\\);busy \\(" + quoted + ".*:[3-8]\\)")) {
+                found = true;
+            }
+        }
+        assertTrue(profiler.getStackSamples().toString(), found);
+
+        boolean sourceFound = false;
+        for (final String name : profiler.getSourceSamples().keySet()) {
+            sourceFound |= name.startsWith(source);
+        }
+        assertTrue(profiler.getSourceSamples().toString(), sourceFound);
+
+        final StringWriter writer = new StringWriter();
+        profiler.writeFoldedStacks(writer);
+        assertTrue(writer.toString(), writer.toString().matches("(?s).*;busy \\([^;]+\\) \\d+\n.*"));
+
+        profiler.reset();
+        assertEquals(0, profiler.getSampleCount());
+        assertTrue(profiler.getStackSamples().isEmpty());
+    }
+}
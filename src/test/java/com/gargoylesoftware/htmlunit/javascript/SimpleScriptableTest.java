@@ -14,6 +14,9 @@
  */
 package com.gargoylesoftware.htmlunit.javascript;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
@@ -64,4 +67,36 @@ public class SimpleScriptableTest extends SimpleWebTestCase {
                      page.getFormByName("form1").getInputByName("textfield1"),
                      page.getFocusedElement());
     }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    @Alerts({"SPAN", "true"})
+    public void scriptObjectCount() throws Exception {
+        final String html
+            = "<html><head><script>\n"
+            + "function walk() {\n"
+            + "  var all = document.getElementsByTagName('span');\n"
+            + "  for (var i = 0; i < all.length; i++) { all[i].id; }\n"
+            + "}\n"
+            + "</script></head><body>\n"
+            + "<span>1</span><span>2</span><span>3</span>\n"
+            + "</body></html>";
+
+        final List<String> collectedAlerts = new ArrayList<>();
+        final HtmlPage page = loadPage(html, collectedAlerts);
+        final int count = page.getScriptObjectCount();
+
+        page.executeJavaScript("walk()");
+        assertEquals(count + 3, page.getScriptObjectCount());
+
+        // the objects are created only once
+        page.executeJavaScript("walk()");
+        assertEquals(count + 3, page.getScriptObjectCount());
+
+        page.executeJavaScript("var s = document.getElementsByTagName('span')[0];\n"
+            + "alert(s.tagName); alert(s instanceof HTMLSpanElement);");
+        assertEquals(getExpectedAlerts(), collectedAlerts);
+    }
 }
@@ -2966,4 +2966,35 @@ public class CSSStyleDeclarationTest extends WebDriverTestCase {
             + "</body></html>";
         loadPageWithAlerts2(html);
     }
+
+    /**
+     * @throws Exception if an error occurs
+     */
+    @Test
+    @Alerts({"rgb(255, 0, 0)", "rgb(0, 128, 0)", "rgb(0, 128, 0)", "red", "", "rgb(255, 0, 0)"})
+    public void severalWritesThenComputedStyle() throws Exception {
+        final String html = "<html><head>\n"
+            + "<script>\n"
+            + "  function test() {\n"
+            + "    var node = document.getElementById('div1');\n"
+            + "    var child = document.getElementById('child');\n"
+            + "    node.style.color = 'red';\n"
+            + "    alert(getComputedStyle(child).color);\n"
+            + "    node.style.color = 'blue';\n"
+            + "    node.style.color = 'green';\n"
+            + "    node.style.backgroundColor = 'red';\n"
+            + "    alert(getComputedStyle(child).color);\n"
+            + "    alert(getComputedStyle(node).color);\n"
+            + "    node.setAttribute('style', 'color: red');\n"
+            + "    alert(node.style.color);\n"
+            + "    alert(node.style.backgroundColor);\n"
+            + "    alert(getComputedStyle(child).color);\n"
+            + "  }\n"
+            + "</script>\n"
+            + "</head>\n"
+            + "<body onload='test()'>\n"
+            + "  <div id='div1'><span id='child'>foo</span></div>\n"
+            + "</body></html>";
+        loadPageWithAlerts2(html);
+    }
 }
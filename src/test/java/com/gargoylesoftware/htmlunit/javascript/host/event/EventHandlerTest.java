@@ -19,6 +19,7 @@ import org.junit.runner.RunWith;
 import org.openqa.selenium.WebDriver;
 
 import com.gargoylesoftware.htmlunit.BrowserRunner;
+import com.gargoylesoftware.htmlunit.BrowserRunner.Alerts;
 import com.gargoylesoftware.htmlunit.WebDriverTestCase;
 
 /**
@@ -45,4 +46,28 @@ public class EventHandlerTest extends WebDriverTestCase {
         final String alert = getCollectedAlerts(driver, 1).get(0);
         assertTrue(alert.contains("function onload(event)"));
     }
+
+    /**
+     * The elements having the same handler code share the compiled code, but each
+     * handler has its own scope.
+     * @throws Exception if the test fails
+     */
+    @Test
+    @Alerts({"b1 true", "b2 true", "b3 true", "false", "b2 true"})
+    public void sameCode() throws Exception {
+        final String html = "<html><body>\n"
+            + "<button id='b1' onclick='alert(id + \" \" + (this.id == id))'>1</button>\n"
+            + "<button id='b2' onclick='alert(id + \" \" + (this.id == id))'>2</button>\n"
+            + "<button id='b3' onclick='alert(id + \" \" + (this.id == id))'>3</button>\n"
+            + "<script>\n"
+            + "  document.getElementById('b1').click();\n"
+            + "  document.getElementById('b2').click();\n"
+            + "  document.getElementById('b3').click();\n"
+            + "  alert(document.getElementById('b1').onclick == document.getElementById('b2').onclick);\n"
+            + "  document.getElementById('b2').onclick();\n"
+            + "</script>\n"
+            + "</body></html>";
+
+        loadPageWithAlerts2(html);
+    }
 }
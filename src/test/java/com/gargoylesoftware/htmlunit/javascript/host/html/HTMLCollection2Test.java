@@ -29,6 +29,8 @@ import com.gargoylesoftware.htmlunit.CollectingAlertHandler;
 import com.gargoylesoftware.htmlunit.MockWebConnection;
 import com.gargoylesoftware.htmlunit.SimpleWebTestCase;
 import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.html.DomNode;
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
 import com.gargoylesoftware.htmlunit.util.MimeType;
 
 /**
@@ -69,4 +71,79 @@ public class HTMLCollection2Test extends SimpleWebTestCase {
         client.getPage(URL_FIRST);
         assertEquals(getExpectedAlerts(), collectedAlerts);
     }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    @Alerts({"3", "s2", "undefined", "renamed"})
+    public void wrappersCreatedOnAccess() throws Exception {
+        final String html = "<html><head></head><body>\n"
+            + "<span id='s1'>1</span><span id='s2'>2</span><span name='s3'>3</span>\n"
+            + "</body></html>";
+
+        final List<String> collectedAlerts = new ArrayList<>();
+        final HtmlPage page = loadPage(html, collectedAlerts);
+        page.executeJavaScript("var c = document.getElementsByTagName('span');");
+        final int count = page.getScriptObjectCount();
+
+        page.executeJavaScript("for (var i = 0; i < c.length; i++) { c.item; c.namedItem; } alert(c.length);");
+        assertEquals(count, page.getScriptObjectCount());
+
+        page.executeJavaScript("alert(c.s2.id); alert(c.s4);");
+        assertEquals(count + 1, page.getScriptObjectCount());
+
+        page.executeJavaScript("c[0].id = 'renamed'; alert(c.renamed.id);");
+        assertEquals(count + 2, page.getScriptObjectCount());
+        assertEquals(getExpectedAlerts(), collectedAlerts);
+    }
+
+    /**
+     * The ids and names are collected again if they are changed in place or on non HTML elements.
+     * @throws Exception if the test fails
+     */
+    @Test
+    @Alerts({"undefined", "newId", "undefined", "r2"})
+    public void idChangedInPlace() throws Exception {
+        final String html = "<html><head></head><body>\n"
+            + "<span id='s1'>1</span>\n"
+            + "<svg xmlns='http://www.w3.org/2000/svg'><rect id='r1'/></svg>\n"
+            + "<script>\n"
+            + "var c = document.getElementsByTagName('span');\n"
+            + "alert(c.newId);\n"
+            + "c[0].getAttributeNode('id').value = 'newId';\n"
+            + "alert(c.newId.id);\n"
+            + "var r = document.getElementsByTagName('rect');\n"
+            + "alert(r.r2);\n"
+            + "r[0].setAttribute('id', 'r2');\n"
+            + "alert(r.r2.id);\n"
+            + "</script></body></html>";
+
+        final List<String> collectedAlerts = new ArrayList<>();
+        loadPage(html, collectedAlerts);
+        assertEquals(getExpectedAlerts(), collectedAlerts);
+    }
+
+    /**
+     * Only changes inside of the collection root invalidate the cached elements.
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void cacheKeptForChangesOutside() throws Exception {
+        final String html = "<html><head></head><body>\n"
+            + "<div id='d1'><span>1</span></div><div id='d2'></div>\n"
+            + "</body></html>";
+
+        final HtmlPage page = loadPage(html);
+        final HTMLCollection collection = (HTMLCollection) page.executeJavaScript(
+                "document.getElementById('d1').getElementsByTagName('span')").getJavaScriptResult();
+        final List<DomNode> elements = collection.getElements();
+        assertEquals(1, elements.size());
+
+        page.executeJavaScript("document.getElementById('d2').appendChild(document.createElement('span'));");
+        assertSame(elements, collection.getElements());
+
+        page.executeJavaScript("document.getElementById('d1').appendChild(document.createElement('span'));");
+        assertEquals(2, collection.getElements().size());
+    }
 }
@@ -615,4 +615,25 @@ public class HTMLDocumentWrite2Test extends WebDriverTestCase {
 
         loadPageWithAlerts2(html);
     }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    @Alerts({"inner", "SPAN", "x'y"})
+    public void writeCharByChar() throws Exception {
+        final String html = "<html><head><title>foo</title></head><body>\n"
+             + "<script>\n"
+             + "  var s = '<span id=\"mySpan\" title=\"a>b\"></span>'\n"
+             + "    + '<scr' + 'ipt>var t = \"x\\'y\"; alert(\"inner\");</scr' + 'ipt>';\n"
+             + "  for (var i = 0; i < s.length; i++) {\n"
+             + "    document.write(s.charAt(i));\n"
+             + "  }\n"
+             + "  alert(document.getElementById('mySpan').nodeName);\n"
+             + "  alert(t);\n"
+             + "</script>\n"
+             + "</body></html>";
+
+        loadPageWithAlerts2(html);
+    }
 }
@@ -730,6 +730,87 @@ public class HTMLElementTest extends WebDriverTestCase {
         loadPageWithAlerts2(html);
     }
 
+    /**
+     * @throws Exception if an error occurs
+     */
+    @Test
+    @Alerts({"true", "true", "1", "2", "1", "0"})
+    public void sameLiveCollection() throws Exception {
+        final String html =
+              "<html><body><div id='d'><p class='a'>a</p><script>\n"
+            + "var div = document.getElementById('d');\n"
+            + "var byTag = div.getElementsByTagName('p');\n"
+            + "var byClass = document.getElementsByClassName('a');\n"
+            + "alert(byTag === div.getElementsByTagName('P'));\n"
+            + "alert(byClass === document.getElementsByClassName('a'));\n"
+            + "alert(byClass.length);\n"
+            + "var p = document.createElement('p');\n"
+            + "p.className = 'a';\n"
+            + "div.appendChild(p);\n"
+            + "alert(byTag.length);\n"
+            + "p.className = 'b';\n"
+            + "alert(byClass.length);\n"
+            + "div.innerHTML = '';\n"
+            + "alert(byTag.length);\n"
+            + "</script></div></body></html>";
+        loadPageWithAlerts2(html);
+    }
+
+    /**
+     * @throws Exception if an error occurs
+     */
+    @Test
+    @Alerts({"2", "1", "1", "2", "0", "0", "p2,p1", "1", "0"})
+    public void collectionsAfterChanges() throws Exception {
+        final String html =
+              "<html><body>\n"
+            + "<div id='d1'><p id='p1' class='a'>a</p></div>\n"
+            + "<div id='d2'><p id='p2' class='b'>b</p></div>\n"
+            + "<script>\n"
+            + "var d1 = document.getElementById('d1');\n"
+            + "var p1 = document.getElementById('p1');\n"
+            + "var p2 = document.getElementById('p2');\n"
+            + "alert(document.getElementsByTagName('p').length);\n"
+            + "alert(d1.getElementsByTagName('p').length);\n"
+            + "alert(document.getElementsByClassName('a').length);\n"
+            + "p2.classList.add('a');\n"
+            + "alert(document.getElementsByClassName('a').length);\n"
+            + "p1.getAttributeNode('class').value = 'c';\n"
+            + "p2.setAttribute('class', 'c');\n"
+            + "alert(document.getElementsByClassName('a').length);\n"
+            + "d1.insertBefore(p2, p1);\n"
+            + "alert(document.querySelectorAll('#d2 p').length + document.querySelectorAll('#d2 > p').length);\n"
+            + "var ids = [];\n"
+            + "var ps = document.querySelectorAll('div p.c');\n"
+            + "for (var i = 0; i < ps.length; i++) { ids.push(ps[i].id); }\n"
+            + "alert(ids.join());\n"
+            + "d1.removeChild(p1);\n"
+            + "alert(document.getElementsByClassName('c').length);\n"
+            + "alert(document.getElementById('d2').getElementsByTagName('p').length);\n"
+            + "</script></body></html>";
+        loadPageWithAlerts2(html);
+    }
+
+    /**
+     * @throws Exception if an error occurs
+     */
+    @Test
+    @Alerts({"0", "1", "p1", "1"})
+    public void collectionsAfterAttrValueChange() throws Exception {
+        final String html =
+              "<html><body>\n"
+            + "<div id='d1'><p id='p1' class='a'>a</p></div>\n"
+            + "<script>\n"
+            + "var p1 = document.getElementById('p1');\n"
+            + "alert(document.getElementsByClassName('newclass').length);\n"
+            + "p1.getAttributeNode('class').value = 'newclass';\n"
+            + "alert(document.getElementsByClassName('newclass').length);\n"
+            + "alert(document.getElementsByClassName('newclass')[0].id);\n"
+            + "alert(document.getElementById('d1').getElementsByClassName('newclass').length);\n"
+            + "</script></body></html>";
+        loadPageWithAlerts2(html);
+    }
+
     /**
      * Test getting the class for the element.
      * @throws Exception if the test fails
@@ -14,6 +14,8 @@
  */
 package com.gargoylesoftware.htmlunit.javascript.host.performance;
 
+import java.net.URL;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.openqa.selenium.WebDriver;
@@ -102,4 +104,63 @@ public class PerformanceTest extends WebDriverTestCase {
 
         loadPageWithAlerts2(html);
     }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    @Alerts({"1", "resource", "script", "true", "true", "true"})
+    public void getEntriesByTypeResource() throws Exception {
+        final String html
+                = "<html>\n"
+                + "<head>\n"
+                + "<script src='script.js'></script>\n"
+                + "<script>\n"
+                + "  function test() {\n"
+                + "    var entries = performance.getEntriesByType('resource');\n"
+                + "    alert(entries.length);\n"
+                + "    alert(entries[0].entryType);\n"
+                + "    alert(entries[0].initiatorType);\n"
+                + "    alert(entries[0].name.indexOf('script.js') > 0);\n"
+                + "    alert(entries[0].startTime >= 0);\n"
+                + "    alert(entries[0].responseEnd >= entries[0].fetchStart);\n"
+                + "  }\n"
+                + "</script>\n"
+                + "</head>\n"
+                + "<body onload='test()'></body>\n"
+                + "</html>";
+
+        getMockWebConnection().setResponse(new URL(URL_FIRST, "script.js"), "var x = 1;");
+        loadPageWithAlerts2(html);
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    @Alerts(DEFAULT = {"1", "navigation", "0", "navigate", "true", "true", "true"},
+            IE = "0")
+    public void getEntriesByTypeNavigation() throws Exception {
+        final String html
+                = "<html>\n"
+                + "<head>\n"
+                + "<script>\n"
+                + "  function test() {\n"
+                + "    var entries = performance.getEntriesByType('navigation');\n"
+                + "    alert(entries.length);\n"
+                + "    if (entries.length == 0) { return; }\n"
+                + "    alert(entries[0].entryType);\n"
+                + "    alert(entries[0].startTime);\n"
+                + "    alert(entries[0].type);\n"
+                + "    alert(entries[0].domInteractive > 0);\n"
+                + "    alert(entries[0].domContentLoadedEventEnd >= entries[0].domInteractive);\n"
+                + "    alert(entries[0].loadEventStart >= entries[0].domContentLoadedEventEnd);\n"
+                + "  }\n"
+                + "</script>\n"
+                + "</head>\n"
+                + "<body onload='test()'></body>\n"
+                + "</html>";
+
+        loadPageWithAlerts2(html);
+    }
 }
@@ -158,4 +158,25 @@ public class HtmlUnitRegExpProxy2Test extends SimpleWebTestCase {
         final HtmlPage page = loadPage(html);
         page.executeJavaScript("'alpha'.replace(/alpha/, '');/beta/.test('abc beta def');");
     }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void patternCache() throws Exception {
+        final String html = "<html></html>";
+        final HtmlPage page = loadPage(html);
+
+        final long misses = HtmlUnitRegExpProxy.getPatternCacheMisses();
+        final long hits = HtmlUnitRegExpProxy.getPatternCacheHits();
+        for (int i = 0; i < 3; i++) {
+            assertEquals("A", page.executeJavaScript("'xAy'.match(/patternCache[0]|a/i)[0]").getJavaScriptResult());
+        }
+        assertTrue(HtmlUnitRegExpProxy.getPatternCacheMisses() >= misses + 1);
+        assertTrue(HtmlUnitRegExpProxy.getPatternCacheHits() >= hits + 2);
+
+        // a string argument is not mixed up with the regexp having the same source
+        assertEquals("/patternCache0", page.executeJavaScript(
+                "'x/patternCache0/i'.match('/patternCache[0]|a/i') + ''").getJavaScriptResult());
+    }
 }
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2002-2020 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.util;
+
+import org.junit.Test;
+
+import com.gargoylesoftware.htmlunit.SimpleWebTestCase;
+import com.gargoylesoftware.htmlunit.html.DomNode;
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
+
+/**
+ * Tests for {@link StringPool}.
+ *
+ * @author agent (agent@local)
+ */
+public class StringPoolTest extends SimpleWebTestCase {
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void intern() throws Exception {
+        final StringPool pool = new StringPool(2, 5);
+        assertNull(pool.intern(null));
+
+        final String first = new String("abc");
+        assertSame(first, pool.intern(first));
+        assertSame(first, pool.intern(new String("abc")));
+
+        // too long
+        final String tooLong = new String("abcdef");
+        assertSame(tooLong, pool.intern(tooLong));
+        assertEquals(1, pool.size());
+
+        final String second = new String("xyz");
+        assertSame(second, pool.intern(second));
+        assertSame(first, pool.intern(new String("abc")));
+
+        // pool is full, the least recently used string is removed
+        final String third = new String("klm");
+        assertSame(third, pool.intern(third));
+        assertEquals(2, pool.size());
+        assertSame(first, pool.intern(new String("abc")));
+        assertSame(third, pool.intern(new String("klm")));
+        final String secondAgain = new String("xyz");
+        assertSame(secondAgain, pool.intern(secondAgain));
+
+        pool.clear();
+        assertEquals(0, pool.size());
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void parsedPagesShareStrings() throws Exception {
+        final String html = "<html><body>\n"
+            + "  <div id='d1' class='box'></div>\n"
+            + "  <div id='d2' class='box'></div>\n"
+            + "</body></html>";
+
+        getWebClient().getOptions().setStringDeduplicationEnabled(true);
+        final HtmlPage page = loadPage(html);
+
+        final DomNode d1 = page.getElementById("d1");
+        final DomNode d2 = page.getElementById("d2");
+        assertSame(d1.getNodeName(), d2.getNodeName());
+        assertSame(d1.getAttributes().getNamedItem("class").getNodeValue(),
+                d2.getAttributes().getNamedItem("class").getNodeValue());
+        assertSame(d1.getNextSibling().getNodeValue(), d2.getNextSibling().getNodeValue());
+    }
+}